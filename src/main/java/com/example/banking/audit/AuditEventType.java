@@ -0,0 +1,14 @@
+package com.example.banking.audit;
+
+public enum AuditEventType {
+	USER_REGISTERED,
+	LOGIN_SUCCEEDED,
+	LOGIN_FAILED,
+	PASSWORD_CHANGED,
+	PASSWORD_CHANGE_FAILED,
+	PASSWORD_RESET_REQUESTED,
+	PASSWORD_RESET_COMPLETED,
+	USER_ACTIVATED,
+	USER_SUSPENDED,
+	USER_DELETED
+}
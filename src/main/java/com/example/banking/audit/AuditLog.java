@@ -0,0 +1,161 @@
+package com.example.banking.audit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.banking.util.RingBuffer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Security audit trail that stays off the request path. {@link #record} only
+ * offers an immutable record to a {@link RingBuffer}; a single writer
+ * thread drains it in batches to an {@link AuditSink}, parking while it is
+ * empty.
+ * <p>
+ * When the buffer is full the {@link OverflowPolicy} decides: {@code DROP}
+ * discards the event at once, {@code BLOCK} waits up to the block timeout for
+ * space and then discards it. Either way the caller never fails, and every
+ * discarded event is counted. A batch the sink rejects is retried with backoff
+ * and counted as failed once the retries run out.
+ * <p>
+ * {@link #close()} stops accepting events and waits for the writer to drain
+ * everything already recorded, so a normal shutdown loses nothing.
+ */
+public class AuditLog implements AutoCloseable {
+	private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+	private static final int WRITE_ATTEMPTS = 3;
+	private static final long BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	public enum OverflowPolicy {
+		DROP, BLOCK
+	}
+
+	private final RingBuffer<AuditRecord> buffer;
+	private final AuditSink sink;
+	private final int batchSize;
+	private final OverflowPolicy policy;
+	private final long blockTimeoutNanos;
+	private final long idleParkNanos;
+	private final Duration closeTimeout;
+	private final Thread writer;
+	private final Counter recorded;
+	private final Counter dropped;
+	private final Counter written;
+	private final Counter failed;
+	private final Timer batchTimer;
+	private volatile boolean accepting = true;
+
+	public AuditLog(AuditSink sink, int capacity, int batchSize, OverflowPolicy policy, Duration blockTimeout,
+			Duration idleWait, Duration closeTimeout, MeterRegistry meterRegistry) {
+		this.buffer = new RingBuffer<>(capacity);
+		this.sink = sink;
+		this.batchSize = batchSize;
+		this.policy = policy;
+		this.blockTimeoutNanos = blockTimeout.toNanos();
+		this.idleParkNanos = idleWait.toNanos();
+		this.closeTimeout = closeTimeout;
+		this.recorded = Counter.builder("audit.events").tag("outcome", "recorded").register(meterRegistry);
+		this.dropped = Counter.builder("audit.events").tag("outcome", "dropped").register(meterRegistry);
+		this.written = Counter.builder("audit.events").tag("outcome", "written").register(meterRegistry);
+		this.failed = Counter.builder("audit.events").tag("outcome", "failed").register(meterRegistry);
+		this.batchTimer = Timer.builder("audit.batch.write").register(meterRegistry);
+		Gauge.builder("audit.buffer.depth", buffer, RingBuffer::size).register(meterRegistry);
+		this.writer = Thread.ofPlatform().name("audit-writer").daemon().unstarted(this::drainLoop);
+		writer.start();
+	}
+
+	public void record(AuditEventType type, Long userId, String principal, String detail) {
+		AuditRecord record = new AuditRecord(Instant.now(), type, userId, principal, detail);
+		if (accepting && (buffer.offer(record) || policy == OverflowPolicy.BLOCK && offerBlocking(record))) {
+			recorded.increment();
+		} else {
+			dropped.increment();
+		}
+	}
+
+	public int pending() {
+		return buffer.size();
+	}
+
+	@Override
+	public void close() {
+		accepting = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join(closeTimeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writer.isAlive()) {
+			log.warn("Audit writer did not drain within {}; {} events pending", closeTimeout, buffer.size());
+			return;
+		}
+		// Producers that saw the log open just before close() may have landed
+		// after the writer's final drain; with the writer gone this thread is
+		// the only consumer
+		List<AuditRecord> residual = new ArrayList<>();
+		while (buffer.drainTo(residual, batchSize) > 0) {
+			write(residual);
+			residual.clear();
+		}
+	}
+
+	private boolean offerBlocking(AuditRecord record) {
+		long deadline = System.nanoTime() + blockTimeoutNanos;
+		while (System.nanoTime() < deadline) {
+			LockSupport.parkNanos(BLOCK_PARK_NANOS);
+			if (buffer.offer(record)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void drainLoop() {
+		List<AuditRecord> batch = new ArrayList<>(batchSize);
+		while (true) {
+			boolean closing = !accepting;
+			if (buffer.drainTo(batch, batchSize) == 0) {
+				if (closing) {
+					return;
+				}
+				LockSupport.parkNanos(idleParkNanos);
+				continue;
+			}
+			write(batch);
+			batch.clear();
+		}
+	}
+
+	private void write(List<AuditRecord> batch) {
+		for (int attempt = 1; attempt <= WRITE_ATTEMPTS; attempt++) {
+			long started = System.nanoTime();
+			try {
+				sink.write(batch);
+				batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+				written.increment(batch.size());
+				return;
+			} catch (RuntimeException e) {
+				if (attempt == WRITE_ATTEMPTS) {
+					failed.increment(batch.size());
+					log.error("Failed to write {} audit events: {}", batch.size(), e.getMessage(), e);
+					return;
+				}
+				LockSupport.parkNanos(BACKOFF_NANOS * attempt);
+			}
+		}
+	}
+}
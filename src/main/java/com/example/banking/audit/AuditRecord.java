@@ -0,0 +1,11 @@
+package com.example.banking.audit;
+
+import java.time.Instant;
+
+/**
+ * @param userId    subject of the event, if known
+ * @param principal email or username the caller presented, if any
+ * @param detail    short free text, such as a failure reason
+ */
+public record AuditRecord(Instant occurredAt, AuditEventType type, Long userId, String principal, String detail) {
+}
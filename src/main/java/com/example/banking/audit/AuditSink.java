@@ -0,0 +1,12 @@
+package com.example.banking.audit;
+
+import java.util.List;
+
+/**
+ * Destination for drained audit records. Called from the single writer
+ * thread only; throwing leaves the batch to be retried.
+ */
+public interface AuditSink {
+
+	void write(List<AuditRecord> batch);
+}
@@ -0,0 +1,41 @@
+package com.example.banking.audit;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Appends batches to {@code audit_events} with one JDBC batch insert.
+ */
+public class JdbcAuditSink implements AuditSink {
+
+	private static final String INSERT = "INSERT INTO audit_events (occurred_at, event_type, user_id, principal, "
+			+ "detail) VALUES (?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcAuditSink(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void write(List<AuditRecord> batch) {
+		jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, record) -> {
+			ps.setTimestamp(1, Timestamp.from(record.occurredAt()));
+			ps.setString(2, record.type().name());
+			if (record.userId() == null) {
+				ps.setNull(3, Types.BIGINT);
+			} else {
+				ps.setLong(3, record.userId());
+			}
+			ps.setString(4, truncate(record.principal(), 100));
+			ps.setString(5, truncate(record.detail(), 255));
+		});
+	}
+
+	private static String truncate(String value, int maxLength) {
+		return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+	}
+}
@@ -0,0 +1,342 @@
+package com.example.banking.batch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Status;
+import com.example.banking.exception.InsufficientFundsException;
+import com.example.banking.ledger.LedgerEngine;
+import com.example.banking.ledger.Posting;
+import com.example.banking.ledger.Transfer;
+import com.example.banking.ledger.TransferEngine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Nightly interest accrual, maintenance fees and dormant flags over every
+ * account. The account id space is split into fixed ranges that a bounded set
+ * of virtual-thread workers claim one at a time. Each finished partition
+ * writes its results and its checkpoint row in one transaction, so a run that
+ * crashed resumes with the first partition it had not finished.
+ * <p>
+ * Balances are read from the in-memory ledger rather than the database. Fees
+ * are transfers to the fee account with ids derived from the business date and
+ * account. Each fee is marked pending in {@code eod_fees} before its transfer
+ * is submitted and settled in the partition transaction, so a partition re-run
+ * after a crash never charges twice, however long ago the transfer engine
+ * forgot the id: settled fees are skipped, and a pending fee is only submitted
+ * again if its transfer never reached the ledger.
+ */
+public class EndOfDayJob {
+	private static final Logger log = LoggerFactory.getLogger(EndOfDayJob.class);
+
+	private static final String RUNNING = "RUNNING";
+	private static final String COMPLETED = "COMPLETED";
+	private static final BigDecimal DAYS_PER_YEAR = BigDecimal.valueOf(365);
+
+	// users.status is mapped without @Enumerated, so it holds the ordinal
+	private static final String PARTITION_QUERY = "SELECT a.account_id, a.dormant, u.status FROM accounts a "
+			+ "JOIN users u ON u.user_id = a.user_id WHERE a.account_id >= ? AND a.account_id < ? "
+			+ "ORDER BY a.account_id";
+	private static final String INSERT_RESULT = "INSERT INTO eod_account_results "
+			+ "(business_date, account_id, balance, interest_micros, fee) VALUES (?, ?, ?, ?, ?)";
+	private static final String UPDATE_DORMANT = "UPDATE accounts SET dormant = ? WHERE account_id = ?";
+	private static final String FEE_MARKERS = "SELECT account_id, status FROM eod_fees "
+			+ "WHERE business_date = ? AND account_id >= ? AND account_id < ?";
+	private static final String INSERT_FEE = "INSERT INTO eod_fees "
+			+ "(business_date, account_id, transfer_id, status, updated_at) VALUES (?, ?, ?, ?, ?)";
+	private static final String SETTLE_FEE = "UPDATE eod_fees SET status = ?, updated_at = ? "
+			+ "WHERE business_date = ? AND account_id = ?";
+	private static final String FEE_PENDING = "PENDING";
+	private static final String FEE_CHARGED = "CHARGED";
+	private static final String FEE_WAIVED = "WAIVED";
+	private static final String INSERT_CHECKPOINT = "INSERT INTO eod_partitions "
+			+ "(business_date, partition_no, accounts, duration_ms, finished_at) VALUES (?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final LedgerEngine ledgerEngine;
+	private final TransferEngine transferEngine;
+	private final Settings settings;
+	private final BigDecimal dailyMicrosPerUnit;
+	private final Timer partitionTimer;
+	private final DistributionSummary partitionThroughput;
+	private final Counter accountsProcessed;
+	private final Counter feesCharged;
+	private final Counter feesWaived;
+
+	public EndOfDayJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, LedgerEngine ledgerEngine,
+			TransferEngine transferEngine, Settings settings, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.ledgerEngine = ledgerEngine;
+		this.transferEngine = transferEngine;
+		this.settings = settings;
+		// bps / 10_000 per year, in millionths of a minor unit per day
+		this.dailyMicrosPerUnit = BigDecimal.valueOf(settings.interestRateBps() * 100L)
+				.divide(DAYS_PER_YEAR, 12, RoundingMode.HALF_EVEN);
+		this.partitionTimer = Timer.builder("eod.partition.duration").register(meterRegistry);
+		this.partitionThroughput = DistributionSummary.builder("eod.partition.throughput").baseUnit("accounts/s")
+				.description("Accounts per second within one partition").register(meterRegistry);
+		this.accountsProcessed = Counter.builder("eod.accounts").register(meterRegistry);
+		this.feesCharged = Counter.builder("eod.fees").tag("outcome", "charged").register(meterRegistry);
+		this.feesWaived = Counter.builder("eod.fees").tag("outcome", "waived").register(meterRegistry);
+	}
+
+	public List<LocalDate> unfinishedRuns() {
+		return jdbcTemplate.queryForList("SELECT business_date FROM eod_runs WHERE status = ? ORDER BY business_date",
+				LocalDate.class, RUNNING);
+	}
+
+	/**
+	 * Runs, or resumes, the job for one business date. A completed date is not
+	 * run again.
+	 */
+	public RunSummary run(LocalDate businessDate) {
+		long started = System.nanoTime();
+		Plan plan = startOrResume(businessDate);
+		if (plan == null) {
+			log.info("End-of-day run for {} already completed", businessDate);
+			return new RunSummary(businessDate, 0, 0, 0, Duration.ZERO);
+		}
+
+		Set<Integer> finished = new HashSet<>(jdbcTemplate.queryForList(
+				"SELECT partition_no FROM eod_partitions WHERE business_date = ?", Integer.class, businessDate));
+		List<Integer> pending = new ArrayList<>();
+		for (int partition = 0; partition < plan.partitions(); partition++) {
+			if (!finished.contains(partition)) {
+				pending.add(partition);
+			}
+		}
+		log.info("End-of-day run for {}: {} partitions, {} already finished", businessDate, plan.partitions(),
+				finished.size());
+
+		AtomicInteger next = new AtomicInteger();
+		AtomicLong accounts = new AtomicLong();
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int w = 0; w < settings.parallelism(); w++) {
+				workers.execute(() -> {
+					for (int i = next.getAndIncrement(); i < pending.size() && failure.get() == null;
+							i = next.getAndIncrement()) {
+						try {
+							accounts.addAndGet(processPartition(businessDate, plan, pending.get(i)));
+						} catch (RuntimeException e) {
+							failure.compareAndSet(null, e);
+						}
+					}
+				});
+			}
+		}
+		if (failure.get() != null) {
+			throw new IllegalStateException("End-of-day run for " + businessDate
+					+ " stopped; finished partitions are checkpointed", failure.get());
+		}
+
+		jdbcTemplate.update("UPDATE eod_runs SET status = ?, finished_at = ? WHERE business_date = ?", COMPLETED,
+				Timestamp.valueOf(LocalDateTime.now()), businessDate);
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+		log.info("End-of-day run for {} completed: {} accounts in {} ms", businessDate, accounts.get(),
+				elapsed.toMillis());
+		return new RunSummary(businessDate, plan.partitions(), finished.size(), accounts.get(), elapsed);
+	}
+
+	private Plan startOrResume(LocalDate businessDate) {
+		List<Object[]> existing = jdbcTemplate.query("SELECT status, first_account_id, last_account_id, "
+				+ "partition_size FROM eod_runs WHERE business_date = ?",
+				(rs, rowNum) -> new Object[] {rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4)},
+				businessDate);
+		if (!existing.isEmpty()) {
+			Object[] run = existing.get(0);
+			return COMPLETED.equals(run[0]) ? null : new Plan((Long) run[1], (Long) run[2], (Integer) run[3]);
+		}
+
+		Plan plan = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(account_id), 1), COALESCE(MAX(account_id), 0) "
+				+ "FROM accounts", (rs, rowNum) -> new Plan(rs.getLong(1), rs.getLong(2), settings.partitionSize()));
+		jdbcTemplate.update("INSERT INTO eod_runs (business_date, status, first_account_id, last_account_id, "
+				+ "partition_size, started_at) VALUES (?, ?, ?, ?, ?, ?)", businessDate, RUNNING,
+				plan.firstAccountId(), plan.lastAccountId(), plan.partitionSize(),
+				Timestamp.valueOf(LocalDateTime.now()));
+		return plan;
+	}
+
+	private int processPartition(LocalDate businessDate, Plan plan, int partition) {
+		long started = System.nanoTime();
+		long from = plan.firstAccountId() + (long) partition * plan.partitionSize();
+		long to = Math.min(from + plan.partitionSize(), plan.lastAccountId() + 1);
+		boolean feeDay = businessDate.getDayOfMonth() == 1 && settings.maintenanceFee() > 0
+				&& settings.feeAccountId() > 0;
+
+		List<AccountRow> rows = jdbcTemplate.query(PARTITION_QUERY, (rs, rowNum) -> new AccountRow(rs.getLong(1),
+				rs.getBoolean(2), Status.values()[rs.getInt(3)]), from, to);
+		List<Object[]> results = new ArrayList<>(rows.size());
+		List<Object[]> dormantChanges = new ArrayList<>();
+		List<Transfer> fees = new ArrayList<>();
+		List<Object[]> feeRows = new ArrayList<>();
+		List<Object[]> newFees = new ArrayList<>();
+		List<Object[]> settledFees = new ArrayList<>();
+		Date date = Date.valueOf(businessDate);
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		Map<Long, String> feeMarkers = new HashMap<>();
+		if (feeDay) {
+			jdbcTemplate.query(FEE_MARKERS, (RowCallbackHandler) rs -> feeMarkers.put(rs.getLong(1), rs.getString(2)),
+					date, from, to);
+		}
+
+		for (AccountRow row : rows) {
+			boolean dormant = row.ownerStatus() == Status.INACTIVE;
+			if (dormant != row.dormant()) {
+				dormantChanges.add(new Object[] {dormant, row.accountId()});
+			}
+			if (row.ownerStatus() != Status.ACTIVE || !ledgerEngine.hasAccount(row.accountId())
+					|| row.accountId() == settings.feeAccountId()) {
+				continue;
+			}
+			long balance = ledgerEngine.balance(row.accountId());
+			Object[] result = {date, row.accountId(), balance, accrue(balance), 0L};
+			results.add(result);
+			if (!feeDay) {
+				continue;
+			}
+			UUID transferId = feeTransferId(businessDate, row.accountId());
+			String marker = feeMarkers.get(row.accountId());
+			if (FEE_CHARGED.equals(marker)) {
+				result[4] = settings.maintenanceFee();
+			} else if (FEE_PENDING.equals(marker) && posted(transferId)) {
+				// The transfer went through but the partition did not commit
+				result[4] = settings.maintenanceFee();
+				settledFees.add(new Object[] {FEE_CHARGED, now, date, row.accountId()});
+			} else if (!FEE_WAIVED.equals(marker)) {
+				if (marker == null) {
+					newFees.add(new Object[] {date, row.accountId(), transferId.toString(), FEE_PENDING, now});
+				}
+				fees.add(new Transfer(transferId, row.accountId(), settings.feeAccountId(),
+						settings.maintenanceFee()));
+				feeRows.add(result);
+			}
+		}
+
+		// Markers commit before any transfer is submitted
+		if (!newFees.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_FEE, newFees);
+		}
+		List<CompletableFuture<Posting>> submitted = new ArrayList<>(fees.size());
+		fees.forEach(fee -> submitted.add(transferEngine.submit(fee)));
+		for (int i = 0; i < submitted.size(); i++) {
+			Object[] result = feeRows.get(i);
+			try {
+				submitted.get(i).join();
+				result[4] = settings.maintenanceFee();
+				settledFees.add(new Object[] {FEE_CHARGED, now, date, result[1]});
+				feesCharged.increment();
+			} catch (CompletionException e) {
+				if (!(e.getCause() instanceof InsufficientFundsException)) {
+					throw e;
+				}
+				settledFees.add(new Object[] {FEE_WAIVED, now, date, result[1]});
+				feesWaived.increment();
+			}
+		}
+
+		long durationMs = (System.nanoTime() - started) / 1_000_000;
+		transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.batchUpdate(INSERT_RESULT, results, settings.batchSize(), (ps, result) -> {
+				ps.setDate(1, (Date) result[0]);
+				ps.setLong(2, (Long) result[1]);
+				ps.setLong(3, (Long) result[2]);
+				ps.setLong(4, (Long) result[3]);
+				ps.setLong(5, (Long) result[4]);
+			});
+			jdbcTemplate.batchUpdate(UPDATE_DORMANT, dormantChanges, settings.batchSize(), (ps, change) -> {
+				ps.setBoolean(1, (Boolean) change[0]);
+				ps.setLong(2, (Long) change[1]);
+			});
+			if (!settledFees.isEmpty()) {
+				jdbcTemplate.batchUpdate(SETTLE_FEE, settledFees);
+			}
+			jdbcTemplate.update(INSERT_CHECKPOINT, date, partition, rows.size(), durationMs,
+					Timestamp.valueOf(LocalDateTime.now()));
+		});
+
+		long elapsed = System.nanoTime() - started;
+		partitionTimer.record(Duration.ofNanos(elapsed));
+		partitionThroughput.record(rows.size() / Math.max(elapsed / 1e9, 1e-9));
+		accountsProcessed.increment(rows.size());
+		log.debug("End-of-day partition {} [{}, {}) for {}: {} accounts in {} ms", partition, from, to, businessDate,
+				rows.size(), elapsed / 1_000_000);
+		return rows.size();
+	}
+
+	private long accrue(long balance) {
+		if (balance <= 0 || settings.interestRateBps() == 0) {
+			return 0;
+		}
+		return BigDecimal.valueOf(balance).multiply(dailyMicrosPerUnit).setScale(0, RoundingMode.HALF_EVEN)
+				.longValueExact();
+	}
+
+	private boolean posted(UUID transferId) {
+		return !jdbcTemplate.queryForList("SELECT 1 FROM ledger_entries WHERE transfer_id = ? LIMIT 1", Integer.class,
+				transferId.toString()).isEmpty();
+	}
+
+	private static UUID feeTransferId(LocalDate businessDate, long accountId) {
+		return UUID.nameUUIDFromBytes(("eod-fee:" + businessDate + ":" + accountId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param partitionSize   account ids per partition
+	 * @param parallelism     partitions processed at once; bounded by the
+	 *                        connection pool rather than by cores
+	 * @param batchSize       rows per JDBC batch
+	 * @param interestRateBps yearly interest rate in basis points
+	 * @param maintenanceFee  fee in minor units charged on the first of the month
+	 * @param feeAccountId    account credited with fees, 0 to disable fees
+	 */
+	public record Settings(int partitionSize, int parallelism, int batchSize, long interestRateBps,
+			long maintenanceFee, long feeAccountId) {
+	}
+
+	public record RunSummary(LocalDate businessDate, int partitions, int resumedPartitions, long accounts,
+			Duration elapsed) {
+	}
+
+	private record Plan(long firstAccountId, long lastAccountId, int partitionSize) {
+		int partitions() {
+			long span = lastAccountId - firstAccountId + 1;
+			return span <= 0 ? 0 : (int) ((span + partitionSize - 1) / partitionSize);
+		}
+	}
+
+	private record AccountRow(long accountId, boolean dormant, Status ownerStatus) {
+	}
+}
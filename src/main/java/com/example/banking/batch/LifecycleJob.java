@@ -0,0 +1,407 @@
+package com.example.banking.batch;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.example.banking.util.AdaptiveLimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Applies one {@link LifecycleSweep} to every matching user in chunks.
+ * <p>
+ * Chunks are cut by keyset: the next chunk is the next {@code chunkSize}
+ * matching ids above the previous chunk's last id. Workers take chunks as
+ * they free up; each locks the chunk's matching rows, changes them with one
+ * set-based statement and reports them to the {@link ChunkListener} in the
+ * same transaction.
+ * <p>
+ * Progress is checkpointed in {@code lifecycle_job_runs} as the highest id
+ * below which every chunk has committed, so a run that died resumes from
+ * there. Chunks that committed above the checkpoint are simply run again,
+ * which finds nothing left to change.
+ * <p>
+ * The run row is claimed with a conditional update before any chunk runs,
+ * so only one node works on a job at a time. The claiming node refreshes
+ * its heartbeat after every chunk and clears it when the run fails; a run
+ * whose heartbeat is older than {@link #CLAIM_LEASE} belongs to a node that
+ * died and is resumed by the next node to run the job. Every claim writes a
+ * new token that all later updates of the run row match on, so a node that
+ * stalled past its lease and was taken over can no longer move the
+ * checkpoint or finish the run; it stops at its next heartbeat.
+ * <p>
+ * The number of chunks in flight follows the latency of live traffic, read
+ * after each chunk: when it rises past {@code latencyTolerance} times its
+ * baseline, the job backs off towards a single worker, and it grows back one
+ * worker at a time while latency stays normal.
+ */
+public class LifecycleJob {
+	private static final Logger log = LoggerFactory.getLogger(LifecycleJob.class);
+
+	private static final String RUNNING = "RUNNING";
+	private static final String COMPLETED = "COMPLETED";
+	private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+
+	// users.role and users.status are mapped without @Enumerated, so they hold the ordinal
+	private static final RowMapper<SweptUser> SWEPT_USER = (rs, rowNum) -> {
+		Timestamp createdAt = rs.getTimestamp(5);
+		return new SweptUser(rs.getLong(1), rs.getString(2), Role.values()[rs.getInt(3)],
+				Status.values()[rs.getInt(4)], createdAt == null ? null : createdAt.toLocalDateTime());
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final LifecycleSweep sweep;
+	private final Settings settings;
+	private final ChunkListener listener;
+	private final LongSupplier liveLatencyNanos;
+	private final String nextChunkQuery;
+	private final String lockChunkQuery;
+	private final AdaptiveLimit throttle;
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final AtomicLong checkpoint = new AtomicLong();
+	private final AtomicLong lastRunRate = new AtomicLong();
+	private final Counter usersChanged;
+	private final Counter chunks;
+	private final Counter throttled;
+	private final Timer chunkTimer;
+
+	/**
+	 * @param liveLatencyNanos mean latency of live traffic since the previous
+	 *                         call, or -1 if there was none
+	 */
+	public LifecycleJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, LifecycleSweep sweep,
+			Settings settings, ChunkListener listener, LongSupplier liveLatencyNanos, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.sweep = sweep;
+		this.settings = settings;
+		this.listener = listener;
+		this.liveLatencyNanos = liveLatencyNanos;
+		this.nextChunkQuery = "SELECT u.user_id FROM users u WHERE u.user_id > ? AND (" + sweep.condition()
+				+ ") ORDER BY u.user_id LIMIT ?";
+		this.lockChunkQuery = "SELECT u.user_id, u.email, u.role, u.status, u.created_at FROM users u "
+				+ "WHERE u.user_id > ? AND u.user_id <= ? AND (" + sweep.condition() + ") ORDER BY u.user_id FOR UPDATE";
+		this.throttle = new AdaptiveLimit(settings.parallelism(), 1, settings.parallelism(), settings.backoffRatio(),
+				settings.latencyTolerance());
+
+		Tags tags = Tags.of("job", sweep.name());
+		this.usersChanged = Counter.builder("lifecycle.users").tags(tags).register(meterRegistry);
+		this.chunks = Counter.builder("lifecycle.chunks").tags(tags).register(meterRegistry);
+		this.throttled = Counter.builder("lifecycle.throttled").tags(tags)
+				.description("Times a worker waited because live traffic latency lowered the parallelism")
+				.register(meterRegistry);
+		this.chunkTimer = Timer.builder("lifecycle.chunk.duration").tags(tags).register(meterRegistry);
+		Gauge.builder("lifecycle.checkpoint", checkpoint, AtomicLong::get).tags(tags)
+				.description("User id below which every chunk of the current run has committed")
+				.register(meterRegistry);
+		Gauge.builder("lifecycle.parallelism", throttle, AdaptiveLimit::limit).tags(tags).register(meterRegistry);
+		Gauge.builder("lifecycle.last.run.throughput", lastRunRate, AtomicLong::get).tags(tags).baseUnit("users/s")
+				.description("Users changed per second in the most recent run").register(meterRegistry);
+	}
+
+	public String name() {
+		return sweep.name();
+	}
+
+	public boolean unfinished() {
+		return !jdbcTemplate.queryForList("SELECT job_name FROM lifecycle_job_runs WHERE job_name = ? AND status = ?",
+				String.class, sweep.name(), RUNNING).isEmpty();
+	}
+
+	/**
+	 * Runs the sweep, or resumes the run that was interrupted. Returns at once
+	 * if the job is already running on this or another node.
+	 */
+	public RunSummary run() {
+		if (!running.compareAndSet(false, true)) {
+			log.info("Lifecycle job {} is already running", sweep.name());
+			return new RunSummary(sweep.name(), false, 0, 0, Duration.ZERO);
+		}
+		try {
+			return runExclusively();
+		} finally {
+			running.set(false);
+		}
+	}
+
+	private RunSummary runExclusively() {
+		long started = System.nanoTime();
+		Run run = claim(LocalDateTime.now());
+		if (run == null) {
+			log.info("Lifecycle job {} is running on another node", sweep.name());
+			return new RunSummary(sweep.name(), false, 0, 0, Duration.ZERO);
+		}
+		checkpoint.set(run.checkpointId);
+		log.info("Lifecycle job {} {} as of {} from user id {}", sweep.name(), run.resumed ? "resumed" : "started",
+				run.asOf, run.checkpointId);
+
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int w = 0; w < settings.parallelism(); w++) {
+				workers.execute(() -> work(run, failure));
+			}
+		}
+		if (failure.get() != null) {
+			// Leave the run to be resumed without waiting out the lease
+			jdbcTemplate.update("UPDATE lifecycle_job_runs SET heartbeat_at = NULL WHERE job_name = ? "
+					+ "AND claim_token = ?", sweep.name(), run.token);
+			throw new IllegalStateException("Lifecycle job " + sweep.name()
+					+ " stopped; committed chunks below user id " + checkpoint.get() + " are checkpointed",
+					failure.get());
+		}
+
+		if (jdbcTemplate.update("UPDATE lifecycle_job_runs SET status = ?, last_user_id = ?, users = ?, "
+				+ "finished_at = ? WHERE job_name = ? AND claim_token = ?", COMPLETED, run.nextAfter, run.totalUsers,
+				Timestamp.valueOf(LocalDateTime.now()), sweep.name(), run.token) == 0) {
+			throw new IllegalStateException("Lifecycle job " + sweep.name() + " was taken over by another node");
+		}
+		checkpoint.set(run.nextAfter);
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+		lastRunRate.set(run.usersThisRun * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed.toNanos()));
+		log.info("Lifecycle job {} completed: {} users in {} chunks, {} ms", sweep.name(), run.usersThisRun,
+				run.chunksThisRun, elapsed.toMillis());
+		return new RunSummary(sweep.name(), run.resumed, run.chunksThisRun, run.usersThisRun, elapsed);
+	}
+
+	private void work(Run run, AtomicReference<RuntimeException> failure) {
+		while (failure.get() == null) {
+			if (!throttle.tryAcquire()) {
+				throttled.increment();
+				LockSupport.parkNanos(settings.throttlePause().toNanos());
+				continue;
+			}
+			boolean sampled = false;
+			try {
+				Chunk chunk = run.next();
+				if (chunk == null) {
+					return;
+				}
+				long started = System.nanoTime();
+				int changed = processChunk(run, chunk);
+				chunkTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+				run.complete(chunk, changed);
+				long live = liveLatencyNanos.getAsLong();
+				if (live >= 0) {
+					throttle.release(Math.max(live, settings.latencyFloor().toNanos()));
+					sampled = true;
+				}
+			} catch (RuntimeException e) {
+				failure.compareAndSet(null, e);
+				return;
+			} finally {
+				if (!sampled) {
+					throttle.release();
+				}
+			}
+			LockSupport.parkNanos(settings.chunkPause().toNanos());
+		}
+	}
+
+	private int processChunk(Run run, Chunk chunk) {
+		List<Object> lockArguments = new ArrayList<>(run.arguments.size() + 2);
+		lockArguments.add(chunk.afterId());
+		lockArguments.add(chunk.lastId());
+		lockArguments.addAll(run.arguments);
+		int changed = transactionTemplate.execute(status -> {
+			List<SweptUser> users = jdbcTemplate.query(lockChunkQuery, SWEPT_USER, lockArguments.toArray());
+			if (users.isEmpty()) {
+				return 0;
+			}
+			String placeholders = String.join(", ", Collections.nCopies(users.size(), "?"));
+			List<Object> args = new ArrayList<>(users.size() + 2);
+			if (sweep.action() == LifecycleSweep.Action.PURGE) {
+				users.forEach(user -> args.add(user.userId()));
+				jdbcTemplate.update("DELETE FROM password_reset_tokens WHERE user_id IN (" + placeholders + ")",
+						args.toArray());
+				jdbcTemplate.update("DELETE FROM users WHERE user_id IN (" + placeholders + ")", args.toArray());
+			} else {
+				args.add(sweep.action().target().ordinal());
+				args.add(Timestamp.valueOf(LocalDateTime.now()));
+				users.forEach(user -> args.add(user.userId()));
+				// Bumps the version so a request holding one of these users fails
+				// its optimistic lock rather than writing the old status back
+				jdbcTemplate.update("UPDATE users SET status = ?, updated_at = ?, version = version + 1 "
+						+ "WHERE user_id IN (" + placeholders + ")", args.toArray());
+			}
+			listener.changed(sweep, users);
+			return users.size();
+		});
+		usersChanged.increment(changed);
+		chunks.increment();
+		return changed;
+	}
+
+	/**
+	 * Takes over an interrupted run whose claim has lapsed, or starts a new
+	 * one. Each step is a single conditional statement, so of two nodes
+	 * trying at once only one succeeds.
+	 *
+	 * @return null if another node holds the run
+	 */
+	private Run claim(LocalDateTime now) {
+		Timestamp at = Timestamp.valueOf(now);
+		String token = UUID.randomUUID().toString();
+		if (jdbcTemplate.update("UPDATE lifecycle_job_runs SET heartbeat_at = ?, claim_token = ? WHERE job_name = ? "
+				+ "AND status = ? AND (heartbeat_at IS NULL OR heartbeat_at < ?)", at, token, sweep.name(), RUNNING,
+				Timestamp.valueOf(now.minus(CLAIM_LEASE))) == 1) {
+			return jdbcTemplate.queryForObject("SELECT as_of, last_user_id, users FROM lifecycle_job_runs "
+					+ "WHERE job_name = ?", (rs, rowNum) -> new Run(token, rs.getTimestamp(1).toLocalDateTime(),
+							rs.getLong(2), rs.getLong(3), true), sweep.name());
+		}
+		if (jdbcTemplate.update("UPDATE lifecycle_job_runs SET status = ?, as_of = ?, last_user_id = 0, users = 0, "
+				+ "started_at = ?, finished_at = NULL, heartbeat_at = ?, claim_token = ? WHERE job_name = ? "
+				+ "AND status <> ?", RUNNING, at, at, at, token, sweep.name(), RUNNING) == 1) {
+			return new Run(token, now, 0, 0, false);
+		}
+		try {
+			jdbcTemplate.update("INSERT INTO lifecycle_job_runs (job_name, status, as_of, last_user_id, users, "
+					+ "started_at, heartbeat_at, claim_token) VALUES (?, ?, ?, 0, 0, ?, ?, ?)", sweep.name(), RUNNING,
+					at, at, at, token);
+		} catch (DuplicateKeyException e) {
+			return null;
+		}
+		return new Run(token, now, 0, 0, false);
+	}
+
+	/**
+	 * Called inside each chunk's transaction, after its users were changed.
+	 */
+	@FunctionalInterface
+	public interface ChunkListener {
+		void changed(LifecycleSweep sweep, List<SweptUser> users);
+	}
+
+	/**
+	 * A user as it was before the sweep changed it.
+	 */
+	public record SweptUser(long userId, String email, Role role, Status status, LocalDateTime createdAt) {
+	}
+
+	/**
+	 * @param chunkSize        matching users per chunk and transaction
+	 * @param parallelism      most chunks in flight; bounded by the connection
+	 *                         pool rather than by cores
+	 * @param chunkPause       pause of each worker between chunks
+	 * @param throttlePause    wait before a worker held back by the throttle
+	 *                         tries again
+	 * @param latencyFloor     live latency below this counts as this, so that
+	 *                         jitter on an idle system is not read as load
+	 * @param backoffRatio     factor applied to the parallelism when latency
+	 *                         rises
+	 * @param latencyTolerance multiple of the baseline latency that counts as
+	 *                         a rise
+	 */
+	public record Settings(int chunkSize, int parallelism, Duration chunkPause, Duration throttlePause,
+			Duration latencyFloor, double backoffRatio, double latencyTolerance) {
+	}
+
+	public record RunSummary(String job, boolean resumed, int chunks, long users, Duration elapsed) {
+	}
+
+	private record Chunk(long sequence, long afterId, long lastId) {
+	}
+
+	/**
+	 * The keyset cursor and checkpoint of one run.
+	 */
+	private final class Run {
+		final String token;
+		final LocalDateTime asOf;
+		final List<Object> arguments;
+		final boolean resumed;
+
+		// Guarded by this
+		long nextAfter;
+		long nextSequence;
+		boolean exhausted;
+
+		// Guarded by completed
+		final TreeMap<Long, Long> completed = new TreeMap<>();
+		long checkpointSequence;
+		long checkpointId;
+		long totalUsers;
+		long usersThisRun;
+		int chunksThisRun;
+
+		Run(String token, LocalDateTime asOf, long checkpointId, long totalUsers, boolean resumed) {
+			this.token = token;
+			this.asOf = asOf;
+			this.arguments = sweep.arguments().apply(asOf);
+			this.resumed = resumed;
+			this.nextAfter = checkpointId;
+			this.checkpointId = checkpointId;
+			this.totalUsers = totalUsers;
+		}
+
+		synchronized Chunk next() {
+			if (exhausted) {
+				return null;
+			}
+			List<Object> args = new ArrayList<>(arguments.size() + 2);
+			args.add(nextAfter);
+			args.addAll(arguments);
+			args.add(settings.chunkSize());
+			List<Long> ids = jdbcTemplate.queryForList(nextChunkQuery, Long.class, args.toArray());
+			if (ids.size() < settings.chunkSize()) {
+				exhausted = true;
+			}
+			if (ids.isEmpty()) {
+				return null;
+			}
+			Chunk chunk = new Chunk(nextSequence++, nextAfter, ids.get(ids.size() - 1));
+			nextAfter = chunk.lastId();
+			return chunk;
+		}
+
+		void complete(Chunk chunk, int changed) {
+			synchronized (completed) {
+				totalUsers += changed;
+				usersThisRun += changed;
+				chunksThisRun++;
+				completed.put(chunk.sequence(), chunk.lastId());
+				Long lastId = completed.remove(checkpointSequence);
+				while (lastId != null) {
+					checkpointId = lastId;
+					checkpointSequence++;
+					lastId = completed.remove(checkpointSequence);
+				}
+				// Also the heartbeat that keeps the claim on the run
+				if (jdbcTemplate.update("UPDATE lifecycle_job_runs SET last_user_id = ?, users = ?, heartbeat_at = ? "
+						+ "WHERE job_name = ? AND claim_token = ?", checkpointId, totalUsers,
+						Timestamp.valueOf(LocalDateTime.now()), sweep.name(), token) == 0) {
+					throw new IllegalStateException("Lifecycle job " + sweep.name()
+							+ " was taken over by another node after its lease lapsed");
+				}
+				checkpoint.set(checkpointId);
+			}
+		}
+	}
+}
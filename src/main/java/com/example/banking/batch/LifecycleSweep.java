@@ -0,0 +1,71 @@
+package com.example.banking.batch;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import com.example.banking.entity.Status;
+
+/**
+ * One lifecycle rule over {@code users}: the rows it selects and what it does
+ * to them. The condition is SQL over the alias {@code u}, and its arguments
+ * are derived from the run's as-of time, which is fixed when a run starts so
+ * that a resumed run selects the same users.
+ * <p>
+ * Conditions are re-checked on the locked rows of every chunk, so a user
+ * changed by a live request in the meantime is left alone and a chunk can be
+ * run again without effect.
+ */
+public record LifecycleSweep(String name, String condition, Function<LocalDateTime, List<Object>> arguments,
+		Action action) {
+
+	public enum Action {
+		ACTIVATE(Status.ACTIVE), SUSPEND(Status.SUSPENDED), PURGE(null);
+
+		private final Status target;
+
+		Action(Status target) {
+			this.target = target;
+		}
+
+		/** The status set by the action, or null if it deletes the user. */
+		public Status target() {
+			return target;
+		}
+	}
+
+	// users.status is mapped without @Enumerated, so it holds the ordinal
+
+	/** Activates {@code INACTIVE} users whose email address has been verified. */
+	public static LifecycleSweep activateVerified() {
+		return new LifecycleSweep("activate-verified", "u.status = " + Status.INACTIVE.ordinal()
+				+ " AND u.email_verified_at IS NOT NULL", asOf -> List.of(), Action.ACTIVATE);
+	}
+
+	/** Suspends {@code ACTIVE} users whose KYC expired before the as-of date. */
+	public static LifecycleSweep suspendExpiredKyc() {
+		return new LifecycleSweep("suspend-expired-kyc", "u.status = " + Status.ACTIVE.ordinal()
+				+ " AND u.kyc_expires_at < ?", asOf -> List.of(Date.valueOf(asOf.toLocalDate())), Action.SUSPEND);
+	}
+
+	/**
+	 * Deletes registrations that never verified their email and are older than
+	 * {@code maxAge}. Users who own accounts are kept, since accounts
+	 * reference {@code users}.
+	 * <p>
+	 * A null {@code email_verified_at} only means "never verified" for users
+	 * registered once verification was being recorded, so users created
+	 * before {@code verifiedSince} are never purged.
+	 */
+	public static LifecycleSweep purgeUnactivated(Duration maxAge, LocalDate verifiedSince) {
+		return new LifecycleSweep("purge-unactivated", "u.status = " + Status.INACTIVE.ordinal()
+				+ " AND u.email_verified_at IS NULL AND u.created_at < ? AND u.created_at >= ? "
+				+ "AND NOT EXISTS (SELECT 1 FROM accounts a WHERE a.user_id = u.user_id)",
+				asOf -> List.of(Timestamp.valueOf(asOf.minus(maxAge)), Timestamp.valueOf(verifiedSince.atStartOfDay())),
+				Action.PURGE);
+	}
+}
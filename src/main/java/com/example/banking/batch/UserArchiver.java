@@ -0,0 +1,134 @@
+package com.example.banking.batch;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Status;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Moves idle {@code INACTIVE} and {@code SUSPENDED} users from {@code users}
+ * to {@code users_archive}, and back again on demand.
+ * <p>
+ * A user is idle once {@code updated_at} is older than the archive age. Users
+ * who own accounts stay put, since accounts reference {@code users}. Each
+ * batch locks the next ids in key order, copies them with
+ * {@code INSERT ... SELECT} and deletes them in one transaction, then pauses so
+ * the job never holds the hot table for long.
+ */
+public class UserArchiver {
+	private static final Logger log = LoggerFactory.getLogger(UserArchiver.class);
+
+	private static final String COLUMNS = "user_id, username, firstname, lastname, reset_token, "
+			+ "reset_token_expiry_date, password, email, phone, role, status, email_verified_at, kyc_expires_at, "
+			+ "created_at, updated_at, version";
+
+	// users.status is mapped without @Enumerated, so it holds the ordinal
+	private static final String NEXT_BATCH = "SELECT u.user_id FROM users u WHERE u.user_id > ? "
+			+ "AND u.status IN (" + Status.INACTIVE.ordinal() + ", " + Status.SUSPENDED.ordinal() + ") "
+			+ "AND u.updated_at < ? AND NOT EXISTS (SELECT 1 FROM accounts a WHERE a.user_id = u.user_id) "
+			+ "ORDER BY u.user_id LIMIT ? FOR UPDATE";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final Duration pause;
+	private final Counter archived;
+	private final Counter rehydrated;
+	private final Timer batchTimer;
+	private final AtomicLong lastRunRate = new AtomicLong();
+
+	public UserArchiver(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int batchSize,
+			Duration pause, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		this.pause = pause;
+		this.archived = Counter.builder("archive.users").tag("direction", "archived").register(meterRegistry);
+		this.rehydrated = Counter.builder("archive.users").tag("direction", "rehydrated").register(meterRegistry);
+		this.batchTimer = Timer.builder("archive.batch.duration").register(meterRegistry);
+		Gauge.builder("archive.last.run.throughput", lastRunRate, AtomicLong::get).baseUnit("users/s")
+				.description("Users archived per second in the most recent run").register(meterRegistry);
+	}
+
+	/**
+	 * Archives every eligible user last updated before {@code idleBefore}.
+	 *
+	 * @return the number of users archived
+	 */
+	public long archive(LocalDateTime idleBefore) {
+		long started = System.nanoTime();
+		long total = 0;
+		long after = 0;
+		while (true) {
+			long batchStarted = System.nanoTime();
+			long from = after;
+			List<Long> ids = transactionTemplate.execute(status -> archiveBatch(from, idleBefore));
+			batchTimer.record(System.nanoTime() - batchStarted, TimeUnit.NANOSECONDS);
+			if (ids.isEmpty()) {
+				break;
+			}
+			total += ids.size();
+			archived.increment(ids.size());
+			after = ids.get(ids.size() - 1);
+			if (ids.size() < batchSize) {
+				break;
+			}
+			LockSupport.parkNanos(pause.toNanos());
+		}
+		long elapsedNanos = System.nanoTime() - started;
+		lastRunRate.set(total * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos));
+		log.info("Archived {} users idle since before {} in {} ms", total, idleBefore,
+				TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+		return total;
+	}
+
+	/**
+	 * Moves one user back into {@code users}. Must run inside the caller's
+	 * transaction so the restored row is visible to it.
+	 *
+	 * @return false if the user is not archived
+	 */
+	public boolean rehydrate(long userId) {
+		int restored = jdbcTemplate.update("INSERT INTO users (" + COLUMNS + ") SELECT " + COLUMNS
+				+ " FROM users_archive WHERE user_id = ?", userId);
+		if (restored == 0) {
+			return false;
+		}
+		jdbcTemplate.update("DELETE FROM users_archive WHERE user_id = ?", userId);
+		rehydrated.increment();
+		return true;
+	}
+
+	private List<Long> archiveBatch(long after, LocalDateTime idleBefore) {
+		List<Long> ids = jdbcTemplate.queryForList(NEXT_BATCH, Long.class, after, Timestamp.valueOf(idleBefore),
+				batchSize);
+		if (ids.isEmpty()) {
+			return ids;
+		}
+		String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+		List<Object> args = new ArrayList<>(ids.size() + 1);
+		args.add(Timestamp.valueOf(LocalDateTime.now()));
+		args.addAll(ids);
+		jdbcTemplate.update("INSERT INTO users_archive (" + COLUMNS + ", archived_at) SELECT " + COLUMNS
+				+ ", CAST(? AS TIMESTAMP) FROM users WHERE user_id IN (" + placeholders + ")", args.toArray());
+		jdbcTemplate.update("DELETE FROM users WHERE user_id IN (" + placeholders + ")", ids.toArray());
+		return ids;
+	}
+}
@@ -0,0 +1,225 @@
+package com.example.banking.cluster;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.banking.util.AfterCommit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Propagates user invalidations to every node through an
+ * {@link InvalidationTransport}. {@link #publish} appends the event in the
+ * writer's transaction and notifies local listeners after commit; a poller
+ * thread on each node reads new events by sequence every poll interval and
+ * notifies listeners of those from other nodes. A change therefore reaches
+ * every node within about one poll interval plus one query.
+ * <p>
+ * An append that commits after a later sequence leaves a hole below the
+ * cursor's next read. The poller keeps re-reading the range between the hole
+ * and the highest sequence applied for up to the gap timeout, and then skips
+ * it, since an append that slow is assumed rolled back. New events are read
+ * after the highest applied sequence, so a hole never holds them back.
+ * <p>
+ * Propagation lag, from publish on one node to apply on another, is recorded
+ * in {@code invalidation.propagation.lag}. It compares the clocks of two
+ * nodes, so it is only as accurate as their synchronization.
+ */
+public class InvalidationBus implements AutoCloseable {
+	private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+	private final InvalidationTransport transport;
+	private final String nodeId;
+	private final List<InvalidationListener> listeners;
+	private final int batchSize;
+	private final long gapTimeoutNanos;
+	private final Duration retention;
+	private final ScheduledExecutorService poller;
+	private final Counter published;
+	private final Counter received;
+	private final Counter gapsSkipped;
+	private final Timer lag;
+	private final AtomicLong cursor = new AtomicLong(-1);
+	private final TreeSet<Long> appliedAboveCursor = new TreeSet<>();
+	private long gapSince;
+
+	public InvalidationBus(InvalidationTransport transport, String nodeId, List<InvalidationListener> listeners,
+			Duration pollInterval, int batchSize, Duration gapTimeout, Duration retention,
+			MeterRegistry meterRegistry) {
+		this.transport = transport;
+		this.nodeId = nodeId;
+		this.listeners = List.copyOf(listeners);
+		this.batchSize = batchSize;
+		this.gapTimeoutNanos = gapTimeout.toNanos();
+		this.retention = retention;
+		this.published = Counter.builder("invalidation.events").tag("source", "local").register(meterRegistry);
+		this.received = Counter.builder("invalidation.events").tag("source", "remote").register(meterRegistry);
+		this.gapsSkipped = Counter.builder("invalidation.gaps.skipped").register(meterRegistry);
+		this.lag = Timer.builder("invalidation.propagation.lag")
+				.description("Time from publish on one node to apply on another")
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry);
+		Gauge.builder("invalidation.cursor", cursor, AtomicLong::get).register(meterRegistry);
+
+		this.poller = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("invalidation-poller").daemon().factory());
+		poller.scheduleWithFixedDelay(this::pollSafely, pollInterval.toNanos(), pollInterval.toNanos(),
+				TimeUnit.NANOSECONDS);
+		if (!retention.isZero()) {
+			long purgeNanos = retention.dividedBy(4).toNanos();
+			poller.scheduleWithFixedDelay(this::purge, purgeNanos, purgeNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	public String nodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * Records the change for other nodes inside the current transaction and
+	 * notifies this node's listeners once it commits.
+	 */
+	public void publish(InvalidationType type, Long userId, String... emails) {
+		List<String> distinct = Arrays.stream(emails).filter(Objects::nonNull).distinct().toList();
+		InvalidationEvent event = new InvalidationEvent(0, type, userId, distinct, nodeId, Instant.now());
+		transport.append(event);
+		published.increment();
+		AfterCommit.run(() -> dispatch(event, false));
+	}
+
+	/**
+	 * Publishes one event per user, appended in a single batch, for writes
+	 * that change many users at once.
+	 */
+	public void publishAll(InvalidationType type, Map<Long, String> emailsByUserId) {
+		if (emailsByUserId.isEmpty()) {
+			return;
+		}
+		Instant now = Instant.now();
+		List<InvalidationEvent> events = new ArrayList<>(emailsByUserId.size());
+		emailsByUserId.forEach((userId, email) -> events.add(new InvalidationEvent(0, type, userId,
+				email == null ? List.of() : List.of(email), nodeId, now)));
+		transport.appendAll(events);
+		published.increment(events.size());
+		AfterCommit.run(() -> events.forEach(event -> dispatch(event, false)));
+	}
+
+	/**
+	 * Reads and applies everything newer than the cursor. Runs on the poller
+	 * thread; callable directly in tests.
+	 */
+	public synchronized int poll() {
+		if (cursor.get() < 0) {
+			// Nothing was cached before this node started, so older events are
+			// irrelevant; read lazily because the table may not exist at
+			// construction
+			cursor.set(transport.lastSequence());
+		}
+		int applied = 0;
+		if (!appliedAboveCursor.isEmpty()) {
+			// Holes below the highest applied sequence, in case they committed since
+			applied += apply(transport.readAfter(cursor.get(),
+					Math.toIntExact(appliedAboveCursor.last() - cursor.get())));
+		}
+		long after = appliedAboveCursor.isEmpty() ? cursor.get() : appliedAboveCursor.last();
+		applied += apply(transport.readAfter(after, batchSize));
+		advanceCursor();
+		return applied;
+	}
+
+	@Override
+	public void close() {
+		poller.shutdownNow();
+		try {
+			poller.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private int apply(List<InvalidationEvent> events) {
+		int applied = 0;
+		for (InvalidationEvent event : events) {
+			if (!appliedAboveCursor.add(event.sequence())) {
+				continue;
+			}
+			applied++;
+			if (!nodeId.equals(event.origin())) {
+				received.increment();
+				lag.record(Duration.between(event.publishedAt(), Instant.now()));
+				dispatch(event, true);
+			}
+		}
+		return applied;
+	}
+
+	private void advanceCursor() {
+		long next = cursor.get();
+		while (!appliedAboveCursor.isEmpty() && appliedAboveCursor.first() == next + 1) {
+			next = appliedAboveCursor.pollFirst();
+		}
+		if (appliedAboveCursor.isEmpty()) {
+			gapSince = 0;
+		} else if (gapSince == 0) {
+			gapSince = System.nanoTime();
+		} else if (System.nanoTime() - gapSince > gapTimeoutNanos) {
+			long skipped = appliedAboveCursor.first() - next - 1;
+			gapsSkipped.increment(skipped);
+			log.warn("Skipping {} invalidation sequences after {} that never committed", skipped, next);
+			next = appliedAboveCursor.pollFirst();
+			gapSince = 0;
+			cursor.set(next);
+			advanceCursor();
+			return;
+		}
+		cursor.set(next);
+	}
+
+	private void dispatch(InvalidationEvent event, boolean remote) {
+		for (InvalidationListener listener : listeners) {
+			try {
+				listener.onInvalidation(event, remote);
+			} catch (RuntimeException e) {
+				log.error("Invalidation listener {} failed on {}: {}", listener.getClass().getSimpleName(), event,
+						e.getMessage(), e);
+			}
+		}
+	}
+
+	private void pollSafely() {
+		try {
+			while (poll() >= batchSize) {
+				// Catch up a backlog without waiting a poll interval per batch
+			}
+		} catch (RuntimeException e) {
+			log.warn("Invalidation poll failed: {}", e.getMessage());
+		}
+	}
+
+	private void purge() {
+		try {
+			int purged = transport.purgeBefore(Instant.now().minus(retention));
+			if (purged > 0) {
+				log.debug("Purged {} invalidation log entries", purged);
+			}
+		} catch (RuntimeException e) {
+			log.warn("Invalidation log purge failed: {}", e.getMessage());
+		}
+	}
+}
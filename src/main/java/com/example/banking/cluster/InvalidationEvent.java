@@ -0,0 +1,13 @@
+package com.example.banking.cluster;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One entry of the invalidation log. {@code emails} holds every address the
+ * user was known by before and after the write, so a changed email evicts
+ * both keys. The sequence is assigned by the transport and is 0 until then.
+ */
+public record InvalidationEvent(long sequence, InvalidationType type, Long userId, List<String> emails,
+		String origin, Instant publishedAt) {
+}
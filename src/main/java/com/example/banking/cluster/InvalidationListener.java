@@ -0,0 +1,16 @@
+package com.example.banking.cluster;
+
+/**
+ * In-memory state that must drop what it holds about a user when the user
+ * changes on any node.
+ */
+public interface InvalidationListener {
+
+	/**
+	 * Called once the change is committed: on the writing node right after
+	 * commit, with {@code remote} false, and on every other node when its
+	 * poller reads the event, with {@code remote} true. Must be idempotent and
+	 * quick; it runs on the committing or the polling thread.
+	 */
+	void onInvalidation(InvalidationEvent event, boolean remote);
+}
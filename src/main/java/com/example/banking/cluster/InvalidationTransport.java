@@ -0,0 +1,30 @@
+package com.example.banking.cluster;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Carries invalidation events between nodes. Sequences must increase with
+ * append order, although an append still in flight may leave a temporary gap
+ * below later sequences.
+ */
+public interface InvalidationTransport {
+
+	/**
+	 * Appends the event, inside the caller's transaction when there is one, so
+	 * the event is visible exactly when the write it describes is.
+	 */
+	void append(InvalidationEvent event);
+
+	/** Appends several events at once, with the same guarantees as {@link #append}. */
+	default void appendAll(List<InvalidationEvent> events) {
+		events.forEach(this::append);
+	}
+
+	/** Events with a sequence above {@code sequence}, in sequence order. */
+	List<InvalidationEvent> readAfter(long sequence, int limit);
+
+	long lastSequence();
+
+	int purgeBefore(Instant cutoff);
+}
@@ -0,0 +1,9 @@
+package com.example.banking.cluster;
+
+/**
+ * User writes that other nodes must see before trusting anything they hold
+ * in memory about the user.
+ */
+public enum InvalidationType {
+	USER_CREATED, USER_UPDATED, USER_ACTIVATED, USER_SUSPENDED, PASSWORD_CHANGED, USER_DELETED
+}
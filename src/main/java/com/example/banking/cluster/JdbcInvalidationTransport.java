@@ -0,0 +1,67 @@
+package com.example.banking.cluster;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Invalidation log in the {@code invalidation_log} table. Readers poll by
+ * primary key range, so each poll is one short index scan however large the
+ * log grows.
+ */
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+	private static final String INSERT = "INSERT INTO invalidation_log (event_type, user_id, emails, origin, "
+			+ "published_at) VALUES (?, ?, ?, ?, ?)";
+	private static final String READ = "SELECT seq, event_type, user_id, emails, origin, published_at "
+			+ "FROM invalidation_log WHERE seq > ? ORDER BY seq LIMIT ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void append(InvalidationEvent event) {
+		jdbcTemplate.update(INSERT, event.type().name(), event.userId(), String.join(",", event.emails()),
+				event.origin(), Timestamp.from(event.publishedAt()));
+	}
+
+	@Override
+	public void appendAll(List<InvalidationEvent> events) {
+		jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, event) -> {
+			ps.setString(1, event.type().name());
+			ps.setObject(2, event.userId());
+			ps.setString(3, String.join(",", event.emails()));
+			ps.setString(4, event.origin());
+			ps.setTimestamp(5, Timestamp.from(event.publishedAt()));
+		});
+	}
+
+	@Override
+	public List<InvalidationEvent> readAfter(long sequence, int limit) {
+		return jdbcTemplate.query(READ, (rs, rowNum) -> {
+			long userId = rs.getLong(3);
+			Long nullableUserId = rs.wasNull() ? null : userId;
+			String emails = rs.getString(4);
+			return new InvalidationEvent(rs.getLong(1), InvalidationType.valueOf(rs.getString(2)), nullableUserId,
+					emails == null || emails.isEmpty() ? List.of() : Arrays.asList(emails.split(",")),
+					rs.getString(5), rs.getTimestamp(6).toInstant());
+		}, sequence, limit);
+	}
+
+	@Override
+	public long lastSequence() {
+		Long last = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM invalidation_log", Long.class);
+		return last == null ? 0 : last;
+	}
+
+	@Override
+	public int purgeBefore(Instant cutoff) {
+		return jdbcTemplate.update("DELETE FROM invalidation_log WHERE published_at < ?", Timestamp.from(cutoff));
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.banking.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.banking.audit.AuditLog;
+import com.example.banking.security.AsyncAuthenticationService;
+import com.example.banking.security.AuthenticationService;
+import com.example.banking.security.JwtService;
+import com.example.banking.web.Bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Executors for the non-blocking authentication endpoints under
+ * {@code /api/v1/auth/async}, off unless {@code banking.auth.async.enabled}.
+ * Password hashing gets one thread per core by default; lookups, transactions
+ * and mail get a separate pool so slow I/O never holds a hashing thread. Both
+ * queues are bounded and reject when full. With bulkheads on, I/O tasks run
+ * bound to the auth bulkhead and the pool is capped at its connection budget,
+ * so async logins draw on the same connections as blocking ones.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.auth.async.enabled", havingValue = "true")
+public class AsyncAuthConfig {
+
+	@Bean
+	ExecutorService authCpuExecutor(@Value("${banking.auth.async.cpu-threads:0}") int threads,
+			@Value("${banking.auth.async.cpu-queue:256}") int queue, MeterRegistry meterRegistry) {
+		int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		return executor("auth-cpu-", size, queue, task -> task, meterRegistry);
+	}
+
+	@Bean
+	ExecutorService authIoExecutor(@Value("${banking.auth.async.io-threads:8}") int threads,
+			@Value("${banking.auth.async.io-queue:512}") int queue,
+			@Qualifier("authBulkhead") ObjectProvider<Bulkhead> authBulkhead, MeterRegistry meterRegistry) {
+		Bulkhead bulkhead = authBulkhead.getIfAvailable();
+		if (bulkhead == null) {
+			return executor("auth-io-", threads, queue, task -> task, meterRegistry);
+		}
+		// More threads than connections would only queue inside the pool
+		int size = bulkhead.connectionBudget() > 0 ? Math.min(threads, bulkhead.connectionBudget()) : threads;
+		return executor("auth-io-", size, queue, bulkhead.taskDecorator(), meterRegistry);
+	}
+
+	@Bean
+	AsyncAuthenticationService asyncAuthenticationService(UserDetailsService userDetailsService,
+			PasswordEncoder passwordEncoder, JwtService jwtService, AuthenticationService authenticationService,
+			AuditLog auditLog, @Qualifier("authCpuExecutor") ExecutorService cpuExecutor,
+			@Qualifier("authIoExecutor") ExecutorService ioExecutor) {
+		return new AsyncAuthenticationService(userDetailsService, passwordEncoder, jwtService, authenticationService,
+				auditLog, cpuExecutor, ioExecutor);
+	}
+
+	private static ExecutorService executor(String prefix, int threads, int queue, TaskDecorator decorator,
+			MeterRegistry meterRegistry) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queue), Thread.ofPlatform().name(prefix, 0).daemon().factory(),
+				new ThreadPoolExecutor.AbortPolicy()) {
+			@Override
+			public void execute(Runnable command) {
+				super.execute(decorator.decorate(command));
+			}
+		};
+		return ExecutorServiceMetrics.monitor(meterRegistry, executor, prefix.substring(0, prefix.length() - 1));
+	}
+}
@@ -0,0 +1,28 @@
+package com.example.banking.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.banking.audit.AuditLog;
+import com.example.banking.audit.JdbcAuditSink;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class AuditConfig {
+
+	@Bean
+	AuditLog auditLog(JdbcTemplate jdbcTemplate, @Value("${banking.audit.capacity:8192}") int capacity,
+			@Value("${banking.audit.batch-size:500}") int batchSize,
+			@Value("${banking.audit.overflow-policy:DROP}") AuditLog.OverflowPolicy policy,
+			@Value("${banking.audit.block-timeout:5ms}") Duration blockTimeout,
+			@Value("${banking.audit.idle-wait:50ms}") Duration idleWait,
+			@Value("${banking.audit.close-timeout:10s}") Duration closeTimeout, MeterRegistry meterRegistry) {
+		return new AuditLog(new JdbcAuditSink(jdbcTemplate), capacity, batchSize, policy, blockTimeout, idleWait,
+				closeTimeout, meterRegistry);
+	}
+}
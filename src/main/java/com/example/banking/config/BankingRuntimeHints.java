@@ -0,0 +1,57 @@
+package com.example.banking.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.example.banking.dto.AccountDTO;
+import com.example.banking.dto.PostingDTO;
+import com.example.banking.dto.PostingRequest;
+import com.example.banking.dto.TransferDTO;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserStatsDTO;
+import com.example.banking.entity.User;
+import com.example.banking.security.dto.AuthenticationRequest;
+import com.example.banking.security.dto.AuthenticationResponse;
+import com.example.banking.security.dto.JwtResponse;
+import com.example.banking.security.dto.LoginRequest;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
+import com.example.banking.security.dto.PasswordResetRequest;
+import com.example.banking.security.dto.RegisterRequest;
+
+/**
+ * Reflection and resource hints that AOT processing cannot infer: request and
+ * response bodies bound by Jackson, {@link User} (read reflectively by
+ * Hibernate and Jackson), and the jjwt implementation classes and
+ * serializers, which jjwt loads by name or through {@code ServiceLoader}.
+ */
+public class BankingRuntimeHints implements RuntimeHintsRegistrar {
+
+	private static final Class<?>[] BOUND_TYPES = {User.class, UserDTO.class, UserStatsDTO.class, AccountDTO.class,
+			PostingDTO.class, PostingRequest.class, TransferDTO.class, TransferRequest.class,
+			AuthenticationRequest.class, AuthenticationResponse.class, JwtResponse.class, LoginRequest.class,
+			PasswordResetRequest.class, PasswordResetConfirmRequest.class, RegisterRequest.class};
+
+	private static final String[] JJWT_TYPES = {"io.jsonwebtoken.impl.DefaultJwtBuilder",
+			"io.jsonwebtoken.impl.DefaultJwtParserBuilder", "io.jsonwebtoken.impl.DefaultJwtParser",
+			"io.jsonwebtoken.impl.DefaultClaims", "io.jsonwebtoken.impl.DefaultHeader",
+			"io.jsonwebtoken.impl.DefaultJwsHeader",
+			"io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+			"io.jsonwebtoken.jackson.io.JacksonSerializer", "io.jsonwebtoken.jackson.io.JacksonDeserializer"};
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		for (Class<?> type : BOUND_TYPES) {
+			hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+					MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS,
+					MemberCategory.DECLARED_FIELDS);
+		}
+		for (String type : JJWT_TYPES) {
+			hints.reflection().registerTypeIfPresent(classLoader, type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+					MemberCategory.INVOKE_PUBLIC_METHODS);
+		}
+		hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.Serializer");
+		hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.Deserializer");
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.banking.config;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.batch.EndOfDayJob;
+import com.example.banking.batch.LifecycleJob;
+import com.example.banking.batch.LifecycleSweep;
+import com.example.banking.batch.UserArchiver;
+import com.example.banking.ledger.LedgerEngine;
+import com.example.banking.ledger.TransferEngine;
+import com.example.banking.util.TimerWindow;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class BatchConfig {
+
+	@Bean
+	EndOfDayJob endOfDayJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			LedgerEngine ledgerEngine, TransferEngine transferEngine,
+			@Value("${banking.eod.partition-size:10000}") int partitionSize,
+			@Value("${banking.eod.parallelism:8}") int parallelism,
+			@Value("${banking.eod.batch-size:1000}") int batchSize,
+			@Value("${banking.eod.interest-rate-bps:0}") long interestRateBps,
+			@Value("${banking.eod.maintenance-fee:0}") long maintenanceFee,
+			@Value("${banking.eod.fee-account-id:0}") long feeAccountId, MeterRegistry meterRegistry) {
+		return new EndOfDayJob(jdbcTemplate, new TransactionTemplate(transactionManager), ledgerEngine,
+				transferEngine, new EndOfDayJob.Settings(partitionSize, parallelism, batchSize, interestRateBps,
+						maintenanceFee, feeAccountId),
+				meterRegistry);
+	}
+
+	@Bean
+	UserArchiver userArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			@Value("${banking.archive.batch-size:500}") int batchSize,
+			@Value("${banking.archive.batch-pause:50ms}") Duration pause, MeterRegistry meterRegistry) {
+		return new UserArchiver(jdbcTemplate, new TransactionTemplate(transactionManager), batchSize, pause,
+				meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "banking.lifecycle.activate-verified.enabled", havingValue = "true")
+	LifecycleJob activateVerifiedJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			LifecycleJob.ChunkListener listener, Environment environment, MeterRegistry meterRegistry) {
+		return lifecycleJob(LifecycleSweep.activateVerified(), jdbcTemplate, transactionManager, listener,
+				environment, meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "banking.lifecycle.suspend-expired-kyc.enabled", havingValue = "true")
+	LifecycleJob suspendExpiredKycJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			LifecycleJob.ChunkListener listener, Environment environment, MeterRegistry meterRegistry) {
+		return lifecycleJob(LifecycleSweep.suspendExpiredKyc(), jdbcTemplate, transactionManager, listener,
+				environment, meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "banking.lifecycle.purge-unactivated.enabled", havingValue = "true")
+	LifecycleJob purgeUnactivatedJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			LifecycleJob.ChunkListener listener, Environment environment, MeterRegistry meterRegistry) {
+		Duration maxAge = environment.getProperty("banking.lifecycle.purge-unactivated.max-age", Duration.class,
+				Duration.ofDays(30));
+		// Required: without it every old INACTIVE user would look unverified
+		LocalDate verifiedSince = LocalDate.parse(
+				environment.getRequiredProperty("banking.lifecycle.purge-unactivated.verified-since"));
+		return lifecycleJob(LifecycleSweep.purgeUnactivated(maxAge, verifiedSince), jdbcTemplate, transactionManager,
+				listener, environment, meterRegistry);
+	}
+
+	private static LifecycleJob lifecycleJob(LifecycleSweep sweep, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, LifecycleJob.ChunkListener listener,
+			Environment environment, MeterRegistry meterRegistry) {
+		String prefix = "banking.lifecycle.";
+		LifecycleJob.Settings settings = new LifecycleJob.Settings(
+				environment.getProperty(prefix + "chunk-size", Integer.class, 1000),
+				environment.getProperty(prefix + "parallelism", Integer.class, 4),
+				environment.getProperty(prefix + "chunk-pause", Duration.class, Duration.ofMillis(10)),
+				environment.getProperty(prefix + "throttle.pause", Duration.class, Duration.ofMillis(100)),
+				environment.getProperty(prefix + "throttle.latency-floor", Duration.class, Duration.ofMillis(5)),
+				environment.getProperty(prefix + "throttle.backoff-ratio", Double.class, 0.5),
+				environment.getProperty(prefix + "throttle.latency-tolerance", Double.class, 2.0));
+		TimerWindow liveLatency = new TimerWindow(meterRegistry,
+				environment.getProperty(prefix + "throttle.metric", "hikaricp.connections.acquire"));
+		return new LifecycleJob(jdbcTemplate, new TransactionTemplate(transactionManager), sweep, settings, listener,
+				liveLatency, meterRegistry);
+	}
+}
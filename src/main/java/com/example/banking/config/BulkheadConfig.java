@@ -0,0 +1,79 @@
+package com.example.banking.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.example.banking.util.AdaptiveLimit;
+import com.example.banking.web.Bulkhead;
+import com.example.banking.web.BulkheadFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Separates authentication traffic from user management: each group gets an
+ * adaptive concurrency limit and a budget of pooled connections, configured
+ * under {@code banking.bulkhead.<group>}. Keep the connection budgets below
+ * the Hikari pool size so schedulers and other endpoints keep some headroom.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.bulkhead.enabled", havingValue = "true")
+public class BulkheadConfig {
+
+	@Bean
+	static BeanPostProcessor bulkheadDataSource() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+						&& !(bean instanceof BulkheadDataSource)) {
+					return new BulkheadDataSource(dataSource);
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	Bulkhead authBulkhead(Environment environment, MeterRegistry meterRegistry) {
+		return bulkhead("auth", "/api/v1/auth/", environment, meterRegistry);
+	}
+
+	@Bean
+	Bulkhead usersBulkhead(Environment environment, MeterRegistry meterRegistry) {
+		return bulkhead("users", "/api/v1/users", environment, meterRegistry);
+	}
+
+	@Bean
+	FilterRegistrationBean<BulkheadFilter> bulkheadFilter(List<Bulkhead> bulkheads) {
+		FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(
+				new BulkheadFilter(bulkheads));
+		// Ahead of the security chain, after the correlation id and query budget filters
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+	private static Bulkhead bulkhead(String name, String defaultPath, Environment environment,
+			MeterRegistry meterRegistry) {
+		String prefix = "banking.bulkhead." + name + ".";
+		AdaptiveLimit limit = new AdaptiveLimit(environment.getProperty(prefix + "initial-limit", Integer.class, 20),
+				environment.getProperty(prefix + "min-limit", Integer.class, 2),
+				environment.getProperty(prefix + "max-limit", Integer.class, 100),
+				environment.getProperty("banking.bulkhead.backoff-ratio", Double.class, 0.9),
+				environment.getProperty("banking.bulkhead.latency-tolerance", Double.class, 2.0));
+		return new Bulkhead(name, List.of(environment.getProperty(prefix + "paths", String[].class,
+				new String[] {defaultPath})), limit,
+				environment.getProperty(prefix + "db-connections", Integer.class, 0),
+				environment.getProperty(prefix + "connection-wait", Duration.class, Duration.ofMillis(100)),
+				meterRegistry);
+	}
+}
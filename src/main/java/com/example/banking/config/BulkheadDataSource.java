@@ -0,0 +1,107 @@
+package com.example.banking.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.example.banking.web.Bulkhead;
+import com.example.banking.web.Bulkhead.ConnectionBudgetExceededException;
+
+/**
+ * Charges every connection opened on a request thread to that request's
+ * {@link Bulkhead}, so one endpoint group cannot drain the shared pool.
+ * Connections opened outside a bulkhead (schedulers, startup) are not
+ * limited. The permit is returned when the connection is closed.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+	public BulkheadDataSource(DataSource target) {
+		super(target);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return charge(() -> super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return charge(() -> super.getConnection(username, password));
+	}
+
+	private Connection charge(ConnectionSupplier supplier) throws SQLException {
+		Bulkhead bulkhead = Bulkhead.current();
+		if (bulkhead == null) {
+			return supplier.get();
+		}
+		try {
+			if (!bulkhead.tryAcquireConnection()) {
+				throw new ConnectionBudgetExceededException(bulkhead.name());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectionBudgetExceededException(bulkhead.name());
+		}
+		Connection connection;
+		try {
+			connection = supplier.get();
+		} catch (SQLException | RuntimeException e) {
+			bulkhead.releaseConnection();
+			throw e;
+		}
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class}, new Charged(connection, bulkhead));
+	}
+
+	@FunctionalInterface
+	private interface ConnectionSupplier {
+		Connection get() throws SQLException;
+	}
+
+	private static final class Charged implements InvocationHandler {
+		private final Connection target;
+		private final Bulkhead bulkhead;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		Charged(Connection target, Bulkhead bulkhead) {
+			this.target = target;
+			this.bulkhead = bulkhead;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "getTargetConnection":
+					return target;
+				case "close":
+					try {
+						target.close();
+					} finally {
+						if (released.compareAndSet(false, true)) {
+							bulkhead.releaseConnection();
+						}
+					}
+					return null;
+				default:
+					try {
+						return method.invoke(target, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+			}
+		}
+	}
+}
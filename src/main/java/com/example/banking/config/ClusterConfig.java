@@ -0,0 +1,39 @@
+package com.example.banking.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.banking.cluster.InvalidationBus;
+import com.example.banking.cluster.InvalidationListener;
+import com.example.banking.cluster.JdbcInvalidationTransport;
+import com.example.banking.security.UserDetailsCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class ClusterConfig {
+
+	@Bean
+	UserDetailsCache userDetailsCache(@Value("${banking.user-details.cache-ttl:60s}") Duration ttl,
+			@Value("${banking.user-details.cache-max-entries:100000}") int maxEntries) {
+		return new UserDetailsCache(ttl, maxEntries);
+	}
+
+	@Bean
+	InvalidationBus invalidationBus(JdbcTemplate jdbcTemplate, List<InvalidationListener> listeners,
+			@Value("${banking.cluster.node-id:}") String nodeId,
+			@Value("${banking.cluster.invalidation.poll-interval:250ms}") Duration pollInterval,
+			@Value("${banking.cluster.invalidation.batch-size:500}") int batchSize,
+			@Value("${banking.cluster.invalidation.gap-timeout:10s}") Duration gapTimeout,
+			@Value("${banking.cluster.invalidation.retention:1h}") Duration retention, MeterRegistry meterRegistry) {
+		return new InvalidationBus(new JdbcInvalidationTransport(jdbcTemplate),
+				nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId, listeners, pollInterval, batchSize,
+				gapTimeout, retention, meterRegistry);
+	}
+}
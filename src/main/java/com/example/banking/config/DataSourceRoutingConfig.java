@@ -0,0 +1,67 @@
+package com.example.banking.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.banking.config.ReadWriteRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Separate Hikari pools for the primary and the read replica behind a routing
+ * data source. Each pool is bound to its own {@code hikaricp.*} metrics by pool
+ * name. Enable with {@code banking.datasource.routing.enabled=true}; best run
+ * with {@code spring.jpa.open-in-view=false} so that one request does not hold
+ * a single connection across its read and write transactions.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+	@Bean
+	@ConfigurationProperties("banking.datasource.primary")
+	HikariDataSource primaryDataSource() {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	@ConfigurationProperties("banking.datasource.replica")
+	HikariDataSource replicaDataSource() {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	ReadYourWritesTracker readYourWritesTracker(
+			@Value("${banking.datasource.routing.read-your-writes-window:5s}") Duration window) {
+		return new ReadYourWritesTracker(window);
+	}
+
+	@Bean
+	@Primary
+	DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+			@Qualifier("replicaDataSource") DataSource replica, ReadYourWritesTracker tracker,
+			MeterRegistry meterRegistry) {
+		ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(tracker, meterRegistry);
+		routing.setTargetDataSources(Map.<Object, Object>of(Route.PRIMARY, primary, Route.REPLICA, replica));
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+}
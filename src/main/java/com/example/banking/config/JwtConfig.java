@@ -5,6 +5,8 @@ import java.util.Optional;
 
 import javax.crypto.SecretKey;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +16,7 @@ import io.jsonwebtoken.security.Keys;
 
 @Configuration
 public class JwtConfig {
+    private static final Logger log = LoggerFactory.getLogger(JwtConfig.class);
 
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
@@ -25,8 +28,8 @@ public class JwtConfig {
 
         switch (activeProfile) {
             case "dev":
-                // You can store this generated key for development
-                System.out.println("Dev JWT Secret: " + generatedKey);
+                // A fresh key per start; never logged, tokens simply do not survive a restart
+                log.info("Generated an ephemeral JWT signing key for the dev profile");
                 return generatedKey;
 
             case "staging":
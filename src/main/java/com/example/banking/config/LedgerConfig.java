@@ -0,0 +1,54 @@
+package com.example.banking.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.ledger.BalanceCheckpoints;
+import com.example.banking.ledger.LedgerEngine;
+import com.example.banking.ledger.LedgerJournal;
+import com.example.banking.ledger.LedgerProjector;
+import com.example.banking.ledger.TransferEngine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class LedgerConfig {
+
+	@Bean
+	LedgerJournal ledgerJournal(@Value("${banking.ledger.journal-dir:data/ledger}") String directory,
+			@Value("${banking.ledger.segment-size:67108864}") int segmentSize) {
+		return new LedgerJournal(Path.of(directory), segmentSize);
+	}
+
+	@Bean
+	LedgerProjector ledgerProjector(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			@Value("${banking.ledger.projection-batch-size:500}") int batchSize, MeterRegistry meterRegistry) {
+		return new LedgerProjector(jdbcTemplate, new TransactionTemplate(transactionManager), batchSize,
+				meterRegistry);
+	}
+
+	@Bean
+	LedgerEngine ledgerEngine(LedgerJournal ledgerJournal, LedgerProjector ledgerProjector,
+			MeterRegistry meterRegistry) {
+		return new LedgerEngine(ledgerJournal, ledgerProjector::enqueue, meterRegistry);
+	}
+
+	@Bean
+	TransferEngine transferEngine(LedgerEngine ledgerEngine, @Value("${banking.transfers.shards:4}") int shards,
+			@Value("${banking.transfers.batch-size:256}") int batchSize,
+			@Value("${banking.transfers.id-retention:24h}") Duration idRetention, MeterRegistry meterRegistry) {
+		return new TransferEngine(ledgerEngine, shards, batchSize, idRetention, meterRegistry);
+	}
+
+	@Bean
+	BalanceCheckpoints balanceCheckpoints(JdbcTemplate jdbcTemplate) {
+		return new BalanceCheckpoints(jdbcTemplate);
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.banking.config;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.banking.logging.RingBufferAppender;
+import com.example.banking.web.CorrelationIdFilter;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Request correlation ids and metrics for the asynchronous log pipeline set
+ * up in {@code logback-spring.xml}.
+ */
+@Configuration
+public class LoggingConfig {
+
+	@Bean
+	FilterRegistrationBean<CorrelationIdFilter> correlationIdFilter() {
+		FilterRegistrationBean<CorrelationIdFilter> registration = new FilterRegistrationBean<>(
+				new CorrelationIdFilter());
+		// First of all, so every other filter logs with the id
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	@Bean
+	MeterBinder logPipelineMetrics() {
+		return registry -> {
+			for (RingBufferAppender appender : ringBufferAppenders()) {
+				FunctionCounter.builder("logging.events.dropped", appender, RingBufferAppender::droppedCount)
+						.tag("appender", appender.getName()).register(registry);
+				Gauge.builder("logging.buffer.depth", appender, RingBufferAppender::pending)
+						.tag("appender", appender.getName()).register(registry);
+			}
+		};
+	}
+
+	private static List<RingBufferAppender> ringBufferAppenders() {
+		List<RingBufferAppender> appenders = new ArrayList<>();
+		if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+			Iterator<Appender<ILoggingEvent>> iterator = context.getLogger(Logger.ROOT_LOGGER_NAME)
+					.iteratorForAppenders();
+			while (iterator.hasNext()) {
+				if (iterator.next() instanceof RingBufferAppender appender) {
+					appenders.add(appender);
+				}
+			}
+		}
+		return appenders;
+	}
+}
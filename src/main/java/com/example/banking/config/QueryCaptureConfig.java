@@ -0,0 +1,58 @@
+package com.example.banking.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.banking.util.QueryRecorder;
+import com.example.banking.web.QueryBudgetFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * SQL capture, off by default. With {@code banking.query-capture.enabled=true}
+ * the primary {@code dataSource} bean is wrapped in a datasource-proxy that
+ * feeds {@link QueryRecorder}; tests use it to assert statement counts, and
+ * with a positive {@code banking.query-capture.request-budget} requests that
+ * issue more statements are logged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.query-capture.enabled", havingValue = "true")
+public class QueryCaptureConfig {
+
+	@Bean
+	static BeanPostProcessor queryCaptureDataSourceProxy() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+						&& !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(new QueryRecorder())
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	@ConditionalOnExpression("${banking.query-capture.request-budget:0} > 0")
+	FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(
+			@Value("${banking.query-capture.request-budget}") int budget, MeterRegistry meterRegistry) {
+		FilterRegistrationBean<QueryBudgetFilter> registration = new FilterRegistrationBean<>(
+				new QueryBudgetFilter(budget, meterRegistry));
+		// Right after the correlation id, so statements issued by the security
+		// chain are counted too
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return registration;
+	}
+}
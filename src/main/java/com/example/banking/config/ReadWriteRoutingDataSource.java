@@ -0,0 +1,79 @@
+package com.example.banking.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the
+ * primary. A principal that committed a write within the read-your-writes
+ * window keeps reading from the primary.
+ * <p>
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction's
+ * read-only flag is only visible once the first statement runs, not when the
+ * transaction manager opens the connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	private final ReadYourWritesTracker tracker;
+	private final Counter primaryRoutes;
+	private final Counter replicaRoutes;
+	private final Counter pinnedRoutes;
+
+	public ReadWriteRoutingDataSource(ReadYourWritesTracker tracker, MeterRegistry meterRegistry) {
+		this.tracker = tracker;
+		this.primaryRoutes = Counter.builder("datasource.routing").tag("route", "primary")
+				.description("Connections routed to the primary").register(meterRegistry);
+		this.replicaRoutes = Counter.builder("datasource.routing").tag("route", "replica")
+				.description("Connections routed to the replica").register(meterRegistry);
+		this.pinnedRoutes = Counter.builder("datasource.routing").tag("route", "primary-pinned")
+				.description("Read-only connections kept on the primary for read-your-writes")
+				.register(meterRegistry);
+		Gauge.builder("datasource.routing.pinned.principals", tracker, ReadYourWritesTracker::trackedPrincipals)
+				.register(meterRegistry);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			primaryRoutes.increment();
+			return Route.PRIMARY;
+		}
+
+		String principal = currentPrincipal();
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (principal != null && tracker.isPinnedToPrimary(principal)) {
+				pinnedRoutes.increment();
+				return Route.PRIMARY;
+			}
+			replicaRoutes.increment();
+			return Route.REPLICA;
+		}
+
+		if (principal != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					tracker.recordWrite(principal);
+				}
+			});
+		}
+		primaryRoutes.increment();
+		return Route.PRIMARY;
+	}
+
+	private static String currentPrincipal() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null ? null : authentication.getName();
+	}
+}
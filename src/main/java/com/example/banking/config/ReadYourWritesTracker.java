@@ -0,0 +1,45 @@
+package com.example.banking.config;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers when each principal last committed a write so their reads can be
+ * pinned to the primary until the replica has had time to catch up.
+ */
+public class ReadYourWritesTracker {
+
+	private static final int PRUNE_THRESHOLD = 10_000;
+
+	private final long windowNanos;
+	private final ConcurrentMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+	public ReadYourWritesTracker(Duration window) {
+		this.windowNanos = window.toNanos();
+	}
+
+	public void recordWrite(String principal) {
+		long now = System.nanoTime();
+		lastWrites.put(principal, now);
+		if (lastWrites.size() > PRUNE_THRESHOLD) {
+			lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+		}
+	}
+
+	public boolean isPinnedToPrimary(String principal) {
+		Long writtenAt = lastWrites.get(principal);
+		if (writtenAt == null) {
+			return false;
+		}
+		if (System.nanoTime() - writtenAt < windowNanos) {
+			return true;
+		}
+		lastWrites.remove(principal, writtenAt);
+		return false;
+	}
+
+	public int trackedPrincipals() {
+		return lastWrites.size();
+	}
+}
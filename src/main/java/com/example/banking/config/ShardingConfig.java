@@ -0,0 +1,57 @@
+package com.example.banking.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.banking.repository.ShardedUserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * One Hikari pool per user shard, listed in {@code banking.sharding.urls}. The
+ * shard order is part of the routing function and must not change once data
+ * has been written.
+ * <p>
+ * The {@link ShardedUserRepository} is a standalone store for now: the user
+ * services still read and write through the JPA repository.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+	@Bean
+	ShardDataSources shardDataSources(@Value("${banking.sharding.urls}") List<String> urls,
+			@Value("${banking.sharding.username:sa}") String username,
+			@Value("${banking.sharding.password:}") String password,
+			@Value("${banking.sharding.pool-size:10}") int poolSize) {
+		List<HikariDataSource> dataSources = new ArrayList<>(urls.size());
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setPoolName("shard-" + i);
+			dataSource.setJdbcUrl(urls.get(i));
+			dataSource.setUsername(username);
+			dataSource.setPassword(password);
+			dataSource.setMaximumPoolSize(poolSize);
+			dataSources.add(dataSource);
+		}
+		return new ShardDataSources(dataSources);
+	}
+
+	@Bean
+	ShardedUserRepository shardedUserRepository(ShardDataSources shardDataSources) {
+		ShardedUserRepository repository = new ShardedUserRepository(shardDataSources.dataSources());
+		repository.createSchema();
+		return repository;
+	}
+
+	public record ShardDataSources(List<HikariDataSource> dataSources) implements AutoCloseable {
+		@Override
+		public void close() {
+			dataSources.forEach(HikariDataSource::close);
+		}
+	}
+}
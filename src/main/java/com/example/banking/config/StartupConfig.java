@@ -0,0 +1,76 @@
+package com.example.banking.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+
+/**
+ * Startup tuning for the {@code fast-startup} build. With
+ * {@code banking.startup.lazy-non-critical=true}, beans from the configured
+ * packages (springdoc and mail by default) are created on first use instead
+ * of during refresh. The AOT build sets the property while processing, so the
+ * generated bean definitions are already lazy.
+ */
+@Configuration
+@ImportRuntimeHints(BankingRuntimeHints.class)
+public class StartupConfig {
+
+	@Bean
+	static BeanFactoryPostProcessor nonCriticalBeansLazyInit() {
+		return new NonCriticalLazyInit();
+	}
+
+	static class NonCriticalLazyInit implements BeanFactoryPostProcessor, EnvironmentAware {
+		private static final Logger log = LoggerFactory.getLogger(NonCriticalLazyInit.class);
+
+		private boolean enabled;
+		private List<String> packages = List.of();
+
+		@Override
+		public void setEnvironment(Environment environment) {
+			this.enabled = environment.getProperty("banking.startup.lazy-non-critical", Boolean.class, false);
+			this.packages = List.of(environment.getProperty("banking.startup.lazy-packages", String[].class,
+					new String[] {"org.springdoc.", "org.springframework.boot.autoconfigure.mail.",
+							"org.springframework.mail."}));
+		}
+
+		@Override
+		public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+			if (!enabled) {
+				return;
+			}
+			int lazy = 0;
+			for (String name : beanFactory.getBeanDefinitionNames()) {
+				BeanDefinition definition = beanFactory.getBeanDefinition(name);
+				if (!definition.isLazyInit() && !definition.isAbstract() && isNonCritical(beanFactory, definition)) {
+					definition.setLazyInit(true);
+					lazy++;
+				}
+			}
+			log.info("Deferred {} non-critical beans from {}", lazy, packages);
+		}
+
+		private boolean isNonCritical(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+			String type = definition.getBeanClassName();
+			if (type == null && definition.getFactoryBeanName() != null
+					&& beanFactory.containsBeanDefinition(definition.getFactoryBeanName())) {
+				// A @Bean method: classify it by its configuration class
+				type = beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName();
+			}
+			if (type == null && definition.getResolvableType().resolve() != null) {
+				type = definition.getResolvableType().resolve().getName();
+			}
+			return type != null && packages.stream().anyMatch(type::startsWith);
+		}
+	}
+}
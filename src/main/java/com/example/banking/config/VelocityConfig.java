@@ -0,0 +1,22 @@
+package com.example.banking.config;
+
+import java.time.Clock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.banking.risk.VelocityGuard;
+import com.example.banking.risk.VelocityRule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class VelocityConfig {
+
+	@Bean
+	VelocityGuard velocityGuard(@Value("${banking.velocity.rules:}") String rules,
+			@Value("${banking.eod.fee-account-id:0}") long feeAccountId, MeterRegistry meterRegistry) {
+		return new VelocityGuard(VelocityRule.parseAll(rules), Clock.systemUTC(), feeAccountId, meterRegistry);
+	}
+}
@@ -0,0 +1,121 @@
+package com.example.banking.controllers;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.banking.dto.AccountDTO;
+import com.example.banking.dto.PostingDTO;
+import com.example.banking.dto.PostingRequest;
+import com.example.banking.dto.TransferDTO;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.service.LedgerService;
+import com.example.banking.service.StatementService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/accounts")
+@Tag(name = "Accounts", description = "APIs for accounts and ledger postings")
+@SecurityRequirement(name = "bearerAuth")
+public class AccountController {
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private StatementService statementService;
+
+	@Operation(summary = "Open an account", description = "Opens an account for a user in the given currency. Requires ADMIN role.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "201", description = "Account opened", content = @Content(schema = @Schema(implementation = AccountDTO.class))),
+			@ApiResponse(responseCode = "400", description = "Invalid input data"),
+			@ApiResponse(responseCode = "404", description = "User not found"),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+	@PostMapping
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<AccountDTO> openAccount(
+			@Parameter(description = "Owner and currency", required = true) @Valid @RequestBody AccountDTO accountDTO) {
+		return new ResponseEntity<>(ledgerService.openAccount(accountDTO), HttpStatus.CREATED);
+	}
+
+	@Operation(summary = "Get account", description = "Retrieves an account and its current balance. Accessible by ADMIN or the account owner.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Account found", content = @Content(schema = @Schema(implementation = AccountDTO.class))),
+			@ApiResponse(responseCode = "404", description = "Account not found"),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+	@GetMapping("/{accountId}")
+	@PreAuthorize("hasRole('ADMIN') or @userSecurity.ownsAccount(#accountId)")
+	public ResponseEntity<AccountDTO> getAccount(
+			@Parameter(description = "ID of the account to retrieve", required = true) @PathVariable Long accountId) {
+		return ResponseEntity.ok(ledgerService.getAccount(accountId));
+	}
+
+	@Operation(summary = "Post to the ledger", description = "Appends a balanced double-entry posting. Requires ADMIN role.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "201", description = "Posting is durable", content = @Content(schema = @Schema(implementation = PostingDTO.class))),
+			@ApiResponse(responseCode = "400", description = "Unbalanced or invalid posting"),
+			@ApiResponse(responseCode = "404", description = "Account not found"),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+	@PostMapping("/postings")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<PostingDTO> post(
+			@Parameter(description = "Posting legs", required = true) @Valid @RequestBody PostingRequest request) {
+		return new ResponseEntity<>(ledgerService.post(request), HttpStatus.CREATED);
+	}
+
+	@Operation(summary = "Transfer between accounts", description = "Moves funds between two accounts of the same currency. Retrying with the same transfer ID returns the original result. Requires ADMIN role.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "201", description = "Transfer is durable", content = @Content(schema = @Schema(implementation = TransferDTO.class))),
+			@ApiResponse(responseCode = "400", description = "Invalid transfer"),
+			@ApiResponse(responseCode = "404", description = "Account not found"),
+			@ApiResponse(responseCode = "409", description = "Transfer ID already used for a different transfer"),
+			@ApiResponse(responseCode = "422", description = "Insufficient funds"),
+			@ApiResponse(responseCode = "429", description = "Velocity limit exceeded"),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+	@PostMapping("/transfers")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<TransferDTO> transfer(
+			@Parameter(description = "Transfer details", required = true) @Valid @RequestBody TransferRequest request) {
+		return new ResponseEntity<>(ledgerService.transfer(request), HttpStatus.CREATED);
+	}
+
+	@Operation(summary = "Stream account statement", description = "Streams the account's entries in posting order with running balances, as NDJSON or CSV. Accessible by ADMIN or the account owner.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Statement streamed"),
+			@ApiResponse(responseCode = "400", description = "Invalid date range"),
+			@ApiResponse(responseCode = "404", description = "Account not found"),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+	@GetMapping("/{accountId}/statement")
+	@PreAuthorize("hasRole('ADMIN') or @userSecurity.ownsAccount(#accountId)")
+	public ResponseEntity<StreamingResponseBody> getStatement(
+			@Parameter(description = "ID of the account", required = true) @PathVariable Long accountId,
+			@Parameter(description = "Start of the statement (inclusive)", required = true) @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@Parameter(description = "End of the statement (exclusive), defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@Parameter(description = "Output format") @RequestParam(defaultValue = "NDJSON") StatementService.Format format) {
+		StatementService.Statement statement = statementService.open(accountId, from, to);
+		StreamingResponseBody body = out -> statementService.write(statement, format, out);
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(format.getMediaType())).body(body);
+	}
+}
@@ -1,8 +1,11 @@
 package com.example.banking.controllers;
 
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,11 +15,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.banking.dto.PageDTO;
 import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserField;
+import com.example.banking.dto.UserStatsDTO;
+import com.example.banking.exception.PreconditionFailedException;
 import com.example.banking.service.UserService;
+import com.example.banking.service.UserStatsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,6 +39,10 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 
+/**
+ * Responses are JSON by default; callers sending {@code Accept: application/cbor}
+ * or {@code application/x-jackson-smile} get the same documents in binary.
+ */
 @RestController
 @RequestMapping("/api/v1/users")
 @Tag(name = "User Management", description = "APIs for managing user operations")
@@ -37,6 +52,9 @@ public class UserController {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private UserStatsService userStatsService;
+
 	@Operation(summary = "Create a new user", description = "Creates a new user with the provided details. Requires ADMIN role.")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "201", description = "User created successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
@@ -53,26 +71,66 @@ public class UserController {
 	@Operation(summary = "Get user by ID", description = "Retrieves a user by their ID. Accessible by ADMIN and USER roles.")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "User found", content = @Content(schema = @Schema(implementation = UserDTO.class))),
+			@ApiResponse(responseCode = "304", description = "User unchanged since the ETag in If-None-Match"),
+			@ApiResponse(responseCode = "400", description = "Unknown field in fields"),
 			@ApiResponse(responseCode = "404", description = "User not found"),
 			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
 	@GetMapping("/{userId}")
 	@PreAuthorize("hasAnyRole('ADMIN', 'USER')")
 	public ResponseEntity<UserDTO> getUserById(
-			@Parameter(description = "ID of the user to retrieve", required = true) @PathVariable Long userId) {
-		UserDTO user = userService.getUserById(userId);
-		return ResponseEntity.ok(user);
+			@Parameter(description = "ID of the user to retrieve", required = true) @PathVariable Long userId,
+			@Parameter(description = "Comma-separated properties to return: userId, username, email, phone") @RequestParam(required = false) String fields,
+			WebRequest webRequest) {
+		Set<UserField> selected = UserField.parse(fields);
+		// Answer conditional requests from the version column alone
+		if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				&& webRequest.checkNotModified(userETag(userId, userService.getUserVersion(userId)))) {
+			return null;
+		}
+		UserDTO user = userService.getUserById(userId, selected);
+		return ResponseEntity.ok().eTag(userETag(userId, user.getVersion())).body(user);
 	}
 
 	@Operation(summary = "Get all users", description = "Retrieves all users with pagination. Requires ADMIN role.")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "List of users retrieved successfully"),
+			@ApiResponse(responseCode = "400", description = "Unknown field in fields"),
 			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
 	@GetMapping
 	@PreAuthorize("hasRole('ADMIN')")
-	public ResponseEntity<Page<UserDTO>> getAllUsers(
+	public ResponseEntity<PageDTO<UserDTO>> getAllUsers(
+			@Parameter(description = "Comma-separated properties to return: userId, username, email, phone") @RequestParam(required = false) String fields,
+			@Parameter(description = "Pagination parameters") Pageable pageable) {
+		Page<UserDTO> users = userService.getAllUsers(pageable, UserField.parse(fields));
+		return ResponseEntity.ok(PageDTO.of(users));
+	}
+
+	@Operation(summary = "Search users", description = "Finds users by partial username, email or phone, best matches first: exact, then prefix, then anywhere in the field. Queries shorter than three characters match prefixes only. Requires ADMIN role.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Matching users retrieved successfully"),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+	@GetMapping("/search")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<PageDTO<UserDTO>> searchUsers(
+			@Parameter(description = "Text to look for in username, email or phone", required = true) @RequestParam("q") String query,
 			@Parameter(description = "Pagination parameters") Pageable pageable) {
-		Page<UserDTO> users = userService.getAllUsers(pageable);
-		return ResponseEntity.ok(users);
+		Page<UserDTO> users = userService.searchUsers(query, pageable);
+		return ResponseEntity.ok(PageDTO.of(users));
+	}
+
+	@Operation(summary = "Get user statistics", description = "Returns user counts by status and role, and signups per day, from in-memory counters reconciled against the database periodically. Requires ADMIN role.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Statistics retrieved successfully", content = @Content(schema = @Schema(implementation = UserStatsDTO.class))),
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions"),
+			@ApiResponse(responseCode = "503", description = "Counters not loaded from the database yet")})
+	@GetMapping("/stats")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<UserStatsDTO> getUserStats(
+			@Parameter(description = "Days of signups to include, up to the configured retention") @RequestParam(defaultValue = "30") int days) {
+		if (!userStatsService.isLoaded()) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "10").build();
+		}
+		return ResponseEntity.ok(userStatsService.snapshot(days));
 	}
 
 	@Operation(summary = "Update user", description = "Updates an existing user. Accessible by ADMIN or the user themselves.")
@@ -80,14 +138,16 @@ public class UserController {
 			@ApiResponse(responseCode = "200", description = "User updated successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
 			@ApiResponse(responseCode = "400", description = "Invalid input data"),
 			@ApiResponse(responseCode = "404", description = "User not found"),
-			@ApiResponse(responseCode = "403", description = "Insufficient permissions")})
+			@ApiResponse(responseCode = "403", description = "Insufficient permissions"),
+			@ApiResponse(responseCode = "412", description = "User was modified since the ETag in If-Match")})
 	@PutMapping("/{userId}")
 	@PreAuthorize("hasRole('ADMIN') or @userSecurity.isCurrentUser(#userId)")
 	public ResponseEntity<UserDTO> updateUser(
 			@Parameter(description = "ID of the user to update", required = true) @PathVariable Long userId,
+			@Parameter(description = "ETag of the version being replaced") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			@Parameter(description = "Updated user details", required = true) @Valid @RequestBody UserDTO userDTO) {
-		UserDTO updatedUser = userService.updateUser(userId, userDTO);
-		return ResponseEntity.ok(updatedUser);
+		UserDTO updatedUser = userService.updateUser(userId, userDTO, expectedVersion(userId, ifMatch));
+		return ResponseEntity.ok().eTag(userETag(userId, updatedUser.getVersion())).body(updatedUser);
 	}
 
 	@Operation(summary = "Delete user", description = "Deletes a user by their ID. Requires ADMIN role.")
@@ -115,4 +175,24 @@ public class UserController {
 		UserDTO user = userService.getUserByEmail(email);
 		return ResponseEntity.ok(user);
 	}
-}
\ No newline at end of file
+
+	private static String userETag(Long userId, Long version) {
+		return "\"" + userId + "-" + version + "\"";
+	}
+
+	private static Long expectedVersion(Long userId, String ifMatch) {
+		if (ifMatch == null || "*".equals(ifMatch.trim())) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		String prefix = "\"" + userId + "-";
+		if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+			throw new PreconditionFailedException("If-Match does not identify user: " + userId);
+		}
+		try {
+			return Long.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+		} catch (NumberFormatException e) {
+			throw new PreconditionFailedException("If-Match does not identify user: " + userId);
+		}
+	}
+}
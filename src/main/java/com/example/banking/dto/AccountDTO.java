@@ -0,0 +1,20 @@
+package com.example.banking.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class AccountDTO {
+    private Long accountId;
+
+    @NotNull
+    private Long userId;
+
+    @NotNull
+    @Pattern(regexp = "^[A-Z]{3}$")
+    private String currency;
+
+    /** Balance in minor units of the currency. */
+    private long balance;
+}
@@ -0,0 +1,32 @@
+package com.example.banking.dto;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page envelope for list endpoints: the content plus the page number, page
+ * size and total count. Replaces serializing {@link Page} directly, whose
+ * shape depends on {@code PageImpl} internals and carries sort and pageable
+ * details no caller reads.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = PageDTOSerializer.class)
+public class PageDTO<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+
+    public static <T> PageDTO<T> of(Page<T> page) {
+        return new PageDTO<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.banking.dto;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes {@link PageDTO} with pre-encoded field names. Elements are written
+ * with the serializer registered for their own class, looked up once per
+ * page.
+ */
+public class PageDTOSerializer extends StdSerializer<PageDTO<?>> {
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PageDTOSerializer() {
+        super((Class) PageDTO.class);
+    }
+
+    @Override
+    public void serialize(PageDTO<?> page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(CONTENT);
+        gen.writeStartArray(page.getContent(), page.getContent().size());
+        Class<?> elementClass = null;
+        JsonSerializer<Object> elementSerializer = null;
+        for (Object element : page.getContent()) {
+            if (element == null) {
+                gen.writeNull();
+                continue;
+            }
+            if (element.getClass() != elementClass) {
+                elementClass = element.getClass();
+                elementSerializer = provider.findValueSerializer(elementClass);
+            }
+            elementSerializer.serialize(element, gen, provider);
+        }
+        gen.writeEndArray();
+        gen.writeFieldName(PAGE);
+        gen.writeNumber(page.getPage());
+        gen.writeFieldName(SIZE);
+        gen.writeNumber(page.getSize());
+        gen.writeFieldName(TOTAL_ELEMENTS);
+        gen.writeNumber(page.getTotalElements());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.banking.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Data;
+
+@Data
+public class PostingDTO {
+    private long sequence;
+    private Instant postedAt;
+    private UUID transferId;
+}
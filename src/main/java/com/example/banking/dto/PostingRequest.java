@@ -0,0 +1,28 @@
+package com.example.banking.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class PostingRequest {
+    private UUID transferId;
+
+    @NotNull
+    @Size(min = 2, max = 64)
+    private List<@Valid Leg> legs;
+
+    @Data
+    public static class Leg {
+        @NotNull
+        private Long accountId;
+
+        /** Signed amount in minor units; credits are positive. */
+        @NotNull
+        private Long amount;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.banking.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Data;
+
+@Data
+public class TransferDTO {
+    private UUID transferId;
+    private long fromAccountId;
+    private long toAccountId;
+    private long amount;
+    private long sequence;
+    private Instant postedAt;
+}
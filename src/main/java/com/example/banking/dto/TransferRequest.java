@@ -0,0 +1,24 @@
+package com.example.banking.dto;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class TransferRequest {
+    @NotNull
+    private UUID transferId;
+
+    @NotNull
+    private Long fromAccountId;
+
+    @NotNull
+    private Long toAccountId;
+
+    /** Amount in minor units. */
+    @NotNull
+    @Positive
+    private Long amount;
+}
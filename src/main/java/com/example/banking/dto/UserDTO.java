@@ -1,9 +1,15 @@
 package com.example.banking.dto;
 
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import jakarta.validation.constraints.*;
 import lombok.Data;
 
 @Data
+@JsonSerialize(using = UserDTOSerializer.class)
 public class UserDTO {
     @SuppressWarnings("unused")
 	private Long userId;
@@ -24,5 +30,12 @@ public class UserDTO {
     @Pattern(regexp = "^[+]?[0-9]{8,15}$")
     private String phone;
 
+    @JsonIgnore
+    private Long version;
+
+    /** Properties to write, from {@code fields=}; null writes them all. */
+    @JsonIgnore
+    private transient Set<UserField> fields;
+
 
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.example.banking.dto;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes {@link UserDTO} field by field with pre-encoded names, so responses
+ * skip bean introspection and property lookup. The password is write-only
+ * and so is not written. Neither is the version: it is {@code @JsonIgnore}
+ * on {@link UserDTO} and was never part of the body, and clients read it
+ * from the ETag. A DTO carrying a {@code fields=} selection writes only those
+ * properties.
+ */
+public class UserDTOSerializer extends StdSerializer<UserDTO> {
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString PHONE = new SerializedString("phone");
+
+    public UserDTOSerializer() {
+        super(UserDTO.class);
+    }
+
+    @Override
+    public void serialize(UserDTO user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Set<UserField> fields = user.getFields();
+        gen.writeStartObject(user);
+        if (fields == null || fields.contains(UserField.USER_ID)) {
+            writeNumber(gen, USER_ID, user.getUserId());
+        }
+        if (fields == null || fields.contains(UserField.USERNAME)) {
+            writeString(gen, USERNAME, user.getUsername());
+        }
+        if (fields == null || fields.contains(UserField.EMAIL)) {
+            writeString(gen, EMAIL, user.getEmail());
+        }
+        if (fields == null || fields.contains(UserField.PHONE)) {
+            writeString(gen, PHONE, user.getPhone());
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializedString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializedString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeString(value);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.banking.dto;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.example.banking.exception.InvalidFieldSelectionException;
+
+/**
+ * The {@link UserDTO} properties a caller may select with {@code fields=},
+ * each with the {@code User} attribute it is read from.
+ */
+public enum UserField {
+    USER_ID("userId"),
+    USERNAME("username"),
+    EMAIL("email"),
+    PHONE("phone");
+
+    public static final Set<UserField> ALL = Collections.unmodifiableSet(EnumSet.allOf(UserField.class));
+
+    private final String property;
+
+    UserField(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Parses a comma-separated list of property names; a missing or blank
+     * list selects every field.
+     *
+     * @throws InvalidFieldSelectionException for a name not on the list
+     */
+    public static Set<UserField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        EnumSet<UserField> selected = EnumSet.noneOf(UserField.class);
+        for (String name : fields.split(",")) {
+            selected.add(byProperty(name.trim()));
+        }
+        return Collections.unmodifiableSet(selected);
+    }
+
+    private static UserField byProperty(String property) {
+        for (UserField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new InvalidFieldSelectionException("Unknown user field: " + property + "; allowed: userId, "
+            + "username, email, phone");
+    }
+}
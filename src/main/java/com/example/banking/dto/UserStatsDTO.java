@@ -0,0 +1,19 @@
+package com.example.banking.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+
+import lombok.Data;
+
+@Data
+public class UserStatsDTO {
+    private long total;
+    private Map<Status, Long> byStatus;
+    private Map<Role, Long> byRole;
+    private Map<LocalDate, Long> signupsPerDay;
+    private Instant reconciledAt;
+}
@@ -0,0 +1,91 @@
+package com.example.banking.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cold copy of a {@link User} row that has been idle past the archive age.
+ * Columns match {@code users} one for one, including the ordinal encoding of
+ * role and status, so rows move between the tables with plain
+ * {@code INSERT ... SELECT}.
+ */
+@Entity
+@Table(name = "users_archive", indexes = {
+		@Index(name = "idx_user_archive_email", columnList = "email"),
+		@Index(name = "idx_user_archive_username", columnList = "username"),
+		@Index(name = "idx_user_archive_phone", columnList = "phone")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedUser {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "username", nullable = false, length = 50)
+	private String username;
+
+	private String firstname;
+	private String lastname;
+	private String resetToken;
+	private LocalDateTime resetTokenExpiryDate;
+
+	@Column(name = "password", nullable = false)
+	private String password;
+
+	@Column(name = "email", nullable = false, length = 100)
+	private String email;
+
+	@Column(name = "phone", nullable = false, length = 20)
+	private String phone;
+
+	private Role role;
+
+	private Status status;
+
+	@Column(name = "email_verified_at")
+	private LocalDateTime emailVerifiedAt;
+
+	@Column(name = "kyc_expires_at")
+	private LocalDate kycExpiresAt;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	@ColumnDefault("0")
+	@Column(name = "version", nullable = false)
+	private Long version;
+
+	@Column(name = "archived_at", nullable = false)
+	private LocalDateTime archivedAt;
+
+	/**
+	 * Detached {@link User} view for read paths; never persisted.
+	 */
+	public User toUser() {
+		User user = User.builder().userId(userId).username(username).firstname(firstname).lastname(lastname)
+				.resetToken(resetToken).resetTokenExpiryDate(resetTokenExpiryDate).password(password).email(email)
+				.phone(phone).role(role).status(status).emailVerifiedAt(emailVerifiedAt).kycExpiresAt(kycExpiresAt)
+				.version(version).build();
+		user.setCreatedAt(createdAt);
+		user.setUpdatedAt(updatedAt);
+		return user;
+	}
+}
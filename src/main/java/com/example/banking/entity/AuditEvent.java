@@ -0,0 +1,55 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import com.example.banking.audit.AuditEventType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Append-only security audit trail, written in batches by
+ * {@link com.example.banking.audit.AuditLog}.
+ */
+@Entity
+@Table(name = "audit_events", indexes = {
+		@Index(name = "idx_audit_user_time", columnList = "user_id, occurred_at"),
+		@Index(name = "idx_audit_time", columnList = "occurred_at")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEvent {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "occurred_at", nullable = false)
+	private LocalDateTime occurredAt;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "event_type", nullable = false, length = 32)
+	private AuditEventType type;
+
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "principal", length = 100)
+	private String principal;
+
+	@Column(name = "detail", length = 255)
+	private String detail;
+}
@@ -0,0 +1,44 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Account balance at the start of a month: the sum of every ledger entry
+ * posted before {@code asOf}. Statements start from the nearest checkpoint
+ * instead of summing from account inception.
+ */
+@Entity
+@Table(name = "balance_checkpoints", indexes = {
+		@Index(name = "idx_balance_checkpoint_account_as_of", columnList = "account_id, as_of", unique = true)})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "account_id", nullable = false)
+	private long accountId;
+
+	@Column(name = "as_of", nullable = false)
+	private LocalDateTime asOf;
+
+	@Column(name = "balance", nullable = false)
+	private long balance;
+}
@@ -0,0 +1,38 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Account balance as of journal sequence {@code lastSequence}. The current
+ * balance is this plus every ledger entry with a higher sequence.
+ */
+@Entity
+@Table(name = "balance_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshot {
+
+	@Id
+	@Column(name = "account_id")
+	private Long accountId;
+
+	@Column(name = "balance", nullable = false)
+	private long balance;
+
+	@Column(name = "last_sequence", nullable = false)
+	private long lastSequence;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.example.banking.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Interest accrued and fee charged on one account by one end-of-day run.
+ * Interest is kept in millionths of a minor unit so daily accruals on small
+ * balances are not rounded away.
+ */
+@Entity
+@Table(name = "eod_account_results", indexes = {
+		@Index(name = "idx_eod_result_date_account", columnList = "business_date, account_id", unique = true)})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EodAccountResult {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "business_date", nullable = false)
+	private LocalDate businessDate;
+
+	@Column(name = "account_id", nullable = false)
+	private long accountId;
+
+	@Column(name = "balance", nullable = false)
+	private long balance;
+
+	@Column(name = "interest_micros", nullable = false)
+	private long interestMicros;
+
+	@Column(name = "fee", nullable = false)
+	private long fee;
+}
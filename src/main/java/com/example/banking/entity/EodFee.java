@@ -0,0 +1,51 @@
+package com.example.banking.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Maintenance fee marker for one account on one business date. The row is
+ * written as {@code PENDING} before the fee transfer is submitted and settled
+ * to {@code CHARGED} or {@code WAIVED} with the partition that produced it.
+ */
+@Entity
+@Table(name = "eod_fees", indexes = {
+		@Index(name = "idx_eod_fee_date_account", columnList = "business_date, account_id", unique = true)})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EodFee {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "business_date", nullable = false)
+	private LocalDate businessDate;
+
+	@Column(name = "account_id", nullable = false)
+	private long accountId;
+
+	@Column(name = "transfer_id", nullable = false, length = 36)
+	private String transferId;
+
+	@Column(name = "status", nullable = false, length = 16)
+	private String status;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.example.banking.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpoint of a finished end-of-day partition, written in the same
+ * transaction as the partition's results.
+ */
+@Entity
+@Table(name = "eod_partitions", indexes = {
+		@Index(name = "idx_eod_partition_run", columnList = "business_date, partition_no", unique = true)})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EodPartition {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "business_date", nullable = false)
+	private LocalDate businessDate;
+
+	@Column(name = "partition_no", nullable = false)
+	private int partitionNo;
+
+	@Column(name = "accounts", nullable = false)
+	private int accounts;
+
+	@Column(name = "duration_ms", nullable = false)
+	private long durationMs;
+
+	@Column(name = "finished_at", nullable = false)
+	private LocalDateTime finishedAt;
+}
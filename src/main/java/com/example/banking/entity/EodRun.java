@@ -0,0 +1,48 @@
+package com.example.banking.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One end-of-day run. The partition plan is fixed when the run starts so a
+ * resumed run splits the account space the same way.
+ */
+@Entity
+@Table(name = "eod_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EodRun {
+
+	@Id
+	@Column(name = "business_date")
+	private LocalDate businessDate;
+
+	@Column(name = "status", nullable = false, length = 16)
+	private String status;
+
+	@Column(name = "first_account_id", nullable = false)
+	private long firstAccountId;
+
+	@Column(name = "last_account_id", nullable = false)
+	private long lastAccountId;
+
+	@Column(name = "partition_size", nullable = false)
+	private int partitionSize;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt;
+
+	@Column(name = "finished_at")
+	private LocalDateTime finishedAt;
+}
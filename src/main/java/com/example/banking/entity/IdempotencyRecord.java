@@ -0,0 +1,52 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persisted outcome of a request carrying an {@code Idempotency-Key} header.
+ * The id is a SHA-256 of the caller, path and key so that the primary key
+ * stays fixed-width regardless of what clients send.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+		@Index(name = "idx_idempotency_expires_at", columnList = "expires_at")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+	@Id
+	@Column(name = "id", length = 64)
+	private String id;
+
+	@Column(name = "request_hash", nullable = false, length = 64)
+	private String requestHash;
+
+	@Column(name = "status_code", nullable = false)
+	private int statusCode;
+
+	@Column(name = "content_type", length = 100)
+	private String contentType;
+
+	@Column(name = "compressed", nullable = false)
+	private boolean compressed;
+
+	@Lob
+	@Column(name = "response_body")
+	private byte[] responseBody;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+}
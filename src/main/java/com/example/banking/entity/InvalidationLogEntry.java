@@ -0,0 +1,53 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import com.example.banking.cluster.InvalidationType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change log behind {@link com.example.banking.cluster.JdbcInvalidationTransport};
+ * nodes poll it by sequence and old entries are purged after the retention.
+ */
+@Entity
+@Table(name = "invalidation_log", indexes = @Index(name = "idx_invalidation_published", columnList = "published_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvalidationLogEntry {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "seq")
+	private Long sequence;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "event_type", nullable = false, length = 32)
+	private InvalidationType type;
+
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "emails", length = 512)
+	private String emails;
+
+	@Column(name = "origin", nullable = false, length = 64)
+	private String origin;
+
+	@Column(name = "published_at", nullable = false)
+	private LocalDateTime publishedAt;
+}
@@ -0,0 +1,65 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * One leg of a journal posting, projected from the ledger journal. Rows are
+ * append-only; amounts are signed minor units (credit positive).
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+		@Index(name = "idx_ledger_entry_account_posted", columnList = "account_id, posted_at, entry_id"),
+		@Index(name = "idx_ledger_entry_sequence", columnList = "sequence"),
+		@Index(name = "idx_ledger_entry_transfer", columnList = "transfer_id")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "entry_id")
+	private Long entryId;
+
+	@Column(name = "sequence", nullable = false)
+	private long sequence;
+
+	@Column(name = "account_id", nullable = false)
+	private long accountId;
+
+	// Read-only: maps the foreign key so entries for unknown accounts are rejected
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "account_id", insertable = false, updatable = false,
+			foreignKey = @ForeignKey(name = "fk_ledger_entry_account"))
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Account account;
+
+	@Column(name = "amount", nullable = false)
+	private long amount;
+
+	@Column(name = "posted_at", nullable = false)
+	private LocalDateTime postedAt;
+
+	@Column(name = "transfer_id", length = 36)
+	private String transferId;
+}
@@ -0,0 +1,33 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Identity of the ledger journal this database was started against. The same
+ * epoch is written into the journal directory, so a journal left over from
+ * another database is never replayed into this one.
+ */
+@Entity
+@Table(name = "ledger_journal_epochs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerJournalEpoch {
+
+	@Id
+	@Column(name = "epoch", length = 36)
+	private String epoch;
+
+	@Column(name = "bound_at", nullable = false)
+	private LocalDateTime boundAt;
+}
@@ -0,0 +1,56 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpoint of the current or last run of one lifecycle job. The as-of time
+ * is fixed when a run starts so a resumed run selects the same users.
+ */
+@Entity
+@Table(name = "lifecycle_job_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LifecycleJobRun {
+
+	@Id
+	@Column(name = "job_name", length = 64)
+	private String jobName;
+
+	@Column(name = "status", nullable = false, length = 16)
+	private String status;
+
+	@Column(name = "as_of", nullable = false)
+	private LocalDateTime asOf;
+
+	// Every chunk up to this user id has committed
+	@Column(name = "last_user_id", nullable = false)
+	private long lastUserId;
+
+	@Column(name = "users", nullable = false)
+	private long users;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt;
+
+	@Column(name = "finished_at")
+	private LocalDateTime finishedAt;
+
+	// Refreshed by the node working on the run; null once it gave the run up
+	@Column(name = "heartbeat_at")
+	private LocalDateTime heartbeatAt;
+
+	// Written by each claim; updates by an earlier claimant no longer match
+	@Column(name = "claim_token", length = 36)
+	private String claimToken;
+}
@@ -0,0 +1,45 @@
+package com.example.banking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outstanding password reset. Only the SHA-256 of the emailed token is stored,
+ * so a leaked table cannot be used to reset passwords.
+ */
+@Entity
+@Table(name = "password_reset_tokens", indexes = {
+		@Index(name = "idx_reset_token_hash", columnList = "token_hash", unique = true),
+		@Index(name = "idx_reset_token_user", columnList = "user_id"),
+		@Index(name = "idx_reset_token_expires_at", columnList = "expires_at")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordResetToken {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "token_hash", nullable = false, length = 64)
+	private String tokenHash;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+}
@@ -1,26 +1,29 @@
 package com.example.banking.entity;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
 import org.hibernate.annotations.UpdateTimestamp;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
-import jakarta.persistence.PrePersist;
-import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -30,6 +33,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "users", indexes = {
@@ -41,11 +45,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "userId")
+@DynamicUpdate
 public class User implements UserDetails {
 	private static final long serialVersionUID = 1L;
 
-	private static final Logger log = LoggerFactory.getLogger(User.class);
-
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name = "user_id")
@@ -56,9 +59,28 @@ public class User implements UserDetails {
 	@Column(name = "username", nullable = false, unique = true, length = 50)
 	private String username;
 
+	// Rarely read, so left out of the default select; needs the build-time
+	// enhancement in pom.xml, without which Hibernate loads them eagerly.
+	// The password stays eager: every login needs it, and the single-flight
+	// lookup hands the entity to other threads after its session has closed.
+	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("profile")
+	@ToString.Exclude
 	private String firstname;
+
+	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("profile")
+	@ToString.Exclude
 	private String lastname;
+
+	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("reset")
+	@ToString.Exclude
 	private String resetToken;
+
+	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("reset")
+	@ToString.Exclude
 	private LocalDateTime resetTokenExpiryDate;
 
 	@NotNull
@@ -86,6 +108,15 @@ public class User implements UserDetails {
 	@Builder.Default
 	private Status status = Status.INACTIVE;
 
+	// Set once the email address is confirmed; verified INACTIVE users are
+	// activated by the lifecycle sweep
+	@Column(name = "email_verified_at")
+	private LocalDateTime emailVerifiedAt;
+
+	// ACTIVE users are suspended by the lifecycle sweep once this date passes
+	@Column(name = "kyc_expires_at")
+	private LocalDate kycExpiresAt;
+
 	@CreationTimestamp
 	@Column(name = "created_at", nullable = false, updatable = false)
 	private LocalDateTime createdAt;
@@ -94,16 +125,11 @@ public class User implements UserDetails {
 	@Column(name = "updated_at", nullable = false)
 	private LocalDateTime updatedAt;
 
-	// Entity life cycle event listeners
-	@PrePersist
-	protected void onCreate() {
-		log.debug("Creating new user: {}", username);
-	}
-
-	@PreUpdate
-	protected void onUpdate() {
-		log.debug("Updating user: {}", username);
-	}
+	// The default backfills rows that predate the column when it is added
+	@Version
+	@ColumnDefault("0")
+	@Column(name = "version", nullable = false)
+	private Long version;
 
 	// Custom methods
 	public boolean isActive() {
@@ -0,0 +1,81 @@
+package com.example.banking.ledger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Maintains month-start rows in {@code balance_checkpoints}. Each month is
+ * derived from the previous one plus that month's entries in one set-based
+ * insert, so the job never rescans history.
+ */
+public class BalanceCheckpoints {
+
+	private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	private static final String INSERT_CHECKPOINTS = "INSERT INTO balance_checkpoints (account_id, as_of, balance) "
+			+ "SELECT a.account_id, ?, COALESCE(p.balance, 0) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e "
+			+ "WHERE e.account_id = a.account_id AND e.posted_at >= ? AND e.posted_at < ?), 0) "
+			+ "FROM accounts a LEFT JOIN balance_checkpoints p ON p.account_id = a.account_id AND p.as_of = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public BalanceCheckpoints(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Writes checkpoints for every month boundary at or before {@code watermark},
+	 * which must be a point up to which all entries have been projected.
+	 *
+	 * @return the number of month boundaries checkpointed
+	 */
+	public int checkpointThrough(LocalDateTime watermark) {
+		LocalDateTime previous = jdbcTemplate.queryForObject("SELECT MAX(as_of) FROM balance_checkpoints",
+				LocalDateTime.class);
+		LocalDateTime boundary;
+		if (previous == null) {
+			LocalDateTime first = jdbcTemplate.queryForObject("SELECT MIN(posted_at) FROM ledger_entries",
+					LocalDateTime.class);
+			if (first == null) {
+				return 0;
+			}
+			previous = EPOCH;
+			boundary = monthStart(first).plusMonths(1);
+		} else {
+			boundary = previous.plusMonths(1);
+		}
+
+		int created = 0;
+		while (!boundary.isAfter(watermark)) {
+			jdbcTemplate.update(INSERT_CHECKPOINTS, boundary, previous, boundary, previous);
+			previous = boundary;
+			boundary = boundary.plusMonths(1);
+			created++;
+		}
+		return created;
+	}
+
+	/**
+	 * Balance of an account just before {@code at}: the nearest earlier
+	 * checkpoint plus at most a month of entries.
+	 */
+	public long balanceAt(long accountId, LocalDateTime at) {
+		List<Checkpoint> checkpoints = jdbcTemplate.query("SELECT as_of, balance FROM balance_checkpoints "
+				+ "WHERE account_id = ? AND as_of <= ? ORDER BY as_of DESC LIMIT 1",
+				(rs, rowNum) -> new Checkpoint(rs.getObject(1, LocalDateTime.class), rs.getLong(2)), accountId, at);
+		Checkpoint checkpoint = checkpoints.isEmpty() ? new Checkpoint(EPOCH, 0) : checkpoints.get(0);
+		Long delta = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM ledger_entries "
+				+ "WHERE account_id = ? AND posted_at >= ? AND posted_at < ?", Long.class, accountId,
+				checkpoint.asOf(), at);
+		return checkpoint.balance() + (delta == null ? 0 : delta);
+	}
+
+	private static LocalDateTime monthStart(LocalDateTime time) {
+		return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+	}
+
+	private record Checkpoint(LocalDateTime asOf, long balance) {
+	}
+}
@@ -0,0 +1,274 @@
+package com.example.banking.ledger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.banking.exception.ResourceNotFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Double-entry posting engine. Postings are validated, sequenced and written to
+ * the journal under one lock; a flusher thread then forces the journal once for
+ * everything appended since its previous force (group commit), acknowledges
+ * those postings and hands them to the durable listener for projection.
+ * <p>
+ * Balances are kept in memory and reflect every appended posting, including
+ * ones still waiting for their fsync.
+ */
+public class LedgerEngine implements AutoCloseable {
+	private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+	private final LedgerJournal journal;
+	private final Consumer<Posting> durableListener;
+	private final ConcurrentMap<Long, AccountState> accounts = new ConcurrentHashMap<>();
+	private final ReentrantLock appendLock = new ReentrantLock();
+	private final Condition pendingAvailable = appendLock.newCondition();
+	private final Counter postings;
+	private final Timer fsyncTimer;
+	private final DistributionSummary groupCommitSize;
+
+	private List<PendingPosting> pending = new ArrayList<>();
+	private long nextSequence;
+	private volatile boolean running;
+	private Thread flusher;
+
+	public LedgerEngine(LedgerJournal journal, Consumer<Posting> durableListener, MeterRegistry meterRegistry) {
+		this.journal = journal;
+		this.durableListener = durableListener;
+		this.postings = Counter.builder("ledger.postings").description("Durable postings").register(meterRegistry);
+		this.fsyncTimer = Timer.builder("ledger.journal.fsync").register(meterRegistry);
+		this.groupCommitSize = DistributionSummary.builder("ledger.group.commit.size")
+				.description("Postings made durable by one fsync").register(meterRegistry);
+	}
+
+	public void registerAccount(long accountId, String currency, long balance) {
+		accounts.put(accountId, new AccountState(currency, balance));
+	}
+
+	public void start(long firstSequence) {
+		this.nextSequence = firstSequence;
+		this.running = true;
+		this.flusher = new Thread(this::flushLoop, "ledger-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	public long balance(long accountId) {
+		return account(accountId).balance;
+	}
+
+	public boolean hasAccount(long accountId) {
+		return accounts.containsKey(accountId);
+	}
+
+	public String currency(long accountId) {
+		return account(accountId).currency;
+	}
+
+	/**
+	 * Posts and waits until the posting is durable.
+	 */
+	public Posting post(UUID transferId, List<Posting.Leg> legs) {
+		try {
+			return submit(transferId, legs).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	public CompletableFuture<Posting> submit(UUID transferId, List<Posting.Leg> legs) {
+		validate(legs);
+		return append(List.of(new Entry(transferId, legs))).get(0);
+	}
+
+	/**
+	 * Validates and appends several postings under one acquisition of the append
+	 * lock. Invalid entries get a failed future instead of failing the batch.
+	 */
+	public List<CompletableFuture<Posting>> submitAll(List<Entry> entries) {
+		List<CompletableFuture<Posting>> futures = new ArrayList<>(entries.size());
+		List<Entry> valid = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			try {
+				validate(entry.legs());
+				valid.add(entry);
+				futures.add(null);
+			} catch (RuntimeException e) {
+				futures.add(CompletableFuture.failedFuture(e));
+			}
+		}
+		Iterator<CompletableFuture<Posting>> appended = append(valid).iterator();
+		for (int i = 0; i < futures.size(); i++) {
+			if (futures.get(i) == null) {
+				futures.set(i, appended.next());
+			}
+		}
+		return futures;
+	}
+
+	@Override
+	public void close() {
+		appendLock.lock();
+		try {
+			running = false;
+			pendingAvailable.signal();
+		} finally {
+			appendLock.unlock();
+		}
+		if (flusher != null) {
+			try {
+				flusher.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		journal.close();
+	}
+
+	private List<CompletableFuture<Posting>> append(List<Entry> entries) {
+		List<CompletableFuture<Posting>> futures = new ArrayList<>(entries.size());
+		if (entries.isEmpty()) {
+			return futures;
+		}
+		appendLock.lock();
+		try {
+			if (!running) {
+				throw new IllegalStateException("Ledger engine is not running");
+			}
+			boolean wasEmpty = pending.isEmpty();
+			RuntimeException failure = null;
+			for (Entry entry : entries) {
+				CompletableFuture<Posting> future = new CompletableFuture<>();
+				futures.add(future);
+				if (failure != null) {
+					future.completeExceptionally(failure);
+					continue;
+				}
+				Posting posting = new Posting(nextSequence, Instant.now(), entry.transferId(), List.copyOf(entry.legs()));
+				try {
+					journal.append(posting);
+				} catch (RuntimeException e) {
+					// Nothing from here on reached the journal
+					failure = e;
+					future.completeExceptionally(e);
+					continue;
+				}
+				nextSequence++;
+				for (Posting.Leg leg : posting.legs()) {
+					accounts.get(leg.accountId()).balance += leg.amount();
+				}
+				pending.add(new PendingPosting(posting, future));
+			}
+			if (wasEmpty && !pending.isEmpty()) {
+				pendingAvailable.signal();
+			}
+		} finally {
+			appendLock.unlock();
+		}
+		return futures;
+	}
+
+	private void validate(List<Posting.Leg> legs) {
+		if (legs.size() < 2) {
+			throw new IllegalArgumentException("A posting needs at least two legs");
+		}
+		if (legs.size() > journal.maxLegs()) {
+			throw new IllegalArgumentException("A posting can have at most " + journal.maxLegs() + " legs");
+		}
+		long sum = 0;
+		String currency = null;
+		for (Posting.Leg leg : legs) {
+			if (leg.amount() == 0) {
+				throw new IllegalArgumentException("Posting legs must have a non-zero amount");
+			}
+			AccountState account = account(leg.accountId());
+			if (currency != null && !currency.equals(account.currency)) {
+				throw new IllegalArgumentException("Posting legs must share one currency");
+			}
+			currency = account.currency;
+			sum = Math.addExact(sum, leg.amount());
+		}
+		if (sum != 0) {
+			throw new IllegalArgumentException("Posting legs must balance to zero, got " + sum);
+		}
+	}
+
+	private AccountState account(long accountId) {
+		AccountState account = accounts.get(accountId);
+		if (account == null) {
+			throw new ResourceNotFoundException("Account not found with id: " + accountId);
+		}
+		return account;
+	}
+
+	private void flushLoop() {
+		while (true) {
+			List<PendingPosting> batch;
+			appendLock.lock();
+			try {
+				while (pending.isEmpty() && running) {
+					pendingAvailable.awaitUninterruptibly();
+				}
+				if (pending.isEmpty()) {
+					return;
+				}
+				batch = pending;
+				pending = new ArrayList<>(batch.size());
+			} finally {
+				appendLock.unlock();
+			}
+
+			try {
+				fsyncTimer.record(journal::force);
+			} catch (RuntimeException e) {
+				// Balances already include this batch, so stop taking postings until restart replays the journal
+				log.error("Ledger journal fsync failed: {}", e.getMessage(), e);
+				running = false;
+				batch.forEach(entry -> entry.future().completeExceptionally(e));
+				continue;
+			}
+			groupCommitSize.record(batch.size());
+			postings.increment(batch.size());
+			for (PendingPosting entry : batch) {
+				entry.future().complete(entry.posting());
+				durableListener.accept(entry.posting());
+			}
+		}
+	}
+
+	private static final class AccountState {
+		private final String currency;
+		private volatile long balance;
+
+		private AccountState(String currency, long balance) {
+			this.currency = currency;
+			this.balance = balance;
+		}
+	}
+
+	public record Entry(UUID transferId, List<Posting.Leg> legs) {
+	}
+
+	private record PendingPosting(Posting posting, CompletableFuture<Posting> future) {
+	}
+}
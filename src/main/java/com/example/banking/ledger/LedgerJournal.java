@@ -0,0 +1,266 @@
+package com.example.banking.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only posting journal stored in fixed-size memory-mapped segment files
+ * named after the first sequence they hold.
+ * <p>
+ * Record layout: {@code int length | long sequence | long postedAtMillis |
+ * long transferIdMsb | long transferIdLsb | short legCount |
+ * legCount x (long accountId, long amount) | int crc32c}, where the length
+ * counts every byte after itself. A zero length marks the end of a segment.
+ * Appends are not thread-safe; the caller serialises them.
+ */
+public class LedgerJournal implements Closeable {
+	private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String EPOCH_FILE = "journal.epoch";
+	private static final int FIXED_BODY = 8 + 8 + 8 + 8 + 2 + 4;
+	private static final int LEG_SIZE = 16;
+
+	private final Path directory;
+	private final int segmentSize;
+	private volatile MappedByteBuffer buffer;
+
+	public LedgerJournal(Path directory, int segmentSize) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Ties the journal to the database its postings are projected into. The
+	 * directory records the epoch of the database it was started against. A
+	 * journal from another epoch is discarded while the database holds no ledger
+	 * data (an in-memory database after a restart) and refused otherwise, so
+	 * postings are never replayed into accounts they were not made against.
+	 * Journals written before epochs existed are kept if the database has data.
+	 *
+	 * @param databaseEpoch epoch stored in the database, or null if it has none
+	 * @param databaseEmpty whether the database has neither accounts nor entries
+	 * @return the epoch to store in the database
+	 */
+	public String bind(String databaseEpoch, boolean databaseEmpty) {
+		try {
+			Files.createDirectories(directory);
+			Path epochFile = directory.resolve(EPOCH_FILE);
+			String journalEpoch = Files.exists(epochFile) ? Files.readString(epochFile).trim() : null;
+			List<Path> segments = segments();
+			boolean legacy = databaseEpoch == null && journalEpoch == null && !databaseEmpty;
+			if (!segments.isEmpty() && !legacy && !Objects.equals(databaseEpoch, journalEpoch)) {
+				if (!databaseEmpty) {
+					throw new IllegalStateException("Ledger journal in " + directory + " belongs to another database "
+							+ "(journal epoch " + journalEpoch + ", database epoch " + databaseEpoch + ")");
+				}
+				log.warn("Discarding {} ledger journal segments in {} written for another database (epoch {})",
+						segments.size(), directory, journalEpoch);
+				for (Path segment : segments) {
+					Files.delete(segment);
+				}
+			}
+
+			String epoch = databaseEpoch != null ? databaseEpoch : UUID.randomUUID().toString();
+			if (!epoch.equals(journalEpoch)) {
+				Path written = Files.writeString(directory.resolve(EPOCH_FILE + ".tmp"), epoch);
+				Files.move(written, epochFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			return epoch;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to bind ledger journal in " + directory, e);
+		}
+	}
+
+	/**
+	 * Replays every intact record in sequence order and positions the journal
+	 * after the last one. The first torn or corrupt record, or a gap in the
+	 * sequence, ends recovery in whichever segment it is found: the rest of that
+	 * segment is zeroed so it is overwritten by the next append, and later
+	 * segments are deleted, since nothing after a lost posting can be applied.
+	 */
+	public void recover(Consumer<Posting> consumer) {
+		try {
+			Files.createDirectories(directory);
+			List<Path> segments = segments();
+			long previous = 0;
+			for (int i = 0; i < segments.size(); i++) {
+				MappedByteBuffer segment = map(segments.get(i));
+				while (true) {
+					int start = segment.position();
+					Posting posting = read(segment);
+					if (posting == null) {
+						break;
+					}
+					if (previous != 0 && posting.sequence() != previous + 1) {
+						segment.position(start);
+						break;
+					}
+					previous = posting.sequence();
+					consumer.accept(posting);
+				}
+				boolean last = i == segments.size() - 1;
+				if (last || !cleanEnd(segment)) {
+					zeroTail(segment);
+					for (Path later : segments.subList(i + 1, segments.size())) {
+						log.warn("Deleting ledger journal segment {} after a corrupt record in {}", later.getFileName(),
+								segments.get(i).getFileName());
+						Files.delete(later);
+					}
+					buffer = segment;
+					return;
+				}
+			}
+			buffer = map(segmentPath(1));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to recover ledger journal in " + directory, e);
+		}
+	}
+
+	/**
+	 * Most legs a single posting can have: its record must fit in one segment.
+	 */
+	public int maxLegs() {
+		return Math.min(Short.MAX_VALUE, (segmentSize - 4 - FIXED_BODY) / LEG_SIZE);
+	}
+
+	public void append(Posting posting) {
+		if (posting.legs().size() > maxLegs()) {
+			throw new IllegalArgumentException("Posting " + posting.sequence() + " has " + posting.legs().size()
+					+ " legs, more than the " + maxLegs() + " a journal segment holds");
+		}
+		int length = FIXED_BODY + posting.legs().size() * LEG_SIZE;
+		if (buffer.remaining() < 4 + length) {
+			roll(posting.sequence());
+		}
+
+		MappedByteBuffer target = buffer;
+		int start = target.position();
+		target.position(start + 4);
+		target.putLong(posting.sequence());
+		target.putLong(posting.postedAt().toEpochMilli());
+		UUID transferId = posting.transferId();
+		target.putLong(transferId == null ? 0L : transferId.getMostSignificantBits());
+		target.putLong(transferId == null ? 0L : transferId.getLeastSignificantBits());
+		target.putShort((short) posting.legs().size());
+		for (Posting.Leg leg : posting.legs()) {
+			target.putLong(leg.accountId());
+			target.putLong(leg.amount());
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(target.slice(start + 4, length - 4));
+		target.putInt((int) crc.getValue());
+		// Length goes in last so a half-written record is never mistaken for a whole one
+		target.putInt(start, length);
+	}
+
+	/**
+	 * Flushes appended records to the storage device.
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	@Override
+	public void close() {
+		if (buffer != null) {
+			buffer.force();
+		}
+	}
+
+	private void roll(long firstSequence) {
+		try {
+			buffer.force();
+			buffer = map(segmentPath(firstSequence));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to roll ledger journal segment", e);
+		}
+	}
+
+	private MappedByteBuffer map(Path path) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			return fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+	}
+
+	private static Posting read(ByteBuffer segment) {
+		int start = segment.position();
+		if (segment.remaining() < 4) {
+			return null;
+		}
+		int length = segment.getInt(start);
+		if (length < FIXED_BODY || length > segment.remaining() - 4
+				|| (length - FIXED_BODY) % LEG_SIZE != 0) {
+			return null;
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(segment.slice(start + 4, length - 4));
+		if ((int) crc.getValue() != segment.getInt(start + length)) {
+			return null;
+		}
+
+		segment.position(start + 4);
+		long sequence = segment.getLong();
+		Instant postedAt = Instant.ofEpochMilli(segment.getLong());
+		long msb = segment.getLong();
+		long lsb = segment.getLong();
+		int legCount = segment.getShort();
+		if (legCount != (length - FIXED_BODY) / LEG_SIZE) {
+			segment.position(start);
+			return null;
+		}
+		List<Posting.Leg> legs = new ArrayList<>(legCount);
+		for (int i = 0; i < legCount; i++) {
+			legs.add(new Posting.Leg(segment.getLong(), segment.getLong()));
+		}
+		segment.position(start + 4 + length);
+		return new Posting(sequence, postedAt, msb == 0L && lsb == 0L ? null : new UUID(msb, lsb), legs);
+	}
+
+	/** Whether reading stopped at the zero length that ends a segment's records. */
+	private static boolean cleanEnd(ByteBuffer segment) {
+		return segment.remaining() < 4 || segment.getInt(segment.position()) == 0;
+	}
+
+	private static void zeroTail(ByteBuffer segment) {
+		for (int i = segment.position(); i < segment.limit(); i++) {
+			if (segment.get(i) != 0) {
+				segment.put(i, (byte) 0);
+			}
+		}
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> {
+				String name = path.getFileName().toString();
+				return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+			}).sorted().toList();
+		}
+	}
+
+	private Path segmentPath(long firstSequence) {
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+	}
+}
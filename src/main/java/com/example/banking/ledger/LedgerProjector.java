@@ -0,0 +1,238 @@
+package com.example.banking.ledger;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Projects durable postings into {@code ledger_entries} on a background thread
+ * using batched inserts, and maintains {@code balance_snapshots}. Postings are
+ * written in sequence order, so the highest projected sequence is a reliable
+ * high-water mark for journal replay.
+ */
+public class LedgerProjector implements AutoCloseable {
+	private static final Logger log = LoggerFactory.getLogger(LedgerProjector.class);
+
+	private static final String INSERT_ENTRY = "INSERT INTO ledger_entries "
+			+ "(sequence, account_id, amount, posted_at, transfer_id) VALUES (?, ?, ?, ?, ?)";
+	private static final long RETRY_DELAY_MS = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final BlockingQueue<Posting> queue = new LinkedBlockingQueue<>();
+	private volatile boolean running;
+	private volatile long projectedSequence;
+	private volatile Posting inFlight;
+	private Thread worker;
+
+	public LedgerProjector(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int batchSize,
+			MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		Gauge.builder("ledger.projection.backlog", queue, BlockingQueue::size)
+				.description("Durable postings not yet projected").register(meterRegistry);
+	}
+
+	/**
+	 * Epoch of the journal this database was bound to, or null before the first start.
+	 */
+	public String loadJournalEpoch() {
+		return jdbcTemplate.query("SELECT epoch FROM ledger_journal_epochs", (rs, rowNum) -> rs.getString(1))
+				.stream().findFirst().orElse(null);
+	}
+
+	public void storeJournalEpoch(String epoch) {
+		if (!epoch.equals(loadJournalEpoch())) {
+			jdbcTemplate.update("INSERT INTO ledger_journal_epochs (epoch, bound_at) VALUES (?, ?)", epoch,
+					Timestamp.valueOf(LocalDateTime.now()));
+		}
+	}
+
+	public boolean hasLedgerData() {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+				"SELECT EXISTS (SELECT 1 FROM accounts) OR EXISTS (SELECT 1 FROM ledger_entries)", Boolean.class));
+	}
+
+	public long loadProjectedSequence() {
+		Long max = jdbcTemplate.queryForObject("SELECT MAX(sequence) FROM ledger_entries", Long.class);
+		projectedSequence = max == null ? 0 : max;
+		return projectedSequence;
+	}
+
+	public long projectedSequence() {
+		return projectedSequence;
+	}
+
+	/**
+	 * Time before which every durable posting has been projected: the posting
+	 * time of the oldest one still being written or queued, or now if none are.
+	 */
+	public Instant watermark() {
+		Posting oldest = inFlight;
+		if (oldest == null) {
+			oldest = queue.peek();
+		}
+		return oldest == null ? Instant.now() : oldest.postedAt();
+	}
+
+	/**
+	 * Current balance of every account: its snapshot plus the entries after it.
+	 */
+	public List<AccountBalance> loadBalances() {
+		return jdbcTemplate.query("SELECT a.account_id, a.currency, COALESCE(s.balance, 0) + COALESCE("
+				+ "(SELECT SUM(e.amount) FROM ledger_entries e WHERE e.account_id = a.account_id "
+				+ "AND e.sequence > COALESCE(s.last_sequence, 0)), 0) "
+				+ "FROM accounts a LEFT JOIN balance_snapshots s ON s.account_id = a.account_id",
+				(rs, rowNum) -> new AccountBalance(rs.getLong(1), rs.getString(2), rs.getLong(3)));
+	}
+
+	/**
+	 * Streams the owner of every account without materialising the table.
+	 */
+	public void forEachAccountOwner(BiConsumer<Long, Long> consumer) {
+		jdbcTemplate.query("SELECT account_id, user_id FROM accounts",
+				(RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+	}
+
+	public void enqueue(Posting posting) {
+		queue.add(posting);
+	}
+
+	/**
+	 * Projects postings synchronously on the calling thread, used for journal
+	 * replay before the engine starts.
+	 */
+	public void project(List<Posting> postings) {
+		for (int from = 0; from < postings.size(); from += batchSize) {
+			write(postings.subList(from, Math.min(postings.size(), from + batchSize)));
+		}
+	}
+
+	public void start() {
+		running = true;
+		worker = new Thread(this::drainLoop, "ledger-projector");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Rolls every account's snapshot forward to the projected high-water mark.
+	 */
+	public int snapshotBalances() {
+		long upTo = projectedSequence;
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		Integer snapshotted = transactionTemplate.execute(status -> {
+			List<long[]> deltas = jdbcTemplate.query("SELECT e.account_id, SUM(e.amount) FROM ledger_entries e "
+					+ "LEFT JOIN balance_snapshots s ON s.account_id = e.account_id "
+					+ "WHERE e.sequence > COALESCE(s.last_sequence, 0) AND e.sequence <= ? GROUP BY e.account_id",
+					(rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)}, upTo);
+			if (deltas.isEmpty()) {
+				return 0;
+			}
+
+			List<Object[]> updates = new ArrayList<>(deltas.size());
+			for (long[] delta : deltas) {
+				updates.add(new Object[] {delta[1], upTo, now, delta[0]});
+			}
+			int[] updated = jdbcTemplate.batchUpdate("UPDATE balance_snapshots SET balance = balance + ?, "
+					+ "last_sequence = ?, updated_at = ? WHERE account_id = ?", updates);
+
+			List<Object[]> inserts = new ArrayList<>();
+			for (int i = 0; i < updated.length; i++) {
+				if (updated[i] == 0) {
+					inserts.add(new Object[] {deltas.get(i)[0], deltas.get(i)[1], upTo, now});
+				}
+			}
+			if (!inserts.isEmpty()) {
+				jdbcTemplate.batchUpdate("INSERT INTO balance_snapshots (account_id, balance, last_sequence, "
+						+ "updated_at) VALUES (?, ?, ?, ?)", inserts);
+			}
+			return deltas.size();
+		});
+		return snapshotted == null ? 0 : snapshotted;
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		if (worker != null) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void drainLoop() {
+		List<Posting> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty() || !batch.isEmpty()) {
+			try {
+				if (batch.isEmpty()) {
+					Posting first = queue.poll(100, TimeUnit.MILLISECONDS);
+					if (first == null) {
+						continue;
+					}
+					inFlight = first;
+					batch.add(first);
+					queue.drainTo(batch, batchSize - 1);
+				}
+				write(batch);
+				batch.clear();
+				inFlight = null;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				// Keep the batch and retry; the journal still holds these postings
+				log.error("Ledger projection failed, retrying: {}", e.getMessage(), e);
+				if (!running) {
+					return;
+				}
+				sleepBeforeRetry();
+			}
+		}
+	}
+
+	private void write(List<Posting> postings) {
+		List<Object[]> rows = new ArrayList<>(postings.size() * 2);
+		for (Posting posting : postings) {
+			Timestamp postedAt = Timestamp.valueOf(LocalDateTime.ofInstant(posting.postedAt(), ZoneId.systemDefault()));
+			String transferId = posting.transferId() == null ? null : posting.transferId().toString();
+			for (Posting.Leg leg : posting.legs()) {
+				rows.add(new Object[] {posting.sequence(), leg.accountId(), leg.amount(), postedAt, transferId});
+			}
+		}
+		transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_ENTRY, rows));
+		projectedSequence = postings.get(postings.size() - 1).sequence();
+	}
+
+	private void sleepBeforeRetry() {
+		try {
+			Thread.sleep(RETRY_DELAY_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public record AccountBalance(long accountId, String currency, long balance) {
+	}
+}
@@ -0,0 +1,14 @@
+package com.example.banking.ledger;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A balanced set of legs applied atomically at one journal sequence.
+ */
+public record Posting(long sequence, Instant postedAt, UUID transferId, List<Leg> legs) {
+
+	public record Leg(long accountId, long amount) {
+	}
+}
@@ -0,0 +1,18 @@
+package com.example.banking.ledger;
+
+import java.util.UUID;
+
+/**
+ * A movement of {@code amount} minor units between two accounts, identified by
+ * a caller-chosen id that makes retries safe.
+ */
+public record Transfer(UUID transferId, long fromAccountId, long toAccountId, long amount) {
+
+	Posting.Leg debit() {
+		return new Posting.Leg(fromAccountId, -amount);
+	}
+
+	Posting.Leg credit() {
+		return new Posting.Leg(toAccountId, amount);
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.banking.ledger;
+
+/**
+ * Inline check run once for every new transfer before it is queued, for
+ * controls such as velocity limits. Replays of a known transfer id skip it.
+ */
+public interface TransferAdmission {
+
+	/**
+	 * Admits the transfer or throws to reject it.
+	 *
+	 * @return the admission time in epoch millis, handed back to {@link #release}
+	 */
+	long admit(Transfer transfer);
+
+	/**
+	 * Takes back an admission whose transfer did not go through.
+	 */
+	void release(Transfer transfer, long admittedAt);
+}
@@ -0,0 +1,386 @@
+package com.example.banking.ledger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.banking.exception.IdempotencyConflictException;
+import com.example.banking.exception.InsufficientFundsException;
+import com.example.banking.exception.ResourceNotFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes transfers to the shard that owns the debited account. Each shard is a
+ * single thread draining a lock-free queue, so the funds check and the hold it
+ * places need no locks and no database round trip: available funds are the
+ * ledger balance minus the shard's outstanding holds.
+ * <p>
+ * A transfer whose accounts live on one shard is appended straight away. A
+ * cross-shard transfer is two-phase: the debit shard reserves the amount as a
+ * hold, then the credit shard prepares its side and commits the posting, after
+ * which the debit shard releases the hold. Each shard appends every commit from
+ * one drain of its queue as a single journal batch.
+ * <p>
+ * Transfer ids are remembered for {@code idRetention}; resubmitting one returns
+ * the original posting, and a failed transfer may be retried under the same id.
+ */
+public class TransferEngine implements AutoCloseable {
+
+	private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final LedgerEngine ledgerEngine;
+	private final Shard[] shards;
+	private final int batchSize;
+	private final Duration idRetention;
+	private final ConcurrentMap<UUID, Outcome> transfers = new ConcurrentHashMap<>();
+	private final Counter committed;
+	private final Counter rejected;
+	private final Counter crossShard;
+	private volatile boolean accepting;
+
+	public TransferEngine(LedgerEngine ledgerEngine, int shardCount, int batchSize, Duration idRetention,
+			MeterRegistry meterRegistry) {
+		this.ledgerEngine = ledgerEngine;
+		this.batchSize = batchSize;
+		this.idRetention = idRetention;
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(i);
+			Gauge.builder("ledger.transfer.queue", shards[i].depth, AtomicInteger::get)
+					.description("Commands waiting for a transfer shard").tag("shard", String.valueOf(i))
+					.register(meterRegistry);
+		}
+		this.committed = Counter.builder("ledger.transfers").tag("outcome", "committed").register(meterRegistry);
+		this.rejected = Counter.builder("ledger.transfers").tag("outcome", "rejected").register(meterRegistry);
+		this.crossShard = Counter.builder("ledger.transfers.cross.shard")
+				.description("Transfers that needed a reserve/commit round between shards").register(meterRegistry);
+	}
+
+	public void start() {
+		for (Shard shard : shards) {
+			shard.thread.start();
+		}
+		accepting = true;
+	}
+
+	/**
+	 * Records a transfer recovered from the journal so that a retry after a
+	 * restart is still recognised. Postings older than the retention are skipped.
+	 */
+	public void remember(Posting posting) {
+		if (posting.transferId() == null || posting.legs().size() != 2
+				|| posting.postedAt().isBefore(Instant.now().minus(idRetention))) {
+			return;
+		}
+		Posting.Leg first = posting.legs().get(0);
+		Posting.Leg second = posting.legs().get(1);
+		Posting.Leg debit = first.amount() < 0 ? first : second;
+		Posting.Leg credit = debit == first ? second : first;
+		Transfer transfer = new Transfer(posting.transferId(), debit.accountId(), credit.accountId(), credit.amount());
+		transfers.putIfAbsent(posting.transferId(),
+				new Outcome(transfer, CompletableFuture.completedFuture(posting), null, 0));
+	}
+
+	/**
+	 * Transfers and waits until the posting is durable.
+	 */
+	public Posting transfer(Transfer transfer) {
+		return transfer(transfer, null);
+	}
+
+	public Posting transfer(Transfer transfer, TransferAdmission admission) {
+		try {
+			return submit(transfer, admission).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	public CompletableFuture<Posting> submit(Transfer transfer) {
+		return submit(transfer, null);
+	}
+
+	/**
+	 * Queues a new transfer, or returns the outcome of an earlier one with the
+	 * same id. New transfers must first pass {@code admission}, if given.
+	 */
+	public CompletableFuture<Posting> submit(Transfer transfer, TransferAdmission admission) {
+		Objects.requireNonNull(transfer.transferId(), "transferId");
+		if (transfer.amount() <= 0) {
+			throw new IllegalArgumentException("Transfer amount must be positive");
+		}
+		if (transfer.fromAccountId() == transfer.toAccountId()) {
+			throw new IllegalArgumentException("Cannot transfer to the same account");
+		}
+		if (!accepting) {
+			throw new IllegalStateException("Transfer engine is not running");
+		}
+
+		Outcome existing = transfers.get(transfer.transferId());
+		if (existing != null) {
+			return replay(existing, transfer);
+		}
+		long admittedAt = admission == null ? 0 : admission.admit(transfer);
+		Outcome outcome = new Outcome(transfer, new CompletableFuture<>(), admission, admittedAt);
+		existing = transfers.putIfAbsent(transfer.transferId(), outcome);
+		if (existing != null) {
+			if (admission != null) {
+				admission.release(transfer, admittedAt);
+			}
+			return replay(existing, transfer);
+		}
+		shardOf(transfer.fromAccountId()).enqueue(new Reserve(outcome));
+		return outcome.result();
+	}
+
+	/**
+	 * Forgets completed transfers older than the retention.
+	 */
+	public int evictExpired() {
+		Instant cutoff = Instant.now().minus(idRetention);
+		int before = transfers.size();
+		transfers.values().removeIf(outcome -> {
+			Posting posting = outcome.result().getNow(null);
+			return posting != null && posting.postedAt().isBefore(cutoff);
+		});
+		return before - transfers.size();
+	}
+
+	@Override
+	public void close() {
+		accepting = false;
+		for (Shard shard : shards) {
+			shard.running = false;
+			LockSupport.unpark(shard.thread);
+		}
+		for (Shard shard : shards) {
+			try {
+				shard.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		// A shard may have handed a prepare to one that had already stopped
+		IllegalStateException stopped = new IllegalStateException("Transfer engine stopped");
+		for (Shard shard : shards) {
+			Command command;
+			while ((command = shard.queue.poll()) != null) {
+				if (command instanceof Reserve reserve) {
+					fail(reserve.outcome(), stopped);
+				} else if (command instanceof Prepare prepare) {
+					fail(prepare.outcome(), stopped);
+				}
+			}
+		}
+	}
+
+	private static CompletableFuture<Posting> replay(Outcome existing, Transfer transfer) {
+		if (!existing.transfer().equals(transfer)) {
+			throw new IdempotencyConflictException(
+					"Transfer id " + transfer.transferId() + " was already used for a different transfer");
+		}
+		return existing.result();
+	}
+
+	private Shard shardOf(long accountId) {
+		return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+	}
+
+	private void complete(Outcome outcome, Posting posting) {
+		committed.increment();
+		outcome.result().complete(posting);
+	}
+
+	private void fail(Outcome outcome, Throwable failure) {
+		transfers.remove(outcome.transfer().transferId(), outcome);
+		if (outcome.admission() != null) {
+			outcome.admission().release(outcome.transfer(), outcome.admittedAt());
+		}
+		rejected.increment();
+		outcome.result().completeExceptionally(failure);
+	}
+
+	private sealed interface Command permits Reserve, Prepare, Release {
+	}
+
+	/** Phase one, on the debit shard: check funds and place a hold. */
+	private record Reserve(Outcome outcome) implements Command {
+	}
+
+	/** Phase two, on the credit shard: accept the credit and commit. */
+	private record Prepare(Outcome outcome) implements Command {
+	}
+
+	/** Back on the debit shard once the posting is appended or abandoned. */
+	private record Release(long accountId, long amount) implements Command {
+	}
+
+	private record Outcome(Transfer transfer, CompletableFuture<Posting> result, TransferAdmission admission,
+			long admittedAt) {
+	}
+
+	private final class Shard implements Runnable {
+		private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger depth = new AtomicInteger();
+		// Only touched by this shard's thread
+		private final Map<Long, Long> holds = new HashMap<>();
+		private final List<Outcome> commits = new ArrayList<>();
+		private final Thread thread;
+		private volatile boolean parked;
+		private volatile boolean running = true;
+
+		private Shard(int index) {
+			this.thread = new Thread(this, "transfer-shard-" + index);
+			thread.setDaemon(true);
+		}
+
+		private void enqueue(Command command) {
+			queue.offer(command);
+			depth.incrementAndGet();
+			if (parked) {
+				LockSupport.unpark(thread);
+			}
+		}
+
+		@Override
+		public void run() {
+			while (running || !queue.isEmpty()) {
+				Command command = queue.poll();
+				if (command == null) {
+					parked = true;
+					// Re-check after publishing the flag so an offer racing with it is not missed
+					if (queue.isEmpty() && running) {
+						LockSupport.parkNanos(this, PARK_NANOS);
+					}
+					parked = false;
+					continue;
+				}
+				int drained = 0;
+				do {
+					depth.decrementAndGet();
+					handle(command);
+				} while (++drained < batchSize && (command = queue.poll()) != null);
+				if (!commits.isEmpty()) {
+					commit();
+				}
+			}
+		}
+
+		private void handle(Command command) {
+			try {
+				if (command instanceof Reserve reserve) {
+					reserve(reserve.outcome());
+				} else if (command instanceof Prepare prepare) {
+					prepare(prepare.outcome());
+				} else if (command instanceof Release release) {
+					release(release.accountId(), release.amount());
+				}
+			} catch (RuntimeException e) {
+				if (command instanceof Reserve reserve) {
+					fail(reserve.outcome(), e);
+				} else if (command instanceof Prepare prepare) {
+					releaseHold(prepare.outcome().transfer());
+					fail(prepare.outcome(), e);
+				}
+			}
+		}
+
+		private void reserve(Outcome outcome) {
+			Transfer transfer = outcome.transfer();
+			long from = transfer.fromAccountId();
+			if (!ledgerEngine.hasAccount(transfer.toAccountId())) {
+				throw new ResourceNotFoundException("Account not found with id: " + transfer.toAccountId());
+			}
+			if (!ledgerEngine.currency(from).equals(ledgerEngine.currency(transfer.toAccountId()))) {
+				throw new IllegalArgumentException("Transfer accounts must share one currency");
+			}
+			long available = ledgerEngine.balance(from) - holds.getOrDefault(from, 0L);
+			if (available < transfer.amount()) {
+				throw new InsufficientFundsException("Insufficient funds in account " + from);
+			}
+			holds.merge(from, transfer.amount(), Long::sum);
+
+			Shard creditShard = shardOf(transfer.toAccountId());
+			if (creditShard == this) {
+				commits.add(outcome);
+			} else {
+				crossShard.increment();
+				creditShard.enqueue(new Prepare(outcome));
+			}
+		}
+
+		private void prepare(Outcome outcome) {
+			long to = outcome.transfer().toAccountId();
+			if (!ledgerEngine.hasAccount(to)) {
+				throw new ResourceNotFoundException("Account not found with id: " + to);
+			}
+			commits.add(outcome);
+		}
+
+		private void commit() {
+			List<LedgerEngine.Entry> entries = new ArrayList<>(commits.size());
+			for (Outcome outcome : commits) {
+				Transfer transfer = outcome.transfer();
+				entries.add(new LedgerEngine.Entry(transfer.transferId(), List.of(transfer.debit(), transfer.credit())));
+			}
+
+			List<CompletableFuture<Posting>> postings;
+			try {
+				postings = ledgerEngine.submitAll(entries);
+			} catch (RuntimeException e) {
+				commits.forEach(outcome -> {
+					releaseHold(outcome.transfer());
+					fail(outcome, e);
+				});
+				commits.clear();
+				return;
+			}
+			for (int i = 0; i < commits.size(); i++) {
+				Outcome outcome = commits.get(i);
+				// The ledger balance already includes an appended debit, so the hold can go
+				releaseHold(outcome.transfer());
+				postings.get(i).whenComplete((posting, failure) -> {
+					if (failure == null) {
+						complete(outcome, posting);
+					} else {
+						fail(outcome, failure);
+					}
+				});
+			}
+			commits.clear();
+		}
+
+		private void releaseHold(Transfer transfer) {
+			Shard debitShard = shardOf(transfer.fromAccountId());
+			if (debitShard == this) {
+				release(transfer.fromAccountId(), transfer.amount());
+			} else {
+				debitShard.enqueue(new Release(transfer.fromAccountId(), transfer.amount()));
+			}
+		}
+
+		private void release(long accountId, long amount) {
+			holds.computeIfPresent(accountId, (id, held) -> held == amount ? null : held - amount);
+		}
+	}
+}
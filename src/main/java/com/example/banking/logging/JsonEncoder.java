@@ -0,0 +1,81 @@
+package com.example.banking.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+/**
+ * One JSON object per line: {@code timestamp}, {@code level},
+ * {@code logger}, {@code thread}, {@code correlationId} and any other MDC
+ * entries, {@code message}, and {@code exception} with the stack trace.
+ * Message, MDC values and stack trace pass through {@link Redactor}.
+ */
+public class JsonEncoder extends EncoderBase<ILoggingEvent> {
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final ThrowableProxyConverter throwableConverter = new ThrowableProxyConverter();
+	private boolean redact = true;
+
+	public void setRedact(boolean redact) {
+		this.redact = redact;
+	}
+
+	@Override
+	public void start() {
+		throwableConverter.setContext(getContext());
+		throwableConverter.start();
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		throwableConverter.stop();
+		super.stop();
+	}
+
+	@Override
+	public byte[] headerBytes() {
+		return EMPTY;
+	}
+
+	@Override
+	public byte[] footerBytes() {
+		return EMPTY;
+	}
+
+	@Override
+	public byte[] encode(ILoggingEvent event) {
+		StringBuilder json = new StringBuilder(256);
+		json.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(event.getTimeStamp()));
+		json.append("\",\"level\":\"").append(event.getLevel()).append('"');
+		field(json, "logger", event.getLoggerName(), false);
+		field(json, "thread", event.getThreadName(), false);
+		Map<String, String> mdc = event.getMDCPropertyMap();
+		if (mdc != null) {
+			for (Map.Entry<String, String> entry : mdc.entrySet()) {
+				field(json, entry.getKey(), entry.getValue(), true);
+			}
+		}
+		field(json, "message", event.getFormattedMessage(), true);
+		if (event.getThrowableProxy() != null) {
+			field(json, "exception", throwableConverter.convert(event), true);
+		}
+		return json.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void field(StringBuilder json, String name, String value, boolean sensitive) {
+		if (value == null) {
+			return;
+		}
+		json.append(",\"").append(JsonStringEncoder.getInstance().quoteAsString(name)).append("\":\"");
+		JsonStringEncoder.getInstance().quoteAsString(sensitive && redact ? Redactor.redact(value) : value, json);
+		json.append('"');
+	}
+}
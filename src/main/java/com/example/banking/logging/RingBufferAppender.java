@@ -0,0 +1,206 @@
+package com.example.banking.logging;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.banking.util.RingBuffer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * Takes logging off the calling thread: {@link #append} only offers the event
+ * to a bounded {@link RingBuffer}, and a single writer thread drains it into
+ * the attached appenders, so a stalled console or disk stalls the writer and
+ * not the request.
+ * <p>
+ * A full buffer is handled by the {@link OverflowPolicy}: {@code DROP}
+ * discards the event at once; {@code BLOCK} waits up to
+ * {@code blockTimeoutMillis} for space and then discards it. WARN and ERROR
+ * events always get the blocking attempt. Discarded events are counted
+ * ({@link #droppedCount()}); {@code LoggingConfig} exports the count.
+ * <p>
+ * Events are prepared for deferred processing before they are queued, which
+ * formats the message and copies the MDC on the calling thread; everything
+ * else, including encoding and redaction, happens on the writer.
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+		implements AppenderAttachable<ILoggingEvent> {
+
+	public enum OverflowPolicy {
+		DROP, BLOCK
+	}
+
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+	private final LongAdder dropped = new LongAdder();
+	private int capacity = 8192;
+	private int batchSize = 256;
+	private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+	private long blockTimeoutMillis = 5;
+	private long idleWaitMillis = 10;
+	private volatile RingBuffer<ILoggingEvent> buffer;
+	private Thread writer;
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public void setBlockTimeoutMillis(long blockTimeoutMillis) {
+		this.blockTimeoutMillis = blockTimeoutMillis;
+	}
+
+	public void setIdleWaitMillis(long idleWaitMillis) {
+		this.idleWaitMillis = idleWaitMillis;
+	}
+
+	public long droppedCount() {
+		return dropped.sum();
+	}
+
+	public int pending() {
+		RingBuffer<ILoggingEvent> current = buffer;
+		return current == null ? 0 : current.size();
+	}
+
+	@Override
+	public void start() {
+		if (isStarted()) {
+			return;
+		}
+		if (!appenders.iteratorForAppenders().hasNext()) {
+			addError("No appender attached to " + getName());
+			return;
+		}
+		try {
+			buffer = new RingBuffer<>(capacity);
+		} catch (IllegalArgumentException e) {
+			addError(e.getMessage());
+			return;
+		}
+		super.start();
+		writer = Thread.ofPlatform().name("log-writer").daemon().unstarted(this::drainLoop);
+		writer.start();
+	}
+
+	@Override
+	public void stop() {
+		if (!isStarted()) {
+			return;
+		}
+		super.stop();
+		LockSupport.unpark(writer);
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writer.isAlive()) {
+			addWarn(pending() + " log events still pending at shutdown");
+		} else {
+			// Events offered just before stop() may have landed after the
+			// writer's final drain; with the writer gone this thread consumes
+			List<ILoggingEvent> residual = new ArrayList<>();
+			while (buffer.drainTo(residual, batchSize) > 0) {
+				residual.forEach(appenders::appendLoopOnAppenders);
+				residual.clear();
+			}
+		}
+		appenders.detachAndStopAllAppenders();
+	}
+
+	@Override
+	protected void append(ILoggingEvent event) {
+		event.prepareForDeferredProcessing();
+		if (buffer.offer(event)) {
+			return;
+		}
+		boolean block = overflowPolicy == OverflowPolicy.BLOCK
+				|| event.getLevel().isGreaterOrEqual(Level.WARN);
+		if (!block || !offerBlocking(event)) {
+			dropped.increment();
+		}
+	}
+
+	private boolean offerBlocking(ILoggingEvent event) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+		while (System.nanoTime() < deadline) {
+			LockSupport.parkNanos(BLOCK_PARK_NANOS);
+			if (buffer.offer(event)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void drainLoop() {
+		List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+		long idleParkNanos = TimeUnit.MILLISECONDS.toNanos(idleWaitMillis);
+		while (true) {
+			boolean stopping = !isStarted();
+			if (buffer.drainTo(batch, batchSize) == 0) {
+				if (stopping) {
+					return;
+				}
+				LockSupport.parkNanos(idleParkNanos);
+				continue;
+			}
+			for (ILoggingEvent event : batch) {
+				appenders.appendLoopOnAppenders(event);
+			}
+			batch.clear();
+		}
+	}
+
+	@Override
+	public void addAppender(Appender<ILoggingEvent> appender) {
+		appenders.addAppender(appender);
+	}
+
+	@Override
+	public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+		return appenders.iteratorForAppenders();
+	}
+
+	@Override
+	public Appender<ILoggingEvent> getAppender(String name) {
+		return appenders.getAppender(name);
+	}
+
+	@Override
+	public boolean isAttached(Appender<ILoggingEvent> appender) {
+		return appenders.isAttached(appender);
+	}
+
+	@Override
+	public void detachAndStopAllAppenders() {
+		appenders.detachAndStopAllAppenders();
+	}
+
+	@Override
+	public boolean detachAppender(Appender<ILoggingEvent> appender) {
+		return appenders.detachAppender(appender);
+	}
+
+	@Override
+	public boolean detachAppender(String name) {
+		return appenders.detachAppender(name);
+	}
+}
@@ -0,0 +1,15 @@
+package com.example.banking.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.banking.entity.Account;
+
+@Repository
+public interface AccountRepository extends JpaRepository<Account, Long> {
+	List<Account> findByOwnerUserId(Long userId);
+
+	boolean existsByAccountIdAndOwnerUserId(Long accountId, Long userId);
+}
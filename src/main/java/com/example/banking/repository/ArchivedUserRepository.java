@@ -0,0 +1,32 @@
+package com.example.banking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.banking.entity.ArchivedUser;
+
+@Repository
+public interface ArchivedUserRepository extends JpaRepository<ArchivedUser, Long> {
+	Optional<ArchivedUser> findByUsername(String username);
+	Optional<ArchivedUser> findByEmail(String email);
+
+	@Query("SELECT u.version FROM ArchivedUser u WHERE u.userId = :userId")
+	Optional<Long> findVersionById(@Param("userId") Long userId);
+
+	@Query("SELECT u.status, u.role, COUNT(u) FROM ArchivedUser u GROUP BY u.status, u.role")
+	List<Object[]> countByStatusAndRole();
+
+	@Query("SELECT CAST(u.createdAt AS LocalDate), COUNT(u) FROM ArchivedUser u WHERE u.createdAt >= :since "
+			+ "GROUP BY CAST(u.createdAt AS LocalDate)")
+	List<Object[]> countSignupsPerDaySince(@Param("since") LocalDateTime since);
+
+	boolean existsByUsername(String username);
+	boolean existsByEmail(String email);
+	boolean existsByPhone(String phone);
+}
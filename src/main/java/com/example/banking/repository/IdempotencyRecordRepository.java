@@ -0,0 +1,19 @@
+package com.example.banking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.banking.entity.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+	@Query("SELECT r.id FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+	List<String> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,30 @@
+package com.example.banking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.banking.entity.PasswordResetToken;
+
+@Repository
+public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
+	Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+
+	@Modifying
+	@Query("DELETE FROM PasswordResetToken t WHERE t.id = :id")
+	int deleteByIdReturningCount(@Param("id") Long id);
+
+	@Modifying
+	@Query("DELETE FROM PasswordResetToken t WHERE t.userId = :userId")
+	int deleteByUserId(@Param("userId") Long userId);
+
+	@Query("SELECT t.id FROM PasswordResetToken t WHERE t.expiresAt < :now")
+	List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
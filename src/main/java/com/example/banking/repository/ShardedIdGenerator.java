@@ -0,0 +1,66 @@
+package com.example.banking.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Generates user ids that carry their hash bucket in the low bits, so the owning
+ * shard can be derived from the id alone. The high bits come from a per-shard
+ * database sequence handed out in hi/lo blocks to avoid a round trip per insert.
+ */
+public class ShardedIdGenerator {
+
+	public static final int BUCKET_BITS = 10;
+	public static final int BUCKETS = 1 << BUCKET_BITS;
+
+	private static final int BLOCK_SIZE = 1000;
+
+	private final List<JdbcTemplate> shards;
+	private final Object[] locks;
+	private final long[] next;
+	private final long[] limit;
+
+	public ShardedIdGenerator(List<JdbcTemplate> shards) {
+		this.shards = shards;
+		this.locks = new Object[shards.size()];
+		this.next = new long[shards.size()];
+		this.limit = new long[shards.size()];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	public long nextId(int bucket) {
+		int shard = shardForBucket(bucket, shards.size());
+		long sequence;
+		synchronized (locks[shard]) {
+			if (next[shard] == limit[shard]) {
+				Long hi = shards.get(shard).queryForObject("SELECT NEXT VALUE FOR user_id_seq", Long.class);
+				next[shard] = hi * BLOCK_SIZE;
+				limit[shard] = next[shard] + BLOCK_SIZE;
+			}
+			sequence = next[shard]++;
+		}
+		return (sequence << BUCKET_BITS) | bucket;
+	}
+
+	public static int bucketFor(String key) {
+		int h = key.hashCode();
+		// murmur3 finalizer so that similar keys spread across buckets
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return Math.floorMod(h, BUCKETS);
+	}
+
+	public static int bucketOf(long userId) {
+		return (int) (userId & (BUCKETS - 1));
+	}
+
+	public static int shardForBucket(int bucket, int shardCount) {
+		return bucket % shardCount;
+	}
+}
@@ -0,0 +1,424 @@
+package com.example.banking.repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.exception.UserAlreadyExistsException;
+
+/**
+ * Stores users across several databases. A user lives on the shard owning the
+ * hash bucket embedded in its id (see {@link ShardedIdGenerator}); email,
+ * username and phone are resolved through directory rows that are themselves
+ * spread across shards by a hash of the looked-up value, so a login is two
+ * single-row primary key reads.
+ * <p>
+ * Directory rows double as the uniqueness constraints. They are claimed before
+ * the user row is written and released again if the write fails. Claims and the
+ * user row usually live on different databases, so a crash between the two can
+ * still leave a claim behind; a claim therefore only counts while the user row
+ * it names exists and still carries the claimed value. Lookups ignore any other
+ * claim, and a new claim takes it over once it is older than
+ * {@link #ORPHAN_CLAIM_AGE}, which leaves in-progress writes alone.
+ * <p>
+ * This is a standalone store: {@code UserServiceImpl} keeps using the JPA
+ * repository, and {@code ShardingConfig} only exposes this one as a bean when
+ * {@code banking.sharding.enabled} is set.
+ */
+public class ShardedUserRepository implements DisposableBean {
+
+	private static final String EMAIL = "email";
+	private static final String USERNAME = "username";
+	private static final String PHONE = "phone";
+
+	static final Duration ORPHAN_CLAIM_AGE = Duration.ofMinutes(1);
+
+	private static final String INSERT_USER = "INSERT INTO users (user_id, username, firstname, lastname, password, "
+			+ "email, phone, role, status, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String UPDATE_USER = "UPDATE users SET username = ?, firstname = ?, lastname = ?, "
+			+ "password = ?, email = ?, phone = ?, role = ?, status = ?, updated_at = ?, version = version + 1 "
+			+ "WHERE user_id = ? AND version = ?";
+
+	private static final Map<String, String> SORT_COLUMNS = Map.of(
+			"userId", "user_id", "username", "username", "email", "email", "createdAt", "created_at");
+	private static final Map<String, Comparator<User>> SORT_COMPARATORS = Map.of(
+			"userId", Comparator.comparing(User::getUserId),
+			"username", Comparator.comparing(User::getUsername),
+			"email", Comparator.comparing(User::getEmail),
+			"createdAt", Comparator.comparing(User::getCreatedAt));
+
+	private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> User.builder()
+			.userId(rs.getLong("user_id"))
+			.username(rs.getString("username"))
+			.firstname(rs.getString("firstname"))
+			.lastname(rs.getString("lastname"))
+			.password(rs.getString("password"))
+			.email(rs.getString("email"))
+			.phone(rs.getString("phone"))
+			.role(Role.valueOf(rs.getString("role")))
+			.status(Status.valueOf(rs.getString("status")))
+			.createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+			.updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+			.version(rs.getLong("version"))
+			.build();
+
+	private final List<JdbcTemplate> shards;
+	private final ShardedIdGenerator idGenerator;
+	private final ExecutorService scatterExecutor;
+
+	public ShardedUserRepository(List<? extends DataSource> dataSources) {
+		this.shards = dataSources.stream().map(JdbcTemplate::new).toList();
+		this.idGenerator = new ShardedIdGenerator(shards);
+		this.scatterExecutor = Executors.newFixedThreadPool(shards.size());
+	}
+
+	public void createSchema() {
+		ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+				new ClassPathResource("sharding/schema.sql"));
+		for (JdbcTemplate shard : shards) {
+			populator.execute(shard.getDataSource());
+		}
+	}
+
+	public int shardCount() {
+		return shards.size();
+	}
+
+	public int shardFor(long userId) {
+		return ShardedIdGenerator.shardForBucket(ShardedIdGenerator.bucketOf(userId), shards.size());
+	}
+
+	public User save(User user) {
+		return user.getUserId() == null ? insert(user) : update(user);
+	}
+
+	public Optional<User> findById(Long userId) {
+		return shards.get(shardFor(userId))
+				.query("SELECT * FROM users WHERE user_id = ?", USER_ROW_MAPPER, userId)
+				.stream().findFirst();
+	}
+
+	public Optional<User> findByEmail(String email) {
+		return resolve(new DirectoryEntry(EMAIL, email));
+	}
+
+	public Optional<User> findByUsername(String username) {
+		return resolve(new DirectoryEntry(USERNAME, username));
+	}
+
+	public Optional<User> findByPhone(String phone) {
+		return resolve(new DirectoryEntry(PHONE, phone));
+	}
+
+	public boolean existsByEmail(String email) {
+		return findByEmail(email).isPresent();
+	}
+
+	public boolean existsByUsername(String username) {
+		return findByUsername(username).isPresent();
+	}
+
+	public boolean existsByPhone(String phone) {
+		return findByPhone(phone).isPresent();
+	}
+
+	public void deleteById(Long userId) {
+		User user = findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+		shards.get(shardFor(userId)).update("DELETE FROM users WHERE user_id = ?", userId);
+		directoryEntries(user).forEach(entry -> release(entry, userId));
+	}
+
+	public long count() {
+		return scatter(shard -> shard.queryForObject("SELECT COUNT(*) FROM users", Long.class))
+				.stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * Scatter-gather page: every shard returns its first {@code offset + size}
+	 * rows in the requested order and the slices are k-way merged.
+	 */
+	public Page<User> findAll(Pageable pageable) {
+		Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("userId");
+		String orderBy = orderByClause(sort);
+		Comparator<User> order = comparator(sort);
+		long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+		int take = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+
+		String sql = pageable.isPaged()
+				? "SELECT * FROM users ORDER BY " + orderBy + " LIMIT " + (skip + take)
+				: "SELECT * FROM users ORDER BY " + orderBy;
+		List<ShardSlice> slices = scatter(shard -> new ShardSlice(shard.query(sql, USER_ROW_MAPPER),
+				shard.queryForObject("SELECT COUNT(*) FROM users", Long.class)));
+
+		long total = slices.stream().mapToLong(ShardSlice::total).sum();
+		List<User> content = mergeSorted(slices, order, skip, take);
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	@Override
+	public void destroy() {
+		scatterExecutor.shutdown();
+	}
+
+	private User insert(User user) {
+		LocalDateTime now = LocalDateTime.now();
+		int bucket = ShardedIdGenerator.bucketFor(user.getEmail());
+		long userId = idGenerator.nextId(bucket);
+
+		List<DirectoryEntry> claimed = new ArrayList<>();
+		try {
+			for (DirectoryEntry entry : directoryEntries(user)) {
+				claim(entry, userId);
+				claimed.add(entry);
+			}
+			shards.get(shardFor(userId)).update(INSERT_USER, userId, user.getUsername(), user.getFirstname(),
+					user.getLastname(), user.getPassword(), user.getEmail(), user.getPhone(), user.getRole().name(),
+					user.getStatus().name(), Timestamp.valueOf(now), Timestamp.valueOf(now), 0L);
+		} catch (RuntimeException e) {
+			claimed.forEach(entry -> release(entry, userId));
+			throw e;
+		}
+
+		user.setUserId(userId);
+		user.setCreatedAt(now);
+		user.setUpdatedAt(now);
+		user.setVersion(0L);
+		return user;
+	}
+
+	private User update(User user) {
+		Long userId = user.getUserId();
+		User existing = findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+		List<DirectoryEntry> before = directoryEntries(existing);
+		List<DirectoryEntry> after = directoryEntries(user);
+
+		List<DirectoryEntry> claimed = new ArrayList<>();
+		LocalDateTime now = LocalDateTime.now();
+		try {
+			for (DirectoryEntry entry : after) {
+				if (!before.contains(entry)) {
+					claim(entry, userId);
+					claimed.add(entry);
+				}
+			}
+			int updated = shards.get(shardFor(userId)).update(UPDATE_USER, user.getUsername(), user.getFirstname(),
+					user.getLastname(), user.getPassword(), user.getEmail(), user.getPhone(), user.getRole().name(),
+					user.getStatus().name(), Timestamp.valueOf(now), userId, existing.getVersion());
+			if (updated == 0) {
+				throw new OptimisticLockingFailureException("User was modified concurrently: " + userId);
+			}
+		} catch (RuntimeException e) {
+			claimed.forEach(entry -> release(entry, userId));
+			throw e;
+		}
+		before.stream().filter(entry -> !after.contains(entry)).forEach(entry -> release(entry, userId));
+
+		user.setUpdatedAt(now);
+		user.setVersion(existing.getVersion() + 1);
+		return user;
+	}
+
+	private Optional<Claim> lookup(DirectoryEntry entry) {
+		return directoryShard(entry.kind(), entry.key())
+				.query("SELECT user_id, claimed_at FROM user_directory WHERE kind = ? AND lookup_key = ?",
+						(rs, rowNum) -> new Claim(rs.getLong(1), rs.getTimestamp(2)), entry.kind(), entry.key())
+				.stream().findFirst();
+	}
+
+	/** The user a directory entry points to, if the claim is backed by that user's row. */
+	private Optional<User> resolve(DirectoryEntry entry) {
+		return lookup(entry).flatMap(claim -> findById(claim.userId()))
+				.filter(user -> directoryEntries(user).contains(entry));
+	}
+
+	private void claim(DirectoryEntry entry, long userId) {
+		JdbcTemplate shard = directoryShard(entry.kind(), entry.key());
+		try {
+			shard.update("INSERT INTO user_directory (kind, lookup_key, user_id, claimed_at) VALUES (?, ?, ?, ?)",
+					entry.kind(), entry.key(), userId, Timestamp.valueOf(LocalDateTime.now()));
+			return;
+		} catch (DuplicateKeyException e) {
+			if (!removeOrphan(entry)) {
+				throw alreadyExists(entry);
+			}
+		}
+		try {
+			shard.update("INSERT INTO user_directory (kind, lookup_key, user_id, claimed_at) VALUES (?, ?, ?, ?)",
+					entry.kind(), entry.key(), userId, Timestamp.valueOf(LocalDateTime.now()));
+		} catch (DuplicateKeyException e) {
+			throw alreadyExists(entry);
+		}
+	}
+
+	/**
+	 * Deletes a claim left behind by a write that never completed. Only the
+	 * exact row that was inspected is deleted, so of two writers racing for the
+	 * same orphan at most one removes it.
+	 */
+	private boolean removeOrphan(DirectoryEntry entry) {
+		Optional<Claim> existing = lookup(entry);
+		if (existing.isEmpty()) {
+			return true;
+		}
+		Claim claim = existing.get();
+		boolean backed = findById(claim.userId()).map(user -> directoryEntries(user).contains(entry)).orElse(false);
+		if (backed || claim.claimedAt().toLocalDateTime().isAfter(LocalDateTime.now().minus(ORPHAN_CLAIM_AGE))) {
+			return false;
+		}
+		return directoryShard(entry.kind(), entry.key()).update(
+				"DELETE FROM user_directory WHERE kind = ? AND lookup_key = ? AND user_id = ? AND claimed_at = ?",
+				entry.kind(), entry.key(), claim.userId(), claim.claimedAt()) == 1;
+	}
+
+	private void release(DirectoryEntry entry, long userId) {
+		directoryShard(entry.kind(), entry.key()).update(
+				"DELETE FROM user_directory WHERE kind = ? AND lookup_key = ? AND user_id = ?",
+				entry.kind(), entry.key(), userId);
+	}
+
+	private static UserAlreadyExistsException alreadyExists(DirectoryEntry entry) {
+		return new UserAlreadyExistsException(Character.toUpperCase(entry.kind().charAt(0))
+				+ entry.kind().substring(1) + " already exists: " + entry.key());
+	}
+
+	private JdbcTemplate directoryShard(String kind, String key) {
+		return shards.get(ShardedIdGenerator.shardForBucket(
+				ShardedIdGenerator.bucketFor(kind + ':' + key), shards.size()));
+	}
+
+	private static List<DirectoryEntry> directoryEntries(User user) {
+		List<DirectoryEntry> entries = new ArrayList<>(3);
+		entries.add(new DirectoryEntry(EMAIL, user.getEmail()));
+		entries.add(new DirectoryEntry(USERNAME, user.getUsername()));
+		// Registration stores an empty phone, which must not be unique
+		if (user.getPhone() != null && !user.getPhone().isEmpty()) {
+			entries.add(new DirectoryEntry(PHONE, user.getPhone()));
+		}
+		return entries;
+	}
+
+	private <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+		List<Future<T>> futures = new ArrayList<>(shards.size());
+		for (JdbcTemplate shard : shards) {
+			futures.add(scatterExecutor.submit(() -> query.apply(shard)));
+		}
+		List<T> results = new ArrayList<>(futures.size());
+		try {
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during cross-shard query", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Cross-shard query failed", e.getCause());
+		}
+		return results;
+	}
+
+	private static String orderByClause(Sort sort) {
+		StringBuilder clause = new StringBuilder();
+		boolean hasUserId = false;
+		for (Sort.Order order : sort) {
+			String column = SORT_COLUMNS.get(order.getProperty());
+			if (column == null) {
+				throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+			}
+			hasUserId |= "user_id".equals(column);
+			clause.append(clause.isEmpty() ? "" : ", ").append(column).append(order.isAscending() ? " ASC" : " DESC");
+		}
+		// user_id breaks ties so shard order and merge order agree
+		return hasUserId ? clause.toString() : clause.append(", user_id ASC").toString();
+	}
+
+	private static Comparator<User> comparator(Sort sort) {
+		Comparator<User> comparator = null;
+		for (Sort.Order order : sort) {
+			Comparator<User> next = SORT_COMPARATORS.get(order.getProperty());
+			next = order.isAscending() ? next : next.reversed();
+			comparator = comparator == null ? next : comparator.thenComparing(next);
+		}
+		return comparator.thenComparing(User::getUserId);
+	}
+
+	private static List<User> mergeSorted(List<ShardSlice> slices, Comparator<User> order, long skip, int take) {
+		PriorityQueue<Cursor> heap = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+		for (ShardSlice slice : slices) {
+			if (!slice.rows().isEmpty()) {
+				heap.add(new Cursor(slice.rows()));
+			}
+		}
+		List<User> page = new ArrayList<>(Math.min(take, 1024));
+		long position = 0;
+		while (!heap.isEmpty() && page.size() < take) {
+			Cursor cursor = heap.poll();
+			if (position++ >= skip) {
+				page.add(cursor.head());
+			}
+			if (cursor.advance()) {
+				heap.add(cursor);
+			}
+		}
+		return page;
+	}
+
+	private record DirectoryEntry(String kind, String key) {
+	}
+
+	private record Claim(long userId, Timestamp claimedAt) {
+	}
+
+	private record ShardSlice(List<User> rows, long total) {
+	}
+
+	private static final class Cursor {
+		private final List<User> rows;
+		private int index;
+
+		private Cursor(List<User> rows) {
+			this.rows = rows;
+		}
+
+		private User head() {
+			return rows.get(index);
+		}
+
+		private boolean advance() {
+			return ++index < rows.size();
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.example.banking.repository;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserField;
+
+/**
+ * Reads users straight into {@link UserDTO}s, selecting only the columns for
+ * the requested fields plus the version.
+ */
+public interface UserProjectionRepository {
+	Page<UserDTO> findAllProjected(Set<UserField> fields, Pageable pageable);
+	Optional<UserDTO> findProjectedById(Long userId, Set<UserField> fields);
+}
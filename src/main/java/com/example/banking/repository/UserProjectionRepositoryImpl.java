@@ -0,0 +1,86 @@
+package com.example.banking.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserField;
+import com.example.banking.entity.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Builds a tuple query over the selected attributes, so the SQL names only
+ * those columns and no {@link User} entity is materialized.
+ */
+class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<UserDTO> findAllProjected(Set<UserField> fields, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<User> root = query.from(User.class);
+		query.multiselect(selections(root, fields));
+		query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+		TypedQuery<Tuple> typed = entityManager.createQuery(query);
+		if (pageable.isPaged()) {
+			typed.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+		}
+		List<UserDTO> content = typed.getResultList().stream().map(tuple -> toDto(tuple, fields)).toList();
+
+		CriteriaQuery<Long> count = cb.createQuery(Long.class);
+		count.select(cb.count(count.from(User.class)));
+		return new PageImpl<>(content, pageable, entityManager.createQuery(count).getSingleResult());
+	}
+
+	@Override
+	public Optional<UserDTO> findProjectedById(Long userId, Set<UserField> fields) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<User> root = query.from(User.class);
+		query.multiselect(selections(root, fields)).where(cb.equal(root.get("userId"), userId));
+		return entityManager.createQuery(query).getResultStream().findFirst().map(tuple -> toDto(tuple, fields));
+	}
+
+	private static List<Selection<?>> selections(Root<User> root, Set<UserField> fields) {
+		List<Selection<?>> selections = new ArrayList<>(fields.size() + 1);
+		for (UserField field : fields) {
+			selections.add(root.get(field.getProperty()).alias(field.getProperty()));
+		}
+		// The version feeds the ETag whether or not it is selected for the body
+		selections.add(root.get("version").alias("version"));
+		return selections;
+	}
+
+	private static UserDTO toDto(Tuple tuple, Set<UserField> fields) {
+		UserDTO dto = new UserDTO();
+		for (UserField field : fields) {
+			switch (field) {
+				case USER_ID -> dto.setUserId(tuple.get("userId", Long.class));
+				case USERNAME -> dto.setUsername(tuple.get("username", String.class));
+				case EMAIL -> dto.setEmail(tuple.get("email", String.class));
+				case PHONE -> dto.setPhone(tuple.get("phone", String.class));
+			}
+		}
+		dto.setVersion(tuple.get("version", Long.class));
+		dto.setFields(fields);
+		return dto;
+	}
+}
@@ -1,17 +1,19 @@
 package com.example.banking.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.banking.entity.Status;
 import com.example.banking.entity.User;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserProjectionRepository {
 	Optional<User> findByUsername(String username);
 	Optional<User> findByEmail(String email);
 	Optional<User> findByPhone(String phone);
@@ -20,6 +22,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	@Query("SELECT u FROM User u WHERE u.status = 'active' AND u.role = 'admin'")
 	List<User> findActiveAdmins();
 
+	@Query("SELECT u.version FROM User u WHERE u.userId = :userId")
+	Optional<Long> findVersionById(@Param("userId") Long userId);
+
+	@Query("SELECT u.status, u.role, COUNT(u) FROM User u GROUP BY u.status, u.role")
+	List<Object[]> countByStatusAndRole();
+
+	@Query("SELECT CAST(u.createdAt AS LocalDate), COUNT(u) FROM User u WHERE u.createdAt >= :since "
+			+ "GROUP BY CAST(u.createdAt AS LocalDate)")
+	List<Object[]> countSignupsPerDaySince(@Param("since") LocalDateTime since);
+
 	boolean existsByUsername(String username);
 	boolean existsByEmail(String email);
 	boolean existsByPhone(String phone);
@@ -0,0 +1,196 @@
+package com.example.banking.risk;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.banking.util.LongIntHashMap;
+
+/**
+ * Count and amount per key over every {@link VelocityWindow}, stored off-heap.
+ * <p>
+ * Keys are spread over lock-striped segments. Each segment maps a key to a slot
+ * in pages of direct memory; a slot holds, for every window, a ring of
+ * {@code (epoch, count, amount)} longs where the epoch is the bucket's start
+ * divided by its width. A bucket whose epoch has fallen out of its window is
+ * ignored when summing and reset when next written, so nothing has to tick in
+ * the background. Callers lock a key's segment around reads and writes.
+ */
+public class SlidingWindowCounters {
+
+	private static final int SEGMENTS = 64;
+	private static final int SLOTS_PER_PAGE = 64;
+	private static final int BUCKET_LONGS = 3;
+	private static final VelocityWindow[] WINDOWS = VelocityWindow.values();
+	private static final int[] WINDOW_OFFSETS = new int[WINDOWS.length];
+	private static final int SLOT_LONGS;
+
+	static {
+		int offset = 0;
+		for (int w = 0; w < WINDOWS.length; w++) {
+			WINDOW_OFFSETS[w] = offset;
+			offset += WINDOWS[w].buckets() * BUCKET_LONGS;
+		}
+		SLOT_LONGS = offset;
+	}
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	public SlidingWindowCounters() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment();
+		}
+	}
+
+	public Segment segmentFor(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return segments[(int) (h >>> 58)];
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			segment.lock();
+			try {
+				size += segment.index.size();
+			} finally {
+				segment.unlock();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Releases the slots of keys with no activity in the longest window.
+	 *
+	 * @return the number of keys evicted
+	 */
+	public int evictIdle(long nowMillis) {
+		int evicted = 0;
+		for (Segment segment : segments) {
+			segment.lock();
+			try {
+				evicted += segment.evictIdle(nowMillis);
+			} finally {
+				segment.unlock();
+			}
+		}
+		return evicted;
+	}
+
+	public static final class Segment {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final LongIntHashMap index = new LongIntHashMap(64);
+		private final List<LongBuffer> pages = new ArrayList<>();
+		private int[] freeSlots = new int[16];
+		private int freeCount;
+		private int nextSlot;
+
+		public void lock() {
+			lock.lock();
+		}
+
+		public void unlock() {
+			lock.unlock();
+		}
+
+		public long sum(long key, VelocityWindow window, VelocityRule.Metric metric, long nowMillis) {
+			int slot = index.get(key);
+			if (slot == LongIntHashMap.MISSING) {
+				return 0;
+			}
+			LongBuffer page = pages.get(slot / SLOTS_PER_PAGE);
+			int base = (slot % SLOTS_PER_PAGE) * SLOT_LONGS + WINDOW_OFFSETS[window.ordinal()];
+			long oldestEpoch = nowMillis / window.bucketMillis() - window.buckets() + 1;
+			int field = metric == VelocityRule.Metric.COUNT ? 1 : 2;
+			long total = 0;
+			for (int b = 0; b < window.buckets(); b++) {
+				int at = base + b * BUCKET_LONGS;
+				if (page.get(at) >= oldestEpoch) {
+					total += page.get(at + field);
+				}
+			}
+			return total;
+		}
+
+		/**
+		 * Adds to the buckets covering {@code atMillis} in every window. Negative
+		 * values take back an earlier add at the same time, and are dropped if
+		 * that bucket has since been reused.
+		 */
+		public void add(long key, long atMillis, long count, long amount) {
+			int slot = index.get(key);
+			if (slot == LongIntHashMap.MISSING) {
+				if (count < 0) {
+					return;
+				}
+				slot = allocate();
+				index.put(key, slot);
+			}
+			LongBuffer page = pages.get(slot / SLOTS_PER_PAGE);
+			int slotBase = (slot % SLOTS_PER_PAGE) * SLOT_LONGS;
+			for (int w = 0; w < WINDOWS.length; w++) {
+				VelocityWindow window = WINDOWS[w];
+				long epoch = atMillis / window.bucketMillis();
+				int at = slotBase + WINDOW_OFFSETS[w] + (int) (epoch % window.buckets()) * BUCKET_LONGS;
+				long stored = page.get(at);
+				if (stored == epoch) {
+					page.put(at + 1, page.get(at + 1) + count);
+					page.put(at + 2, page.get(at + 2) + amount);
+				} else if (stored < epoch && count > 0) {
+					page.put(at, epoch);
+					page.put(at + 1, count);
+					page.put(at + 2, amount);
+				}
+			}
+		}
+
+		private int evictIdle(long nowMillis) {
+			VelocityWindow longest = VelocityWindow.DAY;
+			int dayOffset = WINDOW_OFFSETS[longest.ordinal()];
+			long oldestEpoch = nowMillis / longest.bucketMillis() - longest.buckets() + 1;
+			int evicted = 0;
+			for (long key : index.keys()) {
+				int slot = index.get(key);
+				LongBuffer page = pages.get(slot / SLOTS_PER_PAGE);
+				int base = (slot % SLOTS_PER_PAGE) * SLOT_LONGS + dayOffset;
+				boolean idle = true;
+				for (int b = 0; b < longest.buckets() && idle; b++) {
+					idle = page.get(base + b * BUCKET_LONGS) < oldestEpoch;
+				}
+				if (idle) {
+					index.remove(key);
+					release(slot);
+					evicted++;
+				}
+			}
+			return evicted;
+		}
+
+		private int allocate() {
+			if (freeCount > 0) {
+				return freeSlots[--freeCount];
+			}
+			int slot = nextSlot++;
+			if (slot / SLOTS_PER_PAGE == pages.size()) {
+				pages.add(ByteBuffer.allocateDirect(SLOTS_PER_PAGE * SLOT_LONGS * Long.BYTES).asLongBuffer());
+			}
+			return slot;
+		}
+
+		private void release(int slot) {
+			LongBuffer page = pages.get(slot / SLOTS_PER_PAGE);
+			int base = (slot % SLOTS_PER_PAGE) * SLOT_LONGS;
+			for (int i = 0; i < SLOT_LONGS; i++) {
+				page.put(base + i, 0L);
+			}
+			if (freeCount == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+			}
+			freeSlots[freeCount++] = slot;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.banking.risk;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.example.banking.exception.VelocityLimitExceededException;
+import com.example.banking.ledger.Posting;
+import com.example.banking.ledger.Transfer;
+import com.example.banking.ledger.TransferAdmission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Enforces velocity rules on outgoing transfers, per debited account and per
+ * the user who owns it. A transfer is checked against every rule and, if it
+ * passes, counted, all while holding the user's and the account's counter
+ * segments, so concurrent transfers cannot jointly overshoot a limit. The user
+ * segment is always locked first.
+ */
+public class VelocityGuard implements TransferAdmission {
+
+	private final List<VelocityRule> rules;
+	private final Clock clock;
+	private final long feeAccountId;
+	private final SlidingWindowCounters users = new SlidingWindowCounters();
+	private final SlidingWindowCounters accounts = new SlidingWindowCounters();
+	private final Map<Long, Long> accountOwners = new ConcurrentHashMap<>();
+	private final Counter[] evaluations;
+	private final Counter[] blocks;
+	private final Timer checkTimer;
+
+	public VelocityGuard(List<VelocityRule> rules, Clock clock, MeterRegistry meterRegistry) {
+		this(rules, clock, 0, meterRegistry);
+	}
+
+	/**
+	 * @param feeAccountId account credited by end-of-day fees, 0 if there is
+	 *                     none. Fee transfers are never admitted here, so they
+	 *                     are not replayed either.
+	 */
+	public VelocityGuard(List<VelocityRule> rules, Clock clock, long feeAccountId, MeterRegistry meterRegistry) {
+		this.rules = List.copyOf(rules);
+		this.clock = clock;
+		this.feeAccountId = feeAccountId;
+		this.evaluations = new Counter[rules.size()];
+		this.blocks = new Counter[rules.size()];
+		for (int i = 0; i < rules.size(); i++) {
+			String rule = rules.get(i).name();
+			evaluations[i] = Counter.builder("velocity.rule.evaluations").tag("rule", rule).register(meterRegistry);
+			blocks[i] = Counter.builder("velocity.rule.blocks").tag("rule", rule).register(meterRegistry);
+		}
+		this.checkTimer = Timer.builder("velocity.check").description("Inline velocity check per transfer")
+				.register(meterRegistry);
+	}
+
+	public void registerAccount(long accountId, long userId) {
+		accountOwners.put(accountId, userId);
+	}
+
+	/**
+	 * Counts a transfer from the journal while rebuilding state on startup.
+	 * Postings older than the longest window are ignored, and so are fees,
+	 * which bypass admission when they are submitted.
+	 */
+	public void replay(Posting posting) {
+		long at = posting.postedAt().toEpochMilli();
+		if (posting.transferId() == null || at < clock.millis() - VelocityWindow.DAY.lengthMillis()
+				|| isFee(posting)) {
+			return;
+		}
+		for (Posting.Leg leg : posting.legs()) {
+			if (leg.amount() < 0) {
+				record(leg.accountId(), at, 1, -leg.amount());
+			}
+		}
+	}
+
+	@Override
+	public long admit(Transfer transfer) {
+		long started = System.nanoTime();
+		long now = clock.millis();
+		long accountId = transfer.fromAccountId();
+		Long userId = accountOwners.get(accountId);
+		SlidingWindowCounters.Segment userSegment = userId == null ? null : users.segmentFor(userId);
+		SlidingWindowCounters.Segment accountSegment = accounts.segmentFor(accountId);
+		if (userSegment != null) {
+			userSegment.lock();
+		}
+		accountSegment.lock();
+		try {
+			for (int i = 0; i < rules.size(); i++) {
+				VelocityRule rule = rules.get(i);
+				boolean userRule = rule.scope() == VelocityRule.Scope.USER;
+				if (userRule && userSegment == null) {
+					continue;
+				}
+				evaluations[i].increment();
+				long current = userRule ? userSegment.sum(userId, rule.window(), rule.metric(), now)
+						: accountSegment.sum(accountId, rule.window(), rule.metric(), now);
+				long next = current + (rule.metric() == VelocityRule.Metric.COUNT ? 1 : transfer.amount());
+				if (next > rule.limit()) {
+					blocks[i].increment();
+					throw new VelocityLimitExceededException("Transfer exceeds velocity limit " + rule.name());
+				}
+			}
+			if (userSegment != null) {
+				userSegment.add(userId, now, 1, transfer.amount());
+			}
+			accountSegment.add(accountId, now, 1, transfer.amount());
+		} finally {
+			accountSegment.unlock();
+			if (userSegment != null) {
+				userSegment.unlock();
+			}
+			checkTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		}
+		return now;
+	}
+
+	@Override
+	public void release(Transfer transfer, long admittedAt) {
+		record(transfer.fromAccountId(), admittedAt, -1, -transfer.amount());
+	}
+
+	public long total(VelocityRule.Scope scope, long key, VelocityWindow window, VelocityRule.Metric metric) {
+		SlidingWindowCounters counters = scope == VelocityRule.Scope.USER ? users : accounts;
+		SlidingWindowCounters.Segment segment = counters.segmentFor(key);
+		segment.lock();
+		try {
+			return segment.sum(key, window, metric, clock.millis());
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	public int evictIdle() {
+		long now = clock.millis();
+		return users.evictIdle(now) + accounts.evictIdle(now);
+	}
+
+	private boolean isFee(Posting posting) {
+		if (feeAccountId <= 0) {
+			return false;
+		}
+		for (Posting.Leg leg : posting.legs()) {
+			if (leg.accountId() == feeAccountId && leg.amount() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void record(long accountId, long at, long count, long amount) {
+		Long userId = accountOwners.get(accountId);
+		if (userId != null) {
+			SlidingWindowCounters.Segment userSegment = users.segmentFor(userId);
+			userSegment.lock();
+			try {
+				userSegment.add(userId, at, count, amount);
+			} finally {
+				userSegment.unlock();
+			}
+		}
+		SlidingWindowCounters.Segment accountSegment = accounts.segmentFor(accountId);
+		accountSegment.lock();
+		try {
+			accountSegment.add(accountId, at, count, amount);
+		} finally {
+			accountSegment.unlock();
+		}
+	}
+}
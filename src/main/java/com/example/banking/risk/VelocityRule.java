@@ -0,0 +1,40 @@
+package com.example.banking.risk;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A limit on the outgoing transfers of a user or an account within one window,
+ * written as {@code scope:window:metric:limit}, for example
+ * {@code user:1h:amount:500000} or {@code account:1m:count:5}. Amounts are in
+ * minor units.
+ */
+public record VelocityRule(Scope scope, VelocityWindow window, Metric metric, long limit) {
+
+	public enum Scope {
+		USER, ACCOUNT
+	}
+
+	public enum Metric {
+		COUNT, AMOUNT
+	}
+
+	public static VelocityRule parse(String spec) {
+		String[] parts = spec.trim().split(":");
+		if (parts.length != 4) {
+			throw new IllegalArgumentException("Velocity rule must be scope:window:metric:limit, got: " + spec);
+		}
+		return new VelocityRule(Scope.valueOf(parts[0].toUpperCase(Locale.ROOT)), VelocityWindow.fromLabel(parts[1]),
+				Metric.valueOf(parts[2].toUpperCase(Locale.ROOT)), Long.parseLong(parts[3]));
+	}
+
+	public static List<VelocityRule> parseAll(String specs) {
+		return Arrays.stream(specs.split(",")).filter(spec -> !spec.isBlank()).map(VelocityRule::parse).toList();
+	}
+
+	public String name() {
+		return scope.name().toLowerCase(Locale.ROOT) + ":" + window.label() + ":"
+				+ metric.name().toLowerCase(Locale.ROOT) + ":" + limit;
+	}
+}
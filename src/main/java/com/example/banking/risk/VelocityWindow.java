@@ -0,0 +1,48 @@
+package com.example.banking.risk;
+
+import java.time.Duration;
+
+/**
+ * Sliding windows tracked for every key, each a ring of fixed-width buckets. A
+ * window's total is accurate to one bucket width.
+ */
+public enum VelocityWindow {
+	MINUTE("1m", Duration.ofSeconds(5), 12),
+	HOUR("1h", Duration.ofMinutes(5), 12),
+	DAY("24h", Duration.ofHours(1), 24);
+
+	private final String label;
+	private final long bucketMillis;
+	private final int buckets;
+
+	VelocityWindow(String label, Duration bucketWidth, int buckets) {
+		this.label = label;
+		this.bucketMillis = bucketWidth.toMillis();
+		this.buckets = buckets;
+	}
+
+	public String label() {
+		return label;
+	}
+
+	public long bucketMillis() {
+		return bucketMillis;
+	}
+
+	public int buckets() {
+		return buckets;
+	}
+
+	public long lengthMillis() {
+		return bucketMillis * buckets;
+	}
+
+	public static VelocityWindow fromLabel(String label) {
+		for (VelocityWindow window : values()) {
+			if (window.label.equals(label)) {
+				return window;
+			}
+		}
+		throw new IllegalArgumentException("Unknown velocity window: " + label);
+	}
+}
@@ -0,0 +1,385 @@
+package com.example.banking.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.banking.util.LongIntHashMap;
+
+/**
+ * In-memory trigram index over username, email and phone.
+ * <p>
+ * Every field is indexed as its distinct trigrams plus anchored start grams
+ * ({@code ^a}, {@code ^ab}, with an anchor that cannot occur in a field), so
+ * queries of three or more characters match anywhere in a field and shorter
+ * ones match field prefixes only. Candidates come
+ * from intersecting the query's posting lists, smallest first, and are then
+ * verified against the stored field values and ranked: exact over prefix over
+ * infix, then username over email over phone, then lowest user id.
+ * <p>
+ * Each user gets a fresh document id on every write and the old one is only
+ * marked dead, so posting lists stay sorted and append-only; they are
+ * compacted once dead documents make up a quarter of the index. Fields are
+ * truncated to their column lengths, which bounds the memory per user.
+ */
+public class UserSearchIndex {
+
+	public static final int MAX_USERNAME = 50;
+	public static final int MAX_EMAIL = 100;
+	public static final int MAX_PHONE = 20;
+
+	private static final char SEPARATOR = '\0';
+	private static final char ANCHOR = '\1';
+	private static final int MIN_COMPACT_DEAD = 1024;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final int maxCandidates;
+	private State state = new State(1024);
+
+	public UserSearchIndex(int maxCandidates) {
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * Adds a user or replaces their indexed fields.
+	 */
+	public void index(long userId, String username, String email, String phone) {
+		String document = normalize(username, MAX_USERNAME) + SEPARATOR + normalize(email, MAX_EMAIL) + SEPARATOR
+				+ normalize(phone, MAX_PHONE);
+		lock.writeLock().lock();
+		try {
+			state.remove(userId);
+			state.add(userId, document);
+			if (state.needsCompaction()) {
+				state = state.compact();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(long userId) {
+		lock.writeLock().lock();
+		try {
+			state.remove(userId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Swaps in the contents of {@code rebuilt}, used after a full rebuild.
+	 */
+	public void replaceWith(UserSearchIndex rebuilt) {
+		lock.writeLock().lock();
+		try {
+			state = rebuilt.state;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Result search(String query, int offset, int limit) {
+		String needle = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+		if (needle.isEmpty() || needle.indexOf(SEPARATOR) >= 0 || needle.indexOf(ANCHOR) >= 0) {
+			return new Result(List.of(), 0, false);
+		}
+		lock.readLock().lock();
+		try {
+			return state.search(needle, offset, limit, maxCandidates);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return state.userToDocument.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Approximate heap used by the index, counting array capacities and
+	 * document strings.
+	 */
+	public long estimatedBytes() {
+		lock.readLock().lock();
+		try {
+			return state.estimatedBytes();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static String normalize(String value, int maxLength) {
+		if (value == null) {
+			return "";
+		}
+		String normalized = value.toLowerCase(Locale.ROOT).replace(SEPARATOR, ' ').replace(ANCHOR, ' ');
+		return normalized.length() > maxLength ? normalized.substring(0, maxLength) : normalized;
+	}
+
+	private static long gram(char a, char b, char c) {
+		return ((long) a << 32) | ((long) b << 16) | c;
+	}
+
+	/**
+	 * @param userIds   matching users for the requested page, best first
+	 * @param total     number of matches found
+	 * @param truncated whether candidate verification stopped at the cap, in
+	 *                  which case {@code total} is a lower bound
+	 */
+	public record Result(List<Long> userIds, int total, boolean truncated) {
+	}
+
+	private static final class State {
+		private final LongIntHashMap grams = new LongIntHashMap(4096);
+		private final LongIntHashMap userToDocument;
+		private int[][] postings = new int[1024][];
+		private int[] postingSizes = new int[1024];
+		private int gramCount;
+		private String[] values;
+		private long[] valueUsers;
+		private int documentCount;
+		private int live;
+		private int dead;
+
+		private State(int expectedUsers) {
+			int capacity = Math.max(16, expectedUsers);
+			this.userToDocument = new LongIntHashMap(capacity);
+			this.values = new String[capacity];
+			this.valueUsers = new long[capacity];
+		}
+
+		private void add(long userId, String document) {
+			int doc = documentCount++;
+			if (doc == values.length) {
+				values = Arrays.copyOf(values, doc * 2);
+				valueUsers = Arrays.copyOf(valueUsers, doc * 2);
+			}
+			values[doc] = document;
+			valueUsers[doc] = userId;
+			userToDocument.put(userId, doc);
+			live++;
+
+			LongIntHashMap seen = new LongIntHashMap(64);
+			int start = 0;
+			for (int end = 0; end <= document.length(); end++) {
+				if (end < document.length() && document.charAt(end) != SEPARATOR) {
+					continue;
+				}
+				int length = end - start;
+				if (length >= 1) {
+					post(seen, gram((char) 0, ANCHOR, document.charAt(start)), doc);
+				}
+				if (length >= 2) {
+					post(seen, gram(ANCHOR, document.charAt(start), document.charAt(start + 1)), doc);
+				}
+				for (int i = start; i + 3 <= end; i++) {
+					post(seen, gram(document.charAt(i), document.charAt(i + 1), document.charAt(i + 2)), doc);
+				}
+				start = end + 1;
+			}
+		}
+
+		private void post(LongIntHashMap seen, long gram, int doc) {
+			if (seen.get(gram) != LongIntHashMap.MISSING) {
+				return;
+			}
+			seen.put(gram, 0);
+			int id = grams.get(gram);
+			if (id == LongIntHashMap.MISSING) {
+				id = gramCount++;
+				if (id == postings.length) {
+					postings = Arrays.copyOf(postings, id * 2);
+					postingSizes = Arrays.copyOf(postingSizes, id * 2);
+				}
+				postings[id] = new int[4];
+				grams.put(gram, id);
+			}
+			int size = postingSizes[id];
+			if (size == postings[id].length) {
+				postings[id] = Arrays.copyOf(postings[id], size + (size >> 1) + 1);
+			}
+			postings[id][size] = doc;
+			postingSizes[id] = size + 1;
+		}
+
+		private void remove(long userId) {
+			int doc = userToDocument.remove(userId);
+			if (doc != LongIntHashMap.MISSING) {
+				values[doc] = null;
+				live--;
+				dead++;
+			}
+		}
+
+		private boolean needsCompaction() {
+			return dead >= MIN_COMPACT_DEAD && dead >= live / 3;
+		}
+
+		private State compact() {
+			State compacted = new State(live);
+			for (int doc = 0; doc < documentCount; doc++) {
+				if (values[doc] != null) {
+					compacted.add(valueUsers[doc], values[doc]);
+				}
+			}
+			return compacted;
+		}
+
+		private Result search(String needle, int offset, int limit, int maxCandidates) {
+			int[] ids = gramIds(needle);
+			if (ids == null) {
+				return new Result(List.of(), 0, false);
+			}
+			int[] order = sortBySize(ids);
+			int[] first = postings[order[0]];
+			int firstSize = postingSizes[order[0]];
+			int[] cursors = new int[order.length];
+
+			List<long[]> matches = new ArrayList<>();
+			int examined = 0;
+			boolean truncated = false;
+			outer:
+			for (int p = 0; p < firstSize; p++) {
+				int doc = first[p];
+				for (int l = 1; l < order.length; l++) {
+					int size = postingSizes[order[l]];
+					cursors[l] = advance(postings[order[l]], size, cursors[l], doc);
+					if (cursors[l] == size) {
+						break outer;
+					}
+					if (postings[order[l]][cursors[l]] != doc) {
+						continue outer;
+					}
+				}
+				String document = values[doc];
+				if (document == null) {
+					continue;
+				}
+				if (++examined > maxCandidates) {
+					truncated = true;
+					break;
+				}
+				int score = score(document, needle);
+				if (score > 0) {
+					matches.add(new long[] {score, valueUsers[doc]});
+				}
+			}
+
+			matches.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+			List<Long> page = new ArrayList<>();
+			for (int i = offset; i < matches.size() && i < offset + limit; i++) {
+				page.add(matches.get(i)[1]);
+			}
+			return new Result(page, matches.size(), truncated);
+		}
+
+		/**
+		 * Posting list ids for the query's distinct grams, or null if any of them
+		 * was never indexed.
+		 */
+		private int[] gramIds(String needle) {
+			long[] queryGrams;
+			if (needle.length() == 1) {
+				queryGrams = new long[] {gram((char) 0, ANCHOR, needle.charAt(0))};
+			} else if (needle.length() == 2) {
+				queryGrams = new long[] {gram(ANCHOR, needle.charAt(0), needle.charAt(1))};
+			} else {
+				queryGrams = new long[needle.length() - 2];
+				for (int i = 0; i < queryGrams.length; i++) {
+					queryGrams[i] = gram(needle.charAt(i), needle.charAt(i + 1), needle.charAt(i + 2));
+				}
+				queryGrams = Arrays.stream(queryGrams).distinct().toArray();
+			}
+			int[] ids = new int[queryGrams.length];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = grams.get(queryGrams[i]);
+				if (ids[i] == LongIntHashMap.MISSING || postingSizes[ids[i]] == 0) {
+					return null;
+				}
+			}
+			return ids;
+		}
+
+		private int[] sortBySize(int[] ids) {
+			int[] sorted = ids.clone();
+			for (int i = 1; i < sorted.length; i++) {
+				int id = sorted[i];
+				int j = i - 1;
+				for (; j >= 0 && postingSizes[sorted[j]] > postingSizes[id]; j--) {
+					sorted[j + 1] = sorted[j];
+				}
+				sorted[j + 1] = id;
+			}
+			return sorted;
+		}
+
+		private long estimatedBytes() {
+			long bytes = 0;
+			for (int id = 0; id < gramCount; id++) {
+				bytes += 16 + 4L * postings[id].length;
+			}
+			for (int doc = 0; doc < documentCount; doc++) {
+				if (values[doc] != null) {
+					// Compact string: object and array headers plus one byte per Latin-1 char
+					bytes += 40 + values[doc].length();
+				}
+			}
+			bytes += 4L * values.length + 8L * valueUsers.length + 4L * postings.length + 4L * postingSizes.length;
+			// Both maps hold a long and an int per slot at a load factor of at most 0.6
+			bytes += 20L * (userToDocument.size() + grams.size());
+			return bytes;
+		}
+	}
+
+	/**
+	 * Index of the first element at or after {@code from} that is not less than
+	 * {@code target}, found by galloping then binary search.
+	 */
+	private static int advance(int[] list, int size, int from, int target) {
+		int step = 1;
+		int low = from;
+		int high = from;
+		while (high < size && list[high] < target) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		high = Math.min(high, size);
+		int index = Arrays.binarySearch(list, low, high, target);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/**
+	 * Best match of {@code needle} in any field: 30/20/10 for exact, prefix or
+	 * infix, plus 3/2/1 for username, email or phone; 0 if there is none.
+	 * Needles shorter than a trigram only match at the start of a field.
+	 */
+	private static int score(String document, String needle) {
+		int best = 0;
+		int fieldStart = 0;
+		for (int field = 0; field < 3; field++) {
+			int fieldEnd = document.indexOf(SEPARATOR, fieldStart);
+			if (fieldEnd < 0) {
+				fieldEnd = document.length();
+			}
+			int at = needle.length() < 3
+					? document.startsWith(needle, fieldStart) ? fieldStart : -1
+					: document.indexOf(needle, fieldStart);
+			if (at >= 0 && at + needle.length() <= fieldEnd) {
+				int match = at > fieldStart ? 10 : fieldEnd - fieldStart == needle.length() ? 30 : 20;
+				best = Math.max(best, match + 3 - field);
+			}
+			fieldStart = fieldEnd + 1;
+		}
+		return best;
+	}
+}
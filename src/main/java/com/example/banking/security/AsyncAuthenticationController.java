@@ -0,0 +1,68 @@
+package com.example.banking.security;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.banking.security.dto.AuthenticationRequest;
+import com.example.banking.security.dto.AuthenticationResponse;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
+import com.example.banking.security.dto.PasswordResetRequest;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Same contract as {@link AuthenticationController}, but the request thread
+ * is released as soon as the work is handed off, so a fixed container pool
+ * can hold many more logins in flight. Enabled with
+ * {@code banking.auth.async.enabled=true}.
+ */
+@RestController
+@RequestMapping("/api/v1/auth/async")
+@ConditionalOnProperty(name = "banking.auth.async.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AsyncAuthenticationController {
+
+	private final AsyncAuthenticationService asyncAuthenticationService;
+
+	@PostMapping("/authenticate")
+	public CompletableFuture<ResponseEntity<AuthenticationResponse>> authenticate(
+			@RequestBody AuthenticationRequest request) {
+		return asyncAuthenticationService.authenticate(request).thenApply(ResponseEntity::ok);
+	}
+
+	@PostMapping("/reset-password")
+	public CompletableFuture<ResponseEntity<String>> resetPassword(
+			@RequestBody PasswordResetRequest request) {
+		return asyncAuthenticationService.resetPassword(request)
+				.thenApply(done -> ResponseEntity.ok("Password reset instructions sent to your email"));
+	}
+
+	@PostMapping("/reset-password/confirm")
+	public CompletableFuture<ResponseEntity<String>> confirmPasswordReset(
+			@Valid @RequestBody PasswordResetConfirmRequest request) {
+		return asyncAuthenticationService.confirmPasswordReset(request)
+				.thenApply(done -> ResponseEntity.ok("Password has been reset"));
+	}
+
+	@ExceptionHandler(AuthenticationException.class)
+	ResponseEntity<Void> unauthorized() {
+		return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+	}
+
+	@ExceptionHandler(RejectedExecutionException.class)
+	ResponseEntity<Void> saturated() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.banking.security;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.banking.audit.AuditEventType;
+import com.example.banking.audit.AuditLog;
+import com.example.banking.entity.User;
+import com.example.banking.security.dto.AuthenticationRequest;
+import com.example.banking.security.dto.AuthenticationResponse;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
+import com.example.banking.security.dto.PasswordResetRequest;
+
+/**
+ * The authentication flows of {@link AuthenticationService} as composed
+ * stages, so no request thread waits on them. Lookups, transactions and mail
+ * run on the blocking I/O executor, password hashing and token signing on the
+ * bounded CPU executor; a full executor fails the stage with a
+ * {@link java.util.concurrent.RejectedExecutionException} instead of queueing
+ * without bound.
+ */
+public class AsyncAuthenticationService {
+
+	private final UserDetailsService userDetailsService;
+	private final PasswordEncoder passwordEncoder;
+	private final JwtService jwtService;
+	private final AuthenticationService authenticationService;
+	private final AuditLog auditLog;
+	private final Executor cpuExecutor;
+	private final Executor ioExecutor;
+	private final AccountStatusUserDetailsChecker statusChecker = new AccountStatusUserDetailsChecker();
+	// Unknown emails are checked against this too, so they cost as much as a wrong password
+	private final String unknownUserPassword;
+
+	public AsyncAuthenticationService(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+			JwtService jwtService, AuthenticationService authenticationService, AuditLog auditLog,
+			Executor cpuExecutor, Executor ioExecutor) {
+		this.userDetailsService = userDetailsService;
+		this.passwordEncoder = passwordEncoder;
+		this.jwtService = jwtService;
+		this.authenticationService = authenticationService;
+		this.auditLog = auditLog;
+		this.cpuExecutor = cpuExecutor;
+		this.ioExecutor = ioExecutor;
+		this.unknownUserPassword = passwordEncoder.encode("unknown-user");
+	}
+
+	public CompletableFuture<AuthenticationResponse> authenticate(AuthenticationRequest request) {
+		return CompletableFuture.supplyAsync(() -> load(request.getEmail()), ioExecutor)
+				.thenApplyAsync(user -> verify(user, request.getPassword()), cpuExecutor)
+				.whenComplete((user, failure) -> audit(request.getEmail(), user, failure))
+				.thenApply(user -> AuthenticationResponse.builder().token(jwtService.generateToken(user)).build());
+	}
+
+	public CompletableFuture<Void> resetPassword(PasswordResetRequest request) {
+		return CompletableFuture.runAsync(() -> authenticationService.resetPassword(request), ioExecutor);
+	}
+
+	public CompletableFuture<Void> confirmPasswordReset(PasswordResetConfirmRequest request) {
+		return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(request.getNewPassword()), cpuExecutor)
+				.thenAcceptAsync(encoded -> authenticationService.confirmPasswordReset(request.getToken(), encoded),
+						ioExecutor);
+	}
+
+	private UserDetails load(String email) {
+		try {
+			return userDetailsService.loadUserByUsername(email);
+		} catch (UsernameNotFoundException e) {
+			return null;
+		}
+	}
+
+	private UserDetails verify(UserDetails user, String password) {
+		if (user == null) {
+			passwordEncoder.matches(password, unknownUserPassword);
+			throw new BadCredentialsException("Bad credentials");
+		}
+		statusChecker.check(user);
+		if (!passwordEncoder.matches(password, user.getPassword())) {
+			throw new BadCredentialsException("Bad credentials");
+		}
+		return user;
+	}
+
+	private void audit(String email, UserDetails user, Throwable failure) {
+		Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+		if (cause == null) {
+			Long userId = user instanceof User entity ? entity.getUserId() : null;
+			auditLog.record(AuditEventType.LOGIN_SUCCEEDED, userId, email, null);
+		} else if (cause instanceof AuthenticationException) {
+			auditLog.record(AuditEventType.LOGIN_FAILED, null, email, cause.getClass().getSimpleName());
+		}
+	}
+}
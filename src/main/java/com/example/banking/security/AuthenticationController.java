@@ -14,9 +14,11 @@ import org.springframework.web.bind.annotation.RestController;
 import com.example.banking.security.dto.AuthenticationRequest;
 import com.example.banking.security.dto.AuthenticationResponse;
 //import com.example.banking.security.dto.LoginRequest;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
 import com.example.banking.security.dto.PasswordResetRequest;
 import com.example.banking.security.dto.RegisterRequest;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -51,4 +53,11 @@ public class AuthenticationController {
 		return ResponseEntity
 				.ok("Password reset instructions sent to your email");
 	}
+
+	@PostMapping("/reset-password/confirm")
+	public ResponseEntity<String> confirmPasswordReset(
+			@Valid @RequestBody PasswordResetConfirmRequest request) {
+		authenticationService.confirmPasswordReset(request);
+		return ResponseEntity.ok("Password has been reset");
+	}
 }
\ No newline at end of file
@@ -5,25 +5,39 @@
  */
 package com.example.banking.security;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
-
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.banking.audit.AuditEventType;
+import com.example.banking.audit.AuditLog;
+import com.example.banking.cluster.InvalidationBus;
+import com.example.banking.cluster.InvalidationType;
 import com.example.banking.entity.Role;
 import com.example.banking.entity.Status;
 import com.example.banking.entity.User;
+import com.example.banking.exception.InvalidTokenException;
+import com.example.banking.exception.UserAlreadyExistsException;
 import com.example.banking.repository.UserRepository;
 import com.example.banking.security.dto.AuthenticationRequest;
 import com.example.banking.security.dto.AuthenticationResponse;
 //import com.example.banking.security.dto.LoginRequest;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
 import com.example.banking.security.dto.PasswordResetRequest;
 import com.example.banking.security.dto.RegisterRequest;
+import com.example.banking.service.UserArchiveService;
+import com.example.banking.service.UserLookupFlights;
+import com.example.banking.service.UserSearchService;
+import com.example.banking.service.UserService;
+import com.example.banking.service.UserStatsService;
+import com.example.banking.util.AfterCommit;
 
 import lombok.RequiredArgsConstructor;
 
@@ -35,8 +49,22 @@ public class AuthenticationService {
 	private final JwtService jwtService;
 	private final AuthenticationManager authenticationManager;
 	private final JavaMailSender mailSender;
+	private final PasswordResetTokenService passwordResetTokenService;
+	private final UserLookupFlights userLookupFlights;
+	private final UserSearchService userSearchService;
+	private final UserStatsService userStatsService;
+	private final AuditLog auditLog;
+	private final InvalidationBus invalidationBus;
+	private final PlatformTransactionManager transactionManager;
+	private final UserArchiveService userArchiveService;
+	private final UserService userService;
 
+	@Transactional
 	public AuthenticationResponse register(RegisterRequest request) {
+		// Archived users keep their email, and rehydrating them needs it back
+		if (!userService.isEmailAvailable(request.getEmail()) || !userService.isUsernameAvailable(request.getEmail())) {
+			throw new UserAlreadyExistsException("Email already exists: " + request.getEmail());
+		}
 		User user = User.builder().firstname(request.getFirstname())
 				.lastname(request.getLastname()).email(request.getEmail())
 				.username(request.getEmail())
@@ -44,6 +72,10 @@ public class AuthenticationService {
 				.role(Role.USER).phone("").status(Status.INACTIVE).build();
 
 		User savedUser = repository.save(user);
+		userSearchService.indexAfterCommit(savedUser);
+		userStatsService.createdAfterCommit(savedUser);
+		invalidationBus.publish(InvalidationType.USER_CREATED, savedUser.getUserId(), savedUser.getEmail());
+		auditLog.record(AuditEventType.USER_REGISTERED, savedUser.getUserId(), savedUser.getEmail(), null);
 		String jwtToken = jwtService.generateToken(savedUser);
 		return AuthenticationResponse.builder().token(jwtToken).build();
 	}
@@ -59,28 +91,57 @@ public class AuthenticationService {
 	// }
 
 	public AuthenticationResponse authenticate(AuthenticationRequest request) {
-		authenticationManager.authenticate(
-				new UsernamePasswordAuthenticationToken(request.getEmail(),
-						request.getPassword()));
-		User user = repository.findByEmail(request.getEmail()).orElseThrow();
+		try {
+			authenticationManager.authenticate(
+					new UsernamePasswordAuthenticationToken(request.getEmail(),
+							request.getPassword()));
+		} catch (AuthenticationException e) {
+			auditLog.record(AuditEventType.LOGIN_FAILED, null, request.getEmail(), e.getClass().getSimpleName());
+			throw e;
+		}
+		User user = repository.findByEmail(request.getEmail())
+				.or(() -> userArchiveService.findArchivedByEmail(request.getEmail()))
+				.orElseThrow();
+		auditLog.record(AuditEventType.LOGIN_SUCCEEDED, user.getUserId(), request.getEmail(), null);
 		String jwtToken = jwtService.generateToken(user);
 		return AuthenticationResponse.builder().token(jwtToken).build();
 	}
 
 	public void resetPassword(PasswordResetRequest request) {
 		User user = repository.findByEmail(request.getEmail())
+				.or(() -> userArchiveService.findArchivedByEmail(request.getEmail()))
 				.orElseThrow(() -> new RuntimeException("User not found"));
 
-		String resetToken = generateResetToken();
-		user.setResetToken(resetToken);
-		user.setResetTokenExpiryDate(LocalDateTime.now().plusHours(24));
-		repository.save(user);
-
+		String resetToken = passwordResetTokenService.issue(user.getUserId());
+		auditLog.record(AuditEventType.PASSWORD_RESET_REQUESTED, user.getUserId(), request.getEmail(), null);
 		sendPasswordResetEmail(user.getEmail(), resetToken);
 	}
 
-	private String generateResetToken() {
-		return UUID.randomUUID().toString();
+	public void confirmPasswordReset(PasswordResetConfirmRequest request) {
+		// Hash first: BCrypt takes long enough that it must not hold a connection
+		String encodedPassword = passwordEncoder.encode(request.getNewPassword());
+		new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				completePasswordReset(passwordResetTokenService.consume(request.getToken()), encodedPassword));
+	}
+
+	/**
+	 * Sets a password that is already encoded, so callers can do the hashing
+	 * off the thread that holds the transaction.
+	 */
+	@Transactional
+	public void confirmPasswordReset(String token, String encodedPassword) {
+		completePasswordReset(passwordResetTokenService.consume(token), encodedPassword);
+	}
+
+	private void completePasswordReset(Long userId, String encodedPassword) {
+		User user = userArchiveService.findOrRehydrate(userId)
+				.orElseThrow(() -> new InvalidTokenException("Invalid or expired password reset token"));
+
+		user.setPassword(encodedPassword);
+		repository.save(user);
+		userLookupFlights.forgetAfterCommit(userId, user.getEmail());
+		invalidationBus.publish(InvalidationType.PASSWORD_CHANGED, userId, user.getEmail());
+		AfterCommit.run(() -> auditLog.record(AuditEventType.PASSWORD_RESET_COMPLETED, userId, user.getEmail(), null));
 	}
 
 	private void sendPasswordResetEmail(String email, String resetToken) {
@@ -0,0 +1,113 @@
+package com.example.banking.security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.PasswordResetToken;
+import com.example.banking.exception.InvalidTokenException;
+import com.example.banking.repository.PasswordResetTokenRepository;
+import com.example.banking.util.Hashes;
+
+/**
+ * Issues and consumes single-use password reset tokens. Tokens live in their
+ * own table keyed by the SHA-256 of the token, so neither issuing nor checking
+ * a token writes to {@code users}.
+ */
+@Service
+public class PasswordResetTokenService {
+	private static final Logger log = LoggerFactory.getLogger(PasswordResetTokenService.class);
+
+	private static final int TOKEN_BYTES = 32;
+	private static final String INVALID_TOKEN = "Invalid or expired password reset token";
+
+	private final SecureRandom secureRandom = new SecureRandom();
+	private final PasswordResetTokenRepository repository;
+	private final TransactionTemplate separateTransaction;
+	private final Duration validity;
+	private final int sweepBatchSize;
+
+	public PasswordResetTokenService(PasswordResetTokenRepository repository,
+			PlatformTransactionManager transactionManager,
+			@Value("${banking.password-reset.validity:24h}") Duration validity,
+			@Value("${banking.password-reset.sweep-batch-size:500}") int sweepBatchSize) {
+		this.repository = repository;
+		this.separateTransaction = new TransactionTemplate(transactionManager);
+		separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.validity = validity;
+		this.sweepBatchSize = sweepBatchSize;
+	}
+
+	@Transactional
+	public String issue(Long userId) {
+		repository.deleteByUserId(userId);
+
+		byte[] raw = new byte[TOKEN_BYTES];
+		secureRandom.nextBytes(raw);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+		repository.save(PasswordResetToken.builder()
+				.tokenHash(Hashes.sha256Hex(token))
+				.userId(userId)
+				.expiresAt(LocalDateTime.now().plus(validity))
+				.build());
+		return token;
+	}
+
+	/**
+	 * Consumes the token and returns the id of the user it was issued to. The
+	 * row is deleted before the result is known so that a token can only ever
+	 * be presented once; of two concurrent attempts only one deletes the row.
+	 * An expired token is deleted in a transaction of its own, since the
+	 * rejection rolls back the caller's.
+	 */
+	@Transactional
+	public Long consume(String token) {
+		if (token == null || token.isBlank()) {
+			throw new InvalidTokenException(INVALID_TOKEN);
+		}
+		PasswordResetToken stored = repository.findByTokenHash(Hashes.sha256Hex(token))
+				.orElseThrow(() -> new InvalidTokenException(INVALID_TOKEN));
+
+		if (!stored.getExpiresAt().isAfter(LocalDateTime.now())) {
+			separateTransaction.executeWithoutResult(status -> repository.deleteByIdReturningCount(stored.getId()));
+			throw new InvalidTokenException(INVALID_TOKEN);
+		}
+		if (repository.deleteByIdReturningCount(stored.getId()) != 1) {
+			throw new InvalidTokenException(INVALID_TOKEN);
+		}
+		repository.deleteByUserId(stored.getUserId());
+		return stored.getUserId();
+	}
+
+	@Scheduled(fixedDelayString = "${banking.password-reset.sweep-interval-ms:300000}")
+	public void sweepExpired() {
+		LocalDateTime now = LocalDateTime.now();
+		int removed = 0;
+		List<Long> batch;
+		do {
+			batch = repository.findExpiredIds(now, PageRequest.of(0, sweepBatchSize));
+			if (!batch.isEmpty()) {
+				repository.deleteAllByIdInBatch(batch);
+				removed += batch.size();
+			}
+		} while (batch.size() == sweepBatchSize);
+
+		if (removed > 0) {
+			log.debug("Swept {} expired password reset tokens", removed);
+		}
+	}
+}
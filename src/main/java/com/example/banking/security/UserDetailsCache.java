@@ -0,0 +1,71 @@
+package com.example.banking.security;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.example.banking.cluster.InvalidationEvent;
+import com.example.banking.cluster.InvalidationListener;
+import com.example.banking.entity.User;
+
+/**
+ * Per-node cache of the users the JWT filter and login load by email, so an
+ * authenticated request normally skips the user query. Entries are evicted
+ * through the invalidation bus when the user changes on any node, and expire
+ * after the TTL in case an event is lost.
+ * <p>
+ * A load that overlaps an invalidation is returned but not cached, so a
+ * value read before the change can never be stored after its eviction.
+ */
+public class UserDetailsCache implements InvalidationListener {
+
+	private record Entry(Optional<User> user, long expiresAt) {
+	}
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong invalidations = new AtomicLong();
+	private final long ttlNanos;
+	private final int maxEntries;
+
+	public UserDetailsCache(Duration ttl, int maxEntries) {
+		this.ttlNanos = ttl.toNanos();
+		this.maxEntries = maxEntries;
+	}
+
+	public Optional<User> get(String email, Supplier<Optional<User>> loader) {
+		Entry entry = entries.get(email);
+		long now = System.nanoTime();
+		if (entry != null && now - entry.expiresAt() < 0) {
+			return entry.user();
+		}
+		long before = invalidations.get();
+		Optional<User> user = loader.get();
+		if (user.isPresent() && entries.size() >= maxEntries) {
+			entries.values().removeIf(expired -> now - expired.expiresAt() >= 0);
+		}
+		if (user.isPresent() && entries.size() < maxEntries) {
+			entries.put(email, new Entry(user, now + ttlNanos));
+			if (invalidations.get() != before) {
+				entries.remove(email);
+			}
+		}
+		return user;
+	}
+
+	public void evict(String email) {
+		invalidations.incrementAndGet();
+		entries.remove(email);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public void onInvalidation(InvalidationEvent event, boolean remote) {
+		event.emails().forEach(this::evict);
+	}
+}
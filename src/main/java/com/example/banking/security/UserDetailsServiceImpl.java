@@ -0,0 +1,37 @@
+package com.example.banking.security;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.example.banking.repository.UserRepository;
+import com.example.banking.service.UserArchiveService;
+import com.example.banking.service.UserLookupFlights;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Loads users by email for login and for every JWT-authenticated request.
+ * Loaded users are cached per node until the invalidation bus reports a
+ * change, and concurrent misses for the same user share one repository query.
+ * Archived users are found too, so their logins fail as disabled or locked
+ * rather than unknown.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDetailsServiceImpl implements UserDetailsService {
+
+	private final UserRepository repository;
+	private final UserLookupFlights userLookupFlights;
+	private final UserArchiveService userArchiveService;
+	private final UserDetailsCache userDetailsCache;
+
+	@Override
+	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+		return userDetailsCache.get(email, () -> userLookupFlights.userDetails()
+				.execute(email, () -> repository.findByEmail(email)
+						.or(() -> userArchiveService.findArchivedByEmail(email))))
+				.orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+	}
+}
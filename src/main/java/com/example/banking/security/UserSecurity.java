@@ -0,0 +1,41 @@
+package com.example.banking.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.example.banking.entity.User;
+import com.example.banking.repository.AccountRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ownership checks for {@code @PreAuthorize} expressions, referenced as
+ * {@code @userSecurity}. The JWT filter puts the loaded {@link User} in the
+ * security context, so the caller's id needs no lookup.
+ */
+@Component("userSecurity")
+@RequiredArgsConstructor
+public class UserSecurity {
+
+	private final AccountRepository accountRepository;
+
+	public boolean isCurrentUser(Long userId) {
+		Long current = currentUserId();
+		return current != null && current.equals(userId);
+	}
+
+	public boolean ownsAccount(Long accountId) {
+		Long current = currentUserId();
+		return current != null && accountId != null
+				&& accountRepository.existsByAccountIdAndOwnerUserId(accountId, current);
+	}
+
+	private static Long currentUserId() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.getPrincipal() instanceof User user) {
+			return user.getUserId();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.banking.security.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PasswordResetConfirmRequest {
+	@NotBlank
+	private String token;
+
+	@NotNull
+	@Size(min = 8, max = 50)
+	private String newPassword;
+}
@@ -0,0 +1,46 @@
+package com.example.banking.service;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.banking.batch.EndOfDayJob;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class EndOfDayService {
+    private static final Logger log = LoggerFactory.getLogger(EndOfDayService.class);
+
+    private final EndOfDayJob endOfDayJob;
+
+    /**
+     * Finishes runs that were interrupted by a crash or restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        for (LocalDate businessDate : endOfDayJob.unfinishedRuns()) {
+            log.info("Resuming end-of-day run for {}", businessDate);
+            run(businessDate);
+        }
+    }
+
+    @Scheduled(cron = "${banking.eod.cron:0 30 0 * * *}")
+    public void runNightly() {
+        run(LocalDate.now().minusDays(1));
+    }
+
+    private void run(LocalDate businessDate) {
+        try {
+            endOfDayJob.run(businessDate);
+        } catch (RuntimeException e) {
+            log.error("End-of-day run for {} failed: {}", businessDate, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.banking.service;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.banking.entity.IdempotencyRecord;
+import com.example.banking.exception.IdempotencyConflictException;
+import com.example.banking.repository.IdempotencyRecordRepository;
+import com.example.banking.util.Hashes;
+
+/**
+ * Stores the outcome of requests sent with an {@code Idempotency-Key} so that
+ * client retries are answered without re-running the handler. Recent outcomes
+ * live in a bounded LRU map in front of the {@code idempotency_keys} table, and
+ * concurrent duplicates wait on the in-flight request instead of executing.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int COMPRESSION_THRESHOLD = 512;
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final int sweepBatchSize;
+    private final long waitTimeoutMs;
+    private final Map<String, StoredResponse> cache;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+            @Value("${banking.idempotency.ttl:24h}") Duration ttl,
+            @Value("${banking.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${banking.idempotency.sweep-batch-size:500}") int sweepBatchSize,
+            @Value("${banking.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.sweepBatchSize = sweepBatchSize;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, StoredResponse>(256, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public String scopedKey(String principal, String path, String idempotencyKey) {
+        return Hashes.sha256Hex((principal == null ? "" : principal) + '\n' + path + '\n' + idempotencyKey);
+    }
+
+    /**
+     * Either hands the caller ownership of the key, or returns the response of an
+     * earlier (or concurrently running) request with the same key.
+     */
+    public Claim claim(String id) {
+        while (true) {
+            StoredResponse stored = lookup(id);
+            if (stored != null) {
+                return new Claim(id, null, stored);
+            }
+
+            CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(id, pending);
+            if (existing == null) {
+                // A leader may have finished between the lookup and the putIfAbsent
+                stored = lookup(id);
+                if (stored != null) {
+                    inFlight.remove(id, pending);
+                    pending.complete(stored);
+                    return new Claim(id, null, stored);
+                }
+                return new Claim(id, pending, null);
+            }
+
+            try {
+                return new Claim(id, null, existing.get(waitTimeoutMs, TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                // The original attempt failed without a response; let this one try
+                log.debug("In-flight request for idempotency key {} failed, retrying", id);
+            } catch (TimeoutException e) {
+                throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException("Interrupted while waiting for in-flight request");
+            }
+        }
+    }
+
+    public void complete(Claim claim, StoredResponse response) {
+        try {
+            if (response.status() < 500) {
+                cache.put(claim.id(), response);
+                repository.save(IdempotencyRecord.builder()
+                        .id(claim.id())
+                        .requestHash(response.requestHash())
+                        .statusCode(response.status())
+                        .contentType(response.contentType())
+                        .compressed(response.compressed())
+                        .responseBody(response.payload())
+                        .expiresAt(response.expiresAt())
+                        .build());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to persist idempotent response: {}", e.getMessage(), e);
+        } finally {
+            inFlight.remove(claim.id(), claim.pending());
+            claim.pending().complete(response);
+        }
+    }
+
+    public void abandon(Claim claim, Throwable cause) {
+        inFlight.remove(claim.id(), claim.pending());
+        claim.pending().completeExceptionally(cause);
+    }
+
+    public StoredResponse newResponse(String requestHash, int status, String contentType, byte[] body) {
+        return StoredResponse.of(requestHash, status, contentType, body, LocalDateTime.now().plus(ttl));
+    }
+
+    @Scheduled(fixedDelayString = "${banking.idempotency.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        cache.values().removeIf(response -> response.isExpired(now));
+
+        int removed = 0;
+        List<String> batch;
+        do {
+            batch = repository.findExpiredIds(now, PageRequest.of(0, sweepBatchSize));
+            if (!batch.isEmpty()) {
+                repository.deleteAllByIdInBatch(batch);
+                removed += batch.size();
+            }
+        } while (batch.size() == sweepBatchSize);
+
+        if (removed > 0) {
+            log.debug("Swept {} expired idempotency keys", removed);
+        }
+    }
+
+    private StoredResponse lookup(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        StoredResponse cached = cache.get(id);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            cache.remove(id);
+            return null;
+        }
+        return repository.findById(id)
+                .filter(entry -> entry.getExpiresAt().isAfter(now))
+                .map(entry -> {
+                    StoredResponse response = new StoredResponse(entry.getRequestHash(), entry.getStatusCode(),
+                            entry.getContentType(), entry.getResponseBody(), entry.isCompressed(),
+                            entry.getExpiresAt());
+                    cache.put(id, response);
+                    return response;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Ownership token returned by {@link #claim(String)}. When {@code pending} is
+     * set the caller must finish with {@link #complete} or {@link #abandon}.
+     */
+    public record Claim(String id, CompletableFuture<StoredResponse> pending, StoredResponse response) {
+        public boolean isLeader() {
+            return pending != null;
+        }
+    }
+
+    /**
+     * A response body kept deflated once it grows past a small threshold.
+     */
+    public record StoredResponse(String requestHash, int status, String contentType, byte[] payload,
+            boolean compressed, LocalDateTime expiresAt) {
+
+        static StoredResponse of(String requestHash, int status, String contentType, byte[] body,
+                LocalDateTime expiresAt) {
+            if (body.length > COMPRESSION_THRESHOLD) {
+                return new StoredResponse(requestHash, status, contentType, deflate(body), true, expiresAt);
+            }
+            return new StoredResponse(requestHash, status, contentType, body, false, expiresAt);
+        }
+
+        public byte[] body() {
+            return compressed ? inflate(payload) : payload;
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        private static byte[] deflate(byte[] data) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+                byte[] buffer = new byte[1024];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private static byte[] inflate(byte[] data) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+                byte[] buffer = new byte[1024];
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(buffer);
+                    if (n == 0 && inflater.needsInput()) {
+                        throw new IllegalStateException("Truncated idempotent response body");
+                    }
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt idempotent response body", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
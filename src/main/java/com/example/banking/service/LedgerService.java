@@ -0,0 +1,172 @@
+package com.example.banking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.banking.dto.AccountDTO;
+import com.example.banking.dto.PostingDTO;
+import com.example.banking.dto.PostingRequest;
+import com.example.banking.dto.TransferDTO;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.entity.Account;
+import com.example.banking.entity.User;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.ledger.LedgerEngine;
+import com.example.banking.ledger.LedgerJournal;
+import com.example.banking.ledger.LedgerProjector;
+import com.example.banking.ledger.Posting;
+import com.example.banking.ledger.Transfer;
+import com.example.banking.ledger.TransferEngine;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.risk.VelocityGuard;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private final AccountRepository accountRepository;
+    private final UserArchiveService userArchiveService;
+    private final LedgerJournal ledgerJournal;
+    private final LedgerProjector ledgerProjector;
+    private final LedgerEngine ledgerEngine;
+    private final TransferEngine transferEngine;
+    private final VelocityGuard velocityGuard;
+
+    /**
+     * Binds the journal to this database, so a journal kept on disk while the
+     * database was recreated is discarded instead of replayed into it. Then
+     * replays the journal tail that was made durable but never projected, then
+     * rebuilds in-memory balances from snapshots plus later entries. Recent
+     * transfer ids are picked up on the way so retries stay idempotent, and the
+     * last day of transfers rebuilds the velocity counters.
+     */
+    @PostConstruct
+    public void recover() {
+        ledgerProjector.storeJournalEpoch(
+            ledgerJournal.bind(ledgerProjector.loadJournalEpoch(), !ledgerProjector.hasLedgerData()));
+        long projected = ledgerProjector.loadProjectedSequence();
+        ledgerProjector.forEachAccountOwner(velocityGuard::registerAccount);
+        List<Posting> tail = new ArrayList<>();
+        long[] lastSequence = {projected};
+        ledgerJournal.recover(posting -> {
+            lastSequence[0] = Math.max(lastSequence[0], posting.sequence());
+            transferEngine.remember(posting);
+            velocityGuard.replay(posting);
+            if (posting.sequence() > projected) {
+                tail.add(posting);
+            }
+        });
+        ledgerProjector.project(tail);
+
+        List<LedgerProjector.AccountBalance> balances = ledgerProjector.loadBalances();
+        balances.forEach(balance -> ledgerEngine.registerAccount(balance.accountId(), balance.currency(),
+                balance.balance()));
+        ledgerEngine.start(lastSequence[0] + 1);
+        ledgerProjector.start();
+        transferEngine.start();
+        log.info("Ledger recovered: {} accounts, {} postings replayed, next sequence {}", balances.size(),
+                tail.size(), lastSequence[0] + 1);
+    }
+
+    @Transactional
+    public AccountDTO openAccount(AccountDTO accountDTO) {
+        log.debug("Opening {} account for user with ID: {}", accountDTO.getCurrency(), accountDTO.getUserId());
+
+        // Accounts reference users, so an archived owner is moved back first
+        User owner = userArchiveService.findOrRehydrate(accountDTO.getUserId())
+            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + accountDTO.getUserId()));
+        Account account = accountRepository.save(Account.builder()
+            .owner(owner)
+            .currency(accountDTO.getCurrency())
+            .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ledgerEngine.registerAccount(account.getAccountId(), account.getCurrency(), 0);
+                velocityGuard.registerAccount(account.getAccountId(), accountDTO.getUserId());
+            }
+        });
+        return convertToDto(account, accountDTO.getUserId(), 0);
+    }
+
+    @Transactional(readOnly = true)
+    public AccountDTO getAccount(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+        return convertToDto(account, account.getOwner().getUserId(), ledgerEngine.balance(accountId));
+    }
+
+    public PostingDTO post(PostingRequest request) {
+        List<Posting.Leg> legs = request.getLegs().stream()
+            .map(leg -> new Posting.Leg(leg.getAccountId(), leg.getAmount()))
+            .toList();
+        Posting posting = ledgerEngine.post(request.getTransferId(), legs);
+
+        PostingDTO dto = new PostingDTO();
+        dto.setSequence(posting.sequence());
+        dto.setPostedAt(posting.postedAt());
+        dto.setTransferId(posting.transferId());
+        return dto;
+    }
+
+    public TransferDTO transfer(TransferRequest request) {
+        Transfer transfer = new Transfer(request.getTransferId(), request.getFromAccountId(),
+            request.getToAccountId(), request.getAmount());
+        Posting posting = transferEngine.transfer(transfer, velocityGuard);
+
+        TransferDTO dto = new TransferDTO();
+        dto.setTransferId(transfer.transferId());
+        dto.setFromAccountId(transfer.fromAccountId());
+        dto.setToAccountId(transfer.toAccountId());
+        dto.setAmount(transfer.amount());
+        dto.setSequence(posting.sequence());
+        dto.setPostedAt(posting.postedAt());
+        return dto;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.transfers.eviction-interval-ms:300000}")
+    public void evictTransferIds() {
+        int evicted = transferEngine.evictExpired();
+        if (evicted > 0) {
+            log.debug("Forgot {} expired transfer ids", evicted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.velocity.eviction-interval-ms:600000}")
+    public void evictIdleVelocityCounters() {
+        int evicted = velocityGuard.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle velocity counters", evicted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.ledger.snapshot-interval-ms:60000}")
+    public void snapshotBalances() {
+        int accounts = ledgerProjector.snapshotBalances();
+        if (accounts > 0) {
+            log.debug("Snapshotted balances of {} accounts", accounts);
+        }
+    }
+
+    private AccountDTO convertToDto(Account account, Long userId, long balance) {
+        AccountDTO dto = new AccountDTO();
+        dto.setAccountId(account.getAccountId());
+        dto.setUserId(userId);
+        dto.setCurrency(account.getCurrency());
+        dto.setBalance(balance);
+        return dto;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.banking.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.example.banking.audit.AuditEventType;
+import com.example.banking.audit.AuditLog;
+import com.example.banking.batch.LifecycleJob;
+import com.example.banking.batch.LifecycleSweep;
+import com.example.banking.cluster.InvalidationBus;
+import com.example.banking.cluster.InvalidationType;
+import com.example.banking.entity.User;
+import com.example.banking.util.AfterCommit;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Gives users changed by a lifecycle sweep the same follow-up as the
+ * per-user service methods: caches, other nodes, statistics, the search
+ * index and the audit log all hear about each user once the chunk commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class LifecycleChangePublisher implements LifecycleJob.ChunkListener {
+
+    private final UserLookupFlights userLookupFlights;
+    private final InvalidationBus invalidationBus;
+    private final UserStatsService userStatsService;
+    private final UserSearchService userSearchService;
+    private final AuditLog auditLog;
+
+    @Override
+    public void changed(LifecycleSweep sweep, List<LifecycleJob.SweptUser> users) {
+        LifecycleSweep.Action action = sweep.action();
+        Map<Long, String> emailsByUserId = new LinkedHashMap<>();
+        for (LifecycleJob.SweptUser swept : users) {
+            emailsByUserId.put(swept.userId(), swept.email());
+            userLookupFlights.forgetAfterCommit(swept.userId(), swept.email());
+            User before = User.builder().userId(swept.userId()).email(swept.email()).role(swept.role())
+                .status(swept.status()).createdAt(swept.createdAt()).build();
+            if (action == LifecycleSweep.Action.PURGE) {
+                userStatsService.deletedAfterCommit(before);
+                userSearchService.removeAfterCommit(swept.userId());
+            } else {
+                User after = User.builder().userId(swept.userId()).role(swept.role()).status(action.target())
+                    .build();
+                userStatsService.statusChangedAfterCommit(swept.status(), after);
+            }
+        }
+        invalidationBus.publishAll(invalidationType(action), emailsByUserId);
+        AuditEventType auditType = auditType(action);
+        AfterCommit.run(() -> users.forEach(swept -> auditLog.record(auditType, swept.userId(), null,
+            "lifecycle:" + sweep.name())));
+    }
+
+    private static InvalidationType invalidationType(LifecycleSweep.Action action) {
+        return switch (action) {
+            case ACTIVATE -> InvalidationType.USER_ACTIVATED;
+            case SUSPEND -> InvalidationType.USER_SUSPENDED;
+            case PURGE -> InvalidationType.USER_DELETED;
+        };
+    }
+
+    private static AuditEventType auditType(LifecycleSweep.Action action) {
+        return switch (action) {
+            case ACTIVATE -> AuditEventType.USER_ACTIVATED;
+            case SUSPEND -> AuditEventType.USER_SUSPENDED;
+            case PURGE -> AuditEventType.USER_DELETED;
+        };
+    }
+}
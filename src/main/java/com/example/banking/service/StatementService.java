@@ -0,0 +1,259 @@
+package com.example.banking.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.banking.entity.Account;
+import com.example.banking.exception.ResourceNotFoundException;
+import com.example.banking.ledger.BalanceCheckpoints;
+import com.example.banking.ledger.LedgerProjector;
+import com.example.banking.repository.AccountRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams account statements in posting order. Entries are read in keyset
+ * pages over {@code (account_id, posted_at, entry_id)} and written as they
+ * arrive, so memory use does not depend on the length of the statement, and the
+ * opening balance comes from the nearest monthly balance checkpoint.
+ */
+@Service
+public class StatementService {
+    private static final Logger log = LoggerFactory.getLogger(StatementService.class);
+
+    private static final String PAGE_QUERY = "SELECT entry_id, posted_at, amount, sequence, transfer_id "
+        + "FROM ledger_entries WHERE account_id = ? AND posted_at >= ? AND (posted_at > ? OR entry_id > ?) "
+        + "AND posted_at < ? ORDER BY posted_at, entry_id LIMIT ?";
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BalanceCheckpoints balanceCheckpoints;
+    private final LedgerProjector ledgerProjector;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final Duration checkpointGrace;
+
+    public StatementService(AccountRepository accountRepository, JdbcTemplate jdbcTemplate,
+            BalanceCheckpoints balanceCheckpoints, LedgerProjector ledgerProjector, ObjectMapper objectMapper,
+            @Value("${banking.statements.page-size:500}") int pageSize,
+            @Value("${banking.statements.checkpoint-grace:5m}") Duration checkpointGrace) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.balanceCheckpoints = balanceCheckpoints;
+        this.ledgerProjector = ledgerProjector;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.checkpointGrace = checkpointGrace;
+    }
+
+    /**
+     * Resolves the account and opening balance up front so that a missing
+     * account fails before the response is committed. The end of the statement
+     * is capped at the projection watermark, so the closing balance never
+     * includes a half-projected posting.
+     */
+    public Statement open(Long accountId, LocalDateTime from, LocalDateTime to) {
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+        LocalDateTime watermark = projectionWatermark();
+        LocalDateTime end = to == null || to.isAfter(watermark) ? watermark : to;
+        if (from.isAfter(end)) {
+            throw new IllegalArgumentException("Statement start must not be after its end");
+        }
+        return new Statement(accountId, account.getCurrency(), from, end,
+            balanceCheckpoints.balanceAt(accountId, from));
+    }
+
+    public void write(Statement statement, Format format, OutputStream out) throws IOException {
+        StatementWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        writer.opening(statement);
+        writer.flush();
+
+        long balance = statement.openingBalance();
+        long entries = 0;
+        LocalDateTime lastPostedAt = statement.from();
+        long lastEntryId = 0;
+        while (true) {
+            List<Entry> page = jdbcTemplate.query(PAGE_QUERY, (rs, rowNum) -> new Entry(rs.getLong(1),
+                    rs.getObject(2, LocalDateTime.class), rs.getLong(3), rs.getLong(4), rs.getString(5)),
+                statement.accountId(), lastPostedAt, lastPostedAt, lastEntryId, statement.to(), pageSize);
+            for (Entry entry : page) {
+                balance += entry.amount();
+                writer.entry(entry, balance);
+            }
+            entries += page.size();
+            writer.flush();
+            if (page.size() < pageSize) {
+                break;
+            }
+            Entry last = page.get(page.size() - 1);
+            lastPostedAt = last.postedAt();
+            lastEntryId = last.entryId();
+        }
+        writer.closing(statement, balance, entries);
+        writer.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${banking.statements.checkpoint-interval-ms:3600000}")
+    public void checkpointBalances() {
+        LocalDateTime watermark = projectionWatermark().minus(checkpointGrace);
+        int months = balanceCheckpoints.checkpointThrough(watermark);
+        if (months > 0) {
+            log.info("Wrote balance checkpoints for {} month boundaries up to {}", months, watermark);
+        }
+    }
+
+    private LocalDateTime projectionWatermark() {
+        return LocalDateTime.ofInstant(ledgerProjector.watermark(), ZoneId.systemDefault());
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    public record Statement(long accountId, String currency, LocalDateTime from, LocalDateTime to,
+            long openingBalance) {
+    }
+
+    private record Entry(long entryId, LocalDateTime postedAt, long amount, long sequence, String transferId) {
+    }
+
+    private interface StatementWriter {
+        void opening(Statement statement) throws IOException;
+
+        void entry(Entry entry, long balance) throws IOException;
+
+        void closing(Statement statement, long balance, long entries) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private class NdjsonWriter implements StatementWriter {
+        private final JsonGenerator json;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void opening(Statement statement) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", "opening");
+            json.writeNumberField("accountId", statement.accountId());
+            json.writeStringField("currency", statement.currency());
+            json.writeStringField("from", statement.from().toString());
+            json.writeStringField("to", statement.to().toString());
+            json.writeNumberField("balance", statement.openingBalance());
+            json.writeEndObject();
+        }
+
+        @Override
+        public void entry(Entry entry, long balance) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", "entry");
+            json.writeNumberField("entryId", entry.entryId());
+            json.writeNumberField("sequence", entry.sequence());
+            json.writeStringField("postedAt", entry.postedAt().toString());
+            json.writeNumberField("amount", entry.amount());
+            json.writeNumberField("balance", balance);
+            if (entry.transferId() != null) {
+                json.writeStringField("transferId", entry.transferId());
+            }
+            json.writeEndObject();
+        }
+
+        @Override
+        public void closing(Statement statement, long balance, long entries) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", "closing");
+            json.writeNumberField("balance", balance);
+            json.writeNumberField("entries", entries);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static class CsvWriter implements StatementWriter {
+        private final Writer csv;
+
+        CsvWriter(OutputStream out) {
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void opening(Statement statement) throws IOException {
+            csv.write("type,entry_id,sequence,posted_at,amount,balance,transfer_id\n");
+            row("opening", "", "", statement.from().toString(), "", statement.openingBalance(), "");
+        }
+
+        @Override
+        public void entry(Entry entry, long balance) throws IOException {
+            row("entry", String.valueOf(entry.entryId()), String.valueOf(entry.sequence()),
+                entry.postedAt().toString(), String.valueOf(entry.amount()), balance,
+                entry.transferId() == null ? "" : entry.transferId());
+        }
+
+        @Override
+        public void closing(Statement statement, long balance, long entries) throws IOException {
+            row("closing", "", "", statement.to().toString(), "", balance, "");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            csv.flush();
+        }
+
+        // Every field is a number, an ISO timestamp or a UUID, so none needs quoting
+        private void row(String type, String entryId, String sequence, String postedAt, String amount, long balance,
+                String transferId) throws IOException {
+            csv.write(type);
+            csv.write(',');
+            csv.write(entryId);
+            csv.write(',');
+            csv.write(sequence);
+            csv.write(',');
+            csv.write(postedAt);
+            csv.write(',');
+            csv.write(amount);
+            csv.write(',');
+            csv.write(Long.toString(balance));
+            csv.write(',');
+            csv.write(transferId);
+            csv.write('\n');
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.banking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.banking.batch.UserArchiver;
+import com.example.banking.entity.ArchivedUser;
+import com.example.banking.entity.User;
+import com.example.banking.repository.ArchivedUserRepository;
+import com.example.banking.repository.UserRepository;
+
+/**
+ * Archive side of user lookups: read paths fall back here when a user is not
+ * in {@code users}, and write paths rehydrate the user first.
+ */
+@Service
+@Transactional(readOnly = true)
+public class UserArchiveService {
+
+    private final UserArchiver userArchiver;
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final boolean enabled;
+    private final Duration idleAge;
+
+    public UserArchiveService(UserArchiver userArchiver, UserRepository userRepository,
+            ArchivedUserRepository archivedUserRepository,
+            @Value("${banking.archive.enabled:true}") boolean enabled,
+            @Value("${banking.archive.idle-age:365d}") Duration idleAge) {
+        this.userArchiver = userArchiver;
+        this.userRepository = userRepository;
+        this.archivedUserRepository = archivedUserRepository;
+        this.enabled = enabled;
+        this.idleAge = idleAge;
+    }
+
+    @Scheduled(cron = "${banking.archive.cron:0 0 3 * * *}")
+    public void archiveIdleUsers() {
+        if (enabled) {
+            userArchiver.archive(LocalDateTime.now().minus(idleAge));
+        }
+    }
+
+    public Optional<User> findArchivedById(Long userId) {
+        return archivedUserRepository.findById(userId).map(ArchivedUser::toUser);
+    }
+
+    public Optional<User> findArchivedByEmail(String email) {
+        return archivedUserRepository.findByEmail(email).map(ArchivedUser::toUser);
+    }
+
+    public Optional<User> findArchivedByUsername(String username) {
+        return archivedUserRepository.findByUsername(username).map(ArchivedUser::toUser);
+    }
+
+    public Optional<Long> findArchivedVersion(Long userId) {
+        return archivedUserRepository.findVersionById(userId);
+    }
+
+    public boolean isUsernameArchived(String username) {
+        return archivedUserRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailArchived(String email) {
+        return archivedUserRepository.existsByEmail(email);
+    }
+
+    public boolean isPhoneArchived(String phone) {
+        return archivedUserRepository.existsByPhone(phone);
+    }
+
+    /**
+     * Loads a user for modification, moving them back from the archive first
+     * if needed.
+     */
+    @Transactional
+    public Optional<User> findOrRehydrate(Long userId) {
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isPresent() || !userArchiver.rehydrate(userId)) {
+            return user;
+        }
+        return userRepository.findById(userId);
+    }
+
+    /**
+     * @return the removed user, or empty if they were not archived
+     */
+    @Transactional
+    public Optional<User> deleteArchived(Long userId) {
+        Optional<ArchivedUser> archived = archivedUserRepository.findById(userId);
+        archived.ifPresent(archivedUserRepository::delete);
+        return archived.map(ArchivedUser::toUser);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.banking.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.banking.batch.LifecycleJob;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Schedules the enabled lifecycle sweeps, one after the other, so they never
+ * compete with each other for connections.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserLifecycleService {
+    private static final Logger log = LoggerFactory.getLogger(UserLifecycleService.class);
+
+    private final List<LifecycleJob> lifecycleJobs;
+
+    /**
+     * Finishes runs that were interrupted by a crash or restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        for (LifecycleJob job : lifecycleJobs) {
+            if (job.unfinished()) {
+                log.info("Resuming lifecycle job {}", job.name());
+                run(job);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${banking.lifecycle.cron:0 0 2 * * *}")
+    public void runAll() {
+        lifecycleJobs.forEach(this::run);
+    }
+
+    private void run(LifecycleJob job) {
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            log.error("Lifecycle job {} failed: {}", job.name(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.banking.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.entity.User;
+import com.example.banking.util.SingleFlight;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight groups for the hot user lookups: by id and by email from
+ * {@link UserServiceImpl}, and by email from the {@code UserDetailsService}
+ * used by the JWT filter and login.
+ */
+@Component
+public class UserLookupFlights {
+
+    private final SingleFlight<Long, Optional<UserDTO>> byId;
+    private final SingleFlight<String, Optional<UserDTO>> byEmail;
+    private final SingleFlight<String, Optional<User>> userDetails;
+
+    public UserLookupFlights(@Value("${banking.single-flight.timeout:2s}") Duration timeout,
+            MeterRegistry meterRegistry) {
+        this.byId = new SingleFlight<>("user-by-id", timeout);
+        this.byEmail = new SingleFlight<>("user-by-email", timeout);
+        this.userDetails = new SingleFlight<>("user-details", timeout);
+        byId.bindTo(meterRegistry);
+        byEmail.bindTo(meterRegistry);
+        userDetails.bindTo(meterRegistry);
+    }
+
+    public SingleFlight<Long, Optional<UserDTO>> byId() {
+        return byId;
+    }
+
+    public SingleFlight<String, Optional<UserDTO>> byEmail() {
+        return byEmail;
+    }
+
+    public SingleFlight<String, Optional<User>> userDetails() {
+        return userDetails;
+    }
+
+    /**
+     * Detaches in-flight lookups for the user once the current transaction
+     * commits, so no reader joins a query that started before the write.
+     */
+    public void forgetAfterCommit(Long userId, String... emails) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget(userId, emails);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                forget(userId, emails);
+            }
+        });
+    }
+
+    private void forget(Long userId, String... emails) {
+        if (userId != null) {
+            byId.forget(userId);
+        }
+        for (String email : emails) {
+            if (email != null) {
+                byEmail.forget(email);
+                userDetails.forget(email);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.banking.service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.example.banking.cluster.InvalidationEvent;
+import com.example.banking.cluster.InvalidationListener;
+import com.example.banking.cluster.InvalidationType;
+import com.example.banking.entity.User;
+import com.example.banking.search.UserSearchIndex;
+import com.example.banking.util.AfterCommit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps the in-process {@link UserSearchIndex} in step with the users and
+ * users archive tables: a full rebuild once the application is ready, then
+ * incremental updates from {@link UserServiceImpl} after each write commits.
+ * Writes that commit while a rebuild is reading the tables are replayed onto
+ * the rebuilt index before it is swapped in. Creates, updates and deletes made
+ * on other nodes arrive through the invalidation bus.
+ */
+@Service
+public class UserSearchService implements InvalidationListener {
+    private static final Logger log = LoggerFactory.getLogger(UserSearchService.class);
+
+    private final UserSearchIndex index;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxCandidates;
+    private final int fetchSize;
+    private final Timer queryTimer;
+    private final Object updateLock = new Object();
+    private List<Consumer<UserSearchIndex>> updatesDuringRebuild;
+
+    public UserSearchService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${banking.user-search.max-candidates:20000}") int maxCandidates,
+            @Value("${banking.user-search.rebuild-fetch-size:1000}") int fetchSize) {
+        this.index = new UserSearchIndex(maxCandidates);
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxCandidates = maxCandidates;
+        this.fetchSize = fetchSize;
+        this.queryTimer = Timer.builder("user.search.query").register(meterRegistry);
+        Gauge.builder("user.search.index.users", index, UserSearchIndex::size).register(meterRegistry);
+        Gauge.builder("user.search.index.bytes", index, UserSearchIndex::estimatedBytes)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (updateLock) {
+            updatesDuringRebuild = new ArrayList<>();
+        }
+        UserSearchIndex rebuilt = new UserSearchIndex(maxCandidates);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "SELECT user_id, username, email, phone FROM users "
+                        + "UNION ALL SELECT user_id, username, email, phone FROM users_archive");
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> rebuilt.index(rs.getLong(1), rs.getString(2), rs.getString(3),
+                rs.getString(4)));
+        } finally {
+            synchronized (updateLock) {
+                updatesDuringRebuild.forEach(update -> update.accept(rebuilt));
+                updatesDuringRebuild = null;
+                index.replaceWith(rebuilt);
+            }
+        }
+        int users = index.size();
+        long bytes = index.estimatedBytes();
+        log.info("Rebuilt user search index: {} users, {} KiB, {} bytes per user", users, bytes / 1024,
+            users == 0 ? 0 : bytes / users);
+    }
+
+    public UserSearchIndex.Result search(String query, int offset, int limit) {
+        return queryTimer.record(() -> index.search(query, offset, limit));
+    }
+
+    /**
+     * Indexes the user's current fields once the surrounding transaction
+     * commits, or immediately outside one.
+     */
+    public void indexAfterCommit(User user) {
+        long userId = user.getUserId();
+        String username = user.getUsername();
+        String email = user.getEmail();
+        String phone = user.getPhone();
+        AfterCommit.run(() -> apply(target -> target.index(userId, username, email, phone)));
+    }
+
+    public void removeAfterCommit(Long userId) {
+        AfterCommit.run(() -> apply(target -> target.remove(userId)));
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event, boolean remote) {
+        if (!remote || event.userId() == null) {
+            return;
+        }
+        long userId = event.userId();
+        if (event.type() == InvalidationType.USER_DELETED) {
+            apply(target -> target.remove(userId));
+        } else if (event.type() == InvalidationType.USER_CREATED || event.type() == InvalidationType.USER_UPDATED) {
+            jdbcTemplate.query("SELECT username, email, phone FROM users WHERE user_id = ?",
+                (RowCallbackHandler) rs -> {
+                    String username = rs.getString(1);
+                    String email = rs.getString(2);
+                    String phone = rs.getString(3);
+                    apply(target -> target.index(userId, username, email, phone));
+                }, userId);
+        }
+    }
+
+    private void apply(Consumer<UserSearchIndex> update) {
+        synchronized (updateLock) {
+            update.accept(index);
+            if (updatesDuringRebuild != null) {
+                updatesDuringRebuild.add(update);
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.banking.service;
 
 import com.example.banking.dto.UserDTO;
-import com.example.banking.entity.UserStatus;
+import com.example.banking.dto.UserField;
+import com.example.banking.entity.Status;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,11 +13,16 @@ import org.springframework.data.domain.Pageable;
 public interface UserService {
 	UserDTO createUser(UserDTO userDTO);
     UserDTO updateUser(Long userId, UserDTO userDTO);
+    UserDTO updateUser(Long userId, UserDTO userDTO, Long expectedVersion);
     void deleteUser(Long userId);
     UserDTO getUserById(Long userId);
+    UserDTO getUserById(Long userId, Set<UserField> fields);
+    Long getUserVersion(Long userId);
     UserDTO getUserByUsername(String username);
     Page<UserDTO> getAllUsers(Pageable pageable);
-    List<UserDTO> getUsersByStatus(UserStatus status);
+    Page<UserDTO> getAllUsers(Pageable pageable, Set<UserField> fields);
+    Page<UserDTO> searchUsers(String query, Pageable pageable);
+    List<UserDTO> getUsersByStatus(Status status);
     UserDTO getUserByEmail(String email);
     void activateUser(Long userId);
     void suspendUser(Long userId);
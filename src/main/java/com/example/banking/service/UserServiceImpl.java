@@ -1,21 +1,37 @@
 package com.example.banking.service;
 
+import com.example.banking.audit.AuditEventType;
+import com.example.banking.audit.AuditLog;
+import com.example.banking.cluster.InvalidationBus;
+import com.example.banking.cluster.InvalidationType;
 import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserField;
+import com.example.banking.entity.Status;
 import com.example.banking.entity.User;
-import com.example.banking.entity.UserStatus;
+import com.example.banking.exception.PreconditionFailedException;
 import com.example.banking.exception.ResourceNotFoundException;
 import com.example.banking.exception.UserAlreadyExistsException;
 import com.example.banking.repository.UserRepository;
+import com.example.banking.search.UserSearchIndex;
+import com.example.banking.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,8 +40,14 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
 
-    private final UserRepository userRepository = null;
-    private final PasswordEncoder passwordEncoder = null;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final UserLookupFlights userLookupFlights;
+    private final UserSearchService userSearchService;
+    private final UserStatsService userStatsService;
+    private final AuditLog auditLog;
+    private final UserArchiveService userArchiveService;
+    private final InvalidationBus invalidationBus;
 
     @Override
     @Transactional
@@ -39,7 +61,10 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         
         try {
-        	User savedUser = userRepository.save(user);
+            User savedUser = userRepository.save(user);
+            userSearchService.indexAfterCommit(savedUser);
+            userStatsService.createdAfterCommit(savedUser);
+            invalidationBus.publish(InvalidationType.USER_CREATED, savedUser.getUserId(), savedUser.getEmail());
             return convertToDto(savedUser);
         } catch (Exception e) {
             log.error("Error creating user: {}", e.getMessage(), e);
@@ -50,17 +75,33 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserDTO updateUser(Long userId, UserDTO userDTO) {
+        return updateUser(userId, userDTO, null);
+    }
+
+    @Override
+    @Transactional
+    public UserDTO updateUser(Long userId, UserDTO userDTO, Long expectedVersion) {
         log.debug("Updating user with ID: {}", userId);
         
-        User existingUser = userRepository.findById(userId)
+        User existingUser = userArchiveService.findOrRehydrate(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw new PreconditionFailedException("User has been modified: " + userId);
+        }
+        
         validateUserUpdate(userDTO, existingUser);
+        userLookupFlights.forgetAfterCommit(userId, existingUser.getEmail(), userDTO.getEmail());
+        invalidationBus.publish(InvalidationType.USER_UPDATED, userId, existingUser.getEmail(), userDTO.getEmail());
         mapDtoToUser(userDTO, existingUser);
         
         try {
-        	User updatedUser = userRepository.save(existingUser);
+            // Flush so the returned DTO carries the incremented version
+            User updatedUser = userRepository.saveAndFlush(existingUser);
+            userSearchService.indexAfterCommit(updatedUser);
             return convertToDto(updatedUser);
+        } catch (OptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("User has been modified: " + userId);
         } catch (Exception e) {
             log.error("Error updating user: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to update user", e);
@@ -73,10 +114,15 @@ public class UserServiceImpl implements UserService {
         log.debug("Deleting user with ID: {}", userId);
         
         try {
-            if (!userRepository.existsById(userId)) {
-                throw new ResourceNotFoundException("User not found with id: " + userId);
-            }
-            userRepository.deleteById(userId);
+            Optional<User> live = userRepository.findById(userId);
+            live.ifPresent(userRepository::delete);
+            User user = live.or(() -> userArchiveService.deleteArchived(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+            userLookupFlights.forgetAfterCommit(userId, user.getEmail());
+            invalidationBus.publish(InvalidationType.USER_DELETED, userId, user.getEmail());
+            userSearchService.removeAfterCommit(userId);
+            userStatsService.deletedAfterCommit(user);
+            auditAfterCommit(AuditEventType.USER_DELETED, userId);
         } catch (Exception e) {
             log.error("Error deleting user: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to delete user", e);
@@ -86,8 +132,29 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDTO getUserById(Long userId) {
         log.debug("Fetching user with ID: {}", userId);
-        return userRepository.findById(userId)
-            .map(this::convertToDto)
+        return userLookupFlights.byId()
+            .execute(userId, () -> userRepository.findById(userId)
+                .or(() -> userArchiveService.findArchivedById(userId))
+                .map(this::convertToDto))
+            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+    }
+
+    @Override
+    public UserDTO getUserById(Long userId, Set<UserField> fields) {
+        if (fields.containsAll(UserField.ALL)) {
+            return getUserById(userId);
+        }
+        UserDTO user = userRepository.findProjectedById(userId, fields)
+            .or(() -> userArchiveService.findArchivedById(userId).map(this::convertToDto))
+            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        user.setFields(fields);
+        return user;
+    }
+
+    @Override
+    public Long getUserVersion(Long userId) {
+        return userRepository.findVersionById(userId)
+            .or(() -> userArchiveService.findArchivedVersion(userId))
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
     }
 
@@ -95,7 +162,8 @@ public class UserServiceImpl implements UserService {
     public UserDTO getUserByUsername(String username) {
         log.debug("Fetching user with username: {}", username);
         return userRepository.findByUsername(username)
-        		.map(this::convertToDto)
+                .or(() -> userArchiveService.findArchivedByUsername(username))
+                .map(this::convertToDto)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
     }
 
@@ -105,7 +173,34 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserDTO> getUsersByStatus(UserStatus status) {
+    public Page<UserDTO> getAllUsers(Pageable pageable, Set<UserField> fields) {
+        if (fields.containsAll(UserField.ALL)) {
+            return getAllUsers(pageable);
+        }
+        return userRepository.findAllProjected(fields, pageable);
+    }
+
+    @Override
+    public Page<UserDTO> searchUsers(String query, Pageable pageable) {
+        UserSearchIndex.Result result = userSearchService.search(query, (int) pageable.getOffset(),
+            pageable.getPageSize());
+        // One round trip for the page, then back into rank order; archived users
+        // are looked up one by one and users deleted since the index was read
+        // are dropped
+        Map<Long, User> users = userRepository.findAllById(result.userIds())
+            .stream()
+            .collect(Collectors.toMap(User::getUserId, Function.identity()));
+        List<UserDTO> content = result.userIds()
+            .stream()
+            .map(id -> users.containsKey(id) ? Optional.of(users.get(id)) : userArchiveService.findArchivedById(id))
+            .flatMap(Optional::stream)
+            .map(this::convertToDto)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    @Override
+    public List<UserDTO> getUsersByStatus(Status status) {
         log.debug("Fetching users with status: {}", status);
         return userRepository.findByStatus(status)
             .stream()
@@ -116,8 +211,10 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDTO getUserByEmail(String email) {
         log.debug("Fetching user with email: {}", email);
-        return userRepository.findByEmail(email)
-            .map(this::convertToDto)
+        return userLookupFlights.byEmail()
+            .execute(email, () -> userRepository.findByEmail(email)
+                .or(() -> userArchiveService.findArchivedByEmail(email))
+                .map(this::convertToDto))
             .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
     }
 
@@ -126,11 +223,16 @@ public class UserServiceImpl implements UserService {
     public void activateUser(Long userId) {
         log.debug("Activating user with ID: {}", userId);
         
-        User user = userRepository.findById(userId)
+        User user = userArchiveService.findOrRehydrate(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
             
+        Status previous = user.getStatus();
         user.activate();
         userRepository.save(user);
+        userLookupFlights.forgetAfterCommit(userId, user.getEmail());
+        invalidationBus.publish(InvalidationType.USER_ACTIVATED, userId, user.getEmail());
+        userStatsService.statusChangedAfterCommit(previous, user);
+        auditAfterCommit(AuditEventType.USER_ACTIVATED, userId);
     }
 
     @Override
@@ -138,26 +240,31 @@ public class UserServiceImpl implements UserService {
     public void suspendUser(Long userId) {
         log.debug("Suspending user with ID: {}", userId);
         
-        User user = userRepository.findById(userId)
+        User user = userArchiveService.findOrRehydrate(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
             
+        Status previous = user.getStatus();
         user.suspend();
         userRepository.save(user);
+        userLookupFlights.forgetAfterCommit(userId, user.getEmail());
+        invalidationBus.publish(InvalidationType.USER_SUSPENDED, userId, user.getEmail());
+        userStatsService.statusChangedAfterCommit(previous, user);
+        auditAfterCommit(AuditEventType.USER_SUSPENDED, userId);
     }
 
     @Override
     public boolean isUsernameAvailable(String username) {
-        return !userRepository.existsByUsername(username);
+        return !userRepository.existsByUsername(username) && !userArchiveService.isUsernameArchived(username);
     }
 
     @Override
     public boolean isEmailAvailable(String email) {
-        return !userRepository.existsByEmail(email);
+        return !userRepository.existsByEmail(email) && !userArchiveService.isEmailArchived(email);
     }
 
     @Override
     public boolean isPhoneAvailable(String phone) {
-        return !userRepository.existsByPhone(phone);
+        return !userRepository.existsByPhone(phone) && !userArchiveService.isPhoneArchived(phone);
     }
 
     @Override
@@ -165,15 +272,20 @@ public class UserServiceImpl implements UserService {
     public void changePassword(Long userId, String currentPassword, String newPassword) {
         log.debug("Changing password for user with ID: {}", userId);
         
-        User user = userRepository.findById(userId)
+        User user = userArchiveService.findOrRehydrate(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
             
         if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+            auditLog.record(AuditEventType.PASSWORD_CHANGE_FAILED, userId, currentPrincipal(),
+                "Current password is incorrect");
             throw new IllegalArgumentException("Current password is incorrect");
         }
         
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userLookupFlights.forgetAfterCommit(userId, user.getEmail());
+        invalidationBus.publish(InvalidationType.PASSWORD_CHANGED, userId, user.getEmail());
+        auditAfterCommit(AuditEventType.PASSWORD_CHANGED, userId);
     }
 
     private void validateNewUser(UserDTO userDTO) {
@@ -203,6 +315,19 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * Records an event for a change once it commits, attributed to the caller.
+     */
+    private void auditAfterCommit(AuditEventType type, Long userId) {
+        String principal = currentPrincipal();
+        AfterCommit.run(() -> auditLog.record(type, userId, principal, null));
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
     private void mapDtoToUser(UserDTO dto, User user) {
         user.setUsername(dto.getUsername());
         user.setEmail(dto.getEmail());
@@ -215,6 +340,7 @@ public class UserServiceImpl implements UserService {
         dto.setUsername(user.getUsername());
         dto.setEmail(user.getEmail());
         dto.setPhone(user.getPhone());
+        dto.setVersion(user.getVersion());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,349 @@
+package com.example.banking.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.banking.cluster.InvalidationEvent;
+import com.example.banking.cluster.InvalidationListener;
+import com.example.banking.cluster.InvalidationType;
+import com.example.banking.dto.UserStatsDTO;
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.repository.ArchivedUserRepository;
+import com.example.banking.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * User counts by status and role, and signups per day, kept in striped
+ * {@link LongAdder}s so dashboard reads never touch the users table.
+ * <p>
+ * Writers report each committed change. Reconciliation recounts with two
+ * {@code GROUP BY} queries and adds any difference onto the counters; a pass
+ * during which a write was applied is retried, since the counts may straddle
+ * it. Writers hold the read side of a lock from just before their commit until
+ * the change is applied, and the repair step takes it exclusively, so the
+ * adders stay lock-free among writers. If writes keep overlapping, the last
+ * pass recounts under the exclusive lock, which holds off commits that report
+ * here for the length of the two queries.
+ * <p>
+ * The first pass after startup loads the counters rather than repairing them;
+ * until one succeeds, {@link #isLoaded()} is false and loading is retried
+ * every {@code banking.user-stats.load-retry-ms}. Other nodes' writes reach
+ * the database but not these counters, so differences found after the
+ * invalidation bus reported such writes are folded in without counting as
+ * drift.
+ */
+@Service
+public class UserStatsService implements InvalidationListener {
+    private static final Logger log = LoggerFactory.getLogger(UserStatsService.class);
+
+    private static final Status[] STATUSES = Status.values();
+    private static final Role[] ROLES = Role.values();
+    private static final int RECONCILE_ATTEMPTS = 3;
+    private static final Set<InvalidationType> COUNTED_CHANGES = EnumSet.of(InvalidationType.USER_CREATED,
+        InvalidationType.USER_DELETED, InvalidationType.USER_ACTIVATED, InvalidationType.USER_SUSPENDED);
+
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final int signupDays;
+    private final LongAdder[][] counts = new LongAdder[STATUSES.length][ROLES.length];
+    private final Map<LocalDate, LongAdder> signups = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong remoteChanges = new AtomicLong();
+    private long remoteChangesReconciled;
+    private final ReadWriteLock repairLock = new ReentrantReadWriteLock();
+    private final Counter countDrift;
+    private final Counter signupDrift;
+    private volatile Instant reconciledAt;
+
+    public UserStatsService(UserRepository userRepository, ArchivedUserRepository archivedUserRepository,
+            MeterRegistry meterRegistry,
+            @Value("${banking.user-stats.signup-days:90}") int signupDays) {
+        this.userRepository = userRepository;
+        this.archivedUserRepository = archivedUserRepository;
+        this.signupDays = signupDays;
+        for (LongAdder[] byRole : counts) {
+            for (int r = 0; r < byRole.length; r++) {
+                byRole[r] = new LongAdder();
+            }
+        }
+        this.countDrift = Counter.builder("user.stats.drift").tag("dimension", "status-role")
+            .description("Users the status and role counters were off by when reconciled")
+            .register(meterRegistry);
+        this.signupDrift = Counter.builder("user.stats.drift").tag("dimension", "signups")
+            .description("Signups the per-day counters were off by when reconciled")
+            .register(meterRegistry);
+    }
+
+    public void createdAfterCommit(User user) {
+        Status status = user.getStatus();
+        Role role = user.getRole();
+        LocalDate day = signupDay(user);
+        applyAfterCommit(() -> apply(status, role, day, 1));
+    }
+
+    public void deletedAfterCommit(User user) {
+        Status status = user.getStatus();
+        Role role = user.getRole();
+        LocalDate day = signupDay(user);
+        applyAfterCommit(() -> apply(status, role, day, -1));
+    }
+
+    public void statusChangedAfterCommit(Status from, User user) {
+        Status to = user.getStatus();
+        Role role = user.getRole();
+        if (from == to) {
+            return;
+        }
+        applyAfterCommit(() -> {
+            apply(from, role, null, -1);
+            apply(to, role, null, 1);
+        });
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event, boolean remote) {
+        if (remote && COUNTED_CHANGES.contains(event.type())) {
+            remoteChanges.incrementAndGet();
+        }
+    }
+
+    public boolean isLoaded() {
+        return reconciledAt != null;
+    }
+
+    /**
+     * Current counts, with signups for the last {@code days} days including
+     * today. Days with no signups are reported as zero.
+     */
+    public UserStatsDTO snapshot(int days) {
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        Map<Role, Long> byRole = new EnumMap<>(Role.class);
+        long total = 0;
+        for (Status status : STATUSES) {
+            for (Role role : ROLES) {
+                long count = counts[status.ordinal()][role.ordinal()].sum();
+                byStatus.merge(status, count, Long::sum);
+                byRole.merge(role, count, Long::sum);
+                total += count;
+            }
+        }
+        Map<LocalDate, Long> signupsPerDay = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        for (int d = Math.min(days, signupDays) - 1; d >= 0; d--) {
+            LocalDate day = today.minusDays(d);
+            LongAdder count = signups.get(day);
+            signupsPerDay.put(day, count == null ? 0 : count.sum());
+        }
+        UserStatsDTO stats = new UserStatsDTO();
+        stats.setTotal(total);
+        stats.setByStatus(byStatus);
+        stats.setByRole(byRole);
+        stats.setSignupsPerDay(signupsPerDay);
+        stats.setReconciledAt(reconciledAt);
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Could not load user statistics; retrying: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.user-stats.load-retry-ms:10000}",
+        initialDelayString = "${banking.user-stats.load-retry-ms:10000}")
+    public void loadIfNeeded() {
+        if (!isLoaded()) {
+            load();
+        }
+    }
+
+    /**
+     * Recounts from the database and repairs the counters.
+     *
+     * @return the total absolute drift corrected, not counting differences
+     *         explained by other nodes' writes
+     */
+    @Scheduled(fixedDelayString = "${banking.user-stats.reconcile-interval-ms:300000}")
+    public long reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long before = changes.get();
+            Recount recount = recount();
+            repairLock.writeLock().lock();
+            try {
+                if (changes.get() == before) {
+                    return repair(recount);
+                }
+            } finally {
+                repairLock.writeLock().unlock();
+            }
+        }
+        log.debug("Writes overlapped {} user statistics recounts; recounting with commits held off",
+            RECONCILE_ATTEMPTS);
+        repairLock.writeLock().lock();
+        try {
+            return repair(recount());
+        } finally {
+            repairLock.writeLock().unlock();
+        }
+    }
+
+    private Recount recount() {
+        LocalDate oldestDay = LocalDate.now().minusDays(signupDays - 1);
+        // Archived users still count; archiving and rehydrating move rows
+        // between the tables without changing these totals
+        List<Object[]> countRows = new ArrayList<>(userRepository.countByStatusAndRole());
+        countRows.addAll(archivedUserRepository.countByStatusAndRole());
+        List<Object[]> signupRows = new ArrayList<>(
+            userRepository.countSignupsPerDaySince(oldestDay.atStartOfDay()));
+        signupRows.addAll(archivedUserRepository.countSignupsPerDaySince(oldestDay.atStartOfDay()));
+        return new Recount(countRows, signupRows, oldestDay);
+    }
+
+    private long repair(Recount recount) {
+        List<Object[]> countRows = recount.countRows();
+        List<Object[]> signupRows = recount.signupRows();
+        LocalDate oldestDay = recount.oldestDay();
+        boolean initialLoad = reconciledAt == null;
+        long remote = remoteChanges.get();
+        boolean remoteWrites = remote != remoteChangesReconciled;
+        remoteChangesReconciled = remote;
+        long[][] expected = new long[STATUSES.length][ROLES.length];
+        for (Object[] row : countRows) {
+            if (row[0] instanceof Status status && row[1] instanceof Role role) {
+                expected[status.ordinal()][role.ordinal()] += ((Number) row[2]).longValue();
+            }
+        }
+        long countDelta = 0;
+        for (int s = 0; s < STATUSES.length; s++) {
+            for (int r = 0; r < ROLES.length; r++) {
+                long delta = expected[s][r] - counts[s][r].sum();
+                if (delta != 0) {
+                    counts[s][r].add(delta);
+                    countDelta += Math.abs(delta);
+                }
+            }
+        }
+
+        Map<LocalDate, Long> expectedSignups = new HashMap<>();
+        for (Object[] row : signupRows) {
+            expectedSignups.merge((LocalDate) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+        signups.keySet().removeIf(day -> day.isBefore(oldestDay));
+        long signupDelta = 0;
+        for (LocalDate day = oldestDay; !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+            long expectedCount = expectedSignups.getOrDefault(day, 0L);
+            LongAdder counter = signups.get(day);
+            long delta = expectedCount - (counter == null ? 0 : counter.sum());
+            if (delta != 0) {
+                signups.computeIfAbsent(day, d -> new LongAdder()).add(delta);
+                signupDelta += Math.abs(delta);
+            }
+        }
+
+        reconciledAt = Instant.now();
+        if (initialLoad) {
+            log.info("Loaded user statistics: {} users", snapshot(0).getTotal());
+            return 0;
+        }
+        if (remoteWrites) {
+            log.debug("Applied other nodes' user changes: {} in status/role counts, {} in signups", countDelta,
+                signupDelta);
+            return 0;
+        }
+        if (countDelta + signupDelta > 0) {
+            countDrift.increment(countDelta);
+            signupDrift.increment(signupDelta);
+            log.warn("Repaired user statistics drift: {} in status/role counts, {} in signups", countDelta,
+                signupDelta);
+        }
+        return countDelta + signupDelta;
+    }
+
+    /**
+     * Runs the change after commit while holding off a fenced recount from
+     * just before the commit, so the recount sees the write and its change
+     * together or neither. Runs it immediately outside a transaction.
+     */
+    private void applyAfterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean fenced;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                repairLock.readLock().lock();
+                fenced = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (fenced) {
+                    fenced = false;
+                    repairLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    private void apply(Status status, Role role, LocalDate signupDay, long delta) {
+        repairLock.readLock().lock();
+        try {
+            if (status != null && role != null) {
+                counts[status.ordinal()][role.ordinal()].add(delta);
+            }
+            if (signupDay != null && !signupDay.isBefore(LocalDate.now().minusDays(signupDays - 1))) {
+                signups.computeIfAbsent(signupDay, day -> new LongAdder()).add(delta);
+            }
+            changes.incrementAndGet();
+        } finally {
+            repairLock.readLock().unlock();
+        }
+    }
+
+    private static LocalDate signupDay(User user) {
+        LocalDateTime createdAt = user.getCreatedAt();
+        return createdAt == null ? LocalDate.now() : createdAt.toLocalDate();
+    }
+
+    private record Recount(List<Object[]> countRows, List<Object[]> signupRows, LocalDate oldestDay) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.banking.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows observed latency, AIMD style. Each
+ * completed call feeds its latency into a fast-moving average, which is
+ * compared with a slow-moving baseline. While the average stays within
+ * {@code tolerance} times the baseline, the limit grows by one per call made
+ * with at least half the limit in use. Once it exceeds that, the limit is cut
+ * by {@code backoffRatio}, at most once per average latency so that a single
+ * burst of slow calls counts as one signal.
+ * <p>
+ * The baseline takes in every sample, slowly, so a lasting change in service
+ * time becomes the new normal instead of holding the limit at its minimum.
+ */
+public class AdaptiveLimit {
+
+	private static final double RECENT_WEIGHT = 0.2;
+	private static final double BASELINE_WEIGHT = 0.01;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final double tolerance;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile int limit;
+
+	// Guarded by this
+	private double baselineNanos;
+	private double recentNanos;
+	private long lastDecreaseNanos;
+
+	public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance) {
+		if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("Expected 1 <= min <= initial <= max, got " + minLimit + ", "
+					+ initialLimit + ", " + maxLimit);
+		}
+		if (backoffRatio <= 0 || backoffRatio >= 1 || tolerance <= 1) {
+			throw new IllegalArgumentException("Backoff ratio must be in (0, 1) and tolerance above 1");
+		}
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoffRatio = backoffRatio;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @return whether the call may proceed; if so, {@link #release(long)} must
+	 *         follow
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	public void release(long latencyNanos) {
+		int inFlightAtCompletion = inFlight.getAndDecrement();
+		onSample(latencyNanos, inFlightAtCompletion, System.nanoTime());
+	}
+
+	/**
+	 * Releases without a sample, for calls that produced no latency worth
+	 * judging the limit by.
+	 */
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	public int limit() {
+		return limit;
+	}
+
+	public int inFlight() {
+		return inFlight.get();
+	}
+
+	synchronized void onSample(long latencyNanos, int inFlightAtCompletion, long now) {
+		if (baselineNanos == 0) {
+			baselineNanos = latencyNanos;
+			recentNanos = latencyNanos;
+			lastDecreaseNanos = now;
+			return;
+		}
+		recentNanos += (latencyNanos - recentNanos) * RECENT_WEIGHT;
+		baselineNanos += (latencyNanos - baselineNanos) * BASELINE_WEIGHT;
+		if (recentNanos > baselineNanos * tolerance) {
+			if (now - lastDecreaseNanos >= recentNanos) {
+				limit = Math.max(minLimit, (int) (limit * backoffRatio));
+				lastDecreaseNanos = now;
+			}
+		} else if (inFlightAtCompletion * 2 >= limit && limit < maxLimit) {
+			limit++;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.example.banking.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class Hashes {
+
+	private Hashes() {
+	}
+
+	public static byte[] sha256(byte[] data) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(data);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	public static String sha256Hex(byte[] data) {
+		return HexFormat.of().formatHex(sha256(data));
+	}
+
+	public static String sha256Hex(String data) {
+		return sha256Hex(data.getBytes(StandardCharsets.UTF_8));
+	}
+}
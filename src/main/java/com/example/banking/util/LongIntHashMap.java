@@ -0,0 +1,118 @@
+package com.example.banking.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from {@code long} keys to non-negative {@code int}
+ * values, with linear probing and backward-shift deletion so no boxed entries
+ * or tombstones are created. Not thread-safe.
+ */
+public class LongIntHashMap {
+
+	public static final int MISSING = -1;
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int resizeAt;
+
+	public LongIntHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) * 2 - 1);
+		allocate(capacity);
+	}
+
+	public int get(long key) {
+		int mask = keys.length - 1;
+		for (int i = index(key, mask);; i = (i + 1) & mask) {
+			int value = values[i];
+			if (value == MISSING || keys[i] == key) {
+				return value;
+			}
+		}
+	}
+
+	public void put(long key, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Values must be non-negative");
+		}
+		int mask = keys.length - 1;
+		int i = index(key, mask);
+		while (values[i] != MISSING && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (values[i] == MISSING) {
+			size++;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (size > resizeAt) {
+			resize();
+		}
+	}
+
+	public int remove(long key) {
+		int mask = keys.length - 1;
+		int i = index(key, mask);
+		while (values[i] != MISSING && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		int removed = values[i];
+		if (removed == MISSING) {
+			return MISSING;
+		}
+		size--;
+		// Shift later members of the probe chain back into the gap
+		int gap = i;
+		for (int j = (gap + 1) & mask; values[j] != MISSING; j = (j + 1) & mask) {
+			int home = index(keys[j], mask);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+		}
+		values[gap] = MISSING;
+		return removed;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long[] keys() {
+		long[] result = new long[size];
+		int n = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != MISSING) {
+				result[n++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != MISSING) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, MISSING);
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int index(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.banking.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Collects the SQL statements executed on the current thread while a
+ * {@link Recording} is open. Installed as a datasource-proxy listener (see
+ * {@code QueryCaptureConfig}), so it sees everything that reaches JDBC:
+ * Hibernate, Spring Data and {@code JdbcTemplate} alike, without relying on
+ * {@code show-sql}.
+ * <p>
+ * Recordings nest: a statement is added to every open recording on the
+ * thread, so a request-level recording still counts the statements of a
+ * narrower one opened inside it.
+ */
+public class QueryRecorder implements QueryExecutionListener {
+
+	private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Opens a recording on the current thread; close it to stop recording.
+	 */
+	public static Recording start() {
+		Recording recording = new Recording(CURRENT.get());
+		CURRENT.set(recording);
+		return recording;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+		Recording recording = CURRENT.get();
+		if (recording == null) {
+			return;
+		}
+		// A JDBC batch is one entry per distinct statement text
+		for (QueryInfo query : queries) {
+			recording.add(query.getQuery());
+		}
+	}
+
+	/**
+	 * The verb and main table of a statement, such as {@code select users} or
+	 * {@code insert invalidation_log}: stable across aliasing and column
+	 * changes, so tests can assert the shape of an operation's SQL.
+	 */
+	public static String shape(String sql) {
+		String[] tokens = sql.trim().toLowerCase(Locale.ROOT).split("[\\s(),]+");
+		if (tokens.length == 0) {
+			return "";
+		}
+		String verb = tokens[0];
+		String table = switch (verb) {
+			case "select", "delete" -> tokenAfter(tokens, "from");
+			case "insert", "merge" -> tokenAfter(tokens, "into");
+			case "update" -> tokens.length > 1 ? tokens[1] : null;
+			default -> null;
+		};
+		return table == null ? verb : verb + " " + table;
+	}
+
+	private static String tokenAfter(String[] tokens, String keyword) {
+		for (int i = 0; i < tokens.length - 1; i++) {
+			if (tokens[i].equals(keyword)) {
+				return tokens[i + 1];
+			}
+		}
+		return null;
+	}
+
+	public static final class Recording implements AutoCloseable {
+		private final Recording parent;
+		private final List<String> statements = new ArrayList<>();
+		private boolean closed;
+
+		private Recording(Recording parent) {
+			this.parent = parent;
+		}
+
+		private void add(String sql) {
+			for (Recording recording = this; recording != null; recording = recording.parent) {
+				if (!recording.closed) {
+					recording.statements.add(sql);
+				}
+			}
+		}
+
+		public List<String> statements() {
+			return List.copyOf(statements);
+		}
+
+		public int count() {
+			return statements.size();
+		}
+
+		public List<String> shapes() {
+			return statements.stream().map(QueryRecorder::shape).toList();
+		}
+
+		/**
+		 * Shapes by frequency, most frequent first, e.g.
+		 * {@code 12x select users, 1x update users}.
+		 */
+		public String summary() {
+			Map<String, Long> counts = shapes().stream()
+					.collect(Collectors.groupingBy(shape -> shape, LinkedHashMap::new, Collectors.counting()));
+			return counts.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+					.map(entry -> entry.getValue() + "x " + entry.getKey()).collect(Collectors.joining(", "));
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+			if (CURRENT.get() == this) {
+				if (parent == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(parent);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.banking.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer, after Dmitry
+ * Vyukov's bounded MPMC queue. Each slot carries a sequence number: a producer
+ * claims position {@code p} by CAS on the tail once the slot's sequence equals
+ * {@code p}, stores the element and publishes it by setting the sequence to
+ * {@code p + 1}; the consumer frees the slot for the next lap by setting it to
+ * {@code p + capacity}. A full buffer fails the offer instead of waiting.
+ */
+public class RingBuffer<T> {
+
+	private final AtomicReferenceArray<T> slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	public RingBuffer(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	public boolean offer(T element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long lag = sequences.get(index) - position;
+			if (lag == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (lag < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Moves up to {@code max} published elements into {@code target}. Must only
+	 * be called from the consumer thread.
+	 */
+	public int drainTo(List<? super T> target, int max) {
+		long position = head;
+		int drained = 0;
+		while (drained < max) {
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1) {
+				break;
+			}
+			target.add(slots.get(index));
+			slots.lazySet(index, null);
+			sequences.set(index, position + mask + 1);
+			position++;
+			drained++;
+		}
+		head = position;
+		return drained;
+	}
+
+	public int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+}
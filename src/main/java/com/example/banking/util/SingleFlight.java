@@ -0,0 +1,137 @@
+package com.example.banking.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Collapses concurrent calls for the same key onto a single execution of the
+ * loader and hands its result (or failure) to every waiter.
+ * <p>
+ * Results are never retained: the call is unregistered before it completes, so
+ * a caller arriving after the loader returned always triggers a fresh load and
+ * never sees data older than the start of a query that was in flight on arrival.
+ * Waiters give up on a call once its per-key deadline passes and load on their
+ * own thread instead.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+
+	private final String name;
+	private final Duration timeout;
+	private final ConcurrentMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+	private final LongAdder executions = new LongAdder();
+	private final LongAdder collapsed = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+
+	public SingleFlight(String name, Duration timeout) {
+		this.name = name;
+		this.timeout = timeout;
+	}
+
+	public V execute(K key, Supplier<V> loader) {
+		return execute(key, timeout, loader);
+	}
+
+	public V execute(K key, Duration keyTimeout, Supplier<V> loader) {
+		Call<V> call = new Call<>(System.nanoTime() + keyTimeout.toNanos());
+		while (true) {
+			Call<V> existing = calls.putIfAbsent(key, call);
+			if (existing == null) {
+				return runAsLeader(key, call, loader);
+			}
+			long remaining = existing.deadline - System.nanoTime();
+			if (remaining <= 0) {
+				if (calls.replace(key, existing, call)) {
+					return runAsLeader(key, call, loader);
+				}
+				continue;
+			}
+			collapsed.increment();
+			return await(existing, remaining, loader);
+		}
+	}
+
+	/**
+	 * Detaches any in-flight call for the key so later callers start a new load.
+	 * Used after writes so readers never join a query that predates the write.
+	 */
+	public void forget(K key) {
+		calls.remove(key);
+	}
+
+	public long collapsedCount() {
+		return collapsed.sum();
+	}
+
+	public long executionCount() {
+		return executions.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("singleflight.executions", executions, LongAdder::sum)
+				.tag("name", name).description("Loader executions").register(registry);
+		FunctionCounter.builder("singleflight.collapsed", collapsed, LongAdder::sum)
+				.tag("name", name).description("Calls served by another caller's in-flight load").register(registry);
+		FunctionCounter.builder("singleflight.timeouts", timeouts, LongAdder::sum)
+				.tag("name", name).description("Waiters that gave up on an in-flight load").register(registry);
+		Gauge.builder("singleflight.inflight", calls, ConcurrentMap::size)
+				.tag("name", name).register(registry);
+	}
+
+	private V runAsLeader(K key, Call<V> call, Supplier<V> loader) {
+		executions.increment();
+		V value;
+		try {
+			value = loader.get();
+		} catch (RuntimeException | Error e) {
+			calls.remove(key, call);
+			call.future.completeExceptionally(e);
+			throw e;
+		}
+		calls.remove(key, call);
+		call.future.complete(value);
+		return value;
+	}
+
+	private V await(Call<V> call, long remainingNanos, Supplier<V> loader) {
+		try {
+			return call.future.get(remainingNanos, TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		} catch (TimeoutException e) {
+			timeouts.increment();
+			return loader.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for " + name + " lookup", e);
+		}
+	}
+
+	private static final class Call<V> {
+		private final CompletableFuture<V> future = new CompletableFuture<>();
+		private final long deadline;
+
+		private Call(long deadline) {
+			this.deadline = deadline;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.banking.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mean duration, in nanoseconds, of everything recorded by the timers of one
+ * name, across all their tags, since the previous call; -1 when nothing was
+ * recorded in between. Relies on cumulative timer counts, so it reads the
+ * application's composite registry rather than a step-based one.
+ */
+public class TimerWindow implements LongSupplier {
+
+	private final MeterRegistry registry;
+	private final String name;
+
+	// Guarded by this
+	private long lastCount;
+	private double lastTotalNanos;
+
+	public TimerWindow(MeterRegistry registry, String name) {
+		this.registry = registry;
+		this.name = name;
+	}
+
+	@Override
+	public synchronized long getAsLong() {
+		long count = 0;
+		double totalNanos = 0;
+		for (Timer timer : registry.find(name).timers()) {
+			count += timer.count();
+			totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+		}
+		long recorded = count - lastCount;
+		double elapsed = totalNanos - lastTotalNanos;
+		lastCount = count;
+		lastTotalNanos = totalNanos;
+		return recorded <= 0 ? -1 : (long) (elapsed / recorded);
+	}
+}
@@ -0,0 +1,153 @@
+package com.example.banking.web;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.task.TaskDecorator;
+
+import com.example.banking.util.AdaptiveLimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * An endpoint group with its own share of the server: an adaptive limit on
+ * requests in flight and a fixed budget of pooled database connections.
+ * {@link BulkheadFilter} admits requests and binds the group to the request
+ * thread, where {@code BulkheadDataSource} charges connections to it. Work
+ * handed to an executor is bound through {@link #taskDecorator()}.
+ */
+public class Bulkhead {
+
+	public enum Rejection {
+		CONCURRENCY, CONNECTIONS
+	}
+
+	private static final ThreadLocal<Bulkhead> CURRENT = new ThreadLocal<>();
+
+	private final String name;
+	private final List<String> pathPrefixes;
+	private final AdaptiveLimit limit;
+	private final int connectionBudget;
+	private final Semaphore connections;
+	private final long connectionWaitNanos;
+	private final Counter concurrencyRejections;
+	private final Counter connectionRejections;
+	private final Timer latency;
+
+	/**
+	 * @param connectionBudget connections the group may hold at once; 0 for
+	 *                         no budget
+	 */
+	public Bulkhead(String name, List<String> pathPrefixes, AdaptiveLimit limit, int connectionBudget,
+			Duration connectionWait, MeterRegistry meterRegistry) {
+		this.name = name;
+		this.pathPrefixes = List.copyOf(pathPrefixes);
+		this.limit = limit;
+		this.connectionBudget = connectionBudget;
+		this.connections = connectionBudget > 0 ? new Semaphore(connectionBudget, true) : null;
+		this.connectionWaitNanos = connectionWait.toNanos();
+		this.concurrencyRejections = Counter.builder("bulkhead.rejected").tag("group", name)
+				.tag("reason", "concurrency").register(meterRegistry);
+		this.connectionRejections = Counter.builder("bulkhead.rejected").tag("group", name)
+				.tag("reason", "connections").register(meterRegistry);
+		this.latency = Timer.builder("bulkhead.latency").tag("group", name).publishPercentiles(0.5, 0.99)
+				.register(meterRegistry);
+		Gauge.builder("bulkhead.limit", limit, AdaptiveLimit::limit).tag("group", name).register(meterRegistry);
+		Gauge.builder("bulkhead.in.flight", limit, AdaptiveLimit::inFlight).tag("group", name)
+				.register(meterRegistry);
+		if (connections != null) {
+			Gauge.builder("bulkhead.connections.available", connections, Semaphore::availablePermits)
+					.tag("group", name).register(meterRegistry);
+		}
+	}
+
+	/**
+	 * The group of the request being served on this thread, if any.
+	 */
+	public static Bulkhead current() {
+		return CURRENT.get();
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public boolean matches(String path) {
+		return pathPrefixes.stream().anyMatch(path::startsWith);
+	}
+
+	public AdaptiveLimit limit() {
+		return limit;
+	}
+
+	/**
+	 * @return connections the group may hold at once; 0 for no budget
+	 */
+	public int connectionBudget() {
+		return connectionBudget;
+	}
+
+	/**
+	 * Binds this group around each task, so connections opened by work the
+	 * group hands to an executor are charged to its budget.
+	 */
+	public TaskDecorator taskDecorator() {
+		return task -> () -> {
+			bind();
+			try {
+				task.run();
+			} finally {
+				unbind();
+			}
+		};
+	}
+
+	/**
+	 * Waits up to the configured time for a connection permit.
+	 */
+	public boolean tryAcquireConnection() throws InterruptedException {
+		return connections == null || connections.tryAcquire(connectionWaitNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void releaseConnection() {
+		if (connections != null) {
+			connections.release();
+		}
+	}
+
+	void bind() {
+		CURRENT.set(this);
+	}
+
+	void unbind() {
+		CURRENT.remove();
+	}
+
+	boolean tryEnter() {
+		return limit.tryAcquire();
+	}
+
+	void exit(long latencyNanos) {
+		limit.release(latencyNanos);
+		latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+	}
+
+	void rejected(Rejection reason) {
+		(reason == Rejection.CONCURRENCY ? concurrencyRejections : connectionRejections).increment();
+	}
+
+	/**
+	 * A group's connection budget stayed exhausted for the whole wait.
+	 */
+	public static class ConnectionBudgetExceededException extends SQLTransientConnectionException {
+		public ConnectionBudgetExceededException(String group) {
+			super("Connection budget of bulkhead " + group + " exhausted");
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.banking.web;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.banking.web.Bulkhead.ConnectionBudgetExceededException;
+import com.example.banking.web.Bulkhead.Rejection;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+
+/**
+ * Admits each request into the {@link Bulkhead} of its endpoint group, or
+ * answers 503 at once when the group is at its limit. Requests whose group
+ * runs out of database connections are answered the same way if nothing has
+ * been written yet. Runs before the security chain so that shed requests
+ * cost no authentication work.
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+	private final List<Bulkhead> bulkheads;
+
+	public BulkheadFilter(List<Bulkhead> bulkheads) {
+		this.bulkheads = List.copyOf(bulkheads);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		return bulkhead(request) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		Bulkhead bulkhead = bulkhead(request);
+		if (!bulkhead.tryEnter()) {
+			shed(response, bulkhead, Rejection.CONCURRENCY);
+			return;
+		}
+		long started = System.nanoTime();
+		boolean async = false;
+		bulkhead.bind();
+		try {
+			filterChain.doFilter(request, response);
+			async = request.isAsyncStarted();
+		} catch (IOException | ServletException | RuntimeException e) {
+			if (!isBudgetExceeded(e) || response.isCommitted()) {
+				throw e;
+			}
+			response.reset();
+			shed(response, bulkhead, Rejection.CONNECTIONS);
+		} finally {
+			bulkhead.unbind();
+			if (async) {
+				request.getAsyncContext().addListener(new ExitOnCompletion(bulkhead, started));
+			} else {
+				bulkhead.exit(System.nanoTime() - started);
+			}
+		}
+	}
+
+	private Bulkhead bulkhead(HttpServletRequest request) {
+		String path = request.getServletPath();
+		for (Bulkhead bulkhead : bulkheads) {
+			if (bulkhead.matches(path)) {
+				return bulkhead;
+			}
+		}
+		return null;
+	}
+
+	private static void shed(HttpServletResponse response, Bulkhead bulkhead, Rejection reason) throws IOException {
+		bulkhead.rejected(reason);
+		response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+		response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+		response.getWriter().write("Overloaded, retry later");
+	}
+
+	private static boolean isBudgetExceeded(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectionBudgetExceededException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Async requests leave the bulkhead when they complete, not when the
+	 * initial dispatch returns.
+	 */
+	private record ExitOnCompletion(Bulkhead bulkhead, long started) implements AsyncListener {
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			bulkhead.exit(System.nanoTime() - started);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+	}
+}
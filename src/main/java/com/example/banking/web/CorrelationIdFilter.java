@@ -0,0 +1,43 @@
+package com.example.banking.web;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+
+/**
+ * Tags every log line written while serving a request with a correlation id:
+ * the caller's {@code X-Request-Id} if it is a plausible id, a new one
+ * otherwise. The id is echoed in the response so clients can quote it.
+ */
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "X-Request-Id";
+	public static final String MDC_KEY = "correlationId";
+
+	private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		String id = request.getHeader(HEADER);
+		if (id == null || !VALID_ID.matcher(id).matches()) {
+			id = UUID.randomUUID().toString();
+		}
+		response.setHeader(HEADER, id);
+		MDC.put(MDC_KEY, id);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			MDC.remove(MDC_KEY);
+		}
+	}
+}
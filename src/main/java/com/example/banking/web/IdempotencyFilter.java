@@ -0,0 +1,169 @@
+package com.example.banking.web;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.banking.exception.IdempotencyConflictException;
+import com.example.banking.service.IdempotencyService;
+import com.example.banking.service.IdempotencyService.Claim;
+import com.example.banking.service.IdempotencyService.StoredResponse;
+import com.example.banking.util.Hashes;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Replays the stored response for retried creation requests that carry an
+ * {@code Idempotency-Key} header. Runs after the security filter chain so that
+ * keys are scoped to the authenticated caller.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 255;
+	private static final Set<String> IDEMPOTENT_PATHS = Set.of(
+			"/api/v1/auth/register", "/api/v1/users");
+
+	private final IdempotencyService idempotencyService;
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		return !HttpMethod.POST.matches(request.getMethod())
+				|| request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+				|| !IDEMPOTENT_PATHS.contains(request.getServletPath());
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+		if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid Idempotency-Key header");
+			return;
+		}
+
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		String requestHash = Hashes.sha256Hex(body);
+		String id = idempotencyService.scopedKey(currentPrincipal(), request.getServletPath(), key);
+
+		Claim claim;
+		try {
+			claim = idempotencyService.claim(id);
+		} catch (IdempotencyConflictException e) {
+			response.sendError(HttpStatus.CONFLICT.value(), e.getMessage());
+			return;
+		}
+
+		if (!claim.isLeader()) {
+			replay(claim.response(), requestHash, response);
+			return;
+		}
+
+		ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+		try {
+			filterChain.doFilter(new CachedBodyRequest(request, body), wrappedResponse);
+		} catch (IOException | ServletException | RuntimeException e) {
+			idempotencyService.abandon(claim, e);
+			throw e;
+		}
+		idempotencyService.complete(claim, idempotencyService.newResponse(requestHash, wrappedResponse.getStatus(),
+				wrappedResponse.getContentType(), wrappedResponse.getContentAsByteArray()));
+		wrappedResponse.copyBodyToResponse();
+	}
+
+	private void replay(StoredResponse stored, String requestHash, HttpServletResponse response) throws IOException {
+		if (!stored.requestHash().equals(requestHash)) {
+			response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+					"Idempotency-Key was already used with a different request body");
+			return;
+		}
+		byte[] body = stored.body();
+		response.setStatus(stored.status());
+		if (stored.contentType() != null) {
+			response.setContentType(stored.contentType());
+		}
+		response.setHeader(REPLAYED_HEADER, "true");
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	private static String currentPrincipal() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null ? null : authentication.getName();
+	}
+
+	private static class CachedBodyRequest extends HttpServletRequestWrapper {
+		private final byte[] body;
+
+		CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream in = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener listener) {
+					// The whole body is already in memory, so it is available at once
+					try {
+						listener.onDataAvailable();
+						listener.onAllDataRead();
+					} catch (IOException e) {
+						listener.onError(e);
+					}
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.example.banking.web;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.banking.util.QueryRecorder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+
+/**
+ * Counts the SQL statements each request issues and logs the requests that
+ * go over the budget, with a summary of their statement shapes. Only
+ * statements on the request thread are counted. Registered by
+ * {@code QueryCaptureConfig} when capture is enabled and the budget is
+ * positive.
+ */
+public class QueryBudgetFilter extends OncePerRequestFilter {
+	private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+	private final int budget;
+	private final DistributionSummary statementsPerRequest;
+	private final Counter overBudget;
+
+	public QueryBudgetFilter(int budget, MeterRegistry meterRegistry) {
+		this.budget = budget;
+		this.statementsPerRequest = DistributionSummary.builder("sql.statements.per.request")
+				.register(meterRegistry);
+		this.overBudget = Counter.builder("sql.budget.exceeded").register(meterRegistry);
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		try (QueryRecorder.Recording recording = QueryRecorder.start()) {
+			try {
+				filterChain.doFilter(request, response);
+			} finally {
+				int count = recording.count();
+				statementsPerRequest.record(count);
+				if (count > budget) {
+					overBudget.increment();
+					log.warn("{} {} issued {} SQL statements, over the budget of {}: {}", request.getMethod(),
+							request.getRequestURI(), count, budget, recording.summary());
+				}
+			}
+		}
+	}
+}
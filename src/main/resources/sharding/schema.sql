@@ -0,0 +1,26 @@
+CREATE SEQUENCE IF NOT EXISTS user_id_seq;
+
+CREATE TABLE IF NOT EXISTS users (
+	user_id BIGINT PRIMARY KEY,
+	username VARCHAR(50) NOT NULL,
+	firstname VARCHAR(255),
+	lastname VARCHAR(255),
+	password VARCHAR(255) NOT NULL,
+	email VARCHAR(100) NOT NULL,
+	phone VARCHAR(20) NOT NULL,
+	role VARCHAR(20) NOT NULL,
+	status VARCHAR(20) NOT NULL,
+	created_at TIMESTAMP NOT NULL,
+	updated_at TIMESTAMP NOT NULL,
+	version BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_created_at ON users (created_at);
+
+CREATE TABLE IF NOT EXISTS user_directory (
+	kind VARCHAR(10) NOT NULL,
+	lookup_key VARCHAR(100) NOT NULL,
+	user_id BIGINT NOT NULL,
+	claimed_at TIMESTAMP NOT NULL,
+	PRIMARY KEY (kind, lookup_key)
+);
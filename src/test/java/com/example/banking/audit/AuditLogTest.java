@@ -0,0 +1,164 @@
+package com.example.banking.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.banking.util.RingBuffer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogTest {
+
+	private static final Logger log = LoggerFactory.getLogger(AuditLogTest.class);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<List<AuditRecord>> batches = new CopyOnWriteArrayList<>();
+
+	@Test
+	void ringBufferHandsEveryRecordToTheConsumerOnce() throws Exception {
+		RingBuffer<AuditRecord> buffer = new RingBuffer<>(1024);
+		int producers = 4;
+		int perProducer = 50_000;
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch done = new CountDownLatch(producers);
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			executor.execute(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					AuditRecord record = new AuditRecord(null, AuditEventType.LOGIN_SUCCEEDED,
+							producer * perProducer + i, null, null);
+					while (!buffer.offer(record)) {
+						Thread.onSpinWait();
+					}
+				}
+				done.countDown();
+			});
+		}
+		Set<Long> seen = new HashSet<>();
+		List<AuditRecord> drained = new ArrayList<>();
+		while (seen.size() < producers * perProducer) {
+			buffer.drainTo(drained, 256);
+			for (AuditRecord record : drained) {
+				assertTrue(seen.add(record.userId()));
+			}
+			drained.clear();
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	void closeFlushesEverythingRecordedInBatches() {
+		AuditLog auditLog = auditLog(4096, 100, AuditLog.OverflowPolicy.DROP, batches::add);
+		for (int i = 0; i < 1_000; i++) {
+			auditLog.record(AuditEventType.LOGIN_FAILED, null, "user" + i + "@example.com", "BadCredentialsException");
+		}
+		auditLog.close();
+
+		assertEquals(1_000, batches.stream().mapToInt(List::size).sum());
+		assertTrue(batches.stream().allMatch(batch -> batch.size() <= 100));
+		assertEquals(1_000, registry.get("audit.events").tag("outcome", "written").counter().count());
+	}
+
+	@Test
+	void dropsAndCountsWhenTheBufferIsFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AuditLog auditLog = auditLog(16, 16, AuditLog.OverflowPolicy.DROP, batch -> {
+			await(release);
+			batches.add(batch);
+		});
+		for (int i = 0; i < 100; i++) {
+			auditLog.record(AuditEventType.USER_SUSPENDED, (long) i, "admin", null);
+		}
+		double dropped = registry.get("audit.events").tag("outcome", "dropped").counter().count();
+		release.countDown();
+		auditLog.close();
+
+		// The writer may hold one batch while blocked, so up to 32 fit
+		assertTrue(dropped >= 100 - 32);
+		assertEquals(100 - dropped, batches.stream().mapToInt(List::size).sum());
+	}
+
+	@Test
+	void retriesAFailedBatch() {
+		int[] calls = {0};
+		AuditLog auditLog = auditLog(64, 64, AuditLog.OverflowPolicy.BLOCK, batch -> {
+			if (calls[0]++ == 0) {
+				throw new IllegalStateException("database unavailable");
+			}
+			batches.add(batch);
+		});
+		auditLog.record(AuditEventType.USER_DELETED, 7L, "admin", null);
+		auditLog.close();
+
+		assertEquals(1, batches.size());
+		assertFalse(batches.get(0).isEmpty());
+		assertEquals(0, registry.get("audit.events").tag("outcome", "failed").counter().count());
+	}
+
+	@Test
+	@Tag("benchmark")
+	void recordAddsWellUnderTenMicroseconds() throws Exception {
+		AuditLog auditLog = auditLog(65_536, 1_000, AuditLog.OverflowPolicy.DROP, batch -> {
+		});
+		int threads = 4;
+		int perThread = 2_000_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Long> nanos = new CopyOnWriteArrayList<>();
+		try {
+			for (int t = 0; t < threads; t++) {
+				executor.execute(() -> {
+					long started = System.nanoTime();
+					for (int i = 0; i < perThread; i++) {
+						auditLog.record(AuditEventType.LOGIN_SUCCEEDED, (long) i, "user@example.com", null);
+					}
+					nanos.add(System.nanoTime() - started);
+				});
+			}
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		} finally {
+			executor.shutdownNow();
+			auditLog.close();
+		}
+		double meanNanos = nanos.stream().mapToLong(Long::longValue).sum() / (double) (threads * perThread);
+		double recorded = registry.get("audit.events").tag("outcome", "recorded").counter().count();
+		double dropped = registry.get("audit.events").tag("outcome", "dropped").counter().count();
+		log.info("records={} mean={}ns recorded={} dropped={}", threads * perThread, Math.round(meanNanos), recorded,
+				dropped);
+		assertEquals(threads, nanos.size());
+		assertEquals(threads * perThread, recorded + dropped);
+		assertTrue(meanNanos < 2_000, "record took " + meanNanos + "ns on average");
+	}
+
+	private AuditLog auditLog(int capacity, int batchSize, AuditLog.OverflowPolicy policy, AuditSink sink) {
+		return new AuditLog(sink, capacity, batchSize, policy, Duration.ofMillis(5), Duration.ofMillis(1),
+				Duration.ofSeconds(10), registry);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package com.example.banking.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Status;
+import com.example.banking.ledger.LedgerEngine;
+import com.example.banking.ledger.LedgerJournal;
+import com.example.banking.ledger.Posting;
+import com.example.banking.ledger.TransferEngine;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EndOfDayJobTest {
+
+	private static final Logger log = LoggerFactory.getLogger(EndOfDayJobTest.class);
+
+	private static final long FEE_ACCOUNT = 999;
+	private static final LocalDate FEE_DAY = LocalDate.of(2024, 3, 1);
+
+	@TempDir
+	Path directory;
+
+	private final List<AutoCloseable> resources = new ArrayList<>();
+	private JdbcTemplate jdbcTemplate;
+	private LedgerEngine ledgerEngine;
+	private TransferEngine transferEngine;
+	private SimpleMeterRegistry registry;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		for (int i = resources.size() - 1; i >= 0; i--) {
+			resources.get(i).close();
+		}
+		resources.clear();
+	}
+
+	@Test
+	void accruesInterestChargesFeesAndFlagsDormantAccounts() {
+		setUp(10);
+		user(1, Status.ACTIVE);
+		user(2, Status.INACTIVE);
+		account(1, 1, 1_000_000);
+		account(2, 2, 5_000);
+		account(3, 1, 0);
+		account(FEE_ACCOUNT, 1, 0);
+		EndOfDayJob job = job(100, 2);
+
+		EndOfDayJob.RunSummary summary = job.run(FEE_DAY);
+
+		// 365 bps a year is 1 bp a day, 100 micro-units per minor unit
+		assertEquals(100_000_000L, result(1, "interest_micros"));
+		assertEquals(250L, result(1, "fee"));
+		assertEquals(0L, result(3, "fee"));
+		assertEquals(999_750, ledgerEngine.balance(1));
+		assertEquals(250, ledgerEngine.balance(FEE_ACCOUNT));
+		assertEquals(5_000, ledgerEngine.balance(2));
+		assertTrue(jdbcTemplate.queryForObject("SELECT dormant FROM accounts WHERE account_id = 2", Boolean.class));
+		assertFalse(jdbcTemplate.queryForObject("SELECT dormant FROM accounts WHERE account_id = 1", Boolean.class));
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eod_account_results", Integer.class));
+		assertEquals(4, summary.accounts());
+		assertEquals(0, job.run(FEE_DAY).partitions());
+	}
+
+	@Test
+	void resumesFromLastFinishedPartitionWithoutChargingTwice() {
+		setUp(10);
+		user(1, Status.ACTIVE);
+		for (long id = 1; id <= 100; id++) {
+			account(id, 1, 1_000);
+		}
+		account(FEE_ACCOUNT, 1, 0);
+		EndOfDayJob job = job(10, 4);
+		job.run(FEE_DAY);
+
+		// Pretend the run died after its first six partitions
+		jdbcTemplate.update("DELETE FROM eod_partitions WHERE partition_no >= 6");
+		jdbcTemplate.update("DELETE FROM eod_account_results WHERE account_id > 60 AND account_id <= 100");
+		jdbcTemplate.update("UPDATE eod_runs SET status = 'RUNNING', finished_at = NULL");
+
+		assertEquals(List.of(FEE_DAY), job.unfinishedRuns());
+		EndOfDayJob.RunSummary resumed = job.run(FEE_DAY);
+
+		assertEquals(6, resumed.resumedPartitions());
+		assertEquals(41, resumed.accounts());
+		assertEquals(100, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eod_account_results WHERE fee = 250",
+				Integer.class));
+		assertEquals(100 * 250, ledgerEngine.balance(FEE_ACCOUNT));
+		assertTrue(job.unfinishedRuns().isEmpty());
+	}
+
+	@Test
+	void doesNotChargeTwiceAfterTheTransferEngineForgetsFeeIds() {
+		setUp(10);
+		user(1, Status.ACTIVE);
+		for (long id = 1; id <= 100; id++) {
+			account(id, 1, 1_000);
+		}
+		account(FEE_ACCOUNT, 1, 0);
+		job(10, 4).run(FEE_DAY);
+
+		// The run died after its transfers posted but before the last partitions committed
+		jdbcTemplate.update("DELETE FROM eod_partitions WHERE partition_no >= 6");
+		jdbcTemplate.update("DELETE FROM eod_account_results WHERE account_id > 60 AND account_id <= 100");
+		jdbcTemplate.update("UPDATE eod_fees SET status = 'PENDING' WHERE account_id > 60 AND account_id <= 100");
+		jdbcTemplate.update("UPDATE eod_runs SET status = 'RUNNING', finished_at = NULL");
+		// and was resumed by a process that no longer remembers the fee transfer ids
+		transferEngine = new TransferEngine(ledgerEngine, 4, 256, Duration.ofDays(2), new SimpleMeterRegistry());
+		transferEngine.start();
+		resources.add(transferEngine);
+
+		EndOfDayJob.RunSummary resumed = job(10, 4).run(FEE_DAY);
+
+		assertEquals(41, resumed.accounts());
+		assertEquals(100 * 250, ledgerEngine.balance(FEE_ACCOUNT));
+		assertEquals(100, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eod_account_results WHERE fee = 250",
+				Integer.class));
+		assertEquals(100, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eod_fees WHERE status = 'CHARGED'",
+				Integer.class));
+	}
+
+	@Test
+	void waivedFeesAreNotRetried() {
+		setUp(10);
+		user(1, Status.ACTIVE);
+		account(1, 1, 100);
+		account(FEE_ACCOUNT, 1, 0);
+		EndOfDayJob job = job(10, 1);
+		job.run(FEE_DAY);
+		ledgerEngine.registerAccount(1, "EUR", 1_000);
+
+		jdbcTemplate.update("DELETE FROM eod_partitions");
+		jdbcTemplate.update("DELETE FROM eod_account_results");
+		jdbcTemplate.update("UPDATE eod_runs SET status = 'RUNNING', finished_at = NULL");
+		job.run(FEE_DAY);
+
+		assertEquals("WAIVED", jdbcTemplate.queryForObject("SELECT status FROM eod_fees WHERE account_id = 1",
+				String.class));
+		assertEquals(0, ledgerEngine.balance(FEE_ACCOUNT));
+		assertEquals(0L, result(1, "fee"));
+	}
+
+	@Test
+	@Tag("benchmark")
+	void throughputScalesWithWorkers() {
+		int accounts = 500_000;
+		setUp(20);
+		user(1, Status.ACTIVE);
+		List<Object[]> rows = new ArrayList<>(accounts);
+		for (long id = 1; id <= accounts; id++) {
+			rows.add(new Object[] {id, 1});
+			ledgerEngine.registerAccount(id, "EUR", 10_000 + id);
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO accounts (account_id, user_id, currency, dormant) "
+				+ "VALUES (?, ?, 'EUR', FALSE)", rows);
+
+		LocalDate businessDate = LocalDate.of(2024, 6, 2);
+		double single = 0;
+		double best = 0;
+		for (int parallelism : new int[] {1, 2, 4, 8, 16}) {
+			EndOfDayJob.RunSummary summary = job(10_000, parallelism).run(businessDate);
+			double throughput = summary.accounts() / (summary.elapsed().toNanos() / 1e9);
+			log.info("workers={} accounts={} time={}ms throughput={} accounts/s", parallelism, summary.accounts(),
+					summary.elapsed().toMillis(), Math.round(throughput));
+			assertEquals(accounts, summary.accounts());
+			if (parallelism == 1) {
+				single = throughput;
+			} else {
+				best = Math.max(best, throughput);
+			}
+			businessDate = businessDate.plusDays(1);
+		}
+		if (Runtime.getRuntime().availableProcessors() >= 4) {
+			assertTrue(best > single * 1.5, "parallel runs should beat one worker: " + best + " vs " + single);
+		}
+	}
+
+	private void setUp(int poolSize) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:file:" + directory.resolve("eod") + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		dataSource.setMaximumPoolSize(poolSize);
+		resources.add(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, status TINYINT)");
+		jdbcTemplate.execute("CREATE TABLE accounts (account_id BIGINT PRIMARY KEY, user_id BIGINT, "
+				+ "currency VARCHAR(3), dormant BOOLEAN)");
+		jdbcTemplate.execute("CREATE TABLE eod_runs (business_date DATE PRIMARY KEY, status VARCHAR(16), "
+				+ "first_account_id BIGINT, last_account_id BIGINT, partition_size INT, started_at TIMESTAMP, "
+				+ "finished_at TIMESTAMP)");
+		jdbcTemplate.execute("CREATE TABLE eod_partitions (id BIGINT AUTO_INCREMENT PRIMARY KEY, business_date DATE, "
+				+ "partition_no INT, accounts INT, duration_ms BIGINT, finished_at TIMESTAMP, "
+				+ "UNIQUE (business_date, partition_no))");
+		jdbcTemplate.execute("CREATE TABLE eod_account_results (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "business_date DATE, account_id BIGINT, balance BIGINT, interest_micros BIGINT, fee BIGINT, "
+				+ "UNIQUE (business_date, account_id))");
+		jdbcTemplate.execute("CREATE TABLE eod_fees (id BIGINT AUTO_INCREMENT PRIMARY KEY, business_date DATE, "
+				+ "account_id BIGINT, transfer_id VARCHAR(36), status VARCHAR(16), updated_at TIMESTAMP, "
+				+ "UNIQUE (business_date, account_id))");
+		jdbcTemplate.execute("CREATE TABLE ledger_entries (entry_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "sequence BIGINT, account_id BIGINT, amount BIGINT, transfer_id VARCHAR(36))");
+
+		registry = new SimpleMeterRegistry();
+		LedgerJournal journal = new LedgerJournal(directory.resolve("journal-" + UUID.randomUUID()), 64 * 1024 * 1024);
+		journal.recover(posting -> {
+		});
+		ledgerEngine = new LedgerEngine(journal, this::project, registry);
+		ledgerEngine.start(1);
+		resources.add(ledgerEngine);
+		transferEngine = new TransferEngine(ledgerEngine, 4, 256, Duration.ofDays(2), registry);
+		transferEngine.start();
+		resources.add(transferEngine);
+	}
+
+	private void project(Posting posting) {
+		List<Object[]> entries = new ArrayList<>(posting.legs().size());
+		for (Posting.Leg leg : posting.legs()) {
+			entries.add(new Object[] {posting.sequence(), leg.accountId(), leg.amount(), posting.transferId().toString()});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO ledger_entries (sequence, account_id, amount, transfer_id) "
+				+ "VALUES (?, ?, ?, ?)", entries);
+	}
+
+	private EndOfDayJob job(int partitionSize, int parallelism) {
+		return new EndOfDayJob(jdbcTemplate,
+				new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())), ledgerEngine,
+				transferEngine, new EndOfDayJob.Settings(partitionSize, parallelism, 500, 365, 250, FEE_ACCOUNT),
+				registry);
+	}
+
+	private void user(long userId, Status status) {
+		jdbcTemplate.update("INSERT INTO users (user_id, status) VALUES (?, ?)", userId, status.ordinal());
+	}
+
+	private void account(long accountId, long userId, long balance) {
+		jdbcTemplate.update("INSERT INTO accounts (account_id, user_id, currency, dormant) VALUES (?, ?, 'EUR', FALSE)",
+				accountId, userId);
+		ledgerEngine.registerAccount(accountId, "EUR", balance);
+	}
+
+	private long result(long accountId, String column) {
+		return jdbcTemplate.queryForObject("SELECT " + column + " FROM eod_account_results WHERE account_id = ?",
+				Long.class, accountId);
+	}
+}
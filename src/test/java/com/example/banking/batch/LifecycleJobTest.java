@@ -0,0 +1,315 @@
+package com.example.banking.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LifecycleJobTest {
+
+	private static final Logger log = LoggerFactory.getLogger(LifecycleJobTest.class);
+
+	private static final LongSupplier NO_LIVE_TRAFFIC = () -> -1;
+
+	@TempDir
+	Path directory;
+
+	private HikariDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private SimpleMeterRegistry registry;
+	private final List<LifecycleJob.SweptUser> swept = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:file:" + directory.resolve("lifecycle") + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		dataSource.setMaximumPoolSize(10);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, email VARCHAR(100), role TINYINT, "
+				+ "status TINYINT, email_verified_at TIMESTAMP, kyc_expires_at DATE, created_at TIMESTAMP, "
+				+ "updated_at TIMESTAMP, version BIGINT)");
+		jdbcTemplate.execute("CREATE TABLE accounts (account_id BIGINT PRIMARY KEY, user_id BIGINT)");
+		jdbcTemplate.execute("CREATE TABLE password_reset_tokens (id BIGINT PRIMARY KEY, user_id BIGINT)");
+		jdbcTemplate.execute("CREATE TABLE lifecycle_job_runs (job_name VARCHAR(64) PRIMARY KEY, status VARCHAR(16), "
+				+ "as_of TIMESTAMP, last_user_id BIGINT, users BIGINT, started_at TIMESTAMP, finished_at TIMESTAMP, "
+				+ "heartbeat_at TIMESTAMP, claim_token VARCHAR(36))");
+		registry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void tearDown() {
+		dataSource.close();
+	}
+
+	@Test
+	void activatesVerifiedInactiveUsersInParallelChunks() {
+		for (long id = 1; id <= 50; id++) {
+			user(id, id % 5 == 0 ? Status.ACTIVE : Status.INACTIVE, id % 2 == 0, null, 0);
+		}
+		LifecycleJob job = job(LifecycleSweep.activateVerified(), 4, 3, NO_LIVE_TRAFFIC);
+
+		LifecycleJob.RunSummary summary = job.run();
+
+		// Even ids are verified; the multiples of ten among them were already active
+		assertEquals(20, summary.users());
+		assertEquals(20, swept.size());
+		assertEquals(25, count("status = " + Status.ACTIVE.ordinal()));
+		assertEquals(20, count("version = 1"));
+		assertTrue(swept.stream().allMatch(user -> user.status() == Status.INACTIVE && user.userId() % 2 == 0));
+		assertEquals("COMPLETED", jdbcTemplate.queryForObject("SELECT status FROM lifecycle_job_runs", String.class));
+		assertEquals(20.0, registry.get("lifecycle.users").tag("job", "activate-verified").counter().count());
+		assertFalse(job.unfinished());
+		assertEquals(0, job.run().users());
+	}
+
+	@Test
+	void suspendsExpiredKycAndPurgesOnlyOldUnverifiedUsersWithoutAccounts() {
+		LocalDate today = LocalDate.now();
+		user(1, Status.ACTIVE, true, today.minusDays(1), 0);
+		user(2, Status.ACTIVE, true, today.plusDays(1), 0);
+		user(3, Status.INACTIVE, false, null, 60);
+		user(4, Status.INACTIVE, false, null, 60);
+		user(5, Status.INACTIVE, false, null, 5);
+		user(6, Status.SUSPENDED, false, null, 60);
+		// Registered before verification was recorded
+		user(7, Status.INACTIVE, false, null, 120);
+		jdbcTemplate.update("INSERT INTO accounts (account_id, user_id) VALUES (1, 4)");
+		jdbcTemplate.update("INSERT INTO password_reset_tokens (id, user_id) VALUES (1, 3)");
+
+		job(LifecycleSweep.suspendExpiredKyc(), 10, 2, NO_LIVE_TRAFFIC).run();
+		job(LifecycleSweep.purgeUnactivated(Duration.ofDays(30), today.minusDays(90)), 10, 2, NO_LIVE_TRAFFIC).run();
+
+		assertEquals(Status.SUSPENDED.ordinal(), status(1));
+		assertEquals(Status.ACTIVE.ordinal(), status(2));
+		assertEquals(6, count("1 = 1"));
+		assertEquals(0, count("user_id = 3"));
+		assertEquals(1, count("user_id = 7"));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM password_reset_tokens", Integer.class));
+		assertEquals(List.of(1L, 3L), swept.stream().map(LifecycleJob.SweptUser::userId).toList());
+	}
+
+	@Test
+	void resumesFromTheCheckpointAfterAFailedChunk() {
+		for (long id = 1; id <= 30; id++) {
+			user(id, Status.INACTIVE, true, null, 0);
+		}
+		AtomicBoolean failOnce = new AtomicBoolean(true);
+		LifecycleJob.ChunkListener listener = (sweep, users) -> {
+			if (users.stream().anyMatch(user -> user.userId() == 17) && failOnce.getAndSet(false)) {
+				throw new IllegalStateException("connection lost");
+			}
+			swept.addAll(users);
+		};
+		LifecycleJob job = new LifecycleJob(jdbcTemplate, transactionTemplate(), LifecycleSweep.activateVerified(),
+				settings(5, 1), listener, NO_LIVE_TRAFFIC, registry);
+
+		assertThrows(IllegalStateException.class, job::run);
+		assertTrue(job.unfinished());
+		assertEquals(15L, jdbcTemplate.queryForObject("SELECT last_user_id FROM lifecycle_job_runs", Long.class));
+		assertEquals(15, count("status = " + Status.ACTIVE.ordinal()));
+
+		LifecycleJob.RunSummary resumed = job.run();
+
+		assertTrue(resumed.resumed());
+		assertEquals(15, resumed.users());
+		assertEquals(30, count("status = " + Status.ACTIVE.ordinal()));
+		Set<Long> ids = new HashSet<>();
+		swept.forEach(user -> assertTrue(ids.add(user.userId())));
+		assertEquals(30, ids.size());
+		assertEquals(30L, jdbcTemplate.queryForObject("SELECT users FROM lifecycle_job_runs", Long.class));
+	}
+
+	@Test
+	void leavesARunClaimedByAnotherNodeUntilItsLeaseLapses() {
+		for (long id = 1; id <= 10; id++) {
+			user(id, Status.INACTIVE, true, null, 0);
+		}
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		jdbcTemplate.update("INSERT INTO lifecycle_job_runs (job_name, status, as_of, last_user_id, users, started_at, "
+				+ "heartbeat_at) VALUES ('activate-verified', 'RUNNING', ?, 0, 0, ?, ?)", now, now, now);
+		LifecycleJob job = job(LifecycleSweep.activateVerified(), 5, 2, NO_LIVE_TRAFFIC);
+
+		assertEquals(0, job.run().users());
+		assertEquals(0, count("status = " + Status.ACTIVE.ordinal()));
+
+		// The other node stopped sending heartbeats
+		jdbcTemplate.update("UPDATE lifecycle_job_runs SET heartbeat_at = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+		LifecycleJob.RunSummary resumed = job.run();
+
+		assertTrue(resumed.resumed());
+		assertEquals(10, resumed.users());
+		assertEquals("COMPLETED", jdbcTemplate.queryForObject("SELECT status FROM lifecycle_job_runs", String.class));
+	}
+
+	@Test
+	void stopsWhenAnotherNodeTookOverAfterTheLeaseLapsed() {
+		for (long id = 1; id <= 10; id++) {
+			user(id, Status.INACTIVE, true, null, 0);
+		}
+		AtomicBoolean stall = new AtomicBoolean(true);
+		LifecycleJob.ChunkListener listener = (sweep, users) -> {
+			if (stall.getAndSet(false)) {
+				// This node stalled past its lease, and another node claimed the run
+				jdbcTemplate.update("UPDATE lifecycle_job_runs SET heartbeat_at = ?, claim_token = 'other-node'",
+						Timestamp.valueOf(LocalDateTime.now()));
+			}
+			swept.addAll(users);
+		};
+		LifecycleJob job = new LifecycleJob(jdbcTemplate, transactionTemplate(), LifecycleSweep.activateVerified(),
+				settings(5, 1), listener, NO_LIVE_TRAFFIC, registry);
+
+		assertThrows(IllegalStateException.class, job::run);
+
+		// Stopped at the first heartbeat, leaving the run row to the new owner
+		assertEquals(5, count("status = " + Status.ACTIVE.ordinal()));
+		assertEquals("other-node", jdbcTemplate.queryForObject("SELECT claim_token FROM lifecycle_job_runs",
+				String.class));
+		assertEquals(0L, jdbcTemplate.queryForObject("SELECT last_user_id FROM lifecycle_job_runs", Long.class));
+		assertNotNull(jdbcTemplate.queryForObject("SELECT heartbeat_at FROM lifecycle_job_runs", Timestamp.class));
+		assertTrue(job.unfinished());
+
+		// The new owner died too; its lease lapses and this node resumes
+		jdbcTemplate.update("UPDATE lifecycle_job_runs SET heartbeat_at = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+		LifecycleJob.RunSummary resumed = job.run();
+
+		assertTrue(resumed.resumed());
+		assertEquals(10, count("status = " + Status.ACTIVE.ordinal()));
+		assertEquals("COMPLETED", jdbcTemplate.queryForObject("SELECT status FROM lifecycle_job_runs", String.class));
+	}
+
+	@Test
+	void lowersParallelismWhenLiveLatencyRises() {
+		for (long id = 1; id <= 400; id++) {
+			user(id, Status.INACTIVE, true, null, 0);
+		}
+		AtomicInteger samples = new AtomicInteger();
+		LongSupplier live = () -> samples.incrementAndGet() <= 8 ? 1_000_000 : 50_000_000;
+		LifecycleJob job = new LifecycleJob(jdbcTemplate, transactionTemplate(), LifecycleSweep.activateVerified(),
+				new LifecycleJob.Settings(5, 4, Duration.ofMillis(5), Duration.ofMillis(1), Duration.ofMillis(1), 0.5,
+						2.0),
+				(sweep, users) -> swept.addAll(users), live, registry);
+
+		job.run();
+
+		assertEquals(400, swept.size());
+		assertTrue(registry.get("lifecycle.parallelism").gauge().value() < 4);
+		assertTrue(registry.get("lifecycle.throttled").counter().count() > 0);
+	}
+
+	/**
+	 * Activating users one by one, a lookup and an update per transaction as
+	 * {@code activateUser} does, versus set-based chunks at increasing
+	 * parallelism.
+	 */
+	@Test
+	@Tag("benchmark")
+	void chunkedSweepOutpacesPerUserUpdates() {
+		int users = 100_000;
+		List<Object[]> rows = new ArrayList<>(users);
+		Timestamp verified = Timestamp.valueOf(LocalDateTime.now());
+		for (long id = 1; id <= users; id++) {
+			rows.add(new Object[] {id, "user" + id + "@example.com", verified});
+		}
+		String insert = "INSERT INTO users (user_id, email, role, status, email_verified_at, created_at, updated_at, "
+				+ "version) VALUES (?, ?, 0, " + Status.INACTIVE.ordinal() + ", ?, CURRENT_TIMESTAMP, "
+				+ "CURRENT_TIMESTAMP, 0)";
+		jdbcTemplate.batchUpdate(insert, rows);
+
+		TransactionTemplate transactions = transactionTemplate();
+		long started = System.nanoTime();
+		for (long id = 1; id <= users; id++) {
+			long userId = id;
+			transactions.executeWithoutResult(status -> {
+				jdbcTemplate.queryForMap("SELECT * FROM users WHERE user_id = ?", userId);
+				jdbcTemplate.update("UPDATE users SET status = ?, updated_at = CURRENT_TIMESTAMP, "
+						+ "version = version + 1 WHERE user_id = ?", Status.ACTIVE.ordinal(), userId);
+			});
+		}
+		long perUserNanos = System.nanoTime() - started;
+		report("per-user", users, perUserNanos);
+		assertEquals(users, count("status = " + Status.ACTIVE.ordinal()));
+
+		for (int parallelism : new int[] {1, 4, 8}) {
+			jdbcTemplate.update("UPDATE users SET status = ?", Status.INACTIVE.ordinal());
+			LifecycleJob.RunSummary summary = new LifecycleJob(jdbcTemplate, transactions,
+					LifecycleSweep.activateVerified(), settings(1000, parallelism), (sweep, swept) -> {
+					}, NO_LIVE_TRAFFIC, new SimpleMeterRegistry()).run();
+			report("chunked x" + parallelism, summary.users(), summary.elapsed().toNanos());
+			assertEquals(users, summary.users());
+			assertEquals(users, count("status = " + Status.ACTIVE.ordinal()));
+			assertTrue(summary.elapsed().toNanos() < perUserNanos, "chunked x" + parallelism + " took "
+					+ summary.elapsed().toMillis() + "ms against " + perUserNanos / 1_000_000 + "ms per user");
+		}
+	}
+
+	private LifecycleJob job(LifecycleSweep sweep, int chunkSize, int parallelism, LongSupplier liveLatency) {
+		return new LifecycleJob(jdbcTemplate, transactionTemplate(), sweep, settings(chunkSize, parallelism),
+				(s, users) -> swept.addAll(users), liveLatency, registry);
+	}
+
+	private static LifecycleJob.Settings settings(int chunkSize, int parallelism) {
+		return new LifecycleJob.Settings(chunkSize, parallelism, Duration.ZERO, Duration.ofMillis(1),
+				Duration.ofMillis(5), 0.5, 2.0);
+	}
+
+	private TransactionTemplate transactionTemplate() {
+		return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	private void user(long userId, Status status, boolean verified, LocalDate kycExpiresAt, int ageDays) {
+		Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(ageDays));
+		jdbcTemplate.update("INSERT INTO users (user_id, email, role, status, email_verified_at, kyc_expires_at, "
+				+ "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)", userId,
+				"user" + userId + "@example.com", Role.USER.ordinal(), status.ordinal(), verified ? createdAt : null,
+				kycExpiresAt == null ? null : Date.valueOf(kycExpiresAt), createdAt, createdAt);
+	}
+
+	private int status(long userId) {
+		return jdbcTemplate.queryForObject("SELECT status FROM users WHERE user_id = ?", Integer.class, userId);
+	}
+
+	private int count(String condition) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE " + condition, Integer.class);
+	}
+
+	private static void report(String mode, long users, long elapsedNanos) {
+		log.info("{} users={} time={}ms throughput={} users/s", mode, users, elapsedNanos / 1_000_000,
+				Math.round(users / (elapsedNanos / 1e9)));
+	}
+}
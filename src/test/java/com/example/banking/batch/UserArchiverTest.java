@@ -0,0 +1,131 @@
+package com.example.banking.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Account;
+import com.example.banking.entity.ArchivedUser;
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.ArchivedUserRepository;
+import com.example.banking.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+class UserArchiverTest {
+
+	private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ArchivedUserRepository archivedUserRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<User> users = new ArrayList<>();
+	private UserArchiver archiver;
+
+	@BeforeEach
+	void setUp() {
+		archiver = new UserArchiver(jdbcTemplate, new TransactionTemplate(transactionManager), 3, Duration.ZERO,
+				registry);
+		// Ten users per status; the first five of each have been idle for two years
+		Status[] statuses = {Status.ACTIVE, Status.INACTIVE, Status.SUSPENDED};
+		for (int i = 0; i < 30; i++) {
+			users.add(userRepository.save(User.builder().username("user" + i).email("user" + i + "@example.com")
+					.phone("+1555000" + String.format("%04d", i)).password("x".repeat(60))
+					.status(statuses[i / 10]).build()));
+		}
+		userRepository.flush();
+		for (int i = 0; i < 30; i++) {
+			if (i % 10 < 5) {
+				jdbcTemplate.update("UPDATE users SET updated_at = ? WHERE user_id = ?",
+						Timestamp.valueOf(LocalDateTime.now().minusYears(2)), users.get(i).getUserId());
+			}
+		}
+		// An idle inactive user who still owns an account
+		accountRepository.saveAndFlush(Account.builder().owner(users.get(10)).currency("EUR").build());
+	}
+
+	@Test
+	void movesIdleUsersOutOfTheHotTableAndItsIndexes() {
+		long emailEntries = indexEntries("idx_user_email", "email");
+		long usernameEntries = indexEntries("idx_user_username", "username");
+		long phoneEntries = indexEntries("idx_user_phone", "phone");
+
+		long archived = archiver.archive(LocalDateTime.now().minusYears(1));
+
+		// Users 11-14 (inactive) and 20-24 (suspended)
+		assertEquals(9, archived);
+		assertEquals(21, count("users"));
+		assertEquals(9, count("users_archive"));
+		assertEquals(emailEntries - 9, indexEntries("idx_user_email", "email"));
+		assertEquals(usernameEntries - 9, indexEntries("idx_user_username", "username"));
+		assertEquals(phoneEntries - 9, indexEntries("idx_user_phone", "phone"));
+		assertEquals(9, registry.get("archive.users").tag("direction", "archived").counter().count());
+
+		ArchivedUser user = archivedUserRepository.findByEmail("user21@example.com").orElseThrow();
+		assertEquals(Status.SUSPENDED, user.getStatus());
+		assertEquals(users.get(21).getUserId(), user.getUserId());
+		assertEquals(0, archiver.archive(LocalDateTime.now().minusYears(1)));
+	}
+
+	@Test
+	void rehydratesAnArchivedUser() {
+		archiver.archive(LocalDateTime.now().minusYears(1));
+		long userId = users.get(12).getUserId();
+
+		assertTrue(archiver.rehydrate(userId));
+		assertFalse(archiver.rehydrate(userId));
+		assertEquals(22, count("users"));
+		assertEquals(Status.INACTIVE.ordinal(),
+				jdbcTemplate.queryForObject("SELECT status FROM users WHERE user_id = ?", Integer.class, userId));
+		assertFalse(archivedUserRepository.existsByEmail("user12@example.com"));
+	}
+
+	private long count(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+	}
+
+	/**
+	 * Entries H2 reads when scanning the whole index, from its query plan.
+	 */
+	private long indexEntries(String index, String column) {
+		String plan = jdbcTemplate.queryForObject("EXPLAIN ANALYZE SELECT " + column + " FROM users USE INDEX ("
+				+ index + ") WHERE " + column + " >= ''", String.class);
+		assertTrue(plan.toLowerCase(Locale.ROOT).contains(index), plan);
+		Matcher matcher = SCAN_COUNT.matcher(plan);
+		assertTrue(matcher.find(), plan);
+		return Long.parseLong(matcher.group(1));
+	}
+}
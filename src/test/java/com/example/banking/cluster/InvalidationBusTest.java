@@ -0,0 +1,199 @@
+package com.example.banking.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.security.UserDetailsCache;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InvalidationBusTest {
+
+	private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+	private static final Duration PROPAGATION_BOUND = Duration.ofSeconds(1);
+
+	private HikariDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private final List<InvalidationBus> buses = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:invalidation;DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE invalidation_log (seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "event_type VARCHAR(32) NOT NULL, user_id BIGINT, emails VARCHAR(512), origin VARCHAR(64) NOT NULL, "
+				+ "published_at TIMESTAMP NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, email VARCHAR(100), status INT)");
+		jdbcTemplate.update("INSERT INTO users VALUES (1, 'alice@example.com', ?)", Status.ACTIVE.ordinal());
+	}
+
+	@AfterEach
+	void tearDown() {
+		buses.forEach(InvalidationBus::close);
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+		dataSource.close();
+	}
+
+	@Test
+	void suspensionIsEnforcedOnEveryNodeWithinTheBound() throws Exception {
+		List<Node> nodes = List.of(new Node("node-a"), new Node("node-b"), new Node("node-c"));
+		// Every node has the active user cached, as after a first request
+		for (Node node : nodes) {
+			assertTrue(node.user().isAccountNonLocked());
+		}
+		// Let every poller take its starting position before the write
+		Thread.sleep(POLL_INTERVAL.multipliedBy(3).toMillis());
+
+		new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+			jdbcTemplate.update("UPDATE users SET status = ? WHERE user_id = 1", Status.SUSPENDED.ordinal());
+			nodes.get(0).bus.publish(InvalidationType.USER_SUSPENDED, 1L, "alice@example.com");
+		});
+		long committed = System.nanoTime();
+
+		assertFalse(nodes.get(0).user().isAccountNonLocked());
+		for (Node node : nodes) {
+			while (node.user().isAccountNonLocked()) {
+				assertTrue(System.nanoTime() - committed < PROPAGATION_BOUND.toNanos(),
+						node.bus.nodeId() + " still accepts the suspended user");
+				Thread.sleep(5);
+			}
+		}
+		for (Node node : nodes.subList(1, 3)) {
+			assertEquals(1, node.registry.get("invalidation.propagation.lag").timer().count());
+			assertEquals(1, node.registry.get("invalidation.events").tag("source", "remote").counter().count());
+		}
+	}
+
+	@Test
+	void waitsForAGapBeforeSkippingIt() {
+		List<InvalidationEvent> log = new CopyOnWriteArrayList<>();
+		List<Long> seen = new CopyOnWriteArrayList<>();
+		InvalidationBus bus = bus("reader", new ListTransport(log), Duration.ofHours(1),
+				(event, remote) -> seen.add(event.sequence()));
+		bus.poll();
+
+		log.add(event(1));
+		log.add(event(3));
+		bus.poll();
+		assertEquals(List.of(1L, 3L), seen);
+
+		// Sequence 2 commits late and is still delivered, once
+		log.add(1, event(2));
+		bus.poll();
+		bus.poll();
+		assertEquals(List.of(1L, 3L, 2L), seen);
+
+		InvalidationBus impatient = bus("impatient", new ListTransport(log), Duration.ZERO, (event, remote) -> {
+		});
+		impatient.poll();
+		log.add(event(5));
+		impatient.poll();
+		impatient.poll();
+		log.add(event(6));
+		assertEquals(1, impatient.poll());
+	}
+
+	@Test
+	void aGapDoesNotHoldBackMoreThanABatchOfLaterEvents() {
+		List<InvalidationEvent> log = new CopyOnWriteArrayList<>();
+		List<Long> seen = new CopyOnWriteArrayList<>();
+		InvalidationBus bus = bus("reader", new ListTransport(log), Duration.ofHours(1),
+				(event, remote) -> seen.add(event.sequence()));
+		bus.poll();
+
+		for (long sequence = 2; sequence <= 250; sequence++) {
+			log.add(event(sequence));
+		}
+		bus.poll();
+		bus.poll();
+		bus.poll();
+		assertEquals(249, seen.size());
+		assertEquals(249, Set.copyOf(seen).size());
+
+		log.add(0, event(1));
+		bus.poll();
+		assertEquals(1L, seen.get(seen.size() - 1));
+		assertEquals(250, seen.size());
+	}
+
+	private InvalidationBus bus(String nodeId, InvalidationTransport transport, Duration gapTimeout,
+			InvalidationListener listener) {
+		InvalidationBus bus = new InvalidationBus(transport, nodeId, List.of(listener), Duration.ofHours(1), 100,
+				gapTimeout, Duration.ZERO, new SimpleMeterRegistry());
+		buses.add(bus);
+		return bus;
+	}
+
+	private static InvalidationEvent event(long sequence) {
+		return new InvalidationEvent(sequence, InvalidationType.USER_UPDATED, sequence, List.of(), "writer",
+				Instant.now());
+	}
+
+	/**
+	 * One application node: its own bus and user cache over the shared
+	 * database.
+	 */
+	private class Node {
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		final UserDetailsCache cache = new UserDetailsCache(Duration.ofHours(1), 1_000);
+		final InvalidationBus bus;
+
+		Node(String nodeId) {
+			bus = new InvalidationBus(new JdbcInvalidationTransport(jdbcTemplate), nodeId, List.of(cache),
+					POLL_INTERVAL, 100, Duration.ofSeconds(10), Duration.ZERO, registry);
+			buses.add(bus);
+		}
+
+		User user() {
+			return cache.get("alice@example.com", () -> Optional.of(User.builder().userId(1L)
+					.email("alice@example.com")
+					.status(Status.values()[jdbcTemplate.queryForObject(
+							"SELECT status FROM users WHERE user_id = 1", Integer.class)])
+					.build())).orElseThrow();
+		}
+	}
+
+	private record ListTransport(List<InvalidationEvent> log) implements InvalidationTransport {
+
+		@Override
+		public void append(InvalidationEvent event) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<InvalidationEvent> readAfter(long sequence, int limit) {
+			return log.stream().filter(event -> event.sequence() > sequence).limit(limit).toList();
+		}
+
+		@Override
+		public long lastSequence() {
+			return log.stream().mapToLong(InvalidationEvent::sequence).max().orElse(0);
+		}
+
+		@Override
+		public int purgeBefore(Instant cutoff) {
+			return 0;
+		}
+	}
+}
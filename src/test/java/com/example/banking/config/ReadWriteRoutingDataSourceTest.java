@@ -0,0 +1,101 @@
+package com.example.banking.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.config.ReadWriteRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReadWriteRoutingDataSourceTest {
+
+	private HikariDataSource primary;
+	private HikariDataSource replica;
+
+	@BeforeEach
+	void setUp() {
+		primary = pool("primary", "jdbc:h2:mem:rw_primary;DB_CLOSE_DELAY=-1");
+		replica = pool("replica", "jdbc:h2:mem:rw_replica;DB_CLOSE_DELAY=-1");
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		primary.close();
+		replica.close();
+	}
+
+	@Test
+	void readOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+		Harness harness = new Harness(Duration.ofSeconds(5));
+
+		assertEquals("RW_REPLICA", harness.currentDatabase(true));
+		assertEquals("RW_PRIMARY", harness.currentDatabase(false));
+	}
+
+	@Test
+	void principalReadsOwnWritesFromPrimaryWithinWindow() {
+		Harness harness = new Harness(Duration.ofSeconds(5));
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null));
+		harness.currentDatabase(false);
+		assertEquals("RW_PRIMARY", harness.currentDatabase(true));
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bob", null));
+		assertEquals("RW_REPLICA", harness.currentDatabase(true));
+	}
+
+	@Test
+	void principalReturnsToReplicaAfterWindow() {
+		Harness harness = new Harness(Duration.ZERO);
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null));
+		harness.currentDatabase(false);
+		assertEquals("RW_REPLICA", harness.currentDatabase(true));
+	}
+
+	private static HikariDataSource pool(String name, String url) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName(name);
+		dataSource.setJdbcUrl(url);
+		dataSource.setUsername("sa");
+		return dataSource;
+	}
+
+	private class Harness {
+		private final JdbcTemplate jdbcTemplate;
+		private final DataSourceTransactionManager transactionManager;
+
+		Harness(Duration window) {
+			ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(new ReadYourWritesTracker(window),
+					new SimpleMeterRegistry());
+			routing.setTargetDataSources(Map.<Object, Object>of(Route.PRIMARY, primary, Route.REPLICA, replica));
+			routing.setDefaultTargetDataSource(primary);
+			routing.afterPropertiesSet();
+			DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+			this.jdbcTemplate = new JdbcTemplate(dataSource);
+			this.transactionManager = new DataSourceTransactionManager(dataSource);
+		}
+
+		String currentDatabase(boolean readOnly) {
+			TransactionTemplate template = new TransactionTemplate(transactionManager);
+			template.setReadOnly(readOnly);
+			return template.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+		}
+	}
+}
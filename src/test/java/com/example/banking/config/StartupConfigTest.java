@@ -0,0 +1,146 @@
+package com.example.banking.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.entity.User;
+
+class StartupConfigTest {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupConfigTest.class);
+
+	@Test
+	void registersHintsForBoundTypesAndJjwt() throws Exception {
+		RuntimeHints hints = new RuntimeHints();
+		new BankingRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+		assertTrue(RuntimeHintsPredicates.reflection().onType(User.class).test(hints));
+		assertTrue(RuntimeHintsPredicates.reflection().onType(UserDTO.class).test(hints));
+		assertTrue(RuntimeHintsPredicates.reflection()
+				.onType(Class.forName("io.jsonwebtoken.impl.DefaultJwtBuilder")).test(hints));
+		assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Serializer")
+				.test(hints));
+	}
+
+	@Test
+	void defersOnlyNonCriticalBeans() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("springDocConfiguration",
+				new RootBeanDefinition("org.springdoc.core.configuration.SpringDocConfiguration"));
+		RootBeanDefinition openApiResource = new RootBeanDefinition();
+		openApiResource.setFactoryBeanName("springDocConfiguration");
+		openApiResource.setFactoryMethodName("openApiResource");
+		beanFactory.registerBeanDefinition("openApiResource", openApiResource);
+		beanFactory.registerBeanDefinition("jwtConfig", new RootBeanDefinition(JwtConfig.class));
+
+		StartupConfig.NonCriticalLazyInit lazyInit = new StartupConfig.NonCriticalLazyInit();
+		lazyInit.setEnvironment(new MockEnvironment().withProperty("banking.startup.lazy-non-critical", "true"));
+		lazyInit.postProcessBeanFactory(beanFactory);
+
+		assertTrue(beanFactory.getBeanDefinition("springDocConfiguration").isLazyInit());
+		assertTrue(beanFactory.getBeanDefinition("openApiResource").isLazyInit());
+		assertFalse(beanFactory.getBeanDefinition("jwtConfig").isLazyInit());
+	}
+
+	/**
+	 * Time to first HTTP response and resident memory, default versus fast
+	 * startup. Build the artifacts first with
+	 * {@code mvn -Pfast-startup package -DskipTests}.
+	 */
+	@Test
+	@Tag("benchmark")
+	void fastModeAnswersItsFirstRequestSooner() throws Exception {
+		Path application = Path.of("target", "application");
+		Path archive = application.resolve("application.jsa");
+		assumeTrue(Files.exists(archive), "run mvn -Pfast-startup package first");
+		Path jar;
+		try (Stream<Path> files = Files.list(application)) {
+			jar = files.filter(file -> file.toString().endsWith(".jar")).findFirst().orElseThrow();
+		}
+		int runs = 3;
+		long defaultBest = Long.MAX_VALUE;
+		long fastBest = Long.MAX_VALUE;
+		for (int run = 0; run < runs; run++) {
+			defaultBest = Math.min(defaultBest, measure("default", List.of("-jar", jar.toString())));
+			fastBest = Math.min(fastBest, measure("fast", List.of("-XX:SharedArchiveFile=" + archive,
+					"-Dspring.aot.enabled=true", "-Dbanking.startup.lazy-non-critical=true", "-jar", jar.toString())));
+		}
+		log.info("best firstRequest default={}ms fast={}ms", defaultBest, fastBest);
+		assertTrue(fastBest < defaultBest, "fast startup took " + fastBest + "ms against " + defaultBest + "ms");
+	}
+
+	/**
+	 * @return milliseconds from launch to the first HTTP response
+	 */
+	private static long measure(String mode, List<String> arguments) throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(arguments);
+		command.add("--server.port=" + port);
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+				.build();
+
+		long started = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		try {
+			long deadline = started + Duration.ofMinutes(2).toNanos();
+			while (true) {
+				try {
+					// Any status counts: the endpoint may require authentication
+					client.send(request, HttpResponse.BodyHandlers.discarding());
+					break;
+				} catch (IOException e) {
+					assertTrue(process.isAlive() && System.nanoTime() < deadline, mode + " did not start");
+					Thread.sleep(10);
+				}
+			}
+			long firstRequestMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+			log.info("mode={} firstRequest={}ms rss={}MB", mode, firstRequestMillis,
+					residentKilobytes(process.pid()) / 1024);
+			return firstRequestMillis;
+		} finally {
+			process.destroy();
+			process.waitFor();
+		}
+	}
+
+	private static long residentKilobytes(long pid) throws IOException {
+		Path status = Path.of("/proc", Long.toString(pid), "status");
+		if (!Files.exists(status)) {
+			return -1;
+		}
+		return Files.readAllLines(status).stream().filter(line -> line.startsWith("VmRSS:"))
+				.map(line -> line.replaceAll("\\D", "")).mapToLong(Long::parseLong).findFirst().orElse(-1);
+	}
+}
@@ -0,0 +1,163 @@
+package com.example.banking.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.security.JwtAuthenticationFilter;
+import com.example.banking.security.JwtService;
+import com.example.banking.security.SecurityConfiguration;
+import com.example.banking.security.UserSecurity;
+import com.example.banking.service.LedgerService;
+import com.example.banking.service.StatementService;
+
+/**
+ * Role and ownership rules on the account endpoints, enforced through the
+ * real security filter chain and method security with bearer tokens.
+ */
+@SpringJUnitWebConfig(AccountControllerSecurityTest.Config.class)
+class AccountControllerSecurityTest {
+
+	private static final User ADMIN = user(1L, "admin@example.com", Role.ADMIN);
+	private static final User ALICE = user(2L, "alice@example.com", Role.USER);
+	private static final User BOB = user(3L, "bob@example.com", Role.USER);
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+	}
+
+	@Test
+	void onlyAdminsOpenAccounts() throws Exception {
+		String body = """
+				{"userId":2,"currency":"EUR"}""";
+
+		send("/api/v1/accounts", ALICE, body).andExpect(status().isForbidden());
+		send("/api/v1/accounts", ADMIN, body).andExpect(status().isCreated());
+	}
+
+	@Test
+	void onlyAdminsPostToTheLedger() throws Exception {
+		String body = """
+				{"legs":[{"accountId":10,"amount":-100},{"accountId":11,"amount":100}]}""";
+
+		send("/api/v1/accounts/postings", ALICE, body).andExpect(status().isForbidden());
+		send("/api/v1/accounts/postings", ADMIN, body).andExpect(status().isCreated());
+	}
+
+	@Test
+	void onlyAdminsTransfer() throws Exception {
+		String body = """
+				{"transferId":"3f2b8c1e-6d4a-4f0e-9b7a-2c5d8e1f0a93","fromAccountId":10,"toAccountId":11,"amount":100}""";
+
+		send("/api/v1/accounts/transfers", ALICE, body).andExpect(status().isForbidden());
+		verify(ledgerService, never()).transfer(any(TransferRequest.class));
+		send("/api/v1/accounts/transfers", ADMIN, body).andExpect(status().isCreated());
+	}
+
+	@Test
+	void onlyTheOwnerOrAnAdminReadsAStatement() throws Exception {
+		when(accountRepository.existsByAccountIdAndOwnerUserId(10L, ALICE.getUserId())).thenReturn(true);
+
+		statement(BOB).andExpect(status().isForbidden());
+		statement(ALICE).andExpect(status().isOk());
+		statement(ADMIN).andExpect(status().isOk());
+	}
+
+	private ResultActions statement(User caller) throws Exception {
+		return mockMvc.perform(get("/api/v1/accounts/10/statement")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateToken(caller))
+				.param("from", "2024-01-01T00:00:00"));
+	}
+
+	private ResultActions send(String path, User caller, String body) throws Exception {
+		return mockMvc.perform(post(path)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateToken(caller))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(body));
+	}
+
+	private static User user(Long userId, String email, Role role) {
+		return User.builder()
+				.userId(userId)
+				.username(email.substring(0, email.indexOf('@')))
+				.email(email)
+				.role(role)
+				.status(Status.ACTIVE)
+				.build();
+	}
+
+	@Configuration
+	@EnableWebMvc
+	@Import({SecurityConfiguration.class, JwtAuthenticationFilter.class, JwtService.class, UserSecurity.class,
+			AccountController.class})
+	static class Config {
+
+		@Bean
+		UserDetailsService userDetailsService() {
+			Map<String, User> users = Map.of(ADMIN.getEmail(), ADMIN, ALICE.getEmail(), ALICE, BOB.getEmail(), BOB);
+			return email -> Optional.ofNullable(users.get(email))
+					.orElseThrow(() -> new UsernameNotFoundException(email));
+		}
+
+		@Bean
+		AccountRepository accountRepository() {
+			return mock(AccountRepository.class);
+		}
+
+		@Bean
+		LedgerService ledgerService() {
+			return mock(LedgerService.class);
+		}
+
+		@Bean
+		StatementService statementService() {
+			return mock(StatementService.class);
+		}
+	}
+}
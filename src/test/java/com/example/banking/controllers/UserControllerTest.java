@@ -0,0 +1,124 @@
+package com.example.banking.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.banking.audit.AuditLog;
+import com.example.banking.cluster.InvalidationBus;
+import com.example.banking.entity.User;
+import com.example.banking.repository.UserRepository;
+import com.example.banking.service.UserArchiveService;
+import com.example.banking.service.UserLookupFlights;
+import com.example.banking.service.UserSearchService;
+import com.example.banking.service.UserServiceImpl;
+import com.example.banking.service.UserStatsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Conditional requests against the controller and the real
+ * {@link UserServiceImpl}, with the persistence layer mocked.
+ */
+class UserControllerTest {
+
+	private static final String BODY = """
+			{"username":"jane","password":"secret-password","email":"jane@example.com","phone":"+4912345678"}""";
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final UserArchiveService userArchiveService = mock(UserArchiveService.class);
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		UserServiceImpl userService = new UserServiceImpl(userRepository, mock(PasswordEncoder.class),
+				new UserLookupFlights(Duration.ofSeconds(1), new SimpleMeterRegistry()), mock(UserSearchService.class),
+				mock(UserStatsService.class), mock(AuditLog.class), userArchiveService, mock(InvalidationBus.class));
+		UserController controller = new UserController();
+		ReflectionTestUtils.setField(controller, "userService", userService);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		when(userRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+		when(userArchiveService.findOrRehydrate(1L)).thenAnswer(invocation -> Optional.of(user(3L)));
+	}
+
+	@Test
+	void answersNotModifiedForAMatchingIfNoneMatch() throws Exception {
+		mockMvc.perform(get("/api/v1/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""));
+		verify(userArchiveService, never()).findOrRehydrate(1L);
+	}
+
+	@Test
+	void updatesWhenIfMatchCarriesTheCurrentVersion() throws Exception {
+		when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+			User saved = invocation.getArgument(0);
+			saved.setVersion(saved.getVersion() + 1);
+			return saved;
+		});
+
+		update("\"1-3\"")
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""));
+	}
+
+	@Test
+	void rejectsAStaleIfMatch() throws Exception {
+		update("\"1-2\"").andExpect(status().isPreconditionFailed());
+		verify(userRepository, never()).saveAndFlush(any(User.class));
+	}
+
+	@Test
+	void rejectsMalformedAndWeakIfMatch() throws Exception {
+		for (String ifMatch : new String[] {"W/\"1-3\"", "\"2-3\"", "\"1-\"", "\"1-three\"", "1-3"}) {
+			update(ifMatch).andExpect(status().isPreconditionFailed());
+		}
+		verify(userRepository, never()).saveAndFlush(any(User.class));
+	}
+
+	@Test
+	void mapsAConcurrentWriteToPreconditionFailed() throws Exception {
+		when(userRepository.saveAndFlush(any(User.class)))
+				.thenThrow(new ObjectOptimisticLockingFailureException(User.class, 1L));
+
+		update("\"1-3\"").andExpect(status().isPreconditionFailed());
+	}
+
+	private ResultActions update(String ifMatch) throws Exception {
+		return mockMvc.perform(put("/api/v1/users/1")
+				.header(HttpHeaders.IF_MATCH, ifMatch)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(BODY));
+	}
+
+	private static User user(Long version) {
+		return User.builder()
+				.userId(1L)
+				.username("jane")
+				.email("jane@example.com")
+				.phone("+4912345678")
+				.version(version)
+				.build();
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.banking.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+class UserDTOSerializerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDTOSerializerTest.class);
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+    private final ObjectMapper smile = new SmileMapper();
+
+    @Test
+    void writesOnlyPublicFields() throws Exception {
+        UserDTO user = user(7);
+        user.setPassword("secret-password");
+        user.setVersion(3L);
+
+        assertEquals("{\"userId\":7,\"username\":\"user7\",\"email\":\"user7@example.com\",\"phone\":\"+15550000007\"}",
+            json.writeValueAsString(user));
+    }
+
+    @Test
+    void writesOnlySelectedFields() throws Exception {
+        UserDTO user = user(7);
+        user.setFields(UserField.parse("userId,email"));
+
+        assertEquals("{\"userId\":7,\"email\":\"user7@example.com\"}", json.writeValueAsString(user));
+    }
+
+    @Test
+    void pageRoundTripsThroughCbor() throws Exception {
+        PageDTO<UserDTO> page = PageDTO.of(new PageImpl<>(users(3), PageRequest.of(1, 3), 10));
+
+        assertEquals("{\"content\":[" + json.writeValueAsString(user(0)) + "," + json.writeValueAsString(user(1))
+            + "," + json.writeValueAsString(user(2)) + "],\"page\":1,\"size\":3,\"totalElements\":10}",
+            json.writeValueAsString(page));
+        PageDTO<UserDTO> read = cbor.readValue(cbor.writeValueAsBytes(page), new TypeReference<PageDTO<UserDTO>>() {
+        });
+        assertEquals(page, read);
+    }
+
+    /**
+     * Payload size and encode time for a page of 100 users, against Jackson's
+     * reflective serialization of Spring's {@code PageImpl}.
+     */
+    @Test
+    @Tag("benchmark")
+    void compactEnvelopeAndBinaryFormatsAreSmallerAndFaster() throws Exception {
+        List<UserDTO> users = users(100);
+        PageImpl<UserDTO> pageImpl = new PageImpl<>(users, PageRequest.of(0, 100), 100_000);
+        PageDTO<UserDTO> page = PageDTO.of(pageImpl);
+        ObjectMapper reflective = JsonMapper.builder().disable(MapperFeature.USE_ANNOTATIONS).build();
+
+        Sample pageImplJson = null;
+        Sample pageJson = null;
+        Sample pageCbor = null;
+        Sample pageSmile = null;
+        for (int round = 0; round < 5; round++) {
+            boolean report = round == 4;
+            pageImplJson = measure("json-pageimpl-reflective", report, () -> reflective.writeValueAsBytes(pageImpl));
+            pageJson = measure("json-pagedto", report, () -> json.writeValueAsBytes(page));
+            pageCbor = measure("cbor-pagedto", report, () -> cbor.writeValueAsBytes(page));
+            pageSmile = measure("smile-pagedto", report, () -> smile.writeValueAsBytes(page));
+        }
+        assertTrue(pageJson.bytes() < pageImplJson.bytes());
+        assertTrue(pageCbor.bytes() < pageJson.bytes());
+        assertTrue(pageSmile.bytes() < pageJson.bytes());
+        assertTrue(pageJson.meanNanos() < pageImplJson.meanNanos(),
+                "PageDTO took " + pageJson.meanNanos() + "ns against " + pageImplJson.meanNanos() + "ns");
+    }
+
+    private static Sample measure(String name, boolean report, Encoder encoder) throws Exception {
+        int iterations = 20_000;
+        int bytes = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes = encoder.encode().length;
+        }
+        long meanNanos = (System.nanoTime() - started) / iterations;
+        if (report) {
+            log.info("{} bytes={} mean={}ns", name, bytes, meanNanos);
+        }
+        return new Sample(bytes, meanNanos);
+    }
+
+    private record Sample(int bytes, long meanNanos) {
+    }
+
+    private interface Encoder {
+        byte[] encode() throws Exception;
+    }
+
+    private static List<UserDTO> users(int count) {
+        List<UserDTO> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    private static UserDTO user(long id) {
+        UserDTO user = new UserDTO();
+        user.setUserId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPhone("+1555" + String.format("%07d", id));
+        return user;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.banking.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.banking.dto.UserDTO;
+
+/**
+ * Checks the build-time Hibernate enhancement of {@link User}. Run through
+ * Maven so the enhance plugin has processed the classes.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.example.banking.entity.UserEnhancementTest$CapturingInspector")
+class UserEnhancementTest {
+
+	private static final Logger log = LoggerFactory.getLogger(UserEnhancementTest.class);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Long userId;
+
+	@BeforeEach
+	void setUp() {
+		userId = entityManager.persistAndFlush(user(0)).getUserId();
+		entityManager.clear();
+		CapturingInspector.statements.clear();
+	}
+
+	@Test
+	void entityIsEnhanced() {
+		assertTrue(new User() instanceof SelfDirtinessTracker);
+		assertTrue(new User() instanceof PersistentAttributeInterceptable);
+	}
+
+	@Test
+	void readsLeaveRarelyUsedAttributesUnloaded() {
+		User user = entityManager.find(User.class, userId);
+
+		assertTrue(Hibernate.isPropertyInitialized(user, "password"));
+		assertFalse(Hibernate.isPropertyInitialized(user, "firstname"));
+		assertFalse(Hibernate.isPropertyInitialized(user, "resetToken"));
+		assertFalse(lastStatement().contains("firstname"), lastStatement());
+
+		assertEquals("First0", user.getFirstname());
+		assertTrue(Hibernate.isPropertyInitialized(user, "lastname"));
+		assertFalse(Hibernate.isPropertyInitialized(user, "resetToken"));
+	}
+
+	@Test
+	void updatesWriteOnlyChangedColumns() {
+		User user = entityManager.find(User.class, userId);
+		user.setPhone("+15550009999");
+		entityManager.flush();
+
+		String update = lastStatement();
+		assertTrue(update.startsWith("update"), update);
+		assertTrue(update.contains("phone"), update);
+		assertFalse(update.contains("email"), update);
+		assertFalse(update.contains("password"), update);
+		assertFalse(update.contains("firstname"), update);
+	}
+
+	/**
+	 * The steps of {@code UserServiceImpl.updateUser} and the read endpoints,
+	 * each in a fresh persistence context. Compare the output against a build
+	 * with {@code -Dhibernate.enhance.lazy=false
+	 * -Dhibernate.enhance.dirty-tracking=false}, under which the assertions on
+	 * the generated SQL are skipped.
+	 */
+	@Test
+	@Tag("benchmark")
+	void updatesAndReadsSkipUnneededColumns() {
+		int users = 2_000;
+		Long[] ids = new Long[users];
+		for (int i = 0; i < users; i++) {
+			ids[i] = entityManager.persist(user(i + 1)).getUserId();
+		}
+		entityManager.flush();
+		entityManager.clear();
+		boolean enhanced = new User() instanceof SelfDirtinessTracker;
+		int rounds = 5;
+		for (int round = 0; round < rounds; round++) {
+			boolean report = round == rounds - 1;
+			List<String> reads = measure("read", report, users, () -> {
+				for (Long id : ids) {
+					toDto(entityManager.find(User.class, id));
+				}
+			});
+			List<String> updates = measure("update", report, users, () -> {
+				for (Long id : ids) {
+					User user = entityManager.find(User.class, id);
+					user.setUsername(user.getUsername());
+					user.setEmail(user.getEmail());
+					user.setPhone(user.getPhone().startsWith("+1") ? "+2" + user.getPhone().substring(2)
+							: "+1" + user.getPhone().substring(2));
+					entityManager.flush();
+					toDto(user);
+				}
+			});
+			assertEquals(users, reads.size());
+			assertEquals(users, updates.stream().filter(sql -> sql.startsWith("update")).count());
+			if (enhanced) {
+				assertTrue(reads.stream().noneMatch(sql -> sql.contains("firstname") || sql.contains("reset_token")),
+						reads.get(0));
+				assertTrue(updates.stream().filter(sql -> sql.startsWith("update"))
+						.noneMatch(sql -> sql.contains("email") || sql.contains("username")), updates.get(0));
+			}
+		}
+	}
+
+	/**
+	 * @return the statements {@code work} issued, lower-cased
+	 */
+	private List<String> measure(String name, boolean report, int operations, Runnable work) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+		CapturingInspector.statements.clear();
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		long started = System.nanoTime();
+		work.run();
+		entityManager.clear();
+		long elapsed = System.nanoTime() - started;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		long sqlChars = CapturingInspector.statements.stream().mapToLong(String::length).sum();
+		if (report) {
+			log.info("{} enhanced={} ops={} mean={}ns allocated={}B/op sql={} chars/op", name,
+					new User() instanceof SelfDirtinessTracker, operations, elapsed / operations,
+					allocated / operations, sqlChars / operations);
+		}
+		return CapturingInspector.statements.stream().map(sql -> sql.toLowerCase(Locale.ROOT)).toList();
+	}
+
+	private String lastStatement() {
+		List<String> statements = CapturingInspector.statements;
+		return statements.get(statements.size() - 1).toLowerCase(Locale.ROOT);
+	}
+
+	private static UserDTO toDto(User user) {
+		UserDTO dto = new UserDTO();
+		dto.setUserId(user.getUserId());
+		dto.setUsername(user.getUsername());
+		dto.setEmail(user.getEmail());
+		dto.setPhone(user.getPhone());
+		dto.setVersion(user.getVersion());
+		return dto;
+	}
+
+	private static User user(int i) {
+		return User.builder().username("user" + i).firstname("First" + i).lastname("Last" + i)
+				.email("user" + i + "@example.com").phone("+1555" + String.format("%07d", i))
+				.password("x".repeat(60)).build();
+	}
+
+	public static class CapturingInspector implements StatementInspector {
+		static final List<String> statements = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.banking.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class BalanceCheckpointsTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2023, 11, 14, 9, 30);
+
+	private JdbcTemplate jdbcTemplate;
+	private BalanceCheckpoints checkpoints;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:checkpoints_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE accounts (account_id BIGINT PRIMARY KEY, currency VARCHAR(3))");
+		jdbcTemplate.execute("CREATE TABLE ledger_entries (entry_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "sequence BIGINT, account_id BIGINT, amount BIGINT, posted_at TIMESTAMP, transfer_id VARCHAR(36))");
+		jdbcTemplate.execute("CREATE TABLE balance_checkpoints (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "account_id BIGINT, as_of TIMESTAMP, balance BIGINT, UNIQUE (account_id, as_of))");
+		checkpoints = new BalanceCheckpoints(jdbcTemplate);
+	}
+
+	@Test
+	void checkpointedBalancesMatchFullHistory() {
+		jdbcTemplate.update("INSERT INTO accounts VALUES (1, 'EUR'), (2, 'EUR')");
+		Random random = new Random(42);
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			LocalDateTime postedAt = START.plusHours(i * 7L);
+			long amount = random.nextInt(2_000) - 900;
+			rows.add(new Object[] {i + 1, 1, amount, postedAt});
+			rows.add(new Object[] {i + 1, 2, -amount, postedAt});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO ledger_entries (sequence, account_id, amount, posted_at) "
+				+ "VALUES (?, ?, ?, ?)", rows);
+
+		LocalDateTime watermark = START.plusHours(2_000 * 7L);
+		int months = checkpoints.checkpointThrough(watermark);
+
+		assertEquals(19, months);
+		assertEquals(0, checkpoints.checkpointThrough(watermark));
+		for (LocalDateTime at = START; at.isBefore(watermark); at = at.plusDays(23).plusHours(5)) {
+			assertEquals(fullSum(1, at), checkpoints.balanceAt(1, at));
+			assertEquals(-fullSum(1, at), checkpoints.balanceAt(2, at));
+		}
+	}
+
+	@Test
+	void accountsOpenedLaterStartFromZero() {
+		jdbcTemplate.update("INSERT INTO accounts VALUES (1, 'EUR')");
+		jdbcTemplate.update("INSERT INTO ledger_entries (sequence, account_id, amount, posted_at) VALUES (1, 1, 50, ?)",
+				START);
+		checkpoints.checkpointThrough(START.plusMonths(2));
+
+		jdbcTemplate.update("INSERT INTO accounts VALUES (3, 'EUR')");
+		jdbcTemplate.update("INSERT INTO ledger_entries (sequence, account_id, amount, posted_at) VALUES (2, 3, 70, ?)",
+				START.plusMonths(2).plusDays(3));
+		checkpoints.checkpointThrough(START.plusMonths(4));
+
+		assertEquals(70, checkpoints.balanceAt(3, START.plusMonths(4)));
+		assertEquals(50, checkpoints.balanceAt(1, START.plusMonths(4)));
+	}
+
+	private long fullSum(long accountId, LocalDateTime before) {
+		return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM ledger_entries "
+				+ "WHERE account_id = ? AND posted_at < ?", Long.class, accountId, before);
+	}
+}
@@ -0,0 +1,262 @@
+package com.example.banking.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LedgerJournalTest {
+
+	private static final Logger log = LoggerFactory.getLogger(LedgerJournalTest.class);
+
+	private static final int SEGMENT_SIZE = 4096;
+	private static final int RECORD_SIZE = 4 + 8 + 8 + 8 + 8 + 2 + 2 * 16 + 4;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recoversPostingsAcrossSegments() {
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		journal.recover(posting -> {
+		});
+		UUID transferId = UUID.randomUUID();
+		for (long sequence = 1; sequence <= 200; sequence++) {
+			journal.append(posting(sequence, sequence == 7 ? transferId : null));
+		}
+		journal.close();
+
+		List<Posting> recovered = new ArrayList<>();
+		new LedgerJournal(directory, SEGMENT_SIZE).recover(recovered::add);
+
+		assertEquals(200, recovered.size());
+		assertEquals(200, recovered.get(199).sequence());
+		assertEquals(transferId, recovered.get(6).transferId());
+		assertNull(recovered.get(7).transferId());
+		assertEquals(List.of(new Posting.Leg(1, -700), new Posting.Leg(2, 700)), recovered.get(6).legs());
+	}
+
+	@Test
+	void stopsAtTornRecordAndOverwritesIt() throws IOException {
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		journal.recover(posting -> {
+		});
+		for (long sequence = 1; sequence <= 3; sequence++) {
+			journal.append(posting(sequence, null));
+		}
+		journal.close();
+
+		// Flip a byte inside the third record's body
+		Path segment = segments().get(0);
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(2L * RECORD_SIZE + 10);
+			file.write(0x7f);
+		}
+
+		List<Posting> recovered = new ArrayList<>();
+		LedgerJournal reopened = new LedgerJournal(directory, SEGMENT_SIZE);
+		reopened.recover(recovered::add);
+		assertEquals(2, recovered.size());
+
+		reopened.append(posting(3, null));
+		reopened.close();
+		List<Posting> again = new ArrayList<>();
+		new LedgerJournal(directory, SEGMENT_SIZE).recover(again::add);
+		assertEquals(3, again.size());
+	}
+
+	@Test
+	void corruptRecordInAnEarlierSegmentEndsRecovery() throws IOException {
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		journal.recover(posting -> {
+		});
+		for (long sequence = 1; sequence <= 200; sequence++) {
+			journal.append(posting(sequence, null));
+		}
+		journal.close();
+		List<Path> segments = segments();
+		assertTrue(segments.size() > 2);
+
+		try (RandomAccessFile file = new RandomAccessFile(segments.get(0).toFile(), "rw")) {
+			file.seek(2L * RECORD_SIZE + 10);
+			file.write(0x7f);
+		}
+
+		List<Posting> recovered = new ArrayList<>();
+		LedgerJournal reopened = new LedgerJournal(directory, SEGMENT_SIZE);
+		reopened.recover(recovered::add);
+		assertEquals(2, recovered.size());
+		assertEquals(List.of(segments.get(0)), segments());
+
+		for (long sequence = 3; sequence <= 100; sequence++) {
+			reopened.append(posting(sequence, null));
+		}
+		reopened.close();
+		List<Posting> again = new ArrayList<>();
+		new LedgerJournal(directory, SEGMENT_SIZE).recover(again::add);
+		assertEquals(100, again.size());
+		assertEquals(100, again.get(99).sequence());
+	}
+
+	@Test
+	void rejectsPostingsThatDoNotFitInASegment() {
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		journal.recover(posting -> {
+		});
+		List<Posting.Leg> legs = new ArrayList<>();
+		for (long account = 1; account <= journal.maxLegs() + 1; account++) {
+			legs.add(new Posting.Leg(account, account % 2 == 0 ? 1 : -1));
+		}
+		Posting oversized = new Posting(1, Instant.now(), null, legs);
+
+		assertThrows(IllegalArgumentException.class, () -> journal.append(oversized));
+
+		LedgerEngine engine = new LedgerEngine(journal, posting -> {
+		}, new SimpleMeterRegistry());
+		for (long account = 1; account <= legs.size(); account++) {
+			engine.registerAccount(account, "EUR", 0);
+		}
+		engine.start(1);
+		try {
+			assertThrows(IllegalArgumentException.class, () -> engine.submit(null, legs));
+			assertEquals(1, engine.post(null, legs.subList(0, 2)).sequence());
+		} finally {
+			engine.close();
+		}
+	}
+
+	@Test
+	void discardsTheJournalOfAnotherDatabaseOnlyWhileTheDatabaseIsEmpty() {
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		String epoch = journal.bind(null, true);
+		journal.recover(posting -> {
+		});
+		journal.append(posting(1, null));
+		journal.close();
+
+		// Same database: the journal is replayed
+		assertEquals(epoch, new LedgerJournal(directory, SEGMENT_SIZE).bind(epoch, false));
+		assertEquals(1, recoverAll().size());
+
+		// A database from another epoch that already has data is refused
+		assertThrows(IllegalStateException.class,
+				() -> new LedgerJournal(directory, SEGMENT_SIZE).bind(UUID.randomUUID().toString(), false));
+		assertEquals(1, recoverAll().size());
+
+		// A recreated, empty database gets a fresh journal
+		String fresh = new LedgerJournal(directory, SEGMENT_SIZE).bind(null, true);
+		assertNotEquals(epoch, fresh);
+		assertTrue(recoverAll().isEmpty());
+	}
+
+	@Test
+	void keepsJournalsWrittenBeforeEpochsWhileTheDatabaseHasData() {
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		journal.recover(posting -> {
+		});
+		journal.append(posting(1, null));
+		journal.close();
+
+		new LedgerJournal(directory, SEGMENT_SIZE).bind(null, false);
+
+		assertEquals(1, recoverAll().size());
+	}
+
+	@Test
+	@Tag("benchmark")
+	void postingThroughputWithGroupCommit() throws InterruptedException {
+		int accounts = 1_000;
+		int postingsPerThread = 50_000;
+		for (int threads : new int[] {1, 4, 16, 64}) {
+			Path runDirectory = directory.resolve("run-" + threads);
+			LedgerJournal journal = new LedgerJournal(runDirectory, 64 * 1024 * 1024);
+			journal.recover(posting -> {
+			});
+			SimpleMeterRegistry registry = new SimpleMeterRegistry();
+			LedgerEngine engine = new LedgerEngine(journal, posting -> {
+			}, registry);
+			for (long account = 1; account <= accounts; account++) {
+				engine.registerAccount(account, "EUR", 0);
+			}
+			engine.start(1);
+
+			AtomicLong seed = new AtomicLong();
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			long start = System.nanoTime();
+			try {
+				for (int t = 0; t < threads; t++) {
+					executor.execute(() -> {
+						long next = seed.incrementAndGet();
+						CompletableFuture<?> last = null;
+						for (int i = 0; i < postingsPerThread / threads * 4; i++) {
+							long from = 1 + (next++ * 7919) % accounts;
+							long to = 1 + (from % accounts);
+							last = engine.submit(null, List.of(new Posting.Leg(from, -1), new Posting.Leg(to, 1)));
+							if (i % 64 == 0) {
+								last.join();
+							}
+						}
+						last.join();
+					});
+				}
+				executor.shutdown();
+				assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+			} finally {
+				executor.shutdownNow();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long posted = (long) registry.get("ledger.postings").counter().count();
+			double fsyncs = registry.get("ledger.journal.fsync").timer().count();
+			engine.close();
+
+			// Group commit: one fsync makes several postings durable
+			assertTrue(fsyncs < posted, "fsyncs=" + fsyncs + " postings=" + posted);
+			log.info("threads={} postings={} time={}s throughput={} postings/s fsyncs={} avgGroup={}", threads,
+					posted, String.format("%.2f", seconds), String.format("%.0f", posted / seconds),
+					String.format("%.0f", fsyncs), String.format("%.1f", posted / fsyncs));
+		}
+	}
+
+	private List<Posting> recoverAll() {
+		List<Posting> recovered = new ArrayList<>();
+		LedgerJournal journal = new LedgerJournal(directory, SEGMENT_SIZE);
+		journal.recover(recovered::add);
+		journal.close();
+		return recovered;
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+		}
+	}
+
+	private static Posting posting(long sequence, UUID transferId) {
+		return new Posting(sequence, Instant.ofEpochMilli(1_700_000_000_000L + sequence), transferId,
+				List.of(new Posting.Leg(1, -100 * sequence), new Posting.Leg(2, 100 * sequence)));
+	}
+}
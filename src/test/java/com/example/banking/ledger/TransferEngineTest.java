@@ -0,0 +1,200 @@
+package com.example.banking.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.banking.exception.IdempotencyConflictException;
+import com.example.banking.exception.InsufficientFundsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransferEngineTest {
+	private static final Logger log = LoggerFactory.getLogger(TransferEngineTest.class);
+
+	@TempDir
+	Path directory;
+
+	private final List<AutoCloseable> resources = new ArrayList<>();
+	private LedgerEngine ledgerEngine;
+	private SimpleMeterRegistry registry;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		for (int i = resources.size() - 1; i >= 0; i--) {
+			resources.get(i).close();
+		}
+		resources.clear();
+	}
+
+	@Test
+	void movesFundsWithinAndAcrossShards() {
+		TransferEngine engine = engine(4, 8, 1_000);
+
+		engine.transfer(new Transfer(UUID.randomUUID(), 1, 5, 300));
+		engine.transfer(new Transfer(UUID.randomUUID(), 1, 2, 200));
+
+		assertEquals(500, ledgerEngine.balance(1));
+		assertEquals(1_300, ledgerEngine.balance(5));
+		assertEquals(1_200, ledgerEngine.balance(2));
+		assertEquals(1, registry.get("ledger.transfers.cross.shard").counter().count());
+	}
+
+	@Test
+	void rejectsOverdraftAndAllowsRetryUnderSameId() {
+		TransferEngine engine = engine(2, 2, 100);
+		UUID transferId = UUID.randomUUID();
+
+		assertThrows(InsufficientFundsException.class, () -> engine.transfer(new Transfer(transferId, 1, 2, 150)));
+		engine.transfer(new Transfer(UUID.randomUUID(), 2, 1, 100));
+		engine.transfer(new Transfer(transferId, 1, 2, 150));
+
+		assertEquals(50, ledgerEngine.balance(1));
+		assertEquals(150, ledgerEngine.balance(2));
+	}
+
+	@Test
+	void replaysCompletedTransferIds() {
+		TransferEngine engine = engine(2, 2, 1_000);
+		UUID transferId = UUID.randomUUID();
+
+		Posting first = engine.transfer(new Transfer(transferId, 1, 2, 10));
+		Posting replayed = engine.transfer(new Transfer(transferId, 1, 2, 10));
+
+		assertSame(first, replayed);
+		assertEquals(990, ledgerEngine.balance(1));
+		assertThrows(IdempotencyConflictException.class, () -> engine.transfer(new Transfer(transferId, 1, 2, 11)));
+	}
+
+	@Test
+	void concurrentTransfersNeverOverdrawAHotAccount() throws InterruptedException {
+		int accounts = 16;
+		TransferEngine engine = engine(4, accounts, 100);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<CompletableFuture<Posting>> results = new ArrayList<>();
+		for (int i = 0; i < 4_000; i++) {
+			long to = 2 + i % (accounts - 1);
+			results.add(CompletableFuture.supplyAsync(() -> engine.transfer(new Transfer(UUID.randomUUID(), 1, to, 7)),
+					executor));
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		long succeeded = results.stream().filter(result -> {
+			try {
+				result.join();
+				return true;
+			} catch (CompletionException e) {
+				assertTrue(e.getCause() instanceof InsufficientFundsException);
+				return false;
+			}
+		}).count();
+		assertEquals(100 / 7, succeeded);
+		assertEquals(100 % 7, ledgerEngine.balance(1));
+		long total = 0;
+		for (long account = 1; account <= accounts; account++) {
+			total += ledgerEngine.balance(account);
+		}
+		assertEquals(100L * accounts, total);
+	}
+
+	@Test
+	@Tag("benchmark")
+	void throughputFromUniformToHotAccount() throws Exception {
+		int accounts = 10_000;
+		int transfers = 400_000;
+		int threads = 32;
+		for (double hotShare : new double[] {0.0, 0.5, 0.9}) {
+			for (int shards : new int[] {1, 4, 8}) {
+				TransferEngine engine = engine(shards, accounts, 1_000_000_000L);
+				ExecutorService executor = Executors.newFixedThreadPool(threads);
+				long start = System.nanoTime();
+				try {
+					for (int t = 0; t < threads; t++) {
+						executor.execute(() -> {
+							ThreadLocalRandom random = ThreadLocalRandom.current();
+							List<CompletableFuture<Posting>> window = new ArrayList<>(256);
+							for (int i = 0; i < transfers / threads; i++) {
+								long from = 1 + random.nextInt(accounts);
+								// Hot transfers settle into account 1, the way card payments hit a merchant
+								long to = random.nextDouble() < hotShare ? 1 : 1 + random.nextInt(accounts);
+								if (from == to) {
+									from = to == accounts ? 1 : to + 1;
+								}
+								window.add(engine.submit(new Transfer(UUID.randomUUID(), from, to, 1)));
+								if (window.size() == 256) {
+									window.forEach(CompletableFuture::join);
+									window.clear();
+								}
+							}
+							window.forEach(CompletableFuture::join);
+						});
+					}
+					executor.shutdown();
+					assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+				} finally {
+					executor.shutdownNow();
+				}
+				double seconds = (System.nanoTime() - start) / 1e9;
+
+				double committed = registry.get("ledger.transfers").tag("outcome", "committed").counter().count();
+				double crossShard = registry.get("ledger.transfers.cross.shard").counter().count();
+				assertEquals(transfers / threads * threads, committed, 0.0);
+				// Hot-account traffic must not lose or create money on the two-phase path
+				long total = 0;
+				for (long account = 1; account <= accounts; account++) {
+					total += ledgerEngine.balance(account);
+				}
+				assertEquals(accounts * 1_000_000_000L, total);
+				if (shards == 1) {
+					assertEquals(0, crossShard, 0.0);
+				}
+				log.info("hot={}% shards={} transfers={} time={}s throughput={} transfers/s crossShard={}%",
+						String.format("%.0f", hotShare * 100), shards, String.format("%.0f", committed),
+						String.format("%.2f", seconds), String.format("%.0f", committed / seconds),
+						String.format("%.0f", 100 * crossShard / committed));
+				tearDown();
+			}
+		}
+	}
+
+	private TransferEngine engine(int shards, int accounts, long openingBalance) {
+		registry = new SimpleMeterRegistry();
+		Path runDirectory = directory.resolve(UUID.randomUUID().toString());
+		LedgerJournal journal = new LedgerJournal(runDirectory, 64 * 1024 * 1024);
+		journal.recover(posting -> {
+		});
+		ledgerEngine = new LedgerEngine(journal, posting -> {
+		}, registry);
+		for (long account = 1; account <= accounts; account++) {
+			ledgerEngine.registerAccount(account, "EUR", openingBalance);
+		}
+		ledgerEngine.start(1);
+		resources.add(ledgerEngine);
+
+		TransferEngine engine = new TransferEngine(ledgerEngine, shards, 256, Duration.ofHours(1), registry);
+		engine.start();
+		resources.add(engine);
+		return engine;
+	}
+}
@@ -0,0 +1,243 @@
+package com.example.banking.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.banking.entity.User;
+import com.example.banking.exception.UserAlreadyExistsException;
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+class ShardedUserRepositoryTest {
+
+	private static final Logger log = LoggerFactory.getLogger(ShardedUserRepositoryTest.class);
+
+	private final List<HikariDataSource> pools = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		pools.forEach(HikariDataSource::close);
+		pools.clear();
+	}
+
+	@Test
+	void usersAreRoutedByIdAndFoundThroughDirectories() {
+		ShardedUserRepository repository = repository(3);
+
+		for (int i = 0; i < 30; i++) {
+			repository.save(user(i));
+		}
+
+		User alice = repository.findByEmail("user7@example.com").orElseThrow();
+		assertEquals("user7", alice.getUsername());
+		assertEquals(alice.getUserId(), repository.findByUsername("user7").orElseThrow().getUserId());
+		assertEquals(alice.getUserId(), repository.findByPhone("+1000000007").orElseThrow().getUserId());
+		assertEquals(30, repository.count());
+		assertThrows(UserAlreadyExistsException.class, () -> repository.save(user(7)));
+		assertEquals(30, repository.count());
+	}
+
+	@Test
+	void changingEmailMovesDirectoryEntry() {
+		ShardedUserRepository repository = repository(2);
+		User user = repository.save(user(1));
+
+		user.setEmail("renamed@example.com");
+		repository.save(user);
+
+		assertFalse(repository.existsByEmail("user1@example.com"));
+		assertTrue(repository.existsByEmail("renamed@example.com"));
+		assertEquals(1L, repository.findById(user.getUserId()).orElseThrow().getVersion());
+	}
+
+	@Test
+	void findAllMergesShardsInOrder() {
+		ShardedUserRepository repository = repository(4);
+		for (int i = 0; i < 50; i++) {
+			repository.save(user(i));
+		}
+
+		Page<User> page = repository.findAll(PageRequest.of(2, 10, Sort.by("username")));
+
+		assertEquals(50, page.getTotalElements());
+		List<String> usernames = page.getContent().stream().map(User::getUsername).toList();
+		List<String> expected = IntStream.range(0, 50).mapToObj(i -> "user" + i).sorted()
+				.skip(20).limit(10).toList();
+		assertEquals(expected, usernames);
+	}
+
+	@Test
+	void orphanedClaimsAreIgnoredAndTakenOver() {
+		ShardedUserRepository repository = repository(2);
+		LocalDateTime old = LocalDateTime.now().minus(ShardedUserRepository.ORPHAN_CLAIM_AGE).minusSeconds(1);
+		// A crashed insert left claims for an id that has no user row
+		claimEverywhere("email", "user1@example.com", 42L, old);
+		claimEverywhere("username", "user2", 43L, LocalDateTime.now());
+
+		assertFalse(repository.existsByEmail("user1@example.com"));
+		assertFalse(repository.existsByUsername("user2"));
+
+		User user = repository.save(user(1));
+		assertEquals(user.getUserId(), repository.findByEmail("user1@example.com").orElseThrow().getUserId());
+		// A recent claim may belong to an insert that is still running
+		assertThrows(UserAlreadyExistsException.class, () -> repository.save(user(2)));
+		assertEquals(1, repository.count());
+	}
+
+	@Test
+	@Tag("benchmark")
+	void concurrentWritesSpreadEvenlyAcrossShards() throws InterruptedException {
+		int users = 20_000;
+		int threads = 16;
+		for (int shardCount : new int[] {1, 2, 4, 8}) {
+			ShardedUserRepository repository = repository(shardCount);
+			AtomicInteger next = new AtomicInteger();
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			long start = System.nanoTime();
+			try {
+				for (int t = 0; t < threads; t++) {
+					executor.execute(() -> {
+						for (int i = next.getAndIncrement(); i < users; i = next.getAndIncrement()) {
+							repository.save(user(i));
+						}
+					});
+				}
+				executor.shutdown();
+				assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+			} finally {
+				executor.shutdownNow();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			assertEquals(users, repository.count());
+			// Write capacity only grows with shards if no shard takes a disproportionate share
+			for (HikariDataSource pool : pools) {
+				long rows = new JdbcTemplate(pool).queryForObject("SELECT COUNT(*) FROM users", Long.class);
+				assertEquals(users / (double) shardCount, rows, users * 0.1 / shardCount,
+						"rows on " + pool.getJdbcUrl());
+			}
+			log.info("shards={} inserts={} time={}s throughput={} users/s", shardCount, users,
+					String.format("%.2f", seconds), String.format("%.0f", users / seconds));
+			repository.destroy();
+			tearDown();
+		}
+	}
+
+	@Test
+	@Tag("benchmark")
+	void writeThroughputScalesWithShardCount() throws InterruptedException {
+		// Each shard stands in for a database with two connections and a
+		// millisecond per durable write, so a shard's write capacity is bounded
+		// the way a real primary's is; in-memory H2 alone has no such bound
+		int users = 1_000;
+		int threads = 16;
+		double oneShard = 0;
+		for (int shardCount : new int[] {1, 2, 4}) {
+			ShardedUserRepository repository = repository(shardCount, 2, 1);
+			double throughput = insertConcurrently(repository, users, threads);
+			assertEquals(users, repository.count());
+			log.info("shards={} inserts={} throughput={} users/s", shardCount, users,
+					String.format("%.0f", throughput));
+			if (shardCount == 1) {
+				oneShard = throughput;
+			} else {
+				assertTrue(throughput > oneShard * shardCount * 0.6,
+						shardCount + " shards: " + throughput + " users/s against " + oneShard + " on one");
+			}
+			repository.destroy();
+			tearDown();
+		}
+	}
+
+	private static double insertConcurrently(ShardedUserRepository repository, int users, int threads)
+			throws InterruptedException {
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		try {
+			for (int t = 0; t < threads; t++) {
+				executor.execute(() -> {
+					for (int i = next.getAndIncrement(); i < users; i = next.getAndIncrement()) {
+						repository.save(user(i));
+					}
+				});
+			}
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+		} finally {
+			executor.shutdownNow();
+		}
+		return users / ((System.nanoTime() - start) / 1e9);
+	}
+
+	private void claimEverywhere(String kind, String key, long userId, LocalDateTime claimedAt) {
+		for (HikariDataSource pool : pools) {
+			new JdbcTemplate(pool).update(
+					"INSERT INTO user_directory (kind, lookup_key, user_id, claimed_at) VALUES (?, ?, ?, ?)",
+					kind, key, userId, Timestamp.valueOf(claimedAt));
+		}
+	}
+
+	private ShardedUserRepository repository(int shardCount) {
+		return repository(shardCount, 8, 0);
+	}
+
+	/**
+	 * @param writeMillis time each insert, update or delete holds its
+	 *                    connection after executing, as a durable commit would
+	 */
+	private ShardedUserRepository repository(int shardCount, int poolSize, long writeMillis) {
+		String run = UUID.randomUUID().toString().substring(0, 8);
+		List<DataSource> dataSources = new ArrayList<>();
+		for (int i = 0; i < shardCount; i++) {
+			HikariDataSource pool = new HikariDataSource();
+			pool.setJdbcUrl("jdbc:h2:mem:shard_" + run + "_" + i + ";DB_CLOSE_DELAY=-1");
+			pool.setUsername("sa");
+			pool.setMaximumPoolSize(poolSize);
+			pools.add(pool);
+			dataSources.add(writeMillis == 0 ? pool : ProxyDataSourceBuilder.create(pool)
+					.afterQuery((execution, queries) -> {
+						if (queries.stream().anyMatch(query -> !query.getQuery().startsWith("SELECT"))) {
+							LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(writeMillis));
+						}
+					})
+					.build());
+		}
+		ShardedUserRepository repository = new ShardedUserRepository(dataSources);
+		repository.createSchema();
+		return repository;
+	}
+
+	private static User user(int i) {
+		return User.builder().username("user" + i)
+				.password("$2a$10$abcdefghijklmnopqrstuvwxyz0123456789")
+				.email("user" + i + "@example.com").phone("+1" + String.format("%09d", i)).build();
+	}
+}
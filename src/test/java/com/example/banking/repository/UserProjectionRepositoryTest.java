@@ -0,0 +1,105 @@
+package com.example.banking.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserField;
+import com.example.banking.entity.User;
+import com.example.banking.exception.InvalidFieldSelectionException;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.example.banking.repository.UserProjectionRepositoryTest$CapturingInspector")
+class UserProjectionRepositoryTest {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < 5; i++) {
+			userRepository.save(User.builder().username("user" + i).email("user" + i + "@example.com")
+					.phone("+1555000000" + i).password("x".repeat(60)).build());
+		}
+		userRepository.flush();
+		CapturingInspector.statements.clear();
+	}
+
+	@Test
+	void selectsOnlyTheRequestedColumns() {
+		Page<UserDTO> page = userRepository.findAllProjected(UserField.parse("userId,email"),
+				PageRequest.of(1, 2, Sort.by("email")));
+
+		String select = CapturingInspector.statements.get(0).toLowerCase(Locale.ROOT);
+		String columns = select.substring(0, select.indexOf(" from "));
+		assertTrue(columns.contains("user_id") && columns.contains("email") && columns.contains("version"), select);
+		assertFalse(columns.contains("username") || columns.contains("phone") || columns.contains("password")
+				|| columns.contains("firstname"), select);
+
+		assertEquals(5, page.getTotalElements());
+		assertEquals(List.of("user2@example.com", "user3@example.com"),
+				page.getContent().stream().map(UserDTO::getEmail).toList());
+		assertNull(page.getContent().get(0).getPhone());
+		assertEquals(Set.of(UserField.USER_ID, UserField.EMAIL), page.getContent().get(0).getFields());
+	}
+
+	@Test
+	void findsOneUserById() {
+		Long userId = userRepository.findByUsername("user3").orElseThrow().getUserId();
+		CapturingInspector.statements.clear();
+
+		UserDTO user = userRepository.findProjectedById(userId, UserField.parse("phone")).orElseThrow();
+
+		assertEquals("+15550000003", user.getPhone());
+		assertEquals(0L, user.getVersion());
+		assertFalse(CapturingInspector.statements.get(0).toLowerCase(Locale.ROOT).contains("email"));
+	}
+
+	@Test
+	void rowsWrittenWithoutAVersionStartAtZero() {
+		// As rows that predate the version column are backfilled
+		jdbcTemplate.update("INSERT INTO users (username, email, phone, password, created_at, updated_at) "
+				+ "VALUES ('legacy', 'legacy@example.com', '+15550000099', ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+				"x".repeat(60));
+		Long userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE username = 'legacy'", Long.class);
+
+		assertEquals(0L, userRepository.findProjectedById(userId, UserField.ALL).orElseThrow().getVersion());
+	}
+
+	@Test
+	void rejectsFieldsOffTheAllowList() {
+		assertThrows(InvalidFieldSelectionException.class, () -> UserField.parse("email,password"));
+		assertEquals(UserField.ALL, UserField.parse(" "));
+	}
+
+	public static class CapturingInspector implements StatementInspector {
+		static final List<String> statements = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+	}
+}
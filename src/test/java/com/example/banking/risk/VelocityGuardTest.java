@@ -0,0 +1,175 @@
+package com.example.banking.risk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.banking.exception.VelocityLimitExceededException;
+import com.example.banking.ledger.Posting;
+import com.example.banking.ledger.Transfer;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VelocityGuardTest {
+
+	private static final Logger log = LoggerFactory.getLogger(VelocityGuardTest.class);
+
+	private final TestClock clock = new TestClock(Instant.parse("2024-05-01T10:00:00Z").toEpochMilli());
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void countLimitBlocksUntilTheWindowSlidesPast() {
+		VelocityGuard guard = guard("account:1m:count:3");
+
+		for (int i = 0; i < 3; i++) {
+			guard.admit(transfer(1, 10));
+		}
+		assertThrows(VelocityLimitExceededException.class, () -> guard.admit(transfer(1, 10)));
+		guard.admit(transfer(2, 10));
+
+		clock.advance(Duration.ofSeconds(61));
+		guard.admit(transfer(1, 10));
+		assertEquals(1, registry.get("velocity.rule.blocks").tag("rule", "account:1m:count:3").counter().count());
+	}
+
+	@Test
+	void userAmountLimitSpansTheirAccounts() {
+		VelocityGuard guard = guard("user:24h:amount:1000");
+		guard.registerAccount(1, 7);
+		guard.registerAccount(2, 7);
+
+		guard.admit(transfer(1, 600));
+		clock.advance(Duration.ofHours(5));
+		assertThrows(VelocityLimitExceededException.class, () -> guard.admit(transfer(2, 500)));
+		guard.admit(transfer(2, 400));
+
+		clock.advance(Duration.ofHours(20));
+		assertEquals(400, guard.total(VelocityRule.Scope.USER, 7, VelocityWindow.DAY, VelocityRule.Metric.AMOUNT));
+	}
+
+	@Test
+	void releaseGivesBackAFailedTransfer() {
+		VelocityGuard guard = guard("account:1h:amount:100");
+		Transfer transfer = transfer(1, 100);
+
+		long admittedAt = guard.admit(transfer);
+		clock.advance(Duration.ofSeconds(2));
+		guard.release(transfer, admittedAt);
+
+		guard.admit(transfer(1, 100));
+	}
+
+	@Test
+	void rebuildsFromRecentPostingsAndEvictsIdleKeys() {
+		VelocityGuard guard = guard("account:24h:count:100");
+		guard.registerAccount(1, 7);
+		long now = clock.millis();
+		guard.replay(posting(now - Duration.ofHours(30).toMillis(), 1, 2, 50));
+		guard.replay(posting(now - Duration.ofHours(3).toMillis(), 1, 2, 50));
+		guard.replay(posting(now - Duration.ofMinutes(30).toMillis(), 1, 3, 25));
+
+		assertEquals(75, guard.total(VelocityRule.Scope.USER, 7, VelocityWindow.DAY, VelocityRule.Metric.AMOUNT));
+		assertEquals(25, guard.total(VelocityRule.Scope.ACCOUNT, 1, VelocityWindow.HOUR, VelocityRule.Metric.AMOUNT));
+		assertEquals(0, guard.evictIdle());
+
+		clock.advance(Duration.ofHours(25));
+		assertEquals(2, guard.evictIdle());
+		assertEquals(0, guard.total(VelocityRule.Scope.ACCOUNT, 1, VelocityWindow.DAY, VelocityRule.Metric.COUNT));
+	}
+
+	@Test
+	void doesNotReplayFees() {
+		VelocityGuard guard = new VelocityGuard(VelocityRule.parseAll("account:24h:count:1"), clock, 99, registry);
+		guard.registerAccount(1, 7);
+		guard.replay(posting(clock.millis() - Duration.ofHours(1).toMillis(), 1, 99, 500));
+
+		assertEquals(0, guard.total(VelocityRule.Scope.ACCOUNT, 1, VelocityWindow.DAY, VelocityRule.Metric.COUNT));
+		assertEquals(0, guard.total(VelocityRule.Scope.USER, 7, VelocityWindow.DAY, VelocityRule.Metric.AMOUNT));
+		// The fee did not use up the account's only transfer of the day
+		guard.admit(transfer(1, 10));
+	}
+
+	@Test
+	@Tag("benchmark")
+	void checksStaySubMillisecondWithManyKeys() {
+		VelocityGuard guard = guard("user:1m:count:1000000,user:1h:amount:1000000000000,account:24h:count:1000000");
+		int keys = 1_000_000;
+		for (long account = 1; account <= keys; account++) {
+			guard.registerAccount(account, account / 3);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < 5_000_000; i++) {
+			guard.admit(transfer(1 + random.nextInt(keys), 1 + random.nextInt(10_000)));
+			if (i % 1_000 == 0) {
+				clock.advance(Duration.ofMillis(20));
+			}
+		}
+		Timer timer = registry.get("velocity.check").timer();
+		log.info("checks={} mean={}us max={}us", timer.count(), timer.mean(TimeUnit.MICROSECONDS),
+				timer.max(TimeUnit.MICROSECONDS));
+		assertEquals(5_000_000, timer.count());
+		double meanMicros = timer.mean(TimeUnit.MICROSECONDS);
+		assertTrue(meanMicros < 1_000, "mean check took " + meanMicros + "us");
+	}
+
+	private VelocityGuard guard(String rules) {
+		return new VelocityGuard(VelocityRule.parseAll(rules), clock, registry);
+	}
+
+	private static Transfer transfer(long fromAccountId, long amount) {
+		return new Transfer(UUID.randomUUID(), fromAccountId, fromAccountId + 1, amount);
+	}
+
+	private static Posting posting(long at, long from, long to, long amount) {
+		return new Posting(1, Instant.ofEpochMilli(at), UUID.randomUUID(),
+				List.of(new Posting.Leg(from, -amount), new Posting.Leg(to, amount)));
+	}
+
+	private static final class TestClock extends Clock {
+		private long millis;
+
+		TestClock(long millis) {
+			this.millis = millis;
+		}
+
+		void advance(Duration duration) {
+			millis += duration.toMillis();
+		}
+
+		@Override
+		public long millis() {
+			return millis;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+}
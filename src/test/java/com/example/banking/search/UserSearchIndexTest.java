@@ -0,0 +1,113 @@
+package com.example.banking.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class UserSearchIndexTest {
+
+	private static final Logger log = LoggerFactory.getLogger(UserSearchIndexTest.class);
+
+	private final UserSearchIndex index = new UserSearchIndex(10_000);
+
+	@Test
+	void ranksExactThenPrefixThenInfixMatches() {
+		index.index(1, "annabelle", "belle@example.com", "+15550001");
+		index.index(2, "anna", "anna.k@example.com", "+15550002");
+		index.index(3, "joanna", "jo@example.com", "+15550003");
+		index.index(4, "bob", "bob@annapolis.org", "+15550004");
+
+		assertEquals(List.of(2L, 1L, 3L, 4L), index.search("Anna", 0, 10).userIds());
+		assertEquals(List.of(1L, 3L), index.search("anna", 1, 2).userIds());
+		assertEquals(4, index.search("anna", 1, 2).total());
+		assertEquals(List.of(3L), index.search("5550003", 0, 10).userIds());
+	}
+
+	@Test
+	void shortQueriesMatchPrefixesOnly() {
+		index.index(1, "zed", "z@example.com", "+1");
+		index.index(2, "liz", "liz@example.com", "+2");
+
+		assertEquals(List.of(1L), index.search("z", 0, 10).userIds());
+		assertEquals(List.of(2L), index.search("li", 0, 10).userIds());
+		assertEquals(List.of(), index.search("iz", 0, 10).userIds());
+	}
+
+	@Test
+	void shortQueriesIgnoreInfixMatchesThatLookAnchored() {
+		index.index(1, "x^ab", "x@example.com", "+1");
+		index.index(2, "ab", "abby@example.com", "+2");
+		index.index(3, "cab", "c@example.com", "+3");
+
+		UserSearchIndex.Result result = index.search("ab", 0, 10);
+		assertEquals(List.of(2L), result.userIds());
+		assertEquals(1, result.total());
+		assertEquals(List.of(1L), index.search("^ab", 0, 10).userIds());
+	}
+
+	@Test
+	void updatesAndRemovalsAreVisibleAcrossCompaction() {
+		for (long id = 1; id <= 5_000; id++) {
+			index.index(id, "user" + id, "user" + id + "@example.com", "+1" + id);
+		}
+		for (long id = 1; id <= 5_000; id++) {
+			index.index(id, "renamed" + id, "user" + id + "@example.com", "+1" + id);
+		}
+		index.remove(42);
+
+		assertEquals(4_999, index.size());
+		assertEquals(List.of(7L), index.search("renamed7", 0, 1).userIds());
+		assertFalse(index.search("renamed42", 0, 100).userIds().contains(42L));
+	}
+
+	@Test
+	void reportsATruncatedTotalPastTheCandidateCap() {
+		UserSearchIndex capped = new UserSearchIndex(100);
+		for (long id = 1; id <= 1_000; id++) {
+			capped.index(id, "user" + id, "user" + id + "@example.com", "+1" + id);
+		}
+
+		UserSearchIndex.Result result = capped.search("example", 0, 10);
+		assertTrue(result.truncated());
+		assertEquals(100, result.total());
+	}
+
+	@Test
+	@Tag("benchmark")
+	void queriesStaySubMillisecondAtOneMillionUsers() {
+		UserSearchIndex large = new UserSearchIndex(20_000);
+		int users = 1_000_000;
+		for (long id = 1; id <= users; id++) {
+			large.index(id, "user" + Long.toString(id * 7919, 36), "u" + id + "@mail" + (id % 100) + ".example.com",
+					"+1" + (5_550_000_000L + id));
+		}
+		long perUser = large.estimatedBytes() / large.size();
+		log.info("users={} bytes={} perUser={}", large.size(), large.estimatedBytes(), perUser);
+		assertEquals(users, large.size());
+		assertTrue(perUser < 1_024, "index uses " + perUser + " bytes per user");
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int queries = 100_000;
+		long started = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			long id = 1 + random.nextInt(users);
+			String query = switch (i % 3) {
+				case 0 -> Long.toString(id * 7919, 36).substring(1);
+				case 1 -> "u" + id + "@";
+				default -> Long.toString(5_550_000_000L + id).substring(3);
+			};
+			assertTrue(large.search(query, 0, 20).total() > 0, query);
+		}
+		double meanMicros = (System.nanoTime() - started) / 1_000.0 / queries;
+		log.info("queries={} mean={}us", queries, meanMicros);
+		assertTrue(meanMicros < 1_000, "mean query took " + meanMicros + "us");
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.banking.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.banking.audit.AuditEventType;
+import com.example.banking.audit.AuditLog;
+import com.example.banking.audit.AuditRecord;
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.security.dto.AuthenticationRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AsyncAuthenticationServiceTest {
+
+	private static final Logger log = LoggerFactory.getLogger(AsyncAuthenticationServiceTest.class);
+
+	private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+	private final JwtService jwtService = new JwtService();
+	private final List<AuditRecord> audited = new CopyOnWriteArrayList<>();
+	private final AuditLog auditLog = new AuditLog(audited::addAll, 1024, 64, AuditLog.OverflowPolicy.BLOCK,
+			Duration.ofMillis(5), Duration.ofMillis(1), Duration.ofSeconds(5), new SimpleMeterRegistry());
+	private final ExecutorService cpu = Executors.newFixedThreadPool(2);
+	private final ExecutorService io = Executors.newFixedThreadPool(2);
+
+	@AfterEach
+	void tearDown() {
+		auditLog.close();
+		cpu.shutdownNow();
+		io.shutdownNow();
+	}
+
+	@Test
+	void issuesATokenForValidCredentials() throws Exception {
+		Map<String, User> users = Map.of("alice@example.com", user(7L, "alice@example.com", "secret", Status.ACTIVE));
+		AsyncAuthenticationService service = service(lookup(users, 0), cpu, io);
+
+		String token = service.authenticate(new AuthenticationRequest("alice@example.com", "secret")).get()
+				.getToken();
+
+		assertEquals("alice@example.com", jwtService.extractUsername(token));
+		auditLog.close();
+		assertEquals(AuditEventType.LOGIN_SUCCEEDED, audited.get(0).type());
+		assertEquals(7L, audited.get(0).userId());
+	}
+
+	@Test
+	void rejectsWrongPasswordsLockedAccountsAndUnknownEmails() {
+		Map<String, User> users = Map.of("alice@example.com", user(7L, "alice@example.com", "secret", Status.ACTIVE),
+				"bob@example.com", user(8L, "bob@example.com", "secret", Status.SUSPENDED));
+		AsyncAuthenticationService service = service(lookup(users, 0), cpu, io);
+
+		assertInstanceOf(BadCredentialsException.class,
+				failure(service.authenticate(new AuthenticationRequest("alice@example.com", "wrong"))));
+		assertInstanceOf(LockedException.class,
+				failure(service.authenticate(new AuthenticationRequest("bob@example.com", "secret"))));
+		assertInstanceOf(BadCredentialsException.class,
+				failure(service.authenticate(new AuthenticationRequest("carol@example.com", "secret"))));
+
+		auditLog.close();
+		assertEquals(3, audited.size());
+		assertTrue(audited.stream().allMatch(record -> record.type() == AuditEventType.LOGIN_FAILED));
+	}
+
+	@Test
+	void rejectsInsteadOfQueueingWithoutBound() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		UserDetailsService stalled = email -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new UsernameNotFoundException(email);
+		};
+		ThreadPoolExecutor boundedIo = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(1));
+		try {
+			AsyncAuthenticationService service = service(stalled, cpu, boundedIo);
+			AuthenticationRequest request = new AuthenticationRequest("alice@example.com", "secret");
+			CompletableFuture<?> running = service.authenticate(request);
+			CompletableFuture<?> queued = service.authenticate(request);
+
+			assertThrows(RejectedExecutionException.class, () -> service.authenticate(request));
+
+			release.countDown();
+			assertInstanceOf(BadCredentialsException.class, failure(running));
+			assertInstanceOf(BadCredentialsException.class, failure(queued));
+		} finally {
+			boundedIo.shutdownNow();
+		}
+	}
+
+	/**
+	 * Logins completed by a fixed pool of 8 request threads, each login being
+	 * a 5 ms user lookup then a BCrypt(10) check and a signed token: blocking
+	 * on the request thread versus handing off to the CPU and I/O executors.
+	 */
+	@Test
+	@Tag("benchmark")
+	void asyncLoginsOutpaceBlockingOnesAtAFixedThreadCount() throws Exception {
+		int logins = 400;
+		int requestThreads = 8;
+		PasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+		User alice = user(7L, "alice@example.com", bcrypt.encode("secret"), Status.ACTIVE);
+		UserDetailsService slowLookup = lookup(Map.of(alice.getEmail(), alice), 5);
+		AuthenticationRequest request = new AuthenticationRequest(alice.getEmail(), "secret");
+		int cores = Runtime.getRuntime().availableProcessors();
+		double blockingRate = 0;
+
+		for (boolean async : new boolean[] {false, true}) {
+			ExecutorService requests = Executors.newFixedThreadPool(requestThreads);
+			ExecutorService cpuPool = Executors.newFixedThreadPool(cores);
+			ExecutorService ioPool = Executors.newFixedThreadPool(64);
+			long[] latencies = new long[logins];
+			long elapsed;
+			try {
+				AsyncAuthenticationService service = new AsyncAuthenticationService(slowLookup, bcrypt, jwtService,
+						null, auditLog, cpuPool, ioPool);
+				List<CompletableFuture<?>> done = new ArrayList<>();
+				long started = System.nanoTime();
+				for (int i = 0; i < logins; i++) {
+					int login = i;
+					long submitted = System.nanoTime();
+					CompletableFuture<?> completion;
+					if (async) {
+						completion = CompletableFuture.supplyAsync(() -> service.authenticate(request), requests)
+								.thenCompose(response -> response);
+					} else {
+						completion = CompletableFuture.supplyAsync(() -> {
+							if (!bcrypt.matches("secret",
+									slowLookup.loadUserByUsername(alice.getEmail()).getPassword())) {
+								throw new BadCredentialsException("Bad credentials");
+							}
+							return jwtService.generateToken(alice);
+						}, requests);
+					}
+					done.add(completion.whenComplete(
+							(result, failure) -> latencies[login] = System.nanoTime() - submitted));
+				}
+				// Fails if any login did
+				CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+				elapsed = System.nanoTime() - started;
+			} finally {
+				requests.shutdownNow();
+				cpuPool.shutdownNow();
+				ioPool.shutdownNow();
+			}
+			Arrays.sort(latencies);
+			double rate = logins / (elapsed / 1e9);
+			log.info("async={} requestThreads={} cores={} logins/s={} p99={}ms", async, requestThreads, cores,
+					Math.round(rate), latencies[logins * 99 / 100] / 1_000_000);
+			if (!async) {
+				blockingRate = rate;
+			} else if (cores >= requestThreads) {
+				// With fewer cores than request threads both runs are bound by BCrypt alone
+				assertTrue(rate > blockingRate, "async " + rate + " logins/s against " + blockingRate + " blocking");
+			}
+		}
+	}
+
+	private AsyncAuthenticationService service(UserDetailsService userDetailsService, ExecutorService cpuExecutor,
+			ExecutorService ioExecutor) {
+		return new AsyncAuthenticationService(userDetailsService, passwordEncoder, jwtService, null, auditLog,
+				cpuExecutor, ioExecutor);
+	}
+
+	private UserDetailsService lookup(Map<String, User> users, long delayMillis) {
+		return email -> {
+			if (delayMillis > 0) {
+				try {
+					Thread.sleep(delayMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			User user = users.get(email);
+			if (user == null) {
+				throw new UsernameNotFoundException(email);
+			}
+			return user;
+		};
+	}
+
+	private User user(Long id, String email, String password, Status status) {
+		return User.builder().userId(id).email(email).username(email)
+				.password(password.startsWith("$2") ? password : passwordEncoder.encode(password)).role(Role.USER)
+				.status(status).build();
+	}
+
+	private static Throwable failure(CompletableFuture<?> future) {
+		return assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS)).getCause();
+	}
+}
@@ -0,0 +1,134 @@
+package com.example.banking.security;
+
+import static com.example.banking.support.SqlCaptureExtension.assertStatements;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.security.dto.AuthenticationRequest;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
+import com.example.banking.security.dto.PasswordResetRequest;
+import com.example.banking.service.UserService;
+import com.example.banking.support.ServiceSliceConfig;
+import com.example.banking.support.SqlCaptureExtension;
+import com.example.banking.util.QueryRecorder;
+import com.example.banking.util.QueryRecorder.Recording;
+
+/**
+ * Pins the SQL behind the {@link AuthenticationService} operations.
+ * {@code register} is not covered: it stores an empty phone number, which
+ * the {@code User} constraints reject.
+ */
+@DataJpaTest(properties = "banking.query-capture.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ServiceSliceConfig.class)
+@ExtendWith(SqlCaptureExtension.class)
+class AuthenticationServiceQueryCountTest {
+
+	private static final AtomicInteger RUN = new AtomicInteger();
+	private static final String PASSWORD = "correct-horse";
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JavaMailSender mailSender;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String email;
+
+	@BeforeEach
+	void setUp() {
+		// Unique per test, as the user details cache outlives the rows
+		int run = RUN.incrementAndGet();
+		email = "auth" + run + "@example.com";
+		UserDTO user = new UserDTO();
+		user.setUsername("auth-" + run);
+		user.setEmail(email);
+		user.setPhone(String.format("+2%010d", run));
+		user.setPassword(PASSWORD);
+		userService.activateUser(userService.createUser(user).getUserId());
+	}
+
+	@AfterEach
+	void tearDown() {
+		ServiceSliceConfig.deleteAll(jdbcTemplate);
+	}
+
+	@Test
+	void authenticate(Recording sql) {
+		authenticationService.authenticate(credentials(PASSWORD));
+
+		// The authentication manager's load, then the lookup for the token
+		assertStatements(sql, "select users", "select users");
+	}
+
+	@Test
+	void authenticateWithCachedUserDetails() {
+		authenticationService.authenticate(credentials(PASSWORD));
+
+		try (Recording sql = QueryRecorder.start()) {
+			authenticationService.authenticate(credentials(PASSWORD));
+
+			assertStatements(sql, "select users");
+		}
+	}
+
+	@Test
+	void authenticateWithWrongPassword(Recording sql) {
+		assertThrows(BadCredentialsException.class, () -> authenticationService.authenticate(credentials("wrong")));
+
+		assertStatements(sql, "select users");
+	}
+
+	@Test
+	void resetPassword(Recording sql) {
+		authenticationService.resetPassword(new PasswordResetRequest(email));
+
+		// Earlier tokens of the user are replaced
+		assertStatements(sql, "select users", "delete password_reset_tokens", "insert password_reset_tokens");
+	}
+
+	@Test
+	void confirmPasswordReset() {
+		authenticationService.resetPassword(new PasswordResetRequest(email));
+		ArgumentCaptor<SimpleMailMessage> mail = ArgumentCaptor.forClass(SimpleMailMessage.class);
+		verify(mailSender, atLeastOnce()).send(mail.capture());
+		String text = mail.getValue().getText();
+		String token = text.substring(text.lastIndexOf(' ') + 1);
+
+		try (Recording sql = QueryRecorder.start()) {
+			authenticationService.confirmPasswordReset(new PasswordResetConfirmRequest(token, "battery-staple"));
+
+			assertStatements(sql, "select password_reset_tokens", "delete password_reset_tokens",
+					"delete password_reset_tokens", "select users", "insert invalidation_log", "update users");
+		}
+	}
+
+	private AuthenticationRequest credentials(String password) {
+		return new AuthenticationRequest(email, password);
+	}
+}
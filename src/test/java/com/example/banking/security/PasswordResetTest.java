@@ -0,0 +1,198 @@
+package com.example.banking.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.banking.batch.UserArchiver;
+import com.example.banking.dto.UserDTO;
+import com.example.banking.entity.Status;
+import com.example.banking.exception.InvalidTokenException;
+import com.example.banking.security.dto.PasswordResetConfirmRequest;
+import com.example.banking.security.dto.PasswordResetRequest;
+import com.example.banking.service.UserService;
+import com.example.banking.support.ServiceSliceConfig;
+import com.example.banking.util.Hashes;
+
+/**
+ * The password reset flow end to end: tokens are stored hashed, work once,
+ * expire, and are swept; the new password is stored encoded, and archived
+ * users are moved back to set it.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ServiceSliceConfig.class)
+class PasswordResetTest {
+
+	private static final AtomicInteger RUN = new AtomicInteger();
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private PasswordResetTokenService passwordResetTokenService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private JavaMailSender mailSender;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UserArchiver userArchiver;
+
+	private String email;
+	private Long userId;
+
+	@BeforeEach
+	void setUp() {
+		int run = RUN.incrementAndGet();
+		email = "reset" + run + "@example.com";
+		UserDTO user = new UserDTO();
+		user.setUsername("reset-" + run);
+		user.setEmail(email);
+		user.setPhone(String.format("+3%010d", run));
+		user.setPassword("correct-horse");
+		userId = userService.createUser(user).getUserId();
+	}
+
+	@AfterEach
+	void tearDown() {
+		ServiceSliceConfig.deleteAll(jdbcTemplate);
+	}
+
+	@Test
+	void storesOnlyTheTokenHashAndTheEncodedPassword() {
+		String token = requestReset();
+
+		String stored = jdbcTemplate.queryForObject(
+				"SELECT token_hash FROM password_reset_tokens WHERE user_id = ?", String.class, userId);
+		assertNotEquals(token, stored);
+		assertEquals(Hashes.sha256Hex(token), stored);
+
+		authenticationService.confirmPasswordReset(new PasswordResetConfirmRequest(token, "battery-staple"));
+
+		String password = jdbcTemplate.queryForObject(
+				"SELECT password FROM users WHERE user_id = ?", String.class, userId);
+		assertNotEquals("battery-staple", password);
+		assertTrue(passwordEncoder.matches("battery-staple", password));
+	}
+
+	@Test
+	void tokensWorkOnlyOnce() {
+		String token = requestReset();
+		authenticationService.confirmPasswordReset(new PasswordResetConfirmRequest(token, "battery-staple"));
+
+		assertThrows(InvalidTokenException.class, () -> authenticationService.confirmPasswordReset(
+				new PasswordResetConfirmRequest(token, "another-password")));
+		String password = jdbcTemplate.queryForObject(
+				"SELECT password FROM users WHERE user_id = ?", String.class, userId);
+		assertTrue(passwordEncoder.matches("battery-staple", password));
+	}
+
+	@Test
+	void aNewTokenReplacesTheOutstandingOne() {
+		String first = requestReset();
+		String second = requestReset();
+
+		assertThrows(InvalidTokenException.class, () -> passwordResetTokenService.consume(first));
+		assertEquals(userId, passwordResetTokenService.consume(second));
+	}
+
+	@Test
+	void expiredTokensAreRejected() {
+		String token = requestReset();
+		expire(userId);
+
+		assertThrows(InvalidTokenException.class, () -> authenticationService.confirmPasswordReset(
+				new PasswordResetConfirmRequest(token, "battery-staple")));
+		String password = jdbcTemplate.queryForObject(
+				"SELECT password FROM users WHERE user_id = ?", String.class, userId);
+		assertTrue(passwordEncoder.matches("correct-horse", password));
+		// The rejection rolled back the reset, but not the token's removal
+		assertEquals(0, tokensOf(userId));
+	}
+
+	@Test
+	void archivedUsersCanResetAndAreRestored() {
+		jdbcTemplate.update("UPDATE users SET status = ?, updated_at = ? WHERE user_id = ?", Status.INACTIVE.ordinal(),
+				Timestamp.valueOf(LocalDateTime.now().minusYears(2)), userId);
+		assertEquals(1, userArchiver.archive(LocalDateTime.now().minusYears(1)));
+
+		String token = requestReset();
+		authenticationService.confirmPasswordReset(new PasswordResetConfirmRequest(token, "battery-staple"));
+
+		String password = jdbcTemplate.queryForObject(
+				"SELECT password FROM users WHERE user_id = ?", String.class, userId);
+		assertTrue(passwordEncoder.matches("battery-staple", password));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users_archive WHERE user_id = ?",
+				Integer.class, userId));
+	}
+
+	@Test
+	void sweepRemovesOnlyExpiredTokens() {
+		requestReset();
+		Long other = userService.createUser(otherUser()).getUserId();
+		passwordResetTokenService.issue(other);
+		expire(userId);
+
+		passwordResetTokenService.sweepExpired();
+
+		assertEquals(0, tokensOf(userId));
+		assertEquals(1, tokensOf(other));
+	}
+
+	private String requestReset() {
+		authenticationService.resetPassword(new PasswordResetRequest(email));
+		ArgumentCaptor<SimpleMailMessage> mail = ArgumentCaptor.forClass(SimpleMailMessage.class);
+		verify(mailSender, atLeastOnce()).send(mail.capture());
+		String text = mail.getValue().getText();
+		return text.substring(text.lastIndexOf(' ') + 1);
+	}
+
+	private void expire(Long user) {
+		jdbcTemplate.update("UPDATE password_reset_tokens SET expires_at = ? WHERE user_id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), user);
+	}
+
+	private int tokensOf(Long user) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM password_reset_tokens WHERE user_id = ?",
+				Integer.class, user);
+	}
+
+	private UserDTO otherUser() {
+		UserDTO user = new UserDTO();
+		user.setUsername("other-" + userId);
+		user.setEmail("other" + userId + "@example.com");
+		user.setPhone(String.format("+4%010d", userId));
+		user.setPassword("correct-horse");
+		return user;
+	}
+}
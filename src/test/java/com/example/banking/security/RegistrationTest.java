@@ -0,0 +1,89 @@
+package com.example.banking.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.banking.batch.UserArchiver;
+import com.example.banking.dto.UserDTO;
+import com.example.banking.entity.Status;
+import com.example.banking.exception.UserAlreadyExistsException;
+import com.example.banking.security.dto.RegisterRequest;
+import com.example.banking.service.UserArchiveService;
+import com.example.banking.service.UserService;
+import com.example.banking.support.ServiceSliceConfig;
+
+/**
+ * Registration treats archived users as existing, so an archived user can
+ * always be moved back without colliding with a newer registration.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ServiceSliceConfig.class)
+class RegistrationTest {
+
+	private static final String EMAIL = "ivan@example.com";
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserArchiveService userArchiveService;
+
+	@Autowired
+	private UserArchiver userArchiver;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long userId;
+
+	@BeforeEach
+	void setUp() {
+		UserDTO user = new UserDTO();
+		user.setUsername(EMAIL);
+		user.setEmail(EMAIL);
+		user.setPhone("+4915112345678");
+		user.setPassword("correct-horse");
+		userId = userService.createUser(user).getUserId();
+		jdbcTemplate.update("UPDATE users SET status = ?, updated_at = ? WHERE user_id = ?", Status.INACTIVE.ordinal(),
+				Timestamp.valueOf(LocalDateTime.now().minusYears(2)), userId);
+		assertEquals(1, userArchiver.archive(LocalDateTime.now().minusYears(1)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		ServiceSliceConfig.deleteAll(jdbcTemplate);
+	}
+
+	@Test
+	void archivedEmailsCannotBeRegisteredAndStayRehydratable() {
+		assertThrows(UserAlreadyExistsException.class, () -> authenticationService.register(
+				RegisterRequest.builder().firstname("Ivan").lastname("Petrov").email(EMAIL).password("battery-staple")
+						.build()));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?", Integer.class,
+				EMAIL));
+
+		assertTrue(userArchiveService.findOrRehydrate(userId).isPresent());
+		assertEquals(userId, jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class,
+				EMAIL));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users_archive WHERE user_id = ?",
+				Integer.class, userId));
+	}
+}
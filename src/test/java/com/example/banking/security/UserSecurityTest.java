@@ -0,0 +1,58 @@
+package com.example.banking.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.banking.entity.Role;
+import com.example.banking.entity.User;
+import com.example.banking.repository.AccountRepository;
+
+class UserSecurityTest {
+
+	private final AccountRepository accountRepository = mock(AccountRepository.class);
+	private final UserSecurity userSecurity = new UserSecurity(accountRepository);
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void onlyTheOwnerPassesTheAccountCheck() {
+		when(accountRepository.existsByAccountIdAndOwnerUserId(10L, 1L)).thenReturn(true);
+
+		signIn(1L);
+		assertTrue(userSecurity.ownsAccount(10L));
+		assertFalse(userSecurity.ownsAccount(11L));
+
+		signIn(2L);
+		assertFalse(userSecurity.ownsAccount(10L));
+	}
+
+	@Test
+	void anonymousCallersOwnNothing() {
+		assertFalse(userSecurity.ownsAccount(10L));
+		assertFalse(userSecurity.isCurrentUser(1L));
+	}
+
+	@Test
+	void matchesTheCurrentUser() {
+		signIn(1L);
+
+		assertTrue(userSecurity.isCurrentUser(1L));
+		assertFalse(userSecurity.isCurrentUser(2L));
+	}
+
+	private static void signIn(Long userId) {
+		User user = User.builder().userId(userId).email("user" + userId + "@example.com").role(Role.USER).build();
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.banking.dto.UserDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserLookupFlightsTest {
+
+    private final UserLookupFlights flights = new UserLookupFlights(Duration.ofSeconds(10),
+        new SimpleMeterRegistry());
+    /** Stands in for the row in the database; renamed by the simulated write. */
+    private final AtomicReference<String> storedUsername = new AtomicReference<>("jane");
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readsStartedBeforeACommittedWriteAreNotReused() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // A lookup reads the old row and stalls before returning
+        CompletableFuture<Optional<UserDTO>> stale = CompletableFuture.supplyAsync(() ->
+            flights.byId().execute(1L, () -> {
+                UserDTO snapshot = load();
+                loading.countDown();
+                await(release);
+                return Optional.of(snapshot);
+            }));
+        try {
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // A write commits while that lookup is still in flight
+            TransactionSynchronizationManager.initSynchronization();
+            storedUsername.set("jane.doe");
+            flights.forgetAfterCommit(1L, "jane@example.com");
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+
+            // A reader arriving after the commit must not join the stale lookup
+            Optional<UserDTO> fresh = flights.byId().execute(1L, () -> Optional.of(load()));
+            assertEquals("jane.doe", fresh.orElseThrow().getUsername());
+            assertEquals(2, flights.byId().executionCount());
+            assertEquals(0, flights.byId().collapsedCount());
+        } finally {
+            release.countDown();
+        }
+        assertEquals("jane", stale.get(5, TimeUnit.SECONDS).orElseThrow().getUsername());
+    }
+
+    @Test
+    void forgetWaitsForTheCommit() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Optional<UserDTO>> leader = CompletableFuture.supplyAsync(() ->
+            flights.byId().execute(1L, () -> {
+                UserDTO snapshot = load();
+                loading.countDown();
+                await(release);
+                return Optional.of(snapshot);
+            }));
+        try {
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // Until the writing transaction commits, readers still collapse onto the lookup
+            TransactionSynchronizationManager.initSynchronization();
+            flights.forgetAfterCommit(1L);
+            CompletableFuture<Optional<UserDTO>> joiner = CompletableFuture.supplyAsync(() ->
+                flights.byId().execute(1L, () -> Optional.of(load())));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flights.byId().collapsedCount() < 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(1, flights.byId().collapsedCount());
+            release.countDown();
+            assertEquals(leader.get(5, TimeUnit.SECONDS), joiner.get(5, TimeUnit.SECONDS));
+            assertEquals(1, flights.byId().executionCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private UserDTO load() {
+        UserDTO user = new UserDTO();
+        user.setUserId(1L);
+        user.setEmail("jane@example.com");
+        user.setUsername(storedUsername.get());
+        return user;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.banking.cluster.InvalidationEvent;
+import com.example.banking.cluster.InvalidationType;
+import com.example.banking.dto.UserDTO;
+import com.example.banking.support.ServiceSliceConfig;
+
+/**
+ * The search index follows users created on this node directly and users
+ * created on other nodes through the invalidation bus.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ServiceSliceConfig.class)
+class UserSearchServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        ServiceSliceConfig.deleteAll(jdbcTemplate);
+    }
+
+    @Test
+    void indexesUsersCreatedOnThisNode() {
+        Long userId = userService.createUser(user("grace")).getUserId();
+
+        assertEquals(List.of(userId), userSearchService.search("grace", 0, 10).userIds());
+    }
+
+    @Test
+    void indexesUsersCreatedOnAnotherNode() {
+        Long userId = userService.createUser(user("heidi")).getUserId();
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM invalidation_log WHERE event_type = 'USER_CREATED' AND user_id = ?",
+            Integer.class, userId));
+
+        // This node never saw the write; only the published event reaches it
+        userSearchService.removeAfterCommit(userId);
+        assertEquals(List.of(), userSearchService.search("heidi", 0, 10).userIds());
+        userSearchService.onInvalidation(new InvalidationEvent(1, InvalidationType.USER_CREATED, userId,
+            List.of("heidi@example.com"), "other-node", Instant.now()), true);
+
+        assertEquals(List.of(userId), userSearchService.search("heidi", 0, 10).userIds());
+    }
+
+    private static UserDTO user(String name) {
+        UserDTO user = new UserDTO();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPhone(String.format("+49%09d", Math.abs(name.hashCode() % 1_000_000_000L)));
+        user.setPassword("correct-horse");
+        return user;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.banking.service;
+
+import static com.example.banking.support.SqlCaptureExtension.assertStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.banking.dto.UserDTO;
+import com.example.banking.dto.UserField;
+import com.example.banking.entity.Status;
+import com.example.banking.support.ServiceSliceConfig;
+import com.example.banking.support.SqlCaptureExtension;
+import com.example.banking.util.QueryRecorder.Recording;
+
+/**
+ * Pins the number and shape of the SQL statements behind every
+ * {@link UserServiceImpl} operation. A failing count means a change added
+ * round trips; update the expectation only if that was intended.
+ */
+@DataJpaTest(properties = "banking.query-capture.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ServiceSliceConfig.class)
+@ExtendWith(SqlCaptureExtension.class)
+class UserServiceQueryCountTest {
+
+    private static final AtomicInteger RUN = new AtomicInteger();
+    private static final String PASSWORD = "correct-horse";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Unique per test: the search index and the caches outlive the rows
+    private String tag;
+    private int run;
+    private UserDTO alice;
+
+    @BeforeEach
+    void setUp() {
+        run = RUN.incrementAndGet();
+        tag = String.format("t%06dx", run);
+        alice = userService.createUser(user(1, "alice"));
+        userService.createUser(user(2, "bob"));
+        userService.createUser(user(3, "carol"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ServiceSliceConfig.deleteAll(jdbcTemplate);
+    }
+
+    @Test
+    void createUser(Recording sql) {
+        userService.createUser(user(4, "dave"));
+
+        // Username, email and phone are each checked against live and archived users
+        assertStatements(sql, "select users", "select users_archive", "select users", "select users_archive",
+            "select users", "select users_archive", "insert users", "insert invalidation_log");
+    }
+
+    @Test
+    void getUserById(Recording sql) {
+        userService.getUserById(alice.getUserId());
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void getUserByIdWithFields(Recording sql) {
+        userService.getUserById(alice.getUserId(), EnumSet.of(UserField.USER_ID, UserField.EMAIL));
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void getUserVersion(Recording sql) {
+        userService.getUserVersion(alice.getUserId());
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void getUserByUsername(Recording sql) {
+        userService.getUserByUsername(alice.getUsername());
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void getUserByEmail(Recording sql) {
+        userService.getUserByEmail(alice.getEmail());
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void getUsersByStatus(Recording sql) {
+        userService.getUsersByStatus(Status.INACTIVE);
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void getAllUsers(Recording sql) {
+        userService.getAllUsers(PageRequest.of(0, 2, Sort.by("userId")));
+
+        assertStatements(sql, "select users", "select users");
+    }
+
+    @Test
+    void getAllUsersWithFields(Recording sql) {
+        userService.getAllUsers(PageRequest.of(0, 2, Sort.by("userId")), EnumSet.of(UserField.USERNAME));
+
+        assertStatements(sql, "select users", "select users");
+    }
+
+    @Test
+    void searchUsers(Recording sql) {
+        assertEquals(3, userService.searchUsers(tag, PageRequest.of(0, 10)).getContent().size());
+
+        // One query for the whole page, however many hits it has
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void updateUser(Recording sql) {
+        alice.setPhone(phone(9));
+        userService.updateUser(alice.getUserId(), alice);
+
+        // Only the changed phone number is checked for uniqueness
+        assertStatements(sql, "select users", "select users", "select users_archive", "insert invalidation_log",
+            "update users");
+    }
+
+    @Test
+    void deleteUser(Recording sql) {
+        userService.deleteUser(alice.getUserId());
+
+        assertStatements(sql, "select users", "insert invalidation_log", "delete users");
+    }
+
+    @Test
+    void activateUser(Recording sql) {
+        userService.activateUser(alice.getUserId());
+
+        assertStatements(sql, "select users", "insert invalidation_log", "update users");
+    }
+
+    @Test
+    void suspendUser(Recording sql) {
+        userService.suspendUser(alice.getUserId());
+
+        assertStatements(sql, "select users", "insert invalidation_log", "update users");
+    }
+
+    @Test
+    void changePassword(Recording sql) {
+        userService.changePassword(alice.getUserId(), PASSWORD, "battery-staple");
+
+        assertStatements(sql, "select users", "insert invalidation_log", "update users");
+    }
+
+    @Test
+    void changePasswordRejected(Recording sql) {
+        assertThrows(IllegalArgumentException.class,
+            () -> userService.changePassword(alice.getUserId(), "wrong", "battery-staple"));
+
+        assertStatements(sql, "select users");
+    }
+
+    @Test
+    void availabilityOfAFreeValue(Recording sql) {
+        assertTrue(userService.isUsernameAvailable("nobody-" + tag));
+
+        assertStatements(sql, "select users", "select users_archive");
+    }
+
+    @Test
+    void availabilityOfATakenValue(Recording sql) {
+        assertFalse(userService.isEmailAvailable(alice.getEmail()));
+
+        assertStatements(sql, "select users");
+    }
+
+    private UserDTO user(int index, String name) {
+        UserDTO user = new UserDTO();
+        user.setUsername(name + "-" + tag);
+        user.setEmail(name + "." + tag + "@example.com");
+        user.setPhone(phone(index));
+        user.setPassword(PASSWORD);
+        return user;
+    }
+
+    private String phone(int index) {
+        return String.format("+1%09d%d", run, index);
+    }
+}
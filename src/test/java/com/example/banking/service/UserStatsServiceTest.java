@@ -0,0 +1,157 @@
+package com.example.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.example.banking.cluster.InvalidationEvent;
+import com.example.banking.cluster.InvalidationType;
+import com.example.banking.dto.UserStatsDTO;
+import com.example.banking.entity.Role;
+import com.example.banking.entity.Status;
+import com.example.banking.entity.User;
+import com.example.banking.repository.ArchivedUserRepository;
+import com.example.banking.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserStatsServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ArchivedUserRepository archivedUserRepository = mock(ArchivedUserRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UserStatsService stats = new UserStatsService(userRepository, archivedUserRepository,
+        registry, 30);
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void tracksWritesAfterLoadingFromTheDatabase() {
+        database(List.of(row(Status.ACTIVE, Role.USER, 5), row(Status.ACTIVE, Role.ADMIN, 1)),
+            List.of(signups(today, 2)));
+        stats.load();
+
+        User user = user(Status.INACTIVE, Role.USER);
+        stats.createdAfterCommit(user);
+        user.activate();
+        stats.statusChangedAfterCommit(Status.INACTIVE, user);
+
+        UserStatsDTO snapshot = stats.snapshot(7);
+        assertEquals(7, snapshot.getTotal());
+        assertEquals(7, snapshot.getByStatus().get(Status.ACTIVE));
+        assertEquals(0, snapshot.getByStatus().get(Status.INACTIVE));
+        assertEquals(6, snapshot.getByRole().get(Role.USER));
+        assertEquals(3, snapshot.getSignupsPerDay().get(today));
+        assertEquals(7, snapshot.getSignupsPerDay().size());
+    }
+
+    @Test
+    void countsArchivedUsers() {
+        database(List.of(row(Status.ACTIVE, Role.USER, 5)), List.of(signups(today, 1)));
+        when(archivedUserRepository.countByStatusAndRole()).thenReturn(List.<Object[]>of(row(Status.INACTIVE,
+            Role.USER, 3), row(Status.ACTIVE, Role.USER, 1)));
+        stats.load();
+
+        assertEquals(9, stats.snapshot(1).getTotal());
+        assertEquals(6, stats.snapshot(1).getByStatus().get(Status.ACTIVE));
+    }
+
+    @Test
+    void reconciliationRepairsDrift() {
+        database(List.of(row(Status.ACTIVE, Role.USER, 5)), List.of(signups(today, 5)));
+        stats.load();
+
+        // A user deleted behind the service's back
+        database(List.of(row(Status.ACTIVE, Role.USER, 4)), List.of(signups(today, 4)));
+        assertEquals(2, stats.reconcile());
+        assertEquals(4, stats.snapshot(1).getTotal());
+        assertEquals(4, stats.snapshot(1).getSignupsPerDay().get(today));
+        assertEquals(1, registry.get("user.stats.drift").tag("dimension", "status-role").counter().count());
+
+        assertEquals(0, stats.reconcile());
+    }
+
+    @Test
+    void recountsWithCommitsHeldOffWhenWritesKeepOverlapping() {
+        User user = user(Status.ACTIVE, Role.USER);
+        AtomicInteger scans = new AtomicInteger();
+        when(userRepository.countByStatusAndRole()).thenAnswer(invocation -> {
+            if (scans.incrementAndGet() <= 3) {
+                // A write lands during every unfenced recount
+                stats.createdAfterCommit(user);
+            }
+            return List.<Object[]>of(row(Status.ACTIVE, Role.USER, 5));
+        });
+        when(userRepository.countSignupsPerDaySince(any())).thenReturn(List.<Object[]>of(signups(today, 5)));
+
+        stats.load();
+
+        assertTrue(stats.isLoaded());
+        assertEquals(4, scans.get());
+        assertEquals(5, stats.snapshot(1).getTotal());
+        assertEquals(5, stats.snapshot(1).getSignupsPerDay().get(today));
+    }
+
+    @Test
+    void retriesAFailedLoad() {
+        when(userRepository.countByStatusAndRole())
+            .thenThrow(new DataAccessResourceFailureException("database unavailable"))
+            .thenReturn(List.<Object[]>of(row(Status.ACTIVE, Role.USER, 5)));
+        when(userRepository.countSignupsPerDaySince(any())).thenReturn(List.<Object[]>of(signups(today, 5)));
+
+        stats.load();
+        assertFalse(stats.isLoaded());
+
+        stats.loadIfNeeded();
+        assertTrue(stats.isLoaded());
+        assertEquals(5, stats.snapshot(1).getTotal());
+    }
+
+    @Test
+    void otherNodesWritesAreNotDrift() {
+        database(List.of(row(Status.ACTIVE, Role.USER, 5)), List.of(signups(today, 5)));
+        stats.load();
+
+        // Another node registered a user
+        stats.onInvalidation(new InvalidationEvent(1, InvalidationType.USER_CREATED, 6L, List.of(),
+            "other-node", Instant.now()), true);
+        database(List.of(row(Status.ACTIVE, Role.USER, 6)), List.of(signups(today, 6)));
+        assertEquals(0, stats.reconcile());
+        assertEquals(6, stats.snapshot(1).getTotal());
+        assertEquals(0, registry.get("user.stats.drift").tag("dimension", "status-role").counter().count());
+
+        // With no write reported by another node, a difference is drift again
+        database(List.of(row(Status.ACTIVE, Role.USER, 5)), List.of(signups(today, 5)));
+        assertEquals(2, stats.reconcile());
+    }
+
+    private void database(List<Object[]> counts, List<Object[]> signups) {
+        when(userRepository.countByStatusAndRole()).thenReturn(counts);
+        when(userRepository.countSignupsPerDaySince(any())).thenReturn(signups);
+    }
+
+    private static Object[] row(Status status, Role role, long count) {
+        return new Object[] {status, role, count};
+    }
+
+    private static Object[] signups(LocalDate day, long count) {
+        return new Object[] {day, count};
+    }
+
+    private static User user(Status status, Role role) {
+        User user = User.builder().status(status).role(role).build();
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.banking.support;
+
+import java.time.Duration;
+
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.banking.batch.UserArchiver;
+import com.example.banking.config.AuditConfig;
+import com.example.banking.config.ClusterConfig;
+import com.example.banking.config.QueryCaptureConfig;
+import com.example.banking.security.AuthenticationService;
+import com.example.banking.security.JwtService;
+import com.example.banking.security.PasswordResetTokenService;
+import com.example.banking.security.UserDetailsServiceImpl;
+import com.example.banking.service.UserArchiveService;
+import com.example.banking.service.UserLookupFlights;
+import com.example.banking.service.UserSearchService;
+import com.example.banking.service.UserServiceImpl;
+import com.example.banking.service.UserStatsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The user and authentication services with their real collaborators on top
+ * of a {@code @DataJpaTest} slice, for tests that count the SQL of whole
+ * service operations. Mail is mocked.
+ */
+@TestConfiguration
+@Import({QueryCaptureConfig.class, ClusterConfig.class, AuditConfig.class, UserServiceImpl.class,
+		UserLookupFlights.class, UserSearchService.class, UserStatsService.class, UserArchiveService.class,
+		UserDetailsServiceImpl.class, AuthenticationService.class, JwtService.class,
+		PasswordResetTokenService.class})
+public class ServiceSliceConfig {
+
+	/**
+	 * Removes what the services write, for tests that run outside a rolled
+	 * back transaction.
+	 */
+	public static void deleteAll(JdbcTemplate jdbcTemplate) {
+		for (String table : new String[] {"password_reset_tokens", "invalidation_log", "users_archive", "users"}) {
+			jdbcTemplate.update("DELETE FROM " + table);
+		}
+	}
+
+	@Bean
+	MeterRegistry meterRegistry() {
+		return new SimpleMeterRegistry();
+	}
+
+	@Bean
+	PasswordEncoder passwordEncoder() {
+		// Minimum cost: the tests count statements, not hashing
+		return new BCryptPasswordEncoder(4);
+	}
+
+	@Bean
+	UserArchiver userArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry) {
+		return new UserArchiver(jdbcTemplate, new TransactionTemplate(transactionManager), 500,
+				Duration.ZERO, meterRegistry);
+	}
+
+	@Bean
+	AuthenticationManager authenticationManager(UserDetailsService userDetailsService,
+			PasswordEncoder passwordEncoder) {
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+		provider.setUserDetailsService(userDetailsService);
+		return new ProviderManager(provider);
+	}
+
+	@Bean
+	JavaMailSender javaMailSender() {
+		return Mockito.mock(JavaMailSender.class);
+	}
+}
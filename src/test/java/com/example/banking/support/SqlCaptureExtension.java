@@ -0,0 +1,63 @@
+package com.example.banking.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import com.example.banking.util.QueryRecorder;
+import com.example.banking.util.QueryRecorder.Recording;
+
+/**
+ * Records the SQL a test method issues, excluding {@code @BeforeEach} set-up,
+ * and hands the {@link Recording} to the method as a parameter. Needs
+ * {@code banking.query-capture.enabled=true} and {@code QueryCaptureConfig}
+ * in the test context.
+ */
+public class SqlCaptureExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
+
+	private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace
+			.create(SqlCaptureExtension.class);
+
+	/**
+	 * Asserts the exact statement shapes, in order; see
+	 * {@link QueryRecorder#shape(String)}.
+	 */
+	public static void assertStatements(Recording recording, String... shapes) {
+		assertEquals(List.of(shapes), recording.shapes(),
+				() -> "SQL issued:\n  " + String.join("\n  ", recording.statements()));
+	}
+
+	@Override
+	public void beforeTestExecution(ExtensionContext context) {
+		recording(context);
+	}
+
+	@Override
+	public void afterTestExecution(ExtensionContext context) {
+		Recording recording = context.getStore(NAMESPACE).remove(Recording.class, Recording.class);
+		if (recording != null) {
+			recording.close();
+		}
+	}
+
+	@Override
+	public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+		return parameterContext.getParameter().getType() == Recording.class;
+	}
+
+	@Override
+	public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+		return recording(extensionContext);
+	}
+
+	private static Recording recording(ExtensionContext context) {
+		return context.getStore(NAMESPACE).getOrComputeIfAbsent(Recording.class, key -> QueryRecorder.start(),
+				Recording.class);
+	}
+}
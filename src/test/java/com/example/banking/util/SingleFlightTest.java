@@ -0,0 +1,111 @@
+package com.example.banking.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+	private static final int CALLERS = 16;
+
+	@Test
+	void concurrentMissesForTheSameKeyRunOneLoad() throws Exception {
+		SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10));
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			results.add(executor.submit(() -> flight.execute(1L, () -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return "user-1";
+			})));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			for (int i = 1; i < CALLERS; i++) {
+				results.add(executor.submit(() -> flight.execute(1L, () -> {
+					loads.incrementAndGet();
+					return "unexpected";
+				})));
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (flight.collapsedCount() < CALLERS - 1 && System.nanoTime() < deadline) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("user-1", result.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, loads.get());
+			assertEquals(1, flight.executionCount());
+			assertEquals(CALLERS - 1, flight.collapsedCount());
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void failuresReachEveryWaiterAndAreNotRetained() throws Exception {
+		SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+				loading.countDown();
+				await(release);
+				throw new IllegalStateException("database down");
+			}));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			Future<String> waiter = executor.submit(() -> flight.execute(1L, () -> "unexpected"));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (flight.collapsedCount() < 1 && System.nanoTime() < deadline) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+
+			assertFailed(leader);
+			assertFailed(waiter);
+			assertEquals("recovered", flight.execute(1L, () -> "recovered"));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static void assertFailed(Future<String> future) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			return;
+		}
+		throw new AssertionError("Expected the load to fail");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,292 @@
+package com.example.banking.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.banking.config.BulkheadDataSource;
+import com.example.banking.util.AdaptiveLimit;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class BulkheadFilterTest {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkheadFilterTest.class);
+
+	private static final String AUTH_PATH = "/api/v1/auth/authenticate";
+	private static final String USERS_PATH = "/api/v1/users/1";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private HikariDataSource pool;
+
+	@BeforeEach
+	void setUp() {
+		pool = new HikariDataSource();
+		pool.setJdbcUrl("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1");
+		pool.setUsername("sa");
+		pool.setMaximumPoolSize(10);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	void shedsRequestsOverTheLimitWithA503() throws Exception {
+		Bulkhead auth = bulkhead("auth", "/api/v1/auth/", new AdaptiveLimit(1, 1, 1, 0.9, 2.0), 0);
+		BulkheadFilter filter = new BulkheadFilter(List.of(auth));
+		CountDownLatch inside = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> first = executor.submit(() -> {
+				filter.doFilter(request(AUTH_PATH), new MockHttpServletResponse(), (request, response) -> {
+					inside.countDown();
+					await(release);
+				});
+				return null;
+			});
+			assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+			MockHttpServletResponse shed = new MockHttpServletResponse();
+			filter.doFilter(request(AUTH_PATH), shed, (request, response) -> {
+				throw new AssertionError("admitted over the limit");
+			});
+			assertEquals(503, shed.getStatus());
+			assertEquals("1", shed.getHeader("Retry-After"));
+			assertEquals(1, registry.get("bulkhead.rejected").tag("group", "auth").tag("reason", "concurrency")
+					.counter().count());
+
+			// Other groups are not affected
+			MockHttpServletResponse other = new MockHttpServletResponse();
+			filter.doFilter(request(USERS_PATH), other, (request, response) -> {
+			});
+			assertEquals(200, other.getStatus());
+
+			release.countDown();
+			first.get(5, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void shedsRequestsThatExhaustTheConnectionBudget() throws Exception {
+		Bulkhead users = bulkhead("users", "/api/v1/users", new AdaptiveLimit(10, 1, 10, 0.9, 2.0), 1);
+		BulkheadFilter filter = new BulkheadFilter(List.of(users));
+		DataSource dataSource = new BulkheadDataSource(pool);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request(USERS_PATH), response, (request, ignored) -> {
+			try (Connection held = dataSource.getConnection()) {
+				dataSource.getConnection();
+			} catch (SQLException e) {
+				throw new DataAccessResourceFailureException("no connection", e);
+			}
+		});
+
+		assertEquals(503, response.getStatus());
+		assertEquals(1, registry.get("bulkhead.rejected").tag("reason", "connections").counter().count());
+		// The permit was returned with the connection
+		assertEquals(1, registry.get("bulkhead.connections.available").gauge().value());
+	}
+
+	@Test
+	void executorTasksAreChargedToTheDecoratingGroup() throws Exception {
+		Bulkhead auth = bulkhead("auth", "/api/v1/auth/", new AdaptiveLimit(10, 1, 10, 0.9, 2.0), 1);
+		DataSource dataSource = new BulkheadDataSource(pool);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> task = executor.submit(auth.taskDecorator().decorate(() -> {
+				assertEquals(auth, Bulkhead.current());
+				try (Connection held = dataSource.getConnection()) {
+					assertEquals(0, registry.get("bulkhead.connections.available").gauge().value());
+					dataSource.getConnection();
+					throw new AssertionError("connection outside the budget");
+				} catch (Bulkhead.ConnectionBudgetExceededException expected) {
+					// The second connection is over the group's budget
+				} catch (SQLException e) {
+					throw new DataAccessResourceFailureException("no connection", e);
+				}
+			}));
+			task.get(5, TimeUnit.SECONDS);
+
+			assertEquals(1, registry.get("bulkhead.connections.available").gauge().value());
+			assertNull(executor.submit(Bulkhead::current).get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void limitFollowsLatency() throws Exception {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 2, 50, 0.5, 2.0);
+		for (int i = 0; i < 20; i++) {
+			sample(limit, 9, Duration.ofMillis(1));
+		}
+		int grown = limit.limit();
+		assertTrue(grown > 10, "limit grew to " + grown);
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (limit.limit() >= grown && System.nanoTime() < deadline) {
+			sample(limit, 1, Duration.ofMillis(20));
+			Thread.sleep(1);
+		}
+		assertTrue(limit.limit() < grown, "limit stayed at " + limit.limit());
+	}
+
+	/**
+	 * Overloads the auth group while a few clients call user endpoints, once
+	 * on a shared pool and once with bulkheads, and compares the latency seen
+	 * by the user endpoints.
+	 */
+	@Test
+	@Tag("benchmark")
+	void overloadedAuthLeavesUsersLatencyIntact() throws Exception {
+		Duration duration = Duration.ofSeconds(10);
+		double sharedP99 = 0;
+		for (boolean isolated : new boolean[] {false, true}) {
+			List<Bulkhead> bulkheads = isolated
+					? List.of(bulkhead("auth", "/api/v1/auth/", new AdaptiveLimit(8, 2, 64, 0.9, 2.0), 4),
+							bulkhead("users", "/api/v1/users", new AdaptiveLimit(8, 2, 64, 0.9, 2.0), 4))
+					: List.of();
+			BulkheadFilter filter = new BulkheadFilter(bulkheads);
+			DataSource dataSource = new BulkheadDataSource(pool);
+			AtomicInteger authShed = new AtomicInteger();
+			List<Long> usersLatencies = new ArrayList<>();
+
+			AtomicInteger usersShed = new AtomicInteger();
+
+			ExecutorService clients = Executors.newFixedThreadPool(64);
+			try {
+				long end = System.nanoTime() + duration.toNanos();
+				List<Future<?>> futures = new ArrayList<>();
+				for (int i = 0; i < 60; i++) {
+					futures.add(clients.submit(() -> {
+						while (System.nanoTime() < end) {
+							MockHttpServletResponse response = new MockHttpServletResponse();
+							filter.doFilter(request(AUTH_PATH), response, work(dataSource, Duration.ofMillis(20)));
+							if (response.getStatus() == 503) {
+								authShed.incrementAndGet();
+								Thread.sleep(5);
+							}
+						}
+						return null;
+					}));
+				}
+				for (int i = 0; i < 4; i++) {
+					futures.add(clients.submit(() -> {
+						List<Long> latencies = new ArrayList<>();
+						while (System.nanoTime() < end) {
+							MockHttpServletResponse response = new MockHttpServletResponse();
+							long started = System.nanoTime();
+							filter.doFilter(request(USERS_PATH), response, work(dataSource, Duration.ofMillis(2)));
+							latencies.add(System.nanoTime() - started);
+							if (response.getStatus() == 503) {
+								usersShed.incrementAndGet();
+							}
+						}
+						synchronized (usersLatencies) {
+							usersLatencies.addAll(latencies);
+						}
+						return null;
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} finally {
+				clients.shutdownNow();
+			}
+
+			usersLatencies.sort(null);
+			double p99 = percentile(usersLatencies, 0.99);
+			log.info("isolated={} users: requests={} p50={}ms p99={}ms shed={} auth shed={}", isolated,
+					usersLatencies.size(), percentile(usersLatencies, 0.50), p99, usersShed.get(), authShed.get());
+			if (!isolated) {
+				sharedP99 = p99;
+				continue;
+			}
+			assertTrue(authShed.get() > 0, "the overloaded auth group shed nothing");
+			assertTrue(p99 < sharedP99, "isolated p99 " + p99 + "ms, shared " + sharedP99 + "ms");
+			// A 2ms query should not wait behind the auth group's 20ms ones
+			assertTrue(p99 < 50, "isolated p99 " + p99 + "ms");
+		}
+	}
+
+	private Bulkhead bulkhead(String name, String path, AdaptiveLimit limit, int connections) {
+		return new Bulkhead(name, List.of(path), limit, connections, Duration.ofMillis(100), registry);
+	}
+
+	private static FilterChain work(DataSource dataSource, Duration queryTime) {
+		return (request, response) -> {
+			try (Connection connection = dataSource.getConnection()) {
+				connection.createStatement().execute("SELECT 1");
+				// Stands in for the query's server time, during which the connection is held
+				Thread.sleep(queryTime.toMillis());
+			} catch (SQLException e) {
+				throw new DataAccessResourceFailureException("query failed", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	private static void sample(AdaptiveLimit limit, int concurrent, Duration latency) {
+		int acquired = 0;
+		while (acquired < concurrent && limit.tryAcquire()) {
+			acquired++;
+		}
+		for (int i = 0; i < acquired; i++) {
+			limit.release(latency.toNanos());
+		}
+	}
+
+	private static MockHttpServletRequest request(String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setServletPath(path);
+		return request;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static double percentile(List<Long> sorted, double quantile) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1)) / 1e6;
+	}
+}
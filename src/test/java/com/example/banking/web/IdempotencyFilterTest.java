@@ -0,0 +1,161 @@
+package com.example.banking.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import com.example.banking.repository.IdempotencyRecordRepository;
+import com.example.banking.service.IdempotencyService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+
+class IdempotencyFilterTest {
+
+	private static final String PATH = "/api/v1/users";
+
+	private final IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyService(
+			mock(IdempotencyRecordRepository.class), Duration.ofHours(1), 100, 100, 200));
+
+	@Test
+	void replaysTheStoredResponseForADuplicateKey() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		FilterChain chain = created(executions);
+
+		MockHttpServletResponse first = send("key-1", "{\"name\":\"a\"}", chain);
+		MockHttpServletResponse second = send("key-1", "{\"name\":\"a\"}", chain);
+
+		assertEquals(1, executions.get());
+		assertEquals(201, first.getStatus());
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(201, second.getStatus());
+		assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(first.getContentAsString(), second.getContentAsString());
+	}
+
+	@Test
+	void rejectsAReusedKeyWithADifferentBody() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		FilterChain chain = created(executions);
+
+		send("key-2", "{\"name\":\"a\"}", chain);
+		MockHttpServletResponse mismatch = send("key-2", "{\"name\":\"b\"}", chain);
+
+		assertEquals(1, executions.get());
+		assertEquals(422, mismatch.getStatus());
+	}
+
+	@Test
+	void answersConflictWhileTheFirstRequestIsInFlight() throws Exception {
+		CountDownLatch inside = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		FilterChain slow = (req, res) -> {
+			inside.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			((HttpServletResponse) res).setStatus(201);
+		};
+
+		CompletableFuture<MockHttpServletResponse> leader = CompletableFuture.supplyAsync(() -> {
+			try {
+				return send("key-3", "{}", slow);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		try {
+			assertTrue(inside.await(5, TimeUnit.SECONDS));
+			MockHttpServletResponse concurrent = send("key-3", "{}", created(new AtomicInteger()));
+			assertEquals(409, concurrent.getStatus());
+		} finally {
+			release.countDown();
+		}
+		assertEquals(201, leader.get(5, TimeUnit.SECONDS).getStatus());
+	}
+
+	@Test
+	void doesNotCacheServerErrors() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		FilterChain failing = (req, res) -> {
+			executions.incrementAndGet();
+			((HttpServletResponse) res).setStatus(503);
+		};
+
+		send("key-4", "{}", failing);
+		MockHttpServletResponse retry = send("key-4", "{}", failing);
+
+		assertEquals(2, executions.get());
+		assertEquals(503, retry.getStatus());
+		assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	void cachedBodySupportsNonBlockingReads() throws Exception {
+		AtomicBoolean allRead = new AtomicBoolean();
+		FilterChain chain = (req, res) -> {
+			ServletInputStream in = req.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					assertEquals("{\"name\":\"a\"}", StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allRead.set(true);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					throw new AssertionError(t);
+				}
+			});
+			((HttpServletResponse) res).setStatus(201);
+		};
+
+		send("key-5", "{\"name\":\"a\"}", chain);
+
+		assertTrue(allRead.get());
+	}
+
+	private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+		request.setServletPath(PATH);
+		request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	private static FilterChain created(AtomicInteger executions) {
+		return (req, res) -> {
+			int n = executions.incrementAndGet();
+			HttpServletResponse http = (HttpServletResponse) res;
+			http.setStatus(201);
+			http.setContentType("application/json");
+			http.getWriter().write("{\"id\":" + n + "}");
+		};
+	}
+}